@@ -78,6 +78,7 @@ import org.apache.poi.hssf.record.StyleRecord;
 import org.apache.poi.hssf.record.SupBookRecord;
 import org.apache.poi.hssf.record.TabIdRecord;
 import org.apache.poi.hssf.record.UseSelFSRecord;
+import org.apache.poi.hssf.record.aggregates.RecordAggregate.RecordVisitor;
 import org.apache.poi.hssf.record.WindowOneRecord;
 import org.apache.poi.hssf.record.WindowProtectRecord;
 import org.apache.poi.hssf.record.WriteAccessRecord;
@@ -181,6 +182,8 @@ public final class InternalWorkbook {
 	private int numfonts;
     /** holds the max format id */
 	private int maxformatid;
+    /** the number of modifications of the extended format records */
+    private int cellStyleModCount;
     /** whether 1904 date windowing is being used */
     private boolean uses1904datewindowing;
     private DrawingManager2 drawingManager;
@@ -883,6 +886,7 @@ public final class InternalWorkbook {
     public void removeExFormatRecord(ExtendedFormatRecord rec) {
         records.remove(rec); // this updates XfPos for us
         numxfs--;
+        cellStyleModCount++;
     }
 
     /**
@@ -896,6 +900,23 @@ public final class InternalWorkbook {
         int xfptr = records.getXfpos() - (numxfs - 1) + index;
         records.remove(xfptr); // this updates XfPos for us
         numxfs--;
+        cellStyleModCount++;
+    }
+
+    /**
+     * Records that the properties of an ExtendedFormat record have been changed.
+     */
+    @Internal
+    public void incrementCellStyleModCount() {
+        cellStyleModCount++;
+    }
+
+    /**
+     * @return the number of changes to the ExtendedFormat records so far
+     */
+    @Internal
+    public int getCellStyleModCount() {
+        return cellStyleModCount;
     }
 
 
@@ -1053,13 +1074,27 @@ public final class InternalWorkbook {
     public int serialize( int offset, byte[] data ) {
         LOG.log( DEBUG, "Serializing Workbook with offsets" );
 
+        final int[] pos = { 0 };
+        visitContainedRecords(r -> pos[0] += r.serialize(pos[0] + offset, data), offset);
+
+        LOG.log( DEBUG, "Exiting serialize workbook" );
+        return pos[0];
+    }
+
+    /**
+     * Visits all records in the worksheet section in the order they are serialized.
+     * This allows to write the Workbook out record by record instead of into a big byte array.
+     *
+     * @param rv the visitor, which receives the records
+     * @param offset the stream position of the workbook records
+     */
+    public void visitContainedRecords(RecordVisitor rv, int offset) {
         int pos = 0;
 
         SSTRecord lSST = null;
         int sstPos = 0;
         boolean wroteBoundSheets = false;
         for ( Record record : records.getRecords() ) {
-            int len = 0;
             if (record instanceof SSTRecord) {
                 lSST = (SSTRecord)record;
                 sstPos = pos;
@@ -1070,18 +1105,16 @@ public final class InternalWorkbook {
             if (record instanceof BoundSheetRecord) {
                  if(!wroteBoundSheets) {
                     for (BoundSheetRecord bsr : boundsheets) {
-                        len += bsr.serialize(pos+offset+len, data);
+                        rv.visitRecord(bsr);
+                        pos += bsr.getRecordSize();
                     }
                     wroteBoundSheets = true;
                  }
             } else {
-               len = record.serialize( pos + offset, data );
+                rv.visitRecord(record);
+                pos += record.getRecordSize();
             }
-            pos += len;
         }
-        
-        LOG.log( DEBUG, "Exiting serialize workbook" );
-        return pos;
     }
 
     /**
@@ -17,6 +17,7 @@
 
 package org.apache.poi.hssf.record.aggregates;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -45,6 +46,9 @@ public final class RowRecordsAggregate extends RecordAggregate {
     // getStartRowNumberForBlock / getEndRowNumberForBlock, see Bugzilla 47405
     private RowRecord[] _rowRecordValues;
 
+    // the row blocks, which have been flushed to a temp file, see flushRowBlocks
+    private SpooledRowBlocks _spooledBlocks;
+
     /** Creates a new instance of ValueRecordsAggregate */
     public RowRecordsAggregate() {
         this(SharedValueManager.createEmpty());
@@ -113,7 +117,7 @@ public final class RowRecordsAggregate extends RecordAggregate {
         _unknownRecords.add(rec);
     }
     public void insertRow(RowRecord row) {
-        // Integer integer = Integer.valueOf(row.getRowNumber());
+        checkNotFlushed(row.getRowNumber());
         _rowRecords.put(Integer.valueOf(row.getRowNumber()), row);
         // Clear the cached values
         _rowRecordValues = null; 
@@ -142,6 +146,14 @@ public final class RowRecordsAggregate extends RecordAggregate {
         _rowRecordValues = null;
     }
 
+    private void checkNotFlushed(int rowIndex) {
+        int lastFlushedRow = getLastFlushedRowNum();
+        if (lastFlushedRow != -1 && rowIndex <= lastFlushedRow) {
+            throw new IllegalArgumentException("Attempting to write a row[" + rowIndex + "] " +
+                    "in the range [0," + lastFlushedRow + "] that is already written to disk.");
+        }
+    }
+
     public RowRecord getRow(int rowIndex) {
         int maxrow = SpreadsheetVersion.EXCEL97.getLastRowIndex();
         if (rowIndex < 0 || rowIndex > maxrow) {
@@ -246,37 +258,13 @@ public final class RowRecordsAggregate extends RecordAggregate {
 
     @Override
     public void visitContainedRecords(RecordVisitor rv) {
-
-        PositionTrackingVisitor stv = new PositionTrackingVisitor(rv, 0);
+        if (_spooledBlocks != null) {
+            _spooledBlocks.visitContainedRecords(rv);
+        }
         //DBCells are serialized before row records.
         final int blockCount = getRowBlockCount();
         for (int blockIndex = 0; blockIndex < blockCount; blockIndex++) {
-            // Serialize a block of rows.
-            // Hold onto the position of the first row in the block
-            int pos=0;
-            // Hold onto the size of this block that was serialized
-            final int rowBlockSize = visitRowRecordsForBlock(blockIndex, rv);
-            pos += rowBlockSize;
-            // Serialize a block of cells for those rows
-            final int startRowNumber = getStartRowNumberForBlock(blockIndex);
-            final int endRowNumber = getEndRowNumberForBlock(blockIndex);
-            DBCellRecord.Builder dbcrBuilder = new DBCellRecord.Builder();
-            // Note: Cell references start from the second row...
-            int cellRefOffset = (rowBlockSize - RowRecord.ENCODED_SIZE);
-            for (int row = startRowNumber; row <= endRowNumber; row++) {
-                if (_valuesAgg.rowHasCells(row)) {
-                    stv.setPosition(0);
-                    _valuesAgg.visitCellsForRow(row, stv);
-                    int rowCellSize = stv.getPosition();
-                    pos += rowCellSize;
-                    // Add the offset to the first cell for the row into the
-                    // DBCellRecord.
-                    dbcrBuilder.addCellOffset(cellRefOffset);
-                    cellRefOffset = rowCellSize;
-                }
-            }
-            // Calculate Offset from the start of a DBCellRecord to the first Row
-            rv.visitRecord(dbcrBuilder.build(pos));
+            visitRowBlock(blockIndex, rv);
         }
         for (Record _unknownRecord : _unknownRecords) {
             // Potentially breaking the file here since we don't know exactly where to write these records
@@ -284,6 +272,107 @@ public final class RowRecordsAggregate extends RecordAggregate {
         }
     }
 
+    private void visitRowBlock(int blockIndex, RecordVisitor rv) {
+        PositionTrackingVisitor stv = new PositionTrackingVisitor(rv, 0);
+        // Serialize a block of rows.
+        // Hold onto the position of the first row in the block
+        int pos=0;
+        // Hold onto the size of this block that was serialized
+        final int rowBlockSize = visitRowRecordsForBlock(blockIndex, rv);
+        pos += rowBlockSize;
+        // Serialize a block of cells for those rows
+        final int startRowNumber = getStartRowNumberForBlock(blockIndex);
+        final int endRowNumber = getEndRowNumberForBlock(blockIndex);
+        DBCellRecord.Builder dbcrBuilder = new DBCellRecord.Builder();
+        // Note: Cell references start from the second row...
+        int cellRefOffset = (rowBlockSize - RowRecord.ENCODED_SIZE);
+        for (int row = startRowNumber; row <= endRowNumber; row++) {
+            if (_valuesAgg.rowHasCells(row)) {
+                stv.setPosition(0);
+                _valuesAgg.visitCellsForRow(row, stv);
+                int rowCellSize = stv.getPosition();
+                pos += rowCellSize;
+                // Add the offset to the first cell for the row into the
+                // DBCellRecord.
+                dbcrBuilder.addCellOffset(cellRefOffset);
+                cellRefOffset = rowCellSize;
+            }
+        }
+        // Calculate Offset from the start of a DBCellRecord to the first Row
+        rv.visitRecord(dbcrBuilder.build(pos));
+    }
+
+    /**
+     * Serializes the complete row blocks, which aren't within the last <code>rowsToKeep</code> rows,
+     * to a temp file and removes their row and cell records from memory.<p>
+     *
+     * Only the rows with a lower row number than the remaining rows can be flushed,
+     * i.e. the rows need to be created in ascending order. Flushed rows can't be accessed or
+     * modified anymore and no rows or cells can be inserted in the flushed range.
+     *
+     * @param rowsToKeep the number of rows, which are kept in memory
+     * @return the row number of the last flushed row, or -1 if no rows have been flushed
+     * @throws IOException if the temp file can't be written
+     */
+    public int flushRowBlocks(int rowsToKeep) throws IOException {
+        final int blocksToFlush = (_rowRecords.size() - Math.max(rowsToKeep, 0)) / DBCellRecord.BLOCK_SIZE;
+        if (blocksToFlush > 0 && _spooledBlocks == null) {
+            _spooledBlocks = new SpooledRowBlocks();
+        }
+
+        final List<Record> blockRecords = new ArrayList<>();
+        final RecordVisitor collector = blockRecords::add;
+        byte[] buf = new byte[0];
+        for (int i = 0; i < blocksToFlush; i++) {
+            // the previous block has been removed, so the next block is always the first one
+            blockRecords.clear();
+            visitRowBlock(0, collector);
+            int blockSize = 0;
+            for (Record r : blockRecords) {
+                blockSize += r.getRecordSize();
+            }
+            if (buf.length < blockSize) {
+                buf = new byte[blockSize];
+            }
+            int offset = 0;
+            for (Record r : blockRecords) {
+                offset += r.serialize(offset, buf);
+            }
+            // the DBCELL record is the last record of the block
+            final int dbCellOffset = blockSize - blockRecords.get(blockRecords.size()-1).getRecordSize();
+            final int lastRowNumber = getEndRowNumberForBlock(0);
+            _spooledBlocks.add(buf, blockSize, dbCellOffset, lastRowNumber);
+
+            Iterator<RowRecord> iter = _rowRecords.values().iterator();
+            for (int r = 0; r < DBCellRecord.BLOCK_SIZE; r++) {
+                _valuesAgg.removeAllCellsValuesForRow(iter.next().getRowNumber());
+                iter.remove();
+            }
+            _rowRecordValues = null;
+        }
+        return getLastFlushedRowNum();
+    }
+
+    /**
+     * @return the row number of the last row, which has been flushed by {@link #flushRowBlocks(int)},
+     *  or -1 if no rows have been flushed
+     */
+    public int getLastFlushedRowNum() {
+        return (_spooledBlocks == null) ? -1 : _spooledBlocks.getLastRowNumber();
+    }
+
+    /**
+     * Removes the temp file of the flushed row blocks. The rows of this aggregate
+     * can't be serialized anymore afterwards, if rows have been flushed.
+     *
+     * @throws IOException if the temp file can't be closed
+     */
+    public void disposeFlushedRows() throws IOException {
+        if (_spooledBlocks != null) {
+            _spooledBlocks.close();
+        }
+    }
+
     public Iterator<RowRecord> getIterator() {
         return _rowRecords.values().iterator();
     }
@@ -454,11 +543,20 @@ public final class RowRecordsAggregate extends RecordAggregate {
         // 0 for now.....
 
         int blockCount = getRowBlockCount();
+        int spooledBlockCount = (_spooledBlocks == null) ? 0 : _spooledBlocks.getBlockCount();
         // Calculate the size of this IndexRecord
-        int indexRecSize = IndexRecord.getRecordSizeForBlockCount(blockCount);
+        int indexRecSize = IndexRecord.getRecordSizeForBlockCount(spooledBlockCount + blockCount);
 
         int currentOffset = indexRecordOffset + indexRecSize + sizeOfInitialSheetRecords;
 
+        for (int block = 0; block < spooledBlockCount; block++) {
+            // the flushed row-blocks are written first and already contain their DBCELL record
+            int dbCellOffset = _spooledBlocks.getDbCellOffset(block);
+            currentOffset += dbCellOffset;
+            result.addDbcell(currentOffset);
+            currentOffset += _spooledBlocks.getBlockSize(block) - dbCellOffset;
+        }
+
         for (int block = 0; block < blockCount; block++) {
             // each row-block has a DBCELL record.
             // The offset of each DBCELL record needs to be updated in the INDEX record
@@ -477,6 +575,7 @@ public final class RowRecordsAggregate extends RecordAggregate {
         return result;
     }
     public void insertCell(CellValueRecordInterface cvRec) {
+        checkNotFlushed(cvRec.getRow());
         _valuesAgg.insertCell(cvRec);
     }
     public void removeCell(CellValueRecordInterface cvRec) {
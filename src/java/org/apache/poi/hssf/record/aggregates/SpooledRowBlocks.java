@@ -0,0 +1,174 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.record.aggregates;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RowRecord;
+import org.apache.poi.hssf.record.aggregates.RecordAggregate.RecordVisitor;
+import org.apache.poi.util.POILogFactory;
+import org.apache.poi.util.POILogger;
+import org.apache.poi.util.TempFile;
+
+/**
+ * Row blocks, i.e. the ROW records, the cell records and the DBCELL record of up to
+ * {@link org.apache.poi.hssf.record.DBCellRecord#BLOCK_SIZE} rows, which have been
+ * serialized to a temp file to keep them out of memory.<p>
+ *
+ * A serialized block doesn't contain absolute stream positions - only the INDEX record
+ * refers to the DBCELL records by their stream offset, which is calculated from the
+ * block sizes when the sheet is written.
+ */
+final class SpooledRowBlocks implements Closeable {
+    private static final POILogger LOG = POILogFactory.getLogger(SpooledRowBlocks.class);
+
+    private final File _file;
+    private final OutputStream _os;
+    private RandomAccessFile _raf;
+    private long _fileSize;
+
+    private long[] _blockPositions = new long[16];
+    private int[] _blockSizes = new int[16];
+    private int[] _dbCellOffsets = new int[16];
+    private int _blockCount;
+    private int _lastRowNumber = -1;
+
+    SpooledRowBlocks() throws IOException {
+        _file = TempFile.createTempFile("poi-hssf-rows", ".tmp");
+        _os = new BufferedOutputStream(new FileOutputStream(_file));
+    }
+
+    /**
+     * Appends a serialized row block
+     *
+     * @param block the buffer containing the serialized records
+     * @param length the size of the block
+     * @param dbCellOffset the offset of the DBCELL record within the block
+     * @param lastRowNumber the row number of the last row in the block
+     */
+    void add(byte[] block, int length, int dbCellOffset, int lastRowNumber) throws IOException {
+        if (_blockCount == _blockSizes.length) {
+            int newSize = _blockCount * 2;
+            _blockPositions = Arrays.copyOf(_blockPositions, newSize);
+            _blockSizes = Arrays.copyOf(_blockSizes, newSize);
+            _dbCellOffsets = Arrays.copyOf(_dbCellOffsets, newSize);
+        }
+        _os.write(block, 0, length);
+        _blockPositions[_blockCount] = _fileSize;
+        _blockSizes[_blockCount] = length;
+        _dbCellOffsets[_blockCount] = dbCellOffset;
+        _blockCount++;
+        _fileSize += length;
+        _lastRowNumber = lastRowNumber;
+    }
+
+    int getBlockCount() {
+        return _blockCount;
+    }
+
+    int getBlockSize(int block) {
+        return _blockSizes[block];
+    }
+
+    int getDbCellOffset(int block) {
+        return _dbCellOffsets[block];
+    }
+
+    /**
+     * @return the row number of the last flushed row
+     */
+    int getLastRowNumber() {
+        return _lastRowNumber;
+    }
+
+    /**
+     * Visits each block as a single record. The block content is only read from the temp file,
+     * when the record is serialized.
+     */
+    void visitContainedRecords(RecordVisitor rv) {
+        for (int block = 0; block < _blockCount; block++) {
+            rv.visitRecord(new SerializedRowBlock(_blockPositions[block], _blockSizes[block]));
+        }
+    }
+
+    private void read(long position, byte[] data, int offset, int length) throws IOException {
+        if (_raf == null) {
+            _raf = new RandomAccessFile(_file, "r");
+        }
+        _os.flush();
+        _raf.seek(position);
+        _raf.readFully(data, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            _os.close();
+            if (_raf != null) {
+                _raf.close();
+            }
+        } finally {
+            if (!_file.delete()) {
+                LOG.log(POILogger.WARN, "Can't delete temporary file of the flushed rows: " + _file);
+            }
+        }
+    }
+
+    /**
+     * The serialized records of a row block
+     */
+    private final class SerializedRowBlock extends Record {
+        private final long _position;
+        private final int _size;
+
+        SerializedRowBlock(long position, int size) {
+            _position = position;
+            _size = size;
+        }
+
+        @Override
+        public short getSid() {
+            // each block starts with a ROW record
+            return RowRecord.sid;
+        }
+
+        @Override
+        public int getRecordSize() {
+            return _size;
+        }
+
+        @Override
+        public int serialize(int offset, byte[] data) {
+            try {
+                read(_position, data, offset, _size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return _size;
+        }
+    }
+}
@@ -94,6 +94,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setDataFormat(short fmt)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setFormatIndex(fmt);
     }
 
@@ -176,6 +177,7 @@ public final class HSSFCellStyle implements CellStyle {
         setFont((HSSFFont)font);
     }
     public void setFont(HSSFFont font) {
+        _workbook.incrementCellStyleModCount();
         _format.setIndentNotParentFont(true);
         short fontindex = font.getIndex();
         _format.setFontIndex(fontindex);
@@ -220,6 +222,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setHidden(boolean hidden)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setIndentNotParentCellOptions(true);
         _format.setHidden(hidden);
     }
@@ -241,6 +244,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setLocked(boolean locked)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setIndentNotParentCellOptions(true);
         _format.setLocked(locked);
     }
@@ -262,6 +266,7 @@ public final class HSSFCellStyle implements CellStyle {
      */
     @Override
     public void setQuotePrefixed(boolean quotePrefix) {
+        _workbook.incrementCellStyleModCount();
         _format.set123Prefix(quotePrefix);
     }
     
@@ -280,6 +285,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setAlignment(HorizontalAlignment align)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setIndentNotParentAlignment(true);
         _format.setAlignment(align.getCode());
     }
@@ -303,6 +309,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setWrapText(boolean wrapped)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setIndentNotParentAlignment(true);
         _format.setWrapText(wrapped);
     }
@@ -324,6 +331,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setVerticalAlignment(VerticalAlignment align)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setVerticalAlignment(align.getCode());
     }
 
@@ -350,6 +358,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setRotation(short rotation)
     {
+        _workbook.incrementCellStyleModCount();
       if (rotation == 0xff) {
           // Special cases for vertically aligned text
       } 
@@ -395,6 +404,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setIndention(short indent)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setIndent(indent);
     }
 
@@ -416,6 +426,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setBorderLeft(BorderStyle border)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setIndentNotParentBorder(true);
         _format.setBorderLeft(border.getCode());
     }
@@ -437,6 +448,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setBorderRight(BorderStyle border)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setIndentNotParentBorder(true);
         _format.setBorderRight(border.getCode());
     }
@@ -458,6 +470,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setBorderTop(BorderStyle border)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setIndentNotParentBorder(true);
         _format.setBorderTop(border.getCode());
     }
@@ -479,6 +492,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setBorderBottom(BorderStyle border)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setIndentNotParentBorder(true);
         _format.setBorderBottom(border.getCode());
     }
@@ -499,6 +513,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setLeftBorderColor(short color)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setLeftBorderPaletteIdx(color);
     }
 
@@ -520,6 +535,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setRightBorderColor(short color)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setRightBorderPaletteIdx(color);
     }
 
@@ -541,6 +557,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setTopBorderColor(short color)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setTopBorderPaletteIdx(color);
     }
 
@@ -562,6 +579,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setBottomBorderColor(short color)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setBottomBorderPaletteIdx(color);
     }
 
@@ -585,6 +603,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setFillPattern(FillPatternType fp)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setAdtlFillPattern(fp.getCode());
     }
 
@@ -652,6 +671,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setFillBackgroundColor(short bg)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setFillBackground(bg);
         checkDefaultBackgroundFills();
     }
@@ -693,6 +713,7 @@ public final class HSSFCellStyle implements CellStyle {
     @Override
     public void setFillForegroundColor(short bg)
     {
+        _workbook.incrementCellStyleModCount();
         _format.setFillForeground(bg);
         checkDefaultBackgroundFills();
     }
@@ -759,6 +780,7 @@ public final class HSSFCellStyle implements CellStyle {
      */
     @Override
     public void setShrinkToFit(boolean shrinkToFit) {
+        _workbook.incrementCellStyleModCount();
         _format.setShrinkToFit(shrinkToFit);
     }
     /**
@@ -790,6 +812,7 @@ public final class HSSFCellStyle implements CellStyle {
      * @param order - the reading order (0,1,2)
      */
     public void setReadingOrder(short order) {
+        _workbook.incrementCellStyleModCount();
         _format.setReadingOrder(order);
     }
     
@@ -828,6 +851,7 @@ public final class HSSFCellStyle implements CellStyle {
         }
     }
     public void cloneStyleFrom(HSSFCellStyle source) {
+        _workbook.incrementCellStyleModCount();
         // First we need to clone the extended format
         //  record
         _format.cloneStyleFrom(source._format);
@@ -17,6 +17,7 @@
 
 package org.apache.poi.hssf.usermodel;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -117,6 +118,7 @@ public final class HSSFSheet implements org.apache.poi.ss.usermodel.Sheet {
     private HSSFPatriarch _patriarch;
     private int _firstrow;
     private int _lastrow;
+    private int _randomAccessWindowSize = -1;
 
     /**
      * Creates new HSSFSheet   - called by HSSFWorkbook to create a sheet from
@@ -149,6 +151,9 @@ public final class HSSFSheet implements org.apache.poi.ss.usermodel.Sheet {
     }
 
     HSSFSheet cloneSheet(HSSFWorkbook workbook) {
+        if (getLastFlushedRowNum() != -1) {
+            throw new IllegalStateException("Sheets with flushed rows can't be cloned");
+        }
         // Aggregate drawing records
         this.getDrawingPatriarch();
         HSSFSheet sheet = new HSSFSheet(workbook, _sheet.cloneSheet());
@@ -260,15 +265,106 @@ public final class HSSFSheet implements org.apache.poi.ss.usermodel.Sheet {
      */
     @Override
     public HSSFRow createRow(int rownum) {
+        int lastFlushedRow = getLastFlushedRowNum();
+        if (lastFlushedRow != -1 && rownum <= lastFlushedRow) {
+            throw new IllegalArgumentException("Attempting to write a row[" + rownum + "] " +
+                    "in the range [0," + lastFlushedRow + "] that is already written to disk.");
+        }
+
         HSSFRow row = new HSSFRow(_workbook, this, rownum);
         // new rows inherit default height from the sheet
         row.setHeight(getDefaultRowHeight());
         row.getRowRecord().setBadFontHeight(false);
 
         addRow(row, true);
+
+        if (_randomAccessWindowSize >= 0 && _rows.size() > _randomAccessWindowSize) {
+            try {
+                flushRows(_randomAccessWindowSize);
+            } catch (IOException ioe) {
+                throw new RuntimeException(ioe);
+            }
+        }
         return row;
     }
 
+    /**
+     * Specifies how many rows can be accessed at most via {@link #getRow(int)}.
+     * When a new row is created via {@link #createRow(int)} and the total number of unflushed
+     * records would exceed the specified value, the rows with the lowest index value are
+     * flushed and cannot be accessed via {@link #getRow(int)} anymore.<p>
+     *
+     * The rows are flushed in blocks of 32 rows to a temp file, which is removed by
+     * {@link HSSFWorkbook#close()}, so up to 31 rows more than the window size are kept
+     * in memory. The rows need to be created in ascending order - flushed rows and cells
+     * can't be read, modified, shifted, cloned or evaluated anymore.<p>
+     *
+     * A value of -1 indicates unlimited access, which is the default.
+     * In this case all records that have not been flushed by a call to {@link #flushRows()}
+     * are available for random access.<p>
+     *
+     * A value of 0 is not allowed because it would flush any newly created row
+     * without having a chance to specify any cells.
+     *
+     * @param value the window size
+     *
+     * @since POI 4.1.1
+     */
+    public void setRandomAccessWindowSize(int value) {
+        if (value == 0 || value < -1) {
+            throw new IllegalArgumentException("RandomAccessWindowSize must be either -1 or a positive integer");
+        }
+        _randomAccessWindowSize = value;
+    }
+
+    /**
+     * @return the random access window size or -1 for unlimited access
+     *
+     * @see #setRandomAccessWindowSize(int)
+     * @since POI 4.1.1
+     */
+    public int getRandomAccessWindowSize() {
+        return _randomAccessWindowSize;
+    }
+
+    /**
+     * Flush the rows to the temp file, keeping at least the last <code>remaining</code> rows
+     * in memory. Only complete blocks of 32 rows are flushed.
+     *
+     * @param remaining the minimum number of rows, which are kept in memory
+     * @throws IOException if the temp file can't be written
+     *
+     * @see #setRandomAccessWindowSize(int)
+     * @since POI 4.1.1
+     */
+    public void flushRows(int remaining) throws IOException {
+        int lastFlushedRow = _sheet.getRowsAggregate().flushRowBlocks(remaining);
+        if (lastFlushedRow != -1) {
+            _rows.headMap(lastFlushedRow, true).clear();
+        }
+    }
+
+    /**
+     * Flush all complete blocks of 32 rows to the temp file.
+     *
+     * @throws IOException if the temp file can't be written
+     *
+     * @see #setRandomAccessWindowSize(int)
+     * @since POI 4.1.1
+     */
+    public void flushRows() throws IOException {
+        flushRows(0);
+    }
+
+    /**
+     * @return the row number of the last flushed row, or -1 if no rows have been flushed
+     *
+     * @since POI 4.1.1
+     */
+    public int getLastFlushedRowNum() {
+        return _sheet.getRowsAggregate().getLastFlushedRowNum();
+    }
+
     /**
      * Used internally to create a high level Row object from a low level row object.
      * USed when reading an existing file
@@ -368,7 +464,7 @@ public final class HSSFSheet implements org.apache.poi.ss.usermodel.Sheet {
         if (addLow) {
             _sheet.addRow(row.getRowRecord());
         }
-        boolean firstRow = _rows.size() == 1;
+        boolean firstRow = _rows.size() == 1 && getLastFlushedRowNum() == -1;
         if (row.getRowNum() > getLastRowNum() || firstRow) {
             _lastrow = row.getRowNum();
         }
@@ -29,6 +29,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
@@ -91,10 +92,9 @@ import org.apache.poi.poifs.crypt.EncryptionVerifier;
 import org.apache.poi.poifs.crypt.Encryptor;
 import org.apache.poi.poifs.filesystem.DirectoryEntry;
 import org.apache.poi.poifs.filesystem.DirectoryNode;
-import org.apache.poi.poifs.filesystem.DocumentNode;
 import org.apache.poi.poifs.filesystem.EntryUtils;
 import org.apache.poi.poifs.filesystem.FilteringDirectoryNode;
-import org.apache.poi.poifs.filesystem.POIFSDocument;
+import org.apache.poi.poifs.filesystem.DocumentOutputStream;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.poifs.filesystem.Ole10Native;
 import org.apache.poi.ss.SpreadsheetVersion;
@@ -104,6 +104,7 @@ import org.apache.poi.ss.formula.SheetNameFormatter;
 import org.apache.poi.ss.formula.udf.AggregatingUDFFinder;
 import org.apache.poi.ss.formula.udf.IndexedUDFFinder;
 import org.apache.poi.ss.formula.udf.UDFFinder;
+import org.apache.poi.ss.usermodel.CellStyleModCountSupport;
 import org.apache.poi.ss.usermodel.Name;
 import org.apache.poi.ss.usermodel.Row.MissingCellPolicy;
 import org.apache.poi.ss.usermodel.Sheet;
@@ -129,7 +130,7 @@ import org.apache.poi.util.POILogger;
  * @see org.apache.poi.hssf.usermodel.HSSFSheet
  */
 @SuppressWarnings("WeakerAccess")
-public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss.usermodel.Workbook {
+public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss.usermodel.Workbook, CellStyleModCountSupport {
 
     //arbitrarily selected; may need to increase
     private static final int MAX_RECORD_LENGTH = 100_000;
@@ -1277,6 +1278,12 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
         return workbook.getNumExFormats();
     }
 
+    @Internal
+    @Override
+    public int getCellStyleModCount() {
+        return workbook.getCellStyleModCount();
+    }
+
     /**
      * get the cell style object at the given index
      * @param idx  index within the set of styles
@@ -1291,7 +1298,8 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
 
     /**
      * Closes the underlying {@link POIFSFileSystem} from which
-     *  the Workbook was read, if any.
+     *  the Workbook was read, if any, and removes the temp files of
+     *  the rows flushed by {@link HSSFSheet#flushRows(int)}.
      *
      * <p>Once this has been called, no further
      *  operations, updates or reads should be performed on the 
@@ -1299,7 +1307,14 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
      */
     @Override
     public void close() throws IOException {
-        super.close();
+        try {
+            // remove the temp files of the flushed rows
+            for (HSSFSheet sheet : _sheets) {
+                sheet.getSheet().getRowsAggregate().disposeFlushedRows();
+            }
+        } finally {
+            super.close();
+        }
     }
 
     /**
@@ -1317,11 +1332,23 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
         validateInPlaceWritePossible();
         final DirectoryNode dir = getDirectory();
         
-        // Update the Workbook stream in the file
-        DocumentNode workbookNode = (DocumentNode)dir.getEntry(
-                getWorkbookDirEntryName(dir));
-        POIFSDocument workbookDoc = new POIFSDocument(workbookNode);
-        workbookDoc.replaceContents(new ByteArrayInputStream(getBytes()));
+        // Update the Workbook stream in the file - it's streamed into a new entry,
+        // so the old one is kept, if the workbook can't be written completely
+        String workbookName = getWorkbookDirEntryName(dir);
+        String tempName = workbookName + "~";
+        while (dir.hasEntry(tempName)) {
+            tempName += "~";
+        }
+        try {
+            writeWorkbookStream(dir, tempName);
+        } catch (IOException|RuntimeException e) {
+            if (dir.hasEntry(tempName)) {
+                dir.getEntry(tempName).delete();
+            }
+            throw e;
+        }
+        dir.getEntry(workbookName).delete();
+        dir.getEntry(tempName).renameTo(workbookName);
         
         // Update the properties streams in the file
         writeProperties();
@@ -1383,7 +1410,7 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
         List<String> excepts = new ArrayList<>(1);
 
         // Write out the Workbook stream
-        fs.createDocument(new ByteArrayInputStream(getBytes()), "Workbook");
+        writeWorkbookStream(fs.getRoot(), "Workbook");
 
         // Write out our HPFS properties, if we have them
         writeProperties(fs, excepts);
@@ -1415,52 +1442,90 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
     }
 
     /**
-     * Totals the sizes of all sheet records and eventually serializes them
+     * Totals the sizes of all sheet records
      */
-    private static final class SheetRecordCollector implements RecordVisitor {
-
-        private List<Record> _list;
+    private static final class SheetRecordSizer implements RecordVisitor {
         private int _totalSize;
 
-        public SheetRecordCollector() {
-            _totalSize = 0;
-            _list = new ArrayList<>(128);
-        }
         public int getTotalSize() {
             return _totalSize;
         }
         @Override
         public void visitRecord(Record r) {
-            _list.add(r);
-            _totalSize+=r.getRecordSize();
+            _totalSize += r.getRecordSize();
+        }
+    }
+
+    /**
+     * Serializes the visited records into a stream. The records are collected in chunks, which only
+     * contain complete records, so the chunks can be encrypted record by record on the fly.
+     */
+    private static final class RecordStreamWriter implements RecordVisitor {
+        private static final int CHUNK_SIZE = 64*1024;
+
+        private final OutputStream _os;
+        private final ChunkedCipherOutputStream _cipher;
+        private final byte[] _chunk = new byte[CHUNK_SIZE];
+        private int _chunkLen;
+        private long _written;
+
+        /**
+         * @param os the target stream
+         * @param cipher the encrypting stream wrapping the target stream, or {@code null} if not encrypted
+         */
+        RecordStreamWriter(OutputStream os, ChunkedCipherOutputStream cipher) {
+            _os = os;
+            _cipher = cipher;
+        }
+
+        @Override
+        public void visitRecord(Record r) {
+            try {
+                final int size = r.getRecordSize();
+                if (_chunkLen + size > _chunk.length) {
+                    flush();
+                }
+                if (size > _chunk.length) {
+                    // e.g. SST records with their continue records, which exceed the chunk size
+                    byte[] buf = new byte[size];
+                    write(buf, r.serialize(0, buf));
+                } else {
+                    _chunkLen += r.serialize(_chunkLen, _chunk);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * @return the number of bytes, which have been serialized so far
+         */
+        long getWritten() {
+            return _written + _chunkLen;
+        }
 
+        void flush() throws IOException {
+            write(_chunk, _chunkLen);
+            _chunkLen = 0;
         }
-        public int serialize(int offset, byte[] data) {
-            int result = 0;
-            for (Record rec : _list) {
-                result += rec.serialize(offset + result, data);
+
+        private void write(byte[] buf, int len) throws IOException {
+            if (_cipher == null) {
+                _os.write(buf, 0, len);
+            } else {
+                encryptRecords(buf, len, _cipher);
             }
-            return result;
+            _written += len;
         }
     }
 
-
     /**
-     * Method getBytes - get the bytes of just the HSSF portions of the XLS file.
-     * Use this to construct a POI POIFSFileSystem yourself.
-     *
+     * Prepares the records for serialization, determines the size of the sheets and sets their BOF offsets.
      *
-     * @return byte[] array containing the binary representation of this workbook and all contained
-     *         sheets, rows, cells, etc.
+     * @param sheets the sheets of this workbook
+     * @return the size of the workbook globals at index 0, followed by the sheet sizes
      */
-    public byte[] getBytes() {
-        if (log.check( POILogger.DEBUG )) {
-            log.log(DEBUG, "HSSFWorkbook.getBytes()");
-        }
-        
-        HSSFSheet[] sheets = getSheets();
-        int nSheets = sheets.length;
-
+    private int[] preSerialize(HSSFSheet[] sheets) {
         updateEncryptionInfo();
 
         // before getting the workbook size we must tell the sheets that
@@ -1471,34 +1536,117 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
             sheet.preSerialize();
         }
 
-        int totalsize = workbook.getSize();
+        int[] sizes = new int[sheets.length+1];
+        int totalsize = sizes[0] = workbook.getSize();
 
         // pre-calculate all the sheet sizes and set BOF indexes
-        SheetRecordCollector[] srCollectors = new SheetRecordCollector[nSheets];
-        for (int k = 0; k < nSheets; k++) {
+        for (int k = 0; k < sheets.length; k++) {
             workbook.setSheetBof(k, totalsize);
-            SheetRecordCollector src = new SheetRecordCollector();
-            sheets[k].getSheet().visitContainedRecords(src, totalsize);
-            totalsize += src.getTotalSize();
-            srCollectors[k] = src;
+            SheetRecordSizer srs = new SheetRecordSizer();
+            sheets[k].getSheet().visitContainedRecords(srs, totalsize);
+            sizes[k+1] = srs.getTotalSize();
+            totalsize += sizes[k+1];
         }
 
-        byte[] retval = new byte[totalsize];
-        int pos = workbook.serialize(0, retval);
-
-        for (int k = 0; k < nSheets; k++) {
-            SheetRecordCollector src = srCollectors[k];
-            int serializedSize = src.serialize(pos, retval);
-            if (serializedSize != src.getTotalSize()) {
-                // Wrong offset values have been passed in the call to setSheetBof() above.
-                // For books with more than one sheet, this discrepancy would cause excel
-                // to report errors and loose data while reading the workbook
-                throw new IllegalStateException("Actual serialized sheet size (" + serializedSize
-                        + ") differs from pre-calculated size (" + src.getTotalSize()
-                        + ") for sheet (" + k + ")");
-                // TODO - add similar sanity check to ensure that Sheet.serializeIndexRecord() does not write mis-aligned offsets either
+        return sizes;
+    }
+
+    /**
+     * Serializes the workbook globals and the sheets record by record into the given stream.
+     * The sheet records are visited a second time for this, so the whole stream is never kept in memory.
+     *
+     * @param sheets the sheets of this workbook
+     * @param sizes the sizes calculated by {@link #preSerialize(HSSFSheet[])}
+     * @param writer the record writer
+     */
+    private void serialize(HSSFSheet[] sheets, int[] sizes, RecordStreamWriter writer) throws IOException {
+        try {
+            int pos = sizes[0];
+            workbook.visitContainedRecords(writer, 0);
+            for (int k = 0; k < sheets.length; k++) {
+                final long start = writer.getWritten();
+                sheets[k].getSheet().visitContainedRecords(writer, pos);
+                final long serializedSize = writer.getWritten() - start;
+                if (serializedSize != sizes[k+1]) {
+                    // Wrong offset values have been passed in the call to setSheetBof() above.
+                    // For books with more than one sheet, this discrepancy would cause excel
+                    // to report errors and loose data while reading the workbook
+                    throw new IllegalStateException("Actual serialized sheet size (" + serializedSize
+                            + ") differs from pre-calculated size (" + sizes[k+1]
+                            + ") for sheet (" + k + ")");
+                    // TODO - add similar sanity check to ensure that Sheet.serializeIndexRecord() does not write mis-aligned offsets either
+                }
+                pos += sizes[k+1];
+            }
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Streams the HSSF portions of the XLS file, i.e. the Workbook entry, sheet by sheet
+     * and encrypts them on the fly, if necessary.
+     * The entry is only created, after the records have been prepared for serialization.
+     *
+     * @param dir the directory of the new Workbook entry
+     * @param name the name of the new Workbook entry
+     */
+    private void writeWorkbookStream(DirectoryEntry dir, String name) throws IOException {
+        HSSFSheet[] sheets = getSheets();
+        int[] sizes = preSerialize(sheets);
+        OutputStream os = new DocumentOutputStream(dir, name);
+        ChunkedCipherOutputStream cos = null;
+        try {
+            EncryptionInfo ei = getEncryptionInfo();
+            if (ei != null) {
+                Encryptor enc = ei.getEncryptor();
+                enc.setChunkSize(Biff8DecryptingStream.RC4_REKEYING_INTERVAL);
+                cos = enc.getDataStream(os, 0);
             }
-            pos += serializedSize;
+        } catch (GeneralSecurityException|RuntimeException e) {
+            os.close();
+            throw (e instanceof RuntimeException) ? (RuntimeException)e : new EncryptedDocumentException(e);
+        }
+
+        final OutputStream out = (cos == null) ? os : cos;
+        try {
+            serialize(sheets, sizes, new RecordStreamWriter(os, cos));
+        } catch (IOException|RuntimeException e) {
+            IOUtils.closeQuietly(out);
+            throw e;
+        }
+        // closing the cipher stream flushes the last chunk and closes the Workbook entry stream
+        out.close();
+    }
+
+    /**
+     * Method getBytes - get the bytes of just the HSSF portions of the XLS file.
+     * Use this to construct a POI POIFSFileSystem yourself.
+     *
+     *
+     * @return byte[] array containing the binary representation of this workbook and all contained
+     *         sheets, rows, cells, etc.
+     */
+    public byte[] getBytes() {
+        if (log.check( POILogger.DEBUG )) {
+            log.log(DEBUG, "HSSFWorkbook.getBytes()");
+        }
+        
+        HSSFSheet[] sheets = getSheets();
+        int[] sizes = preSerialize(sheets);
+
+        int totalsize = 0;
+        for (int size : sizes) {
+            totalsize += size;
+        }
+
+        byte[] retval = new byte[totalsize];
+        try {
+            serialize(sheets, sizes, new RecordStreamWriter(new LittleEndianByteArrayOutputStream(retval, 0), null));
+        } catch (IOException e) {
+            // can't happen when writing to a byte array
+            throw new IllegalStateException(e);
         }
 
         encryptBytes(retval);
@@ -1514,47 +1662,59 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
         }
         Encryptor enc = ei.getEncryptor();
         int initialOffset = 0;
-        LittleEndianByteArrayInputStream plain = new LittleEndianByteArrayInputStream(buf, 0); // NOSONAR
         LittleEndianByteArrayOutputStream leos = new LittleEndianByteArrayOutputStream(buf, 0); // NOSONAR
         enc.setChunkSize(Biff8DecryptingStream.RC4_REKEYING_INTERVAL);
-        byte[] tmp = new byte[1024];
         try {
             ChunkedCipherOutputStream os = enc.getDataStream(leos, initialOffset);
-            int totalBytes = 0;
-            while (totalBytes < buf.length) {
-                IOUtils.readFully(plain, tmp, 0, 4);
-                final int sid = LittleEndian.getUShort(tmp, 0);
-                final int len = LittleEndian.getUShort(tmp, 2);
-                boolean isPlain = Biff8DecryptingStream.isNeverEncryptedRecord(sid);
-                os.setNextRecordSize(len, isPlain);
-                os.writePlain(tmp, 0, 4);
-                if (sid == BoundSheetRecord.sid) {
-                    // special case for the field_1_position_of_BOF (=lbPlyPos) field of
-                    // the BoundSheet8 record which must be unencrypted
-                    byte[] bsrBuf = IOUtils.safelyAllocate(len, MAX_RECORD_LENGTH);
-                    plain.readFully(bsrBuf);
-                    os.writePlain(bsrBuf, 0, 4);
-                    os.write(bsrBuf, 4, len-4);
-                } else {
-                    int todo = len;
-                    while (todo > 0) {
-                        int nextLen = Math.min(todo, tmp.length);
-                        plain.readFully(tmp, 0, nextLen);
-                        if (isPlain) {
-                            os.writePlain(tmp, 0, nextLen);
-                        } else {
-                            os.write(tmp, 0, nextLen);
-                        }
-                        todo -= nextLen;
-                    }
-                }
-                totalBytes += 4 + len;
-            }
+            encryptRecords(buf, buf.length, os);
             os.close();
         } catch (Exception e) {
             throw new EncryptedDocumentException(e);
         }
     }
+
+    /**
+     * Encrypts the serialized records of the given buffer
+     *
+     * @param buf the buffer containing complete records
+     * @param length the length of the records in the buffer
+     * @param os the encrypting stream
+     */
+    @SuppressWarnings("resource")
+    private static void encryptRecords(byte[] buf, int length, ChunkedCipherOutputStream os) throws IOException {
+        LittleEndianByteArrayInputStream plain = new LittleEndianByteArrayInputStream(buf, 0, length); // NOSONAR
+        byte[] tmp = new byte[1024];
+        int totalBytes = 0;
+        while (totalBytes < length) {
+            IOUtils.readFully(plain, tmp, 0, 4);
+            final int sid = LittleEndian.getUShort(tmp, 0);
+            final int len = LittleEndian.getUShort(tmp, 2);
+            boolean isPlain = Biff8DecryptingStream.isNeverEncryptedRecord(sid);
+            os.setNextRecordSize(len, isPlain);
+            os.writePlain(tmp, 0, 4);
+            if (sid == BoundSheetRecord.sid) {
+                // special case for the field_1_position_of_BOF (=lbPlyPos) field of
+                // the BoundSheet8 record which must be unencrypted
+                byte[] bsrBuf = IOUtils.safelyAllocate(len, MAX_RECORD_LENGTH);
+                plain.readFully(bsrBuf);
+                os.writePlain(bsrBuf, 0, 4);
+                os.write(bsrBuf, 4, len-4);
+            } else {
+                int todo = len;
+                while (todo > 0) {
+                    int nextLen = Math.min(todo, tmp.length);
+                    plain.readFully(tmp, 0, nextLen);
+                    if (isPlain) {
+                        os.writePlain(tmp, 0, nextLen);
+                    } else {
+                        os.write(tmp, 0, nextLen);
+                    }
+                    todo -= nextLen;
+                }
+            }
+            totalBytes += 4 + len;
+        }
+    }
     
     /*package*/ InternalWorkbook getWorkbook() {
         return workbook;
@@ -0,0 +1,200 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+package org.apache.poi.poifs.crypt;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.crypto.Cipher;
+
+/**
+ * En-/Decrypts a batch of independent chunks on a pool of worker threads.<p>
+ *
+ * This is only applicable for ciphers, which are re-initialized for each chunk, i.e. each chunk
+ * has its own IV like the segments of an agile encrypted package. The batch is split into
+ * contiguous ranges of chunks and each range is processed by a worker with its own cipher instance.
+ */
+final class ChunkBatchProcessor implements Closeable {
+    /** the number of chunks, which are processed by a single worker per batch */
+    private static final int CHUNKS_PER_THREAD = 16;
+
+    interface ChunkCipherFactory {
+        Cipher initCipherForBlock(Cipher existing, int block, boolean lastChunk)
+        throws GeneralSecurityException, IOException;
+    }
+
+    private final ChunkCipherFactory factory;
+    private final int chunkLength;
+    private final boolean encrypt;
+    private final Cipher[] ciphers;
+    private final byte[] buffer;
+    private final int[] lengths;
+    private final List<Future<?>> futures = new ArrayList<>();
+    private ExecutorService executor;
+
+    /**
+     * @param factory the factory for the chunk ciphers - the factory is called concurrently
+     * @param threads the number of worker threads
+     * @param chunkLength the size of a (full) chunk
+     * @param encrypt {@code true} for encryption, i.e. every chunk is finalized and a partial
+     *   chunk is the padded last chunk, {@code false} for decryption, i.e. only full chunks are finalized
+     */
+    ChunkBatchProcessor(ChunkCipherFactory factory, int threads, int chunkLength, boolean encrypt) {
+        this.factory = factory;
+        this.chunkLength = chunkLength;
+        this.encrypt = encrypt;
+        this.ciphers = new Cipher[threads];
+        int chunks = threads * CHUNKS_PER_THREAD;
+        this.buffer = new byte[chunks * chunkLength];
+        this.lengths = new int[chunks];
+    }
+
+    /**
+     * @return the batch buffer - chunk {@code i} starts at {@code i * chunkLength}
+     */
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the maximum number of chunks in a batch
+     */
+    int getCapacity() {
+        return lengths.length;
+    }
+
+    /**
+     * @return the length of chunk {@code i} after processing the batch
+     */
+    int getLength(int i) {
+        return lengths[i];
+    }
+
+    void setLength(int i, int length) {
+        lengths[i] = length;
+    }
+
+    /**
+     * Processes the chunks in place. The chunk lengths are replaced by the output lengths.
+     *
+     * @param firstBlock the block index of the first chunk in the buffer
+     * @param count the number of chunks in the buffer
+     */
+    void process(int firstBlock, int count) throws IOException, GeneralSecurityException {
+        start(firstBlock, count);
+        finish();
+    }
+
+    /**
+     * Starts processing the chunks in place. The buffer must not be accessed until
+     * {@link #finish()} has returned.
+     *
+     * @param firstBlock the block index of the first chunk in the buffer
+     * @param count the number of chunks in the buffer
+     */
+    void start(final int firstBlock, final int count) {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(ciphers.length, r -> {
+                Thread t = new Thread(r, "poi-chunk-cipher");
+                // don't keep the JVM alive, if the stream wasn't closed
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        futures.clear();
+        final int ranges = Math.min(ciphers.length, count);
+        if (ranges == 0) {
+            return;
+        }
+        final int rangeSize = (count + ranges - 1) / ranges;
+        for (int r = 0; r < ranges; r++) {
+            final int range = r;
+            final int start = r * rangeSize;
+            final int end = Math.min(count, start + rangeSize);
+            futures.add(executor.submit(() -> {
+                processRange(range, firstBlock, start, end);
+                return null;
+            }));
+        }
+    }
+
+    /**
+     * Waits for the workers started by {@link #start(int, int)}
+     */
+    void finish() throws IOException, GeneralSecurityException {
+        try {
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while processing the cipher chunks");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof GeneralSecurityException) {
+                throw (GeneralSecurityException)cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            futures.clear();
+        }
+    }
+
+    private void processRange(int range, int firstBlock, int start, int end)
+    throws GeneralSecurityException, IOException {
+        Cipher cipher = ciphers[range];
+        for (int i = start; i < end; i++) {
+            final int off = i * chunkLength;
+            final int len = lengths[i];
+            final boolean fullChunk = (len == chunkLength);
+            cipher = factory.initCipherForBlock(cipher, firstBlock + i, encrypt && !fullChunk);
+            lengths[i] = (encrypt || fullChunk)
+                ? cipher.doFinal(buffer, off, len, buffer, off)
+                : cipher.update(buffer, off, len, buffer, off);
+        }
+        ciphers[range] = cipher;
+    }
+
+    /**
+     * Stops the worker threads
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+}
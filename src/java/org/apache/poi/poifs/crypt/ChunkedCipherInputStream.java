@@ -48,6 +48,11 @@ public abstract class ChunkedCipherInputStream extends LittleEndianInputStream {
     private long pos;
     private boolean chunkIsValid;
 
+    /** the batch of chunks, which are decrypted in parallel - null in sequential mode */
+    private ChunkBatchProcessor batch;
+    private byte[] batchRaw;
+    private int batchBlock, batchCount;
+
     public ChunkedCipherInputStream(InputStream stream, long size, int chunkSize)
     throws GeneralSecurityException {
         this(stream, size, chunkSize, 0);
@@ -79,6 +84,46 @@ public abstract class ChunkedCipherInputStream extends LittleEndianInputStream {
     protected abstract Cipher initCipherForBlock(Cipher existing, int block)
     throws GeneralSecurityException;
 
+    /**
+     * Enables the parallel decryption of the chunks. The chunks are read in batches and each
+     * batch is decrypted by a pool of worker threads. This requires {@link #initCipherForBlock(Cipher, int)}
+     * to be thread-safe and each chunk to be decryptable independently, e.g. as in agile encryption.
+     * Streaming ciphers are always decrypted sequentially.<p>
+     *
+     * This needs to be called before the first byte is read.
+     *
+     * @param threads the number of worker threads - values below 2 disable the parallel decryption
+     */
+    protected void setThreads(int threads) {
+        if (batch != null) {
+            batch.close();
+            batch = null;
+            batchRaw = null;
+        }
+        if (threads > 1 && chunkSize != -1) {
+            batch = new ChunkBatchProcessor((c, block, lastChunk) -> initCipherForBlock(c, block), threads, chunk.length, false);
+            batchRaw = new byte[batch.getBuffer().length];
+            batchCount = 0;
+        }
+    }
+
+    /**
+     * Callback for the encrypted bytes, which have been read from the underlying stream, before
+     * they are decrypted. In parallel mode this is called by the reading thread, while the batch
+     * is decrypted by the workers, so e.g. an integrity check of the encrypted data can be calculated
+     * without delaying the decryption.<p>
+     *
+     * The default implementation does nothing.
+     *
+     * @param chunkPos the position of the encrypted bytes within the encrypted stream, which is the position
+     *   of the first chunk, i.e. the block index multiplied by the chunk size
+     * @param buf the encrypted bytes
+     * @param off the offset within the buffer
+     * @param len the number of encrypted bytes
+     */
+    protected void readEncryptedBytes(long chunkPos, byte[] buf, int off, int len) throws IOException {
+    }
+
     @Override
     public int read() throws IOException {
         byte[] b = { 0 };
@@ -157,6 +202,14 @@ public abstract class ChunkedCipherInputStream extends LittleEndianInputStream {
         return (int)(size - pos);
     }
 
+    @Override
+    public void close() throws IOException {
+        if (batch != null) {
+            batch.close();
+        }
+        super.close();
+    }
+
     @Override
     public boolean markSupported() {
         return false;
@@ -177,6 +230,11 @@ public abstract class ChunkedCipherInputStream extends LittleEndianInputStream {
     }
 
     private void nextChunk() throws GeneralSecurityException, IOException {
+        if (batch != null) {
+            nextBatchChunk();
+            return;
+        }
+
         if (chunkSize != -1) {
             int index = (int)(pos >> chunkBits);
             initCipherForBlock(cipher, index);
@@ -204,9 +262,69 @@ public abstract class ChunkedCipherInputStream extends LittleEndianInputStream {
 
         System.arraycopy(plain, 0, chunk, 0, totalBytes);
 
+        if (chunkSize != -1) {
+            readEncryptedBytes(pos & ~(long)(chunk.length-1), plain, 0, totalBytes);
+        }
+
         invokeCipher(totalBytes, totalBytes == chunkSize);
     }
 
+    private void nextBatchChunk() throws GeneralSecurityException, IOException {
+        int index = (int)(pos >> chunkBits);
+        if (index < batchBlock || index >= batchBlock + batchCount) {
+            readBatch(index);
+        }
+
+        int off = (index - batchBlock) << chunkBits;
+        int len = Math.min(chunk.length, batch.getLength(index - batchBlock));
+        System.arraycopy(batchRaw, off, plain, 0, len);
+        System.arraycopy(batch.getBuffer(), off, chunk, 0, len);
+    }
+
+    private void readBatch(int index) throws GeneralSecurityException, IOException {
+        if (lastIndex != index) {
+            long skipN = (long)(index - lastIndex) << chunkBits;
+            if (super.skip(skipN) < skipN) {
+                throw new EOFException("buffer underrun");
+            }
+        }
+
+        final long chunkPos = (long)index << chunkBits;
+        final long remainingChunks = (size - chunkPos + chunk.length - 1) >> chunkBits;
+        final int todo = (int)Math.min(batch.getCapacity(), remainingChunks) << chunkBits;
+        int readBytes, totalBytes = 0;
+        do {
+            readBytes = super.read(batchRaw, totalBytes, todo-totalBytes);
+            totalBytes += Math.max(0, readBytes);
+        } while (readBytes != -1 && totalBytes < todo);
+
+        if (totalBytes == 0 || (readBytes == -1 && chunkPos+totalBytes < size && size < Integer.MAX_VALUE)) {
+            throw new EOFException("buffer underrun");
+        }
+
+        final int count = (totalBytes + chunk.length - 1) >> chunkBits;
+        for (int i = 0; i < count; i++) {
+            batch.setLength(i, Math.min(chunk.length, totalBytes - (i << chunkBits)));
+        }
+        System.arraycopy(batchRaw, 0, batch.getBuffer(), 0, totalBytes);
+
+        batchCount = 0;
+        batch.start(index, count);
+        try {
+            readEncryptedBytes(chunkPos, batchRaw, 0, totalBytes);
+        } finally {
+            batch.finish();
+        }
+        batchBlock = index;
+        batchCount = count;
+        lastIndex = index + count;
+
+        if (chunkPos + totalBytes >= size) {
+            // the last batch has been read - release the workers
+            batch.close();
+        }
+    }
+
     /**
      * Helper function for overriding the cipher invocation, i.e. XOR doesn't use a cipher
      * and uses it's own implementation
@@ -18,9 +18,6 @@ package org.apache.poi.poifs.crypt;
 
 import static org.apache.poi.poifs.crypt.Decryptor.DEFAULT_POIFS_ENTRY;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -32,17 +29,17 @@ import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.ShortBufferException;
 
-import org.apache.poi.EncryptedDocumentException;
 import org.apache.poi.poifs.filesystem.DirectoryNode;
-import org.apache.poi.poifs.filesystem.POIFSWriterEvent;
-import org.apache.poi.poifs.filesystem.POIFSWriterListener;
+import org.apache.poi.poifs.filesystem.DocumentEntry;
+import org.apache.poi.poifs.filesystem.DocumentNode;
+import org.apache.poi.poifs.filesystem.DocumentOutputStream;
+import org.apache.poi.poifs.filesystem.POIFSDocument;
 import org.apache.poi.util.IOUtils;
 import org.apache.poi.util.Internal;
 import org.apache.poi.util.LittleEndian;
 import org.apache.poi.util.LittleEndianConsts;
 import org.apache.poi.util.POILogFactory;
 import org.apache.poi.util.POILogger;
-import org.apache.poi.util.TempFile;
 
 @Internal
 public abstract class ChunkedCipherOutputStream extends FilterOutputStream {
@@ -57,7 +54,6 @@ public abstract class ChunkedCipherOutputStream extends FilterOutputStream {
 
     private final byte[] chunk;
     private final BitSet plainByteFlags;
-    private final File fileOut;
     private final DirectoryNode dir;
 
     private long pos;
@@ -69,6 +65,10 @@ public abstract class ChunkedCipherOutputStream extends FilterOutputStream {
     private Cipher cipher;
     private boolean isClosed;
 
+    /** the batch of chunks, which are encrypted in parallel - null in sequential mode */
+    private ChunkBatchProcessor batch;
+    private int batchBlock, batchCount, batchBytes;
+
     public ChunkedCipherOutputStream(DirectoryNode dir, int chunkSize) throws IOException, GeneralSecurityException {
         super(null);
         this.chunkSize = chunkSize;
@@ -76,9 +76,10 @@ public abstract class ChunkedCipherOutputStream extends FilterOutputStream {
         this.chunk = IOUtils.safelyAllocate(cs, MAX_RECORD_LENGTH);
         this.plainByteFlags = new BitSet(cs);
         this.chunkBits = Integer.bitCount(cs-1);
-        this.fileOut = TempFile.createTempFile("encrypted_package", "crypt");
-        this.fileOut.deleteOnExit();
-        this.out = new FileOutputStream(fileOut);
+        // the ciphertext is streamed directly into the EncryptedPackage entry - the StreamSize field
+        // is only known on close, so a placeholder is written and patched afterwards
+        this.out = new DocumentOutputStream(dir, DEFAULT_POIFS_ENTRY);
+        this.out.write(new byte[LittleEndianConsts.LONG_SIZE]);
         this.dir = dir;
         this.cipher = initCipherForBlock(null, 0, false);
     }
@@ -90,7 +91,6 @@ public abstract class ChunkedCipherOutputStream extends FilterOutputStream {
         this.chunk = IOUtils.safelyAllocate(cs, MAX_RECORD_LENGTH);
         this.plainByteFlags = new BitSet(cs);
         this.chunkBits = Integer.bitCount(cs-1);
-        this.fileOut = null;
         this.dir = null;
         this.cipher = initCipherForBlock(null, 0, false);
     }
@@ -109,10 +109,37 @@ public abstract class ChunkedCipherOutputStream extends FilterOutputStream {
     protected abstract Cipher initCipherForBlock(Cipher existing, int block, boolean lastChunk)
     throws IOException, GeneralSecurityException;
 
-    protected abstract void calculateChecksum(File fileOut, int oleStreamSize)
+    /**
+     * Enables the parallel encryption of the chunks. The chunks are collected in batches and
+     * each batch is encrypted by a pool of worker threads. This requires
+     * {@link #initCipherForBlock(Cipher, int, boolean)} to be thread-safe and each chunk to be
+     * encryptable independently, e.g. as in agile encryption. Streaming ciphers and chunks with
+     * plain bytes are always encrypted sequentially.<p>
+     *
+     * This needs to be called before the first byte is written.
+     *
+     * @param threads the number of worker threads - values below 2 disable the parallel encryption
+     */
+    protected void setThreads(int threads) {
+        if (batch != null) {
+            batch.close();
+            batch = null;
+        }
+        if (threads > 1 && chunkSize != STREAMING) {
+            batch = new ChunkBatchProcessor(this::initCipherForBlock, threads, chunk.length, true);
+        }
+    }
+
+    /**
+     * Calculates the checksum of the encrypted package, e.g. the integrity HMAC of agile encryption.
+     * This is called on close, when the EncryptedPackage entry including the StreamSize field has been written.
+     *
+     * @param encryptedPackage the EncryptedPackage entry
+     */
+    protected abstract void calculateChecksum(DocumentEntry encryptedPackage)
     throws GeneralSecurityException, IOException;
 
-    protected abstract void createEncryptionInfoEntry(DirectoryNode dir, File tmpFile)
+    protected abstract void createEncryptionInfoEntry(DirectoryNode dir)
     throws IOException, GeneralSecurityException;
 
     @Override
@@ -166,7 +193,7 @@ public abstract class ChunkedCipherOutputStream extends FilterOutputStream {
     }
 
     protected void writeChunk(boolean continued) throws IOException {
-        if (pos == 0 || totalPos == written) {
+        if (pos == 0 || totalPos == written + batchBytes) {
             return;
         }
 
@@ -185,6 +212,14 @@ public abstract class ChunkedCipherOutputStream extends FilterOutputStream {
             lastChunk = true;
         }
 
+        if (batch != null) {
+            if (plainByteFlags.isEmpty()) {
+                addToBatch(index, posInChunk, lastChunk);
+                return;
+            }
+            flushBatch();
+        }
+
         int ciLen;
         try {
             boolean doFinal = true;
@@ -211,6 +246,37 @@ public abstract class ChunkedCipherOutputStream extends FilterOutputStream {
         written += ciLen;
     }
 
+    private void addToBatch(int index, int posInChunk, boolean lastChunk) throws IOException {
+        if (batchCount == 0) {
+            batchBlock = index;
+        }
+        System.arraycopy(chunk, 0, batch.getBuffer(), batchCount * chunk.length, posInChunk);
+        batch.setLength(batchCount++, posInChunk);
+        batchBytes += posInChunk;
+        if (lastChunk || batchCount == batch.getCapacity()) {
+            flushBatch();
+        }
+    }
+
+    private void flushBatch() throws IOException {
+        if (batchCount == 0) {
+            return;
+        }
+        try {
+            batch.process(batchBlock, batchCount);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("can't re-/initialize cipher", e);
+        }
+        final byte[] buf = batch.getBuffer();
+        for (int i = 0; i < batchCount; i++) {
+            int ciLen = batch.getLength(i);
+            out.write(buf, i * chunk.length, ciLen);
+            written += ciLen;
+        }
+        batchCount = 0;
+        batchBytes = 0;
+    }
+
     /**
      * Helper function for overriding the cipher invocation, i.e. XOR doesn't use a cipher
      * and uses it's own implementation
@@ -265,14 +331,18 @@ public abstract class ChunkedCipherOutputStream extends FilterOutputStream {
 
         try {
             writeChunk(false);
+            if (batch != null) {
+                flushBatch();
+                batch.close();
+            }
 
             super.close();
 
-            if (fileOut != null) {
-                int oleStreamSize = (int)(fileOut.length()+LittleEndianConsts.LONG_SIZE);
-                calculateChecksum(fileOut, (int)pos);
-                dir.createDocument(DEFAULT_POIFS_ENTRY, oleStreamSize, new EncryptedPackageWriter());
-                createEncryptionInfoEntry(dir, fileOut);
+            if (dir != null) {
+                DocumentEntry encryptedPackage = (DocumentEntry)dir.getEntry(DEFAULT_POIFS_ENTRY);
+                writeStreamSize(encryptedPackage);
+                calculateChecksum(encryptedPackage);
+                createEncryptionInfoEntry(dir);
             }
         } catch (GeneralSecurityException e) {
             throw new IOException(e);
@@ -305,30 +375,17 @@ public abstract class ChunkedCipherOutputStream extends FilterOutputStream {
     public void setNextRecordSize(int recordSize, boolean isPlain) {
     }
     
-    private class EncryptedPackageWriter implements POIFSWriterListener {
-        @Override
-        public void processPOIFSWriterEvent(POIFSWriterEvent event) {
-            try {
-                try (OutputStream os = event.getStream();
-                     FileInputStream fis = new FileInputStream(fileOut)) {
-
-                    // StreamSize (8 bytes): An unsigned integer that specifies the number of bytes used by data
-                    // encrypted within the EncryptedData field, not including the size of the StreamSize field.
-                    // Note that the actual size of the \EncryptedPackage stream (1) can be larger than this
-                    // value, depending on the block size of the chosen encryption algorithm
-                    byte[] buf = new byte[LittleEndianConsts.LONG_SIZE];
-                    LittleEndian.putLong(buf, 0, pos);
-                    os.write(buf);
-
-                    IOUtils.copy(fis, os);
-                }
-
-                if (!fileOut.delete()) {
-                    LOG.log(POILogger.ERROR, "Can't delete temporary encryption file: "+fileOut);
-                }
-            } catch (IOException e) {
-                throw new EncryptedDocumentException(e);
-            }
-        }
+    /**
+     * Patches the StreamSize placeholder at the start of the EncryptedPackage entry.<p>
+     *
+     * StreamSize (8 bytes): An unsigned integer that specifies the number of bytes used by data
+     * encrypted within the EncryptedData field, not including the size of the StreamSize field.
+     * Note that the actual size of the \EncryptedPackage stream (1) can be larger than this
+     * value, depending on the block size of the chosen encryption algorithm
+     */
+    private void writeStreamSize(DocumentEntry encryptedPackage) {
+        byte[] buf = new byte[LittleEndianConsts.LONG_SIZE];
+        LittleEndian.putLong(buf, 0, pos);
+        new POIFSDocument((DocumentNode)encryptedPackage).overwrite(0, buf);
     }
 }
@@ -17,7 +17,6 @@
 
 package org.apache.poi.poifs.crypt.binaryrc4;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.security.GeneralSecurityException;
@@ -37,6 +36,7 @@ import org.apache.poi.poifs.crypt.Encryptor;
 import org.apache.poi.poifs.crypt.HashAlgorithm;
 import org.apache.poi.poifs.crypt.standard.EncryptionRecord;
 import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.DocumentEntry;
 import org.apache.poi.util.LittleEndianByteArrayOutputStream;
 
 public class BinaryRC4Encryptor extends Encryptor implements Cloneable {
@@ -141,11 +141,11 @@ public class BinaryRC4Encryptor extends Encryptor implements Cloneable {
         }
         
         @Override
-        protected void calculateChecksum(File file, int i) {
+        protected void calculateChecksum(DocumentEntry encryptedPackage) {
         }
 
         @Override
-        protected void createEncryptionInfoEntry(DirectoryNode dir, File tmpFile)
+        protected void createEncryptionInfoEntry(DirectoryNode dir)
         throws IOException, GeneralSecurityException {
             BinaryRC4Encryptor.this.createEncryptionInfoEntry(dir);
         }
@@ -18,7 +18,6 @@
 package org.apache.poi.poifs.crypt.cryptoapi;
 
 import java.io.ByteArrayInputStream;
-import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.security.GeneralSecurityException;
@@ -39,6 +38,7 @@ import org.apache.poi.poifs.crypt.Encryptor;
 import org.apache.poi.poifs.crypt.HashAlgorithm;
 import org.apache.poi.poifs.crypt.cryptoapi.CryptoAPIDecryptor.StreamDescriptorEntry;
 import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.DocumentEntry;
 import org.apache.poi.poifs.filesystem.DocumentInputStream;
 import org.apache.poi.poifs.filesystem.Entry;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
@@ -219,11 +219,11 @@ public class CryptoAPIEncryptor extends Encryptor implements Cloneable {
         }
 
         @Override
-        protected void calculateChecksum(File file, int i) {
+        protected void calculateChecksum(DocumentEntry encryptedPackage) {
         }
 
         @Override
-        protected void createEncryptionInfoEntry(DirectoryNode dir, File tmpFile) {
+        protected void createEncryptionInfoEntry(DirectoryNode dir) {
             throw new EncryptedDocumentException("createEncryptionInfoEntry not supported");
         }
 
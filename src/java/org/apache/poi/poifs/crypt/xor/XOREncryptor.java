@@ -17,7 +17,6 @@
 
 package org.apache.poi.poifs.crypt.xor;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.security.GeneralSecurityException;
@@ -31,6 +30,7 @@ import org.apache.poi.poifs.crypt.ChunkedCipherOutputStream;
 import org.apache.poi.poifs.crypt.CryptoFunctions;
 import org.apache.poi.poifs.crypt.Encryptor;
 import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.DocumentEntry;
 import org.apache.poi.util.LittleEndian;
 
 public class XOREncryptor extends Encryptor implements Cloneable {
@@ -104,11 +104,11 @@ public class XOREncryptor extends Encryptor implements Cloneable {
         }
 
         @Override
-        protected void calculateChecksum(File file, int i) {
+        protected void calculateChecksum(DocumentEntry encryptedPackage) {
         }
 
         @Override
-        protected void createEncryptionInfoEntry(DirectoryNode dir, File tmpFile) {
+        protected void createEncryptionInfoEntry(DirectoryNode dir) {
             throw new EncryptedDocumentException("createEncryptionInfoEntry not supported");
         }
 
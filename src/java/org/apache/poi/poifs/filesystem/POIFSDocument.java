@@ -197,6 +197,40 @@ public final class POIFSDocument implements POIFSViewable, Iterable<ByteBuffer>
        _property.updateSize(size);
    }
 
+   /**
+    * Overwrites a part of the document in place, e.g. to fill in a size field
+    *  after the rest of the document has been streamed. The size of the
+    *  document and all other bytes are unchanged.
+    *
+    * @param offset the position of the first byte to overwrite
+    * @param data the new bytes
+    *
+    * @since POI 4.1.1
+    */
+   public void overwrite(int offset, byte[] data) {
+       if (offset < 0 || offset + (long)data.length > getSize()) {
+           throw new IndexOutOfBoundsException("Can't overwrite " + data.length + " bytes at offset " +
+               offset + " of a document with " + getSize() + " bytes");
+       }
+
+       // the blocks of the stream are views on the store, like the ones the stream writes into
+       Iterator<ByteBuffer> blocks = getBlockIterator();
+       int skip = offset;
+       int written = 0;
+       while (written < data.length) {
+           ByteBuffer block = blocks.next().duplicate();
+           if (skip >= block.remaining()) {
+               skip -= block.remaining();
+               continue;
+           }
+           block.position(block.position() + skip);
+           skip = 0;
+           int len = Math.min(block.remaining(), data.length - written);
+           block.put(data, written, len);
+           written += len;
+       }
+   }
+
    /**
     * @return the instance's DocumentProperty
     */
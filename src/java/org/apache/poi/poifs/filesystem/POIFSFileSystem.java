@@ -167,7 +167,27 @@ public class POIFSFileSystem extends BlockStore
      */
     public POIFSFileSystem(File file, boolean readOnly)
             throws IOException {
-        this(null, file, readOnly, true);
+        this(null, file, readOnly, true, false);
+    }
+
+    /**
+     * <p>Creates a POIFSFileSystem from a <tt>File</tt>, which is optionally memory-mapped
+     * in read-only mode.</p>
+     *
+     * <p>In the mapped read-only mode, the blocks are zero-copy slices of large memory-mapped
+     * windows of the file instead of heap buffers. See
+     * {@link FileBackedDataSource#FileBackedDataSource(FileChannel, boolean, boolean)}.</p>
+     *
+     * @param file     the File from which to read or read/write the data
+     * @param readOnly whether the POIFileSystem will only be used in read-only mode
+     * @param mapped   whether the file is memory-mapped - this is ignored, if readOnly is {@code false}
+     * @throws IOException on errors reading, or on invalid data
+     *
+     * @since POI 4.1.1
+     */
+    public POIFSFileSystem(File file, boolean readOnly, boolean mapped)
+            throws IOException {
+        this(null, file, readOnly, true, mapped);
     }
 
     /**
@@ -201,10 +221,10 @@ public class POIFSFileSystem extends BlockStore
      */
     public POIFSFileSystem(FileChannel channel, boolean readOnly)
             throws IOException {
-        this(channel, null, readOnly, false);
+        this(channel, null, readOnly, false, false);
     }
 
-    private POIFSFileSystem(FileChannel channel, File srcFile, boolean readOnly, boolean closeChannelOnError)
+    private POIFSFileSystem(FileChannel channel, File srcFile, boolean readOnly, boolean closeChannelOnError, boolean mapped)
             throws IOException {
         this(false);
 
@@ -214,11 +234,11 @@ public class POIFSFileSystem extends BlockStore
                 if (srcFile.length() == 0)
                     throw new EmptyFileException();
 
-                FileBackedDataSource d = new FileBackedDataSource(srcFile, readOnly);
+                FileBackedDataSource d = new FileBackedDataSource(srcFile, readOnly, mapped);
                 channel = d.getChannel();
                 _data = d;
             } else {
-                _data = new FileBackedDataSource(channel, readOnly);
+                _data = new FileBackedDataSource(channel, readOnly, mapped);
             }
 
             // Get the header
@@ -34,13 +34,27 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * A POIFS {@link DataSource} backed by a File
+ * A POIFS {@link DataSource} backed by a File.<p>
+ *
+ * In read-only mode, the blocks are read into heap buffers by default. If the mapped read-only mode
+ * is enabled via the constructor, the file is memory-mapped in windows of
+ * {@link #MAPPING_WINDOW_SIZE} bytes instead and the blocks are returned as zero-copy (read-only)
+ * slices of the windows. The windows are unmapped on {@link #close()}.
  */
 public class FileBackedDataSource extends DataSource {
    private final static POILogger logger = POILogFactory.getLogger( FileBackedDataSource.class );
-   
+
+   /**
+    * The size of the windows, which are mapped in the mapped read-only mode.
+    * This is a multiple of the big block sizes, so block reads never span two windows.
+    */
+   public static final int MAPPING_WINDOW_SIZE = 1 << 26;
+
    private FileChannel channel;
    private boolean writable;
+   private final boolean mapped;
+   // the lazily mapped windows of the mapped read-only mode
+   private ByteBuffer[] windows;
    // remember file base, which needs to be closed too
    private RandomAccessFile srcFile;
    
@@ -57,19 +71,67 @@ public class FileBackedDataSource extends DataSource {
    }
 
    public FileBackedDataSource(File file, boolean readOnly) throws FileNotFoundException {
-       this(newSrcFile(file, readOnly ? "r" : "rw"), readOnly);
+       this(file, readOnly, false);
+   }
+
+   /**
+    * @param file the file
+    * @param readOnly whether the data source is only read
+    * @param mapped whether a read-only file is memory-mapped, see {@link #FileBackedDataSource(FileChannel, boolean, boolean)}
+    * @throws FileNotFoundException if the file doesn't exist
+    *
+    * @since POI 4.1.1
+    */
+   public FileBackedDataSource(File file, boolean readOnly, boolean mapped) throws FileNotFoundException {
+       this(newSrcFile(file, readOnly ? "r" : "rw"), readOnly, mapped);
    }
 
    public FileBackedDataSource(RandomAccessFile srcFile, boolean readOnly) {
-       this(srcFile.getChannel(), readOnly);
+       this(srcFile, readOnly, false);
+   }
+
+   private FileBackedDataSource(RandomAccessFile srcFile, boolean readOnly, boolean mapped) {
+       this(srcFile.getChannel(), readOnly, mapped);
        this.srcFile = srcFile;
-   }   
-   
+   }
+
    public FileBackedDataSource(FileChannel channel, boolean readOnly) {
+      this(channel, readOnly, false);
+   }
+
+   /**
+    * Creates a data source, which is optionally memory-mapped in read-only mode.
+    * <p>
+    * In the mapped read-only mode, the file is memory-mapped in large windows and
+    * the blocks are returned as read-only slices of these windows. This avoids allocating and
+    * copying a heap buffer for each block read, e.g. when processing lots of files with
+    * {@link org.apache.poi.poifs.filesystem.POIFSFileSystem#POIFSFileSystem(File, boolean, boolean)}
+    * in read-only mode.
+    * <p>
+    * The returned buffers are read-only and only valid until the data source is closed.
+    *
+    * @param channel the file channel
+    * @param readOnly whether the data source is only read
+    * @param mapped whether the file is memory-mapped - this is ignored for writable data sources
+    *
+    * @since POI 4.1.1
+    */
+   public FileBackedDataSource(FileChannel channel, boolean readOnly, boolean mapped) {
       this.channel = channel;
       this.writable = !readOnly;
+      this.mapped = readOnly && mapped;
    }
-   
+
+   /**
+    * @return whether the file is memory-mapped in read-only mode
+    *
+    * @see #FileBackedDataSource(FileChannel, boolean, boolean)
+    * @since POI 4.1.1
+    */
+   public boolean isMapped() {
+       return mapped;
+   }
+
    public boolean isWriteable() {
        return this.writable;
    }
@@ -84,11 +146,15 @@ public class FileBackedDataSource extends DataSource {
          throw new IndexOutOfBoundsException("Position " + position + " past the end of the file");
       }
       
-      // TODO Could we do the read-only case with MapMode.PRIVATE instead?
-      // See https://docs.oracle.com/javase/7/docs/api/java/nio/channels/FileChannel.MapMode.html#PRIVATE
-      // Or should we have 3 modes instead of the current boolean - 
-      //  read-write, read-only, read-to-write-elsewhere? 
-      
+      // MapMode.PRIVATE would need a channel opened for writing, so the mapped read-only mode
+      // uses MapMode.READ_ONLY windows, which are sliced for the requested blocks
+      if (mapped) {
+          ByteBuffer dst = readMapped(length, position);
+          if (dst != null) {
+              return dst;
+          }
+      }
+
       // Do we read or map (for read/write)?
       ByteBuffer dst;
       if (writable) {
@@ -115,6 +181,37 @@ public class FileBackedDataSource extends DataSource {
       return dst;
    }
 
+   /**
+    * @return the slice of the mapped window or {@code null}, if the requested range
+    *   spans two windows or the end of the file
+    */
+   private ByteBuffer readMapped(int length, long position) throws IOException {
+      final long size = size();
+      final int idx = (int)(position / MAPPING_WINDOW_SIZE);
+      final long windowStart = (long)idx * MAPPING_WINDOW_SIZE;
+      final int offset = (int)(position - windowStart);
+      if (offset + (long)length > MAPPING_WINDOW_SIZE || position + length > size) {
+          return null;
+      }
+
+      if (windows == null) {
+          windows = new ByteBuffer[(int)((size + MAPPING_WINDOW_SIZE - 1) / MAPPING_WINDOW_SIZE)];
+      }
+      ByteBuffer window = windows[idx];
+      if (window == null) {
+          window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(MAPPING_WINDOW_SIZE, size - windowStart));
+          windows[idx] = window;
+
+          // remember this buffer for cleanup
+          buffersToClean.add(window);
+      }
+
+      ByteBuffer dst = window.duplicate();
+      dst.position(offset);
+      dst.limit(offset + length);
+      return dst.slice();
+   }
+
    @Override
    public void write(ByteBuffer src, long position) throws IOException {
       channel.write(src, position);
@@ -142,6 +239,7 @@ public class FileBackedDataSource extends DataSource {
            unmap(buffer);
        }
        buffersToClean.clear();
+       windows = null;
 
        if (srcFile != null) {
           // see http://bugs.java.com/bugdatabase/view_bug.do?bug_id=4796385
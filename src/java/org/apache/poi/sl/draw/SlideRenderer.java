@@ -0,0 +1,310 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.sl.draw;
+
+import java.awt.AlphaComposite;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.apache.poi.sl.usermodel.MasterSheet;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.apache.poi.sl.usermodel.Placeholder;
+import org.apache.poi.sl.usermodel.Sheet;
+import org.apache.poi.sl.usermodel.Slide;
+import org.apache.poi.sl.usermodel.SlideShow;
+import org.apache.poi.util.POILogFactory;
+import org.apache.poi.util.POILogger;
+
+/**
+ * Renders slides to images - optionally with several threads.<p>
+ *
+ * Each slide is drawn on its own {@link Graphics2D} with its own {@link DrawFactory}, so the drawing
+ * state isn't shared between the threads. The slide show itself is only read, but the usermodels
+ * initialize some of the data of the master sheets, the theme and the pictures lazily and without
+ * synchronization. Therefore the first slide of each master sheet is rendered by the calling thread
+ * and the remaining slides are rendered concurrently afterwards. The slide show must not be modified
+ * while it's rendered.<p>
+ *
+ * The images are passed to the {@link SlideImageHandler} by the rendering threads, i.e. the
+ * handler needs to be thread-safe, but can encode and write the images in parallel.
+ *
+ * @since POI 4.1.1
+ */
+public class SlideRenderer {
+    private static final POILogger LOG = POILogFactory.getLogger(SlideRenderer.class);
+
+    /**
+     * Receives the rendered slide images
+     */
+    @FunctionalInterface
+    public interface SlideImageHandler {
+        /**
+         * @param slide the rendered slide
+         * @param image the image, which is flushed after this call
+         */
+        void handleImage(Slide<?,?> slide, BufferedImage image) throws IOException;
+    }
+
+    private final Map<RenderingHints.Key,Object> hints = new LinkedHashMap<>();
+    private double scale = 1;
+    private int threads = 1;
+    private Supplier<? extends DrawFactory> drawFactory = DrawFactory::new;
+
+    public SlideRenderer() {
+        // default rendering options
+        hints.put(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        hints.put(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        hints.put(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_SPEED);
+        hints.put(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        hints.put(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * @param scale the scale factor of the page size in points to the image size in pixels
+     */
+    public void setScale(double scale) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("Invalid scale " + scale);
+        }
+        this.scale = scale;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads the number of threads, which are used by {@link #render(List, SlideImageHandler)}.
+     *  With 1 thread (the default), the slides are rendered by the calling thread.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive, but was " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Sets a rendering hint, which is applied to each graphics context. The hint values are shared
+     * between the threads, so e.g. a {@link Drawable#FONT_HANDLER} needs to be thread-safe.
+     *
+     * @param key the hint key
+     * @param value the hint value or {@code null} to remove the hint
+     */
+    public void setRenderingHint(RenderingHints.Key key, Object value) {
+        if (value == null) {
+            hints.remove(key);
+        } else {
+            hints.put(key, value);
+        }
+    }
+
+    /**
+     * @param drawFactory the supplier of the draw factories - a new factory is requested for each slide
+     */
+    public void setDrawFactory(Supplier<? extends DrawFactory> drawFactory) {
+        this.drawFactory = (drawFactory == null) ? DrawFactory::new : drawFactory;
+    }
+
+    /**
+     * Renders a single slide on the calling thread
+     *
+     * @param slide the slide
+     * @return the image of the slide
+     */
+    public BufferedImage render(Slide<?,?> slide) {
+        final Dimension pgsize = slide.getSlideShow().getPageSize();
+        final int width = (int)Math.rint(pgsize.getWidth() * scale);
+        final int height = (int)Math.rint(pgsize.getHeight() * scale);
+
+        final BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = img.createGraphics();
+        try {
+            graphics.addRenderingHints(hints);
+            graphics.setRenderingHint(Drawable.BUFFERED_IMAGE, new WeakReference<>(img));
+            graphics.setRenderingHint(Drawable.DRAW_FACTORY, drawFactory.get());
+
+            graphics.scale(scale, scale);
+
+            graphics.setComposite(AlphaComposite.Clear);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setComposite(AlphaComposite.SrcOver);
+
+            slide.draw(graphics);
+        } finally {
+            graphics.dispose();
+        }
+        return img;
+    }
+
+    /**
+     * Renders the slides with the configured number of threads
+     *
+     * @param slides the slides, usually of the same slide show
+     * @param handler the handler of the images, which is called concurrently by the rendering threads
+     * @throws IOException if the handler failed - the remaining slides are not rendered anymore
+     *
+     * @see #render(List, SlideImageHandler, ExecutorService)
+     */
+    public void render(List<? extends Slide<?,?>> slides, SlideImageHandler handler) throws IOException {
+        if (threads == 1 || slides.size() < 2) {
+            for (Slide<?,?> slide : slides) {
+                renderAndHandle(slide, handler);
+            }
+            return;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, slides.size()), r -> {
+            Thread t = new Thread(r, "poi-slide-renderer");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            render(slides, handler, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Renders the slides with the given executor, e.g. with a pool which is shared by the slide shows
+     * of a batch conversion. The configured number of threads is ignored and the executor isn't shut down.
+     *
+     * @param slides the slides, usually of the same slide show
+     * @param handler the handler of the images, which is called concurrently by the rendering threads
+     * @param executor the executor, which renders the slides - the first slide of each master sheet
+     *  is rendered by the calling thread
+     * @throws IOException if the handler failed - the remaining slides are not rendered anymore
+     */
+    public void render(List<? extends Slide<?,?>> slides, SlideImageHandler handler, ExecutorService executor)
+    throws IOException {
+        final List<Slide<?,?>> parallelSlides = new ArrayList<>();
+        prepareSharedData(slides, handler, parallelSlides);
+
+        if (parallelSlides.size() < 2) {
+            for (Slide<?,?> slide : parallelSlides) {
+                renderAndHandle(slide, handler);
+            }
+            return;
+        }
+
+        LOG.log(POILogger.DEBUG, "Rendering ", parallelSlides.size(), " slides concurrently");
+
+        final List<Future<?>> futures = new ArrayList<>(parallelSlides.size());
+        try {
+            for (final Slide<?,?> slide : parallelSlides) {
+                futures.add(executor.submit(() -> {
+                    renderAndHandle(slide, handler);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering the slides");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            // the executor isn't owned by the renderer, so only the pending slides are cancelled
+            for (Future<?> f : futures) {
+                f.cancel(true);
+            }
+        }
+    }
+
+    private void renderAndHandle(Slide<?,?> slide, SlideImageHandler handler) throws IOException {
+        final BufferedImage img = render(slide);
+        try {
+            handler.handleImage(slide, img);
+        } finally {
+            img.flush();
+        }
+    }
+
+    /**
+     * Initializes the data, which is shared between the slides, on the calling thread.
+     * The slides, which can be rendered concurrently afterwards, are added to parallelSlides.
+     */
+    private void prepareSharedData(List<? extends Slide<?,?>> slides, SlideImageHandler handler,
+        List<Slide<?,?>> parallelSlides) throws IOException {
+        final Set<Object> prepared = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Slide<?,?> slide : slides) {
+            final SlideShow<?,?> ppt = slide.getSlideShow();
+            if (prepared.add(ppt)) {
+                // the pictures are loaded and measured lazily
+                for (PictureData pd : ppt.getPictureData()) {
+                    pd.getImageDimension();
+                }
+            }
+
+            boolean newMaster = false;
+            for (Sheet<?,?> master = slide.getMasterSheet(); master != null; master = master.getMasterSheet()) {
+                if (!prepared.add(master)) {
+                    break;
+                }
+                newMaster = true;
+                if (master instanceof MasterSheet) {
+                    // the placeholder lookup of a slide can be for a different type than in the first slide
+                    for (Placeholder ph : Placeholder.values()) {
+                        ((MasterSheet<?,?>)master).getPlaceholder(ph);
+                    }
+                }
+            }
+
+            if (newMaster) {
+                // the theme and the master shapes are initialized by rendering the first slide of the master
+                renderAndHandle(slide, handler);
+            } else {
+                parallelSlides.add(slide);
+            }
+        }
+    }
+}
@@ -24,25 +24,32 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.Formatter;
 import java.util.Locale;
+import java.util.TimeZone;
 import java.util.regex.Matcher;
 
 import org.apache.poi.util.LocaleUtil;
 import org.apache.poi.util.StringUtil;
 
 /**
- * Formats a date value.
+ * Formats a date value.<p>
+ *
+ * The formatter is thread-safe - the underlying {@link SimpleDateFormat} is copied for each thread,
+ * so shared formatters, e.g. of the {@link CellFormat} cache, are used without locking.
  */
 public class CellDateFormatter extends CellFormatter {
     private boolean amPmUpper;
     private boolean showM;
     private boolean showAmPm;
-    private final DateFormat dateFmt;
+    private final ThreadLocal<DateFormat> dateFmt;
     private String sFmt;
 
+    // only accessed by clone() - the clones are modified
     private final Calendar EXCEL_EPOCH_CAL =
         LocaleUtil.getLocaleCalendar(1904, 0, 1);
+    private final TimeZone timeZone = LocaleUtil.getUserTimeZone();
+    private final long epochMillis = EXCEL_EPOCH_CAL.getTimeInMillis();
 
-    private static /* final */ CellDateFormatter SIMPLE_DATE;
+    private static volatile CellDateFormatter SIMPLE_DATE;
 
     private class DatePartHandler implements CellFormatPart.PartHandler {
         private int mStart = -1;
@@ -158,19 +165,21 @@ public class CellDateFormatter extends CellFormatter {
         // tweak the format pattern to pass tests on JDK 1.7,
         // See https://issues.apache.org/bugzilla/show_bug.cgi?id=53369
         String ptrn = descBuf.toString().replaceAll("((y)(?!y))(?<!yy)", "yy");
-        dateFmt = new SimpleDateFormat(ptrn, locale);
-        dateFmt.setTimeZone(LocaleUtil.getUserTimeZone());
+        final DateFormat fmt = new SimpleDateFormat(ptrn, locale);
+        fmt.setTimeZone(timeZone);
+        // SimpleDateFormat isn't thread-safe
+        dateFmt = ThreadLocal.withInitial(() -> (DateFormat)fmt.clone());
     }
 
     /** {@inheritDoc} */
-    public synchronized void formatValue(StringBuffer toAppendTo, Object value) {
+    public void formatValue(StringBuffer toAppendTo, Object value) {
         if (value == null)
             value = 0.0;
         if (value instanceof Number) {
             Number num = (Number) value;
             long v = num.longValue();
             if (v == 0L) {
-                value = EXCEL_EPOCH_CAL.getTime();
+                value = new Date(epochMillis);
             } else {
                 Calendar c = (Calendar)EXCEL_EPOCH_CAL.clone();
                 c.add(Calendar.SECOND, (int)(v / 1000));
@@ -179,7 +188,7 @@ public class CellDateFormatter extends CellFormatter {
             }
         }
 
-        AttributedCharacterIterator it = dateFmt.formatToCharacterIterator(value);
+        AttributedCharacterIterator it = dateFmt.get().formatToCharacterIterator(value);
         boolean doneAm = false;
         boolean doneMillis = false;
 
@@ -224,11 +233,12 @@ public class CellDateFormatter extends CellFormatter {
      * For a date, this is <tt>"mm/d/y"</tt>.
      */
     public void simpleValue(StringBuffer toAppendTo, Object value) {
-        synchronized (CellDateFormatter.class) {
-            if (SIMPLE_DATE == null || !SIMPLE_DATE.EXCEL_EPOCH_CAL.equals(EXCEL_EPOCH_CAL)) {
-                SIMPLE_DATE = new CellDateFormatter("mm/d/y");
-            }
+        // a racy initialization is harmless, the formatters are equivalent
+        CellDateFormatter simpleDate = SIMPLE_DATE;
+        if (simpleDate == null || simpleDate.epochMillis != epochMillis || !simpleDate.timeZone.equals(timeZone)) {
+            simpleDate = new CellDateFormatter("mm/d/y");
+            SIMPLE_DATE = simpleDate;
         }
-        SIMPLE_DATE.formatValue(toAppendTo, value);
+        simpleDate.formatValue(toAppendTo, value);
     }
 }
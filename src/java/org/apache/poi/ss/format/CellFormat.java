@@ -21,8 +21,8 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -128,9 +128,15 @@ public class CellFormat {
         };
     }
 
-    /** Maps a format string to its parsed version for efficiencies sake. */
-    private static final Map<Locale, Map<String, CellFormat>> formatCache =
-            new WeakHashMap<>();
+    /** the maximum number of cached formats per locale, the cache is reset when it's exceeded */
+    private static final int MAX_CACHED_FORMATS = 10000;
+
+    /**
+     * Maps a format string to its parsed version for efficiencies sake.
+     * The formats are thread-safe, so the cache is shared by all threads without locking.
+     */
+    private static final ConcurrentMap<Locale, ConcurrentMap<String, CellFormat>> formatCache =
+            new ConcurrentHashMap<>();
 
     /**
      * Returns a {@link CellFormat} that applies the given format.  Two calls
@@ -153,11 +159,10 @@ public class CellFormat {
      *
      * @return A {@link CellFormat} that applies the given format.
      */
-    public static synchronized CellFormat getInstance(Locale locale, String format) {
-        Map<String, CellFormat> formatMap = formatCache.get(locale);
+    public static CellFormat getInstance(Locale locale, String format) {
+        ConcurrentMap<String, CellFormat> formatMap = formatCache.get(locale);
         if (formatMap == null) {
-            formatMap = new WeakHashMap<>();
-            formatCache.put(locale, formatMap);
+            formatMap = formatCache.computeIfAbsent(locale, k -> new ConcurrentHashMap<>());
         }
         CellFormat fmt = formatMap.get(format);
         if (fmt == null) {
@@ -165,7 +170,14 @@ public class CellFormat {
                 fmt = createGeneralFormat(locale);
             else
                 fmt = new CellFormat(locale, format);
-            formatMap.put(format, fmt);
+            if (formatMap.size() >= MAX_CACHED_FORMATS) {
+                formatMap.clear();
+            }
+            // another thread might have parsed the same format in the meantime
+            CellFormat other = formatMap.putIfAbsent(format, fmt);
+            if (other != null) {
+                fmt = other;
+            }
         }
         return fmt;
     }
@@ -0,0 +1,124 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.poi.ss.formula.FormulaCellCache.IEntryOperation;
+
+/**
+ * Stores values derived from all cells of an area, e.g. the exact lookup indexes of single rows or
+ * columns, which are used by lookup functions, or the encoded values of the criteria ranges of SUMIFS.<p>
+ *
+ * Each value has its own {@link FormulaCellCacheEntry}, which isn't bound to a cell, but is part of
+ * the dependency graph like a formula: it depends on all cells of the area and the formulas
+ * using the value depend on the entry. So the value is cleared like a formula result,
+ * when any cell of the area changes.
+ *
+ * @param <T> the type of the cached values
+ */
+final class AreaCache<T> {
+
+	static final class Key {
+		private final int _bookIndex;
+		private final int _sheetIndex;
+		private final int _firstRow;
+		private final int _firstColumn;
+		private final int _lastRow;
+		private final int _lastColumn;
+
+		Key(int bookIndex, int sheetIndex, int firstRow, int firstColumn, int lastRow, int lastColumn) {
+			_bookIndex = bookIndex;
+			_sheetIndex = sheetIndex;
+			_firstRow = firstRow;
+			_firstColumn = firstColumn;
+			_lastRow = lastRow;
+			_lastColumn = lastColumn;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = _bookIndex;
+			result = 31 * result + _sheetIndex;
+			result = 31 * result + _firstRow;
+			result = 31 * result + _firstColumn;
+			result = 31 * result + _lastRow;
+			return 31 * result + _lastColumn;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return _bookIndex == other._bookIndex && _sheetIndex == other._sheetIndex
+				&& _firstRow == other._firstRow && _firstColumn == other._firstColumn
+				&& _lastRow == other._lastRow && _lastColumn == other._lastColumn;
+		}
+	}
+
+	static final class Entry<T> {
+		private final FormulaCellCacheEntry _cacheEntry = new FormulaCellCacheEntry();
+		private T _value;
+		private int _useCount;
+
+		public FormulaCellCacheEntry getCacheEntry() {
+			return _cacheEntry;
+		}
+
+		/**
+		 * @return the value or {@code null}, if it wasn't built yet or was cleared by a cell change
+		 */
+		public T getValue() {
+			if (_cacheEntry.getValue() == null) {
+				// release the outdated value
+				_value = null;
+			}
+			return _value;
+		}
+
+		public void setValue(T value) {
+			_value = value;
+		}
+
+		/**
+		 * @return the number of uses of the area, including the current one
+		 */
+		public int incrementUseCount() {
+			return ++_useCount;
+		}
+	}
+
+	private final Map<Key,Entry<T>> _entries = new HashMap<>();
+
+	public Entry<T> getOrCreate(Key key) {
+		return _entries.computeIfAbsent(key, k -> new Entry<>());
+	}
+
+	public void applyOperation(IEntryOperation operation) {
+		for (Entry<T> e : _entries.values()) {
+			operation.processEntry(e._cacheEntry);
+		}
+	}
+
+	public void clear() {
+		_entries.clear();
+	}
+}
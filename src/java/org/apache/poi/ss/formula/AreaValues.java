@@ -0,0 +1,67 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.util.Internal;
+
+/**
+ * The dictionary encoded cell values of an area, i.e. the distinct values of the area and for each cell
+ * (in row-major order) the code of its value. Functions like SUMIFS use it to evaluate their criteria
+ * only once per distinct value instead of once per cell.<p>
+ *
+ * Instances are immutable and are cached by the evaluation cache, so the returned arrays must not be modified.
+ *
+ * @see AreaValuesProvider
+ * @since POI 4.1.1
+ */
+@Internal
+public final class AreaValues {
+    private final ValueEval[] _distinctValues;
+    private final int[] _codes;
+
+    /**
+     * @param distinctValues the distinct values of the area
+     * @param codes the index of each cell value in {@code distinctValues}, in row-major order
+     */
+    public AreaValues(ValueEval[] distinctValues, int[] codes) {
+        _distinctValues = distinctValues;
+        _codes = codes;
+    }
+
+    /**
+     * @return the number of cells of the area
+     */
+    public int getSize() {
+        return _codes.length;
+    }
+
+    /**
+     * @return the distinct values of the area, the codes of the cells are indexes into this array
+     */
+    public ValueEval[] getDistinctValues() {
+        return _distinctValues;
+    }
+
+    /**
+     * @return the codes of the cell values in row-major order
+     */
+    public int[] getCodes() {
+        return _codes;
+    }
+}
@@ -0,0 +1,35 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import org.apache.poi.util.Internal;
+
+/**
+ * Optional extension to {@link TwoDEval}, which provides the cached and encoded values of the whole area,
+ * so conditional aggregations like SUMIFS or COUNTIFS don't need to evaluate their criteria for each cell.
+ * The values are invalidated by the evaluation cache, when any cell of the area changes.
+ *
+ * @since POI 4.1.1
+ */
+@Internal
+public interface AreaValuesProvider {
+    /**
+     * @return the encoded values or {@code null}, if they aren't available and the cells need to be scanned
+     */
+    AreaValues getAreaValues();
+}
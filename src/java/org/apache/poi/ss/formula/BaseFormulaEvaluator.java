@@ -292,6 +292,37 @@ public abstract class BaseFormulaEvaluator implements FormulaEvaluator, Workbook
         FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
         evaluateAllFormulaCells(wb, evaluator);
     }
+
+    /**
+     * Evaluates all formula cells of the supplied workbook like {@link #evaluateAllFormulaCells(Workbook)},
+     * but uses the given number of threads.<p>
+     *
+     * The formula cells are partitioned into independent components of the dependency graph, which are
+     * evaluated in parallel. As the evaluation engine is not thread-safe, each thread uses its own formula
+     * evaluator, so formulas which are referenced by several components are evaluated more than once.
+     * This pays off for big workbooks with many independent calculations, but not for workbooks where
+     * most formulas depend on each other.<p>
+     *
+     * The workbook must not be modified during the evaluation and its parts need to support concurrent
+     * reads. The results are stored in the cells by the calling thread.
+     *
+     * @param wb the workbook to evaluate
+     * @param threads the number of threads to use, 1 evaluates the cells in the calling thread
+     * @throws IllegalArgumentException if the number of threads is less than 1
+     *
+     * @since POI 4.1.1
+     */
+    public static void evaluateAllFormulaCells(Workbook wb, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads needs to be at least 1, but was "+threads);
+        }
+        if (threads == 1) {
+            evaluateAllFormulaCells(wb);
+        } else {
+            ParallelWorkbookEvaluator.evaluateAllFormulaCells(wb, threads);
+        }
+    }
+
     protected static void evaluateAllFormulaCells(Workbook wb, FormulaEvaluator evaluator) {
         for(int i=0; i<wb.getNumberOfSheets(); i++) {
             Sheet sheet = wb.getSheetAt(i);
@@ -306,6 +337,34 @@ public abstract class BaseFormulaEvaluator implements FormulaEvaluator, Workbook
         }
     }
 
+    /**
+     * Incrementally recalculates the formula cells, which depend directly or indirectly on the cells
+     * reported by the notify~ methods (e.g. {@link #notifyUpdateCell(Cell)}) since the last call.
+     * The results are saved in the cells like by {@link #evaluateFormulaCell(Cell)}.<p>
+     *
+     * The dependency graph is recorded by the evaluation cache, when the formulas are evaluated.
+     * So for a batch of cell edits, first evaluate all formulas once, e.g. via {@link #evaluateAll()},
+     * and then only notify the evaluator about the updated cells and call this method. The invalidated
+     * part of the graph is recalculated in topological order, the other formula cells are not visited.<p>
+     *
+     * After {@link #clearAllCachedResultValues()} a full recalculation is necessary again.
+     *
+     * @return the number of recalculated formula cells
+     *
+     * @since POI 4.1.1
+     */
+    public int evaluateDirtyFormulaCells() {
+        int count = 0;
+        for (EvaluationCell ec : _bookEvaluator.pollDirtyFormulaCells()) {
+            Object cell = ec.getIdentityKey();
+            if (cell instanceof Cell) {
+                evaluateFormulaCell((Cell)cell);
+                count++;
+            }
+        }
+        return count;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void setIgnoreMissingWorkbooks(boolean ignore){
@@ -17,6 +17,8 @@
 
 package org.apache.poi.ss.formula;
 
+import java.util.List;
+
 import org.apache.poi.ss.formula.eval.BlankEval;
 import org.apache.poi.ss.formula.eval.BoolEval;
 import org.apache.poi.ss.formula.eval.ErrorEval;
@@ -94,35 +96,42 @@ abstract class CellCacheEntry implements ICacheEntry {
 			throw new IllegalStateException("Specified formula cell is not consumed by this cell");
 		}
 	}
-	public final void recurseClearCachedFormulaResults(IEvaluationListener listener) {
+	/**
+	 * @param dirtyCells the list, which collects the cleared formula cells
+	 *  (see {@link FormulaCellCacheEntry#markDirty(List)}), may be <code>null</code>
+	 */
+	public final void recurseClearCachedFormulaResults(IEvaluationListener listener, List<FormulaCellCacheEntry> dirtyCells) {
 		if (listener == null) {
-			recurseClearCachedFormulaResults();
+			recurseClearCachedFormulaResults(dirtyCells);
 		} else {
 			listener.onClearCachedValue(this);
-			recurseClearCachedFormulaResults(listener, 1);
+			recurseClearCachedFormulaResults(listener, 1, dirtyCells);
 		}
 	}
 
 	/**
 	 * Calls formulaCell.setFormulaResult(null, null) recursively all the way up the tree of
 	 * dependencies. Calls usedCell.clearConsumingCell(fc) for each child of a cell that is
-	 * cleared along the way.
-	 * @param formulaCells
+	 * cleared along the way.<p>
+	 *
+	 * The cleared cells are added to dirtyCells after their dependents (i.e. in post-order),
+	 * so the reversed list is in topological order.
 	 */
-	protected final void recurseClearCachedFormulaResults() {
+	protected final void recurseClearCachedFormulaResults(List<FormulaCellCacheEntry> dirtyCells) {
 		FormulaCellCacheEntry[] formulaCells = getConsumingCells();
 
 		for (int i = 0; i < formulaCells.length; i++) {
 			FormulaCellCacheEntry fc = formulaCells[i];
 			fc.clearFormulaEntry();
-			fc.recurseClearCachedFormulaResults();
+			fc.recurseClearCachedFormulaResults(dirtyCells);
+			fc.markDirty(dirtyCells);
 		}
 	}
 
 	/**
-	 * Identical to {@link #recurseClearCachedFormulaResults()} except for the listener call-backs
+	 * Identical to {@link #recurseClearCachedFormulaResults(List)} except for the listener call-backs
 	 */
-	protected final void recurseClearCachedFormulaResults(IEvaluationListener listener, int depth) {
+	protected final void recurseClearCachedFormulaResults(IEvaluationListener listener, int depth, List<FormulaCellCacheEntry> dirtyCells) {
 		FormulaCellCacheEntry[] formulaCells = getConsumingCells();
 
 		listener.sortDependentCachedValues(formulaCells);
@@ -130,7 +139,8 @@ abstract class CellCacheEntry implements ICacheEntry {
 			FormulaCellCacheEntry fc = formulaCells[i];
 			listener.onClearDependentCachedValue(fc, depth);
 			fc.clearFormulaEntry();
-			fc.recurseClearCachedFormulaResults(listener, depth+1);
+			fc.recurseClearCachedFormulaResults(listener, depth+1, dirtyCells);
+			fc.markDirty(dirtyCells);
 		}
 	}
 }
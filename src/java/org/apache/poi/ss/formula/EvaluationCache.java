@@ -17,6 +17,10 @@
 
 package org.apache.poi.ss.formula;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.poi.ss.formula.FormulaCellCache.IEntryOperation;
 import org.apache.poi.ss.formula.FormulaUsedBlankCellSet.BookSheetKey;
 import org.apache.poi.ss.formula.PlainCellCache.Loc;
@@ -39,6 +43,13 @@ final class EvaluationCache {
 
 	private final PlainCellCache _plainCellCache;
 	private final FormulaCellCache _formulaCellCache;
+	/**
+	 * Formula cells, which were cleared by the notify~ methods, in post-order of the dependency graph,
+	 * i.e. each cell is listed after all cells depending on it
+	 */
+	private final List<FormulaCellCacheEntry> _dirtyFormulaCells;
+	private final AreaCache<Map<Object,Integer>> _lookupIndexCache;
+	private final AreaCache<AreaValues> _areaValuesCache;
 	/** only used for testing. <code>null</code> otherwise */
 	final IEvaluationListener _evaluationListener;
 
@@ -46,6 +57,9 @@ final class EvaluationCache {
 		_evaluationListener = evaluationListener;
 		_plainCellCache = new PlainCellCache();
 		_formulaCellCache = new FormulaCellCache();
+		_dirtyFormulaCells = new ArrayList<>();
+		_lookupIndexCache = new AreaCache<>();
+		_areaValuesCache = new AreaCache<>();
 	}
 
 	public void notifyUpdateCell(int bookIndex, int sheetIndex, EvaluationCell cell) {
@@ -58,7 +72,7 @@ final class EvaluationCache {
 
 		if (cell.getCellType() == CellType.FORMULA) {
 			if (fcce == null) {
-				fcce = new FormulaCellCacheEntry();
+				fcce = new FormulaCellCacheEntry(cell, bookIndex);
 				if (pcce == null) {
 					if (_evaluationListener != null) {
 						_evaluationListener.onChangeFromBlankValue(sheetIndex, rowIndex,
@@ -69,16 +83,17 @@ final class EvaluationCache {
 				}
 				_formulaCellCache.put(cell, fcce);
 			} else {
-				fcce.recurseClearCachedFormulaResults(_evaluationListener);
+				fcce.recurseClearCachedFormulaResults(_evaluationListener, _dirtyFormulaCells);
 				fcce.clearFormulaEntry();
 			}
 			if (pcce == null) {
 				// was formula cell before - no change of type
 			} else {
 				// changing from plain cell to formula cell
-				pcce.recurseClearCachedFormulaResults(_evaluationListener);
+				pcce.recurseClearCachedFormulaResults(_evaluationListener, _dirtyFormulaCells);
 				_plainCellCache.remove(loc);
 			}
+			fcce.markDirty(_dirtyFormulaCells);
 		} else {
 			ValueEval value = WorkbookEvaluator.getValueFromNonFormulaCell(cell);
 			if (pcce == null) {
@@ -98,7 +113,7 @@ final class EvaluationCache {
 				}
 			} else {
 				if (pcce.updateValue(value)) {
-					pcce.recurseClearCachedFormulaResults(_evaluationListener);
+					pcce.recurseClearCachedFormulaResults(_evaluationListener, _dirtyFormulaCells);
 				}
 				if (value == BlankEval.instance) {
 					_plainCellCache.remove(loc);
@@ -110,7 +125,7 @@ final class EvaluationCache {
 				// was formula cell before - now a plain value
 				_formulaCellCache.remove(cell);
 				fcce.setSensitiveInputCells(null);
-				fcce.recurseClearCachedFormulaResults(_evaluationListener);
+				fcce.recurseClearCachedFormulaResults(_evaluationListener, _dirtyFormulaCells);
 			}
 		}
 	}
@@ -118,12 +133,15 @@ final class EvaluationCache {
 	private void updateAnyBlankReferencingFormulas(int bookIndex, int sheetIndex,
 			final int rowIndex, final int columnIndex) {
 		final BookSheetKey bsk = new BookSheetKey(bookIndex, sheetIndex);
-		_formulaCellCache.applyOperation(new IEntryOperation() {
+		IEntryOperation operation = new IEntryOperation() {
 
 			public void processEntry(FormulaCellCacheEntry entry) {
-				entry.notifyUpdatedBlankCell(bsk, rowIndex, columnIndex, _evaluationListener);
+				entry.notifyUpdatedBlankCell(bsk, rowIndex, columnIndex, _evaluationListener, _dirtyFormulaCells);
 			}
-		});
+		};
+		_formulaCellCache.applyOperation(operation);
+		_lookupIndexCache.applyOperation(operation);
+		_areaValuesCache.applyOperation(operation);
 	}
 
 	public PlainValueCellCacheEntry getPlainValueEntry(int bookIndex, int sheetIndex,
@@ -175,11 +193,11 @@ final class EvaluationCache {
 		throw new IllegalStateException("Unexpected value class (" + cls.getName() + ")");
 	}
 
-	public FormulaCellCacheEntry getOrCreateFormulaCellEntry(EvaluationCell cell) {
+	public FormulaCellCacheEntry getOrCreateFormulaCellEntry(int bookIndex, EvaluationCell cell) {
 		FormulaCellCacheEntry result = _formulaCellCache.get(cell);
 		if (result == null) {
 
-			result = new FormulaCellCacheEntry();
+			result = new FormulaCellCacheEntry(cell, bookIndex);
 			_formulaCellCache.put(cell, result);
 		}
 		return result;
@@ -194,6 +212,69 @@ final class EvaluationCache {
 		}
 		_plainCellCache.clear();
 		_formulaCellCache.clear();
+		_lookupIndexCache.clear();
+		_areaValuesCache.clear();
+		for (FormulaCellCacheEntry fcce : _dirtyFormulaCells) {
+			fcce.clearDirty();
+		}
+		_dirtyFormulaCells.clear();
+	}
+
+	/**
+	 * @return the cached lookup index entry of the given single row or column
+	 */
+	public AreaCache.Entry<Map<Object,Integer>> getOrCreateLookupIndex(int bookIndex, int sheetIndex,
+			int firstRow, int firstColumn, int lastRow, int lastColumn) {
+		return _lookupIndexCache.getOrCreate(new AreaCache.Key(bookIndex, sheetIndex,
+				firstRow, firstColumn, lastRow, lastColumn));
+	}
+
+	/**
+	 * @return the cached encoded values entry of the given area
+	 */
+	public AreaCache.Entry<AreaValues> getOrCreateAreaValues(int bookIndex, int sheetIndex,
+			int firstRow, int firstColumn, int lastRow, int lastColumn) {
+		return _areaValuesCache.getOrCreate(new AreaCache.Key(bookIndex, sheetIndex,
+				firstRow, firstColumn, lastRow, lastColumn));
+	}
+
+	/**
+	 * Removes the dirty formula cells of the given workbook, i.e. the formula cells whose cached results
+	 * were cleared by the notify~ methods since the last call.
+	 *
+	 * @param bookIndex the index of the workbook in the collaborating environment
+	 * @return the dirty cells in topological order, i.e. each cell is listed after the cells it depends on.
+	 *  Cells which were deleted or have become plain value cells in the meantime, are skipped.
+	 */
+	public List<EvaluationCell> pollDirtyFormulaCells(int bookIndex) {
+		List<EvaluationCell> result = new ArrayList<>();
+		int nRetained = 0;
+		for (int i = _dirtyFormulaCells.size()-1; i >= 0; i--) {
+			FormulaCellCacheEntry fcce = _dirtyFormulaCells.get(i);
+			if (fcce.getBookIndex() != bookIndex) {
+				nRetained++;
+				continue;
+			}
+			fcce.clearDirty();
+			EvaluationCell cell = fcce.getCell();
+			if (_formulaCellCache.get(cell) == fcce) {
+				result.add(cell);
+			}
+		}
+		if (nRetained == 0) {
+			_dirtyFormulaCells.clear();
+		} else {
+			// the cells of the collaborating workbooks keep their order
+			List<FormulaCellCacheEntry> retained = new ArrayList<>(nRetained);
+			for (FormulaCellCacheEntry fcce : _dirtyFormulaCells) {
+				if (fcce.getBookIndex() != bookIndex) {
+					retained.add(fcce);
+				}
+			}
+			_dirtyFormulaCells.clear();
+			_dirtyFormulaCells.addAll(retained);
+		}
+		return result;
 	}
 	public void notifyDeleteCell(int bookIndex, int sheetIndex, EvaluationCell cell) {
 
@@ -203,7 +284,7 @@ final class EvaluationCache {
 				// formula cell has not been evaluated yet
 			} else {
 				fcce.setSensitiveInputCells(null);
-				fcce.recurseClearCachedFormulaResults(_evaluationListener);
+				fcce.recurseClearCachedFormulaResults(_evaluationListener, _dirtyFormulaCells);
 			}
 		} else {
 			Loc loc = new Loc(bookIndex, sheetIndex, cell.getRowIndex(), cell.getColumnIndex());
@@ -212,7 +293,7 @@ final class EvaluationCache {
 			if (pcce == null) {
 				// cache entry doesn't exist. nothing to do
 			} else {
-				pcce.recurseClearCachedFormulaResults(_evaluationListener);
+				pcce.recurseClearCachedFormulaResults(_evaluationListener, _dirtyFormulaCells);
 			}
 		}
 	}
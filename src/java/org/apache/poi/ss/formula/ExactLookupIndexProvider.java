@@ -0,0 +1,73 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import java.util.Map;
+
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.StringEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.util.Internal;
+
+/**
+ * Optional extension to {@link TwoDEval}, which provides cached indexes of its rows or columns,
+ * so lookup functions like VLOOKUP or MATCH don't need to scan the area for each exact lookup.
+ * The indexes are invalidated by the evaluation cache, when any cell of the row or column changes.
+ *
+ * @since POI 4.1.1
+ */
+@Internal
+public interface ExactLookupIndexProvider {
+    /**
+     * @param isRow {@code true} to index a row, {@code false} to index a column of this area
+     * @param relativeIndex the relative row or column index (zero based)
+     * @return a map from the lookup keys (see {@link #getExactLookupKey(ValueEval)})
+     *  to the first relative index of the value in the row or column, or {@code null} if no index
+     *  is available and the values need to be scanned
+     */
+    Map<Object,Integer> getExactLookupIndex(boolean isRow, int relativeIndex);
+
+    /**
+     * Returns the key of a value for the exact lookup, i.e. two values have equal keys, if they are
+     * equal for the lookup functions: numbers and booleans by value and strings case-insensitive.
+     *
+     * @param value the value of a cell
+     * @return the key or {@code null} for values which are never matched, e.g. blanks and errors
+     */
+    static Object getExactLookupKey(ValueEval value) {
+        // the lookup comparers only match values of the same class
+        Class<?> cls = (value == null) ? null : value.getClass();
+        if (cls == NumberEval.class) {
+            return ((NumberEval)value).getNumberValue();
+        }
+        if (cls == StringEval.class) {
+            // mirror the character-wise comparison of String.compareToIgnoreCase()
+            String str = ((StringEval)value).getStringValue();
+            char[] chars = new char[str.length()];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = Character.toLowerCase(Character.toUpperCase(str.charAt(i)));
+            }
+            return new String(chars);
+        }
+        if (cls == BoolEval.class) {
+            return ((BoolEval)value).getBooleanValue();
+        }
+        return null;
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.poi.ss.formula;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.poi.ss.formula.eval.ValueEval;
@@ -39,8 +40,50 @@ final class FormulaCellCacheEntry extends CellCacheEntry {
 
 	private FormulaUsedBlankCellSet _usedBlankCellGroup;
 
+	/** the formula cell of this entry, <code>null</code> if the cell is unknown */
+	private final EvaluationCell _cell;
+	private final int _bookIndex;
+	/** <code>true</code> if the entry was cleared and is waiting in a list of dirty cells */
+	private boolean _dirty;
+
 	public FormulaCellCacheEntry() {
-		// leave fields un-set
+		this(null, -1);
+	}
+
+	public FormulaCellCacheEntry(EvaluationCell cell, int bookIndex) {
+		_cell = cell;
+		_bookIndex = bookIndex;
+	}
+
+	/**
+	 * @return the formula cell of this entry, <code>null</code> if the cell is unknown
+	 */
+	public EvaluationCell getCell() {
+		return _cell;
+	}
+
+	public int getBookIndex() {
+		return _bookIndex;
+	}
+
+	/**
+	 * Adds this entry to the list of dirty cells, i.e. of cells which need to be recalculated,
+	 * unless it's already contained
+	 *
+	 * @param dirtyCells the list of dirty cells, may be <code>null</code>
+	 */
+	public void markDirty(List<FormulaCellCacheEntry> dirtyCells) {
+		if (dirtyCells != null && _cell != null && !_dirty) {
+			_dirty = true;
+			dirtyCells.add(this);
+		}
+	}
+
+	/**
+	 * Called when this entry was removed from the list of dirty cells
+	 */
+	public void clearDirty() {
+		_dirty = false;
 	}
 	
 	public boolean isInputSensitive() {
@@ -113,11 +156,13 @@ final class FormulaCellCacheEntry extends CellCacheEntry {
 		_usedBlankCellGroup = usedBlankAreas;
 	}
 
-	public void notifyUpdatedBlankCell(BookSheetKey bsk, int rowIndex, int columnIndex, IEvaluationListener evaluationListener) {
+	public void notifyUpdatedBlankCell(BookSheetKey bsk, int rowIndex, int columnIndex, IEvaluationListener evaluationListener,
+			List<FormulaCellCacheEntry> dirtyCells) {
 		if (_usedBlankCellGroup != null) {
 			if (_usedBlankCellGroup.containsCell(bsk, rowIndex, columnIndex)) {
 				clearFormulaEntry();
-				recurseClearCachedFormulaResults(evaluationListener);
+				recurseClearCachedFormulaResults(evaluationListener, dirtyCells);
+				markDirty(dirtyCells);
 			}
 		}
 	}
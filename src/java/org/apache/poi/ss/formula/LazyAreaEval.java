@@ -17,6 +17,8 @@
 
 package org.apache.poi.ss.formula;
 
+import java.util.Map;
+
 import org.apache.poi.ss.formula.eval.AreaEval;
 import org.apache.poi.ss.formula.eval.AreaEvalBase;
 import org.apache.poi.ss.formula.eval.ValueEval;
@@ -27,7 +29,7 @@ import org.apache.poi.ss.util.CellReference;
 /**
  * Provides Lazy Evaluation to 3D Ranges
  */
-final class LazyAreaEval extends AreaEvalBase {
+final class LazyAreaEval extends AreaEvalBase implements ExactLookupIndexProvider, AreaValuesProvider {
 	private final SheetRangeEvaluator _evaluator;
 
 	LazyAreaEval(AreaI ptg, SheetRangeEvaluator evaluator) {
@@ -51,6 +53,30 @@ final class LazyAreaEval extends AreaEvalBase {
 		return _evaluator.getEvalForCell(sheetIndex, rowIx, colIx);
 	}
 
+	@Override
+	public Map<Object,Integer> getExactLookupIndex(boolean isRow, int relativeIndex) {
+		if (_evaluator.getFirstSheetIndex() != _evaluator.getLastSheetIndex()) {
+			return null;
+		}
+		SheetRefEvaluator sre = _evaluator.getSheetEvaluator(_evaluator.getFirstSheetIndex());
+		if (isRow) {
+			int rowIx = getFirstRow() + relativeIndex;
+			return sre.getExactLookupIndex(rowIx, getFirstColumn(), rowIx, getLastColumn());
+		} else {
+			int colIx = getFirstColumn() + relativeIndex;
+			return sre.getExactLookupIndex(getFirstRow(), colIx, getLastRow(), colIx);
+		}
+	}
+
+	@Override
+	public AreaValues getAreaValues() {
+		if (_evaluator.getFirstSheetIndex() != _evaluator.getLastSheetIndex()) {
+			return null;
+		}
+		SheetRefEvaluator sre = _evaluator.getSheetEvaluator(_evaluator.getFirstSheetIndex());
+		return sre.getAreaValues(getFirstRow(), getFirstColumn(), getLastRow(), getLastColumn());
+	}
+
 	public AreaEval offset(int relFirstRowIx, int relLastRowIx, int relFirstColIx, int relLastColIx) {
 		AreaI area = new OffsetArea(getFirstRow(), getFirstColumn(),
 				relFirstRowIx, relLastRowIx, relFirstColIx, relLastColIx);
@@ -0,0 +1,388 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.poi.ss.formula.EvaluationWorkbook.ExternalSheet;
+import org.apache.poi.ss.formula.EvaluationWorkbook.ExternalSheetRange;
+import org.apache.poi.ss.formula.ptg.Area3DPtg;
+import org.apache.poi.ss.formula.ptg.Area3DPxg;
+import org.apache.poi.ss.formula.ptg.AreaPtg;
+import org.apache.poi.ss.formula.ptg.AreaPtgBase;
+import org.apache.poi.ss.formula.ptg.NamePtg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.Pxg;
+import org.apache.poi.ss.formula.ptg.Pxg3D;
+import org.apache.poi.ss.formula.ptg.Ref3DPtg;
+import org.apache.poi.ss.formula.ptg.Ref3DPxg;
+import org.apache.poi.ss.formula.ptg.RefPtg;
+import org.apache.poi.ss.formula.ptg.RefPtgBase;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.POILogFactory;
+import org.apache.poi.util.POILogger;
+
+/**
+ * Evaluates all formula cells of a workbook with several threads.<p>
+ *
+ * The evaluation engine is not thread-safe, therefore each thread uses its own formula evaluator
+ * with its own evaluation cache. The formula cells are partitioned into independent components
+ * of the dependency graph, which is derived from the cell and area references of the formulas
+ * (including the references of named ranges). The components are then distributed over the threads,
+ * so precedent formulas are usually evaluated only once. As any evaluator can evaluate any cell,
+ * references which can't be resolved up-front (e.g. via INDIRECT) only lead to duplicated
+ * evaluations in several threads, but not to wrong results.<p>
+ *
+ * The workbook is only read by the threads - the results are stored in the cells by the calling
+ * thread after all components have been evaluated.
+ */
+final class ParallelWorkbookEvaluator {
+    private static final POILogger LOG = POILogFactory.getLogger(ParallelWorkbookEvaluator.class);
+
+    private final Workbook _workbook;
+    private final BaseFormulaEvaluator[] _evaluators;
+    private final EvaluationWorkbook _evalWorkbook;
+
+    /** the formula cells in sheet/row/column order */
+    private final List<Cell> _cells = new ArrayList<>();
+    private final List<int[]> _cellPositions = new ArrayList<>();
+    /** cell index by packed position */
+    private final Map<Long,Integer> _cellsByPosition = new HashMap<>();
+    /** per sheet: the index range of its formula cells in _cells */
+    private int[] _sheetStart;
+
+    /** union-find parents of the formula cells */
+    private int[] _parents;
+    /** the first formula cell, which referenced an area, to avoid repeated scans of big areas */
+    private final Map<List<Integer>,Integer> _areaReferrers = new HashMap<>();
+    /** the references of the named ranges by name index */
+    private final Map<Integer,List<int[]>> _nameReferences = new HashMap<>();
+
+    private ParallelWorkbookEvaluator(Workbook workbook, int threads) {
+        _workbook = workbook;
+        _evaluators = new BaseFormulaEvaluator[threads];
+        for (int i = 0; i < threads; i++) {
+            _evaluators[i] = (BaseFormulaEvaluator)workbook.getCreationHelper().createFormulaEvaluator();
+        }
+        _evalWorkbook = _evaluators[0].getEvaluationWorkbook();
+    }
+
+    /**
+     * Evaluates all formula cells of the given workbook with the given number of threads
+     * and stores the results in the cells.
+     *
+     * @param workbook the workbook, which must not be modified during the evaluation
+     * @param threads the number of threads, must be greater than 1
+     */
+    static void evaluateAllFormulaCells(Workbook workbook, int threads) {
+        new ParallelWorkbookEvaluator(workbook, threads).evaluateAll();
+    }
+
+    private void evaluateAll() {
+        collectFormulaCells();
+        partition();
+        List<int[]> components = getComponents();
+        LOG.log(POILogger.DEBUG, "Evaluating ", _cells.size(), " formula cells in ", components.size(), " components");
+
+        final CellValue[] results = evaluateComponents(components);
+
+        BaseFormulaEvaluator writer = _evaluators[0];
+        for (int i = 0; i < results.length; i++) {
+            writer.setCellValue(_cells.get(i), results[i]);
+        }
+    }
+
+    private void collectFormulaCells() {
+        final int numSheets = _workbook.getNumberOfSheets();
+        _sheetStart = new int[numSheets+1];
+        for (int sheetIndex = 0; sheetIndex < numSheets; sheetIndex++) {
+            _sheetStart[sheetIndex] = _cells.size();
+            Sheet sheet = _workbook.getSheetAt(sheetIndex);
+            for (Row r : sheet) {
+                for (Cell c : r) {
+                    if (c.getCellType() == CellType.FORMULA) {
+                        int rowIndex = c.getRowIndex(), colIndex = c.getColumnIndex();
+                        _cellsByPosition.put(pack(sheetIndex, rowIndex, colIndex), _cells.size());
+                        _cells.add(c);
+                        _cellPositions.add(new int[]{sheetIndex, rowIndex, colIndex});
+                    }
+                }
+            }
+        }
+        _sheetStart[numSheets] = _cells.size();
+    }
+
+    private static long pack(int sheetIndex, int rowIndex, int colIndex) {
+        return ((long)sheetIndex << 40) | ((long)rowIndex << 16) | colIndex;
+    }
+
+    private void partition() {
+        final int size = _cells.size();
+        _parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            _parents[i] = i;
+        }
+
+        List<int[]> refs = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int[] pos = _cellPositions.get(i);
+            refs.clear();
+            try {
+                EvaluationCell evalCell = _evalWorkbook.getSheet(pos[0]).getCell(pos[1], pos[2]);
+                collectReferences(_evalWorkbook.getFormulaTokens(evalCell), pos[0], refs);
+            } catch (RuntimeException e) {
+                // the dependencies are only used for scheduling - the error will be reported by the evaluation
+                LOG.log(POILogger.DEBUG, "Can't determine the references of formula cell ", i, e);
+            }
+            for (int[] ref : refs) {
+                unionReference(i, ref);
+            }
+        }
+    }
+
+    /**
+     * Collects the references of the given tokens as int arrays of
+     * {firstSheet, lastSheet, firstRow, lastRow, firstColumn, lastColumn}
+     */
+    private void collectReferences(Ptg[] ptgs, int sheetIndex, List<int[]> refs) {
+        for (Ptg ptg : ptgs) {
+            if (ptg instanceof RefPtg) {
+                RefPtgBase rptg = (RefPtgBase)ptg;
+                refs.add(new int[]{sheetIndex, sheetIndex, rptg.getRow(), rptg.getRow(), rptg.getColumn(), rptg.getColumn()});
+            } else if (ptg instanceof AreaPtg) {
+                addArea(refs, sheetIndex, sheetIndex, (AreaPtgBase)ptg);
+            } else if (ptg instanceof Ref3DPtg || ptg instanceof Ref3DPxg) {
+                RefPtgBase rptg = (RefPtgBase)ptg;
+                int[] sheets = resolveSheets(ptg);
+                if (sheets != null) {
+                    refs.add(new int[]{sheets[0], sheets[1], rptg.getRow(), rptg.getRow(), rptg.getColumn(), rptg.getColumn()});
+                }
+            } else if (ptg instanceof Area3DPtg || ptg instanceof Area3DPxg) {
+                int[] sheets = resolveSheets(ptg);
+                if (sheets != null) {
+                    addArea(refs, sheets[0], sheets[1], (AreaPtgBase)ptg);
+                }
+            } else if (ptg instanceof NamePtg) {
+                refs.addAll(getNameReferences((NamePtg)ptg, sheetIndex));
+            }
+        }
+    }
+
+    private static void addArea(List<int[]> refs, int firstSheet, int lastSheet, AreaPtgBase aptg) {
+        refs.add(new int[]{firstSheet, lastSheet, aptg.getFirstRow(), aptg.getLastRow(), aptg.getFirstColumn(), aptg.getLastColumn()});
+    }
+
+    /**
+     * @return the first and last local sheet index or {@code null} for references to other workbooks
+     */
+    private int[] resolveSheets(Ptg ptg) {
+        String firstSheetName, lastSheetName = null;
+        if (ptg instanceof Pxg) {
+            Pxg pxg = (Pxg)ptg;
+            if (pxg.getExternalWorkbookNumber() > 0) {
+                return null;
+            }
+            firstSheetName = pxg.getSheetName();
+            if (pxg instanceof Pxg3D) {
+                lastSheetName = ((Pxg3D)pxg).getLastSheetName();
+            }
+        } else {
+            ExternalSheet externalSheet = _evalWorkbook.getExternalSheet(((ExternSheetReferenceToken)ptg).getExternSheetIndex());
+            if (externalSheet == null || externalSheet.getWorkbookName() != null) {
+                return null;
+            }
+            firstSheetName = externalSheet.getSheetName();
+            if (externalSheet instanceof ExternalSheetRange) {
+                lastSheetName = ((ExternalSheetRange)externalSheet).getLastSheetName();
+            }
+        }
+        int firstSheet = _evalWorkbook.getSheetIndex(firstSheetName);
+        int lastSheet = (lastSheetName == null) ? firstSheet : _evalWorkbook.getSheetIndex(lastSheetName);
+        return (firstSheet < 0 || lastSheet < firstSheet) ? null : new int[]{ firstSheet, lastSheet };
+    }
+
+    private List<int[]> getNameReferences(NamePtg namePtg, int sheetIndex) {
+        Integer key = namePtg.getIndex();
+        List<int[]> refs = _nameReferences.get(key);
+        if (refs == null) {
+            refs = new ArrayList<>();
+            // register the list before resolving the definition to stop recursive names
+            _nameReferences.put(key, refs);
+            EvaluationName name = _evalWorkbook.getName(namePtg);
+            if (name != null && !name.isFunctionName() && name.hasFormula()) {
+                collectReferences(name.getNameDefinition(), sheetIndex, refs);
+            }
+        }
+        return refs;
+    }
+
+    private void unionReference(int cellIndex, int[] ref) {
+        final int firstSheet = ref[0], lastSheet = ref[1];
+        final int firstRow = ref[2], lastRow = ref[3];
+        final int firstCol = ref[4], lastCol = ref[5];
+
+        if (firstSheet == lastSheet && firstRow == lastRow && firstCol == lastCol) {
+            Integer other = _cellsByPosition.get(pack(firstSheet, firstRow, firstCol));
+            if (other != null) {
+                union(cellIndex, other);
+            }
+            return;
+        }
+
+        // all formula cells within the area are already in the component of the previous referrer
+        List<Integer> areaKey = Arrays.asList(firstSheet, lastSheet, firstRow, lastRow, firstCol, lastCol);
+        Integer referrer = _areaReferrers.putIfAbsent(areaKey, cellIndex);
+        if (referrer != null) {
+            union(cellIndex, referrer);
+            return;
+        }
+
+        for (int sheet = firstSheet; sheet <= lastSheet && sheet < _sheetStart.length-1; sheet++) {
+            int end = _sheetStart[sheet+1];
+            for (int i = findFirstCellInRow(sheet, firstRow); i < end; i++) {
+                int[] pos = _cellPositions.get(i);
+                if (pos[1] > lastRow) {
+                    break;
+                }
+                if (firstCol <= pos[2] && pos[2] <= lastCol) {
+                    union(cellIndex, i);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the index of the first formula cell of the sheet with a row index greater or equal to rowIndex
+     */
+    private int findFirstCellInRow(int sheetIndex, int rowIndex) {
+        int low = _sheetStart[sheetIndex], high = _sheetStart[sheetIndex+1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (_cellPositions.get(mid)[1] < rowIndex) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int find(int i) {
+        int root = i;
+        while (_parents[root] != root) {
+            root = _parents[root];
+        }
+        // path compression
+        while (_parents[i] != root) {
+            int next = _parents[i];
+            _parents[i] = root;
+            i = next;
+        }
+        return root;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a), rootB = find(b);
+        if (rootA != rootB) {
+            // the smaller index becomes the root, so the components keep the cell order
+            if (rootA < rootB) {
+                _parents[rootB] = rootA;
+            } else {
+                _parents[rootA] = rootB;
+            }
+        }
+    }
+
+    /**
+     * @return the cell indexes of the components, the biggest components first
+     */
+    private List<int[]> getComponents() {
+        final int size = _cells.size();
+        int[] componentSizes = new int[size];
+        for (int i = 0; i < size; i++) {
+            componentSizes[find(i)]++;
+        }
+        int[][] members = new int[size][];
+        int[] fill = new int[size];
+        List<int[]> components = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int root = _parents[i];
+            if (members[root] == null) {
+                members[root] = new int[componentSizes[root]];
+                components.add(members[root]);
+            }
+            members[root][fill[root]++] = i;
+        }
+        components.sort((c1, c2) -> Integer.compare(c2.length, c1.length));
+        return components;
+    }
+
+    private CellValue[] evaluateComponents(final List<int[]> components) {
+        final CellValue[] results = new CellValue[_cells.size()];
+        final AtomicInteger nextComponent = new AtomicInteger();
+        final int threads = Math.min(_evaluators.length, Math.max(1, components.size()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                final BaseFormulaEvaluator evaluator = _evaluators[t];
+                futures.add(executor.submit(() -> {
+                    int idx;
+                    while ((idx = nextComponent.getAndIncrement()) < components.size()) {
+                        for (int cellIndex : components.get(idx)) {
+                            results[cellIndex] = evaluator.evaluateFormulaCellValue(_cells.get(cellIndex));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating the formula cells", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+}
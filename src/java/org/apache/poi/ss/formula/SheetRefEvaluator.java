@@ -17,6 +17,8 @@
 
 package org.apache.poi.ss.formula;
 
+import java.util.Map;
+
 import org.apache.poi.ss.formula.eval.ValueEval;
 import org.apache.poi.ss.formula.ptg.FuncVarPtg;
 import org.apache.poi.ss.formula.ptg.Ptg;
@@ -48,6 +50,20 @@ final class SheetRefEvaluator {
 		return _bookEvaluator.evaluateReference(getSheet(), _sheetIndex, rowIndex, columnIndex, _tracker);
 	}
 
+	/**
+	 * @see WorkbookEvaluator#getExactLookupIndex(EvaluationSheet, int, int, int, int, int, EvaluationTracker)
+	 */
+	public Map<Object,Integer> getExactLookupIndex(int firstRow, int firstColumn, int lastRow, int lastColumn) {
+		return _bookEvaluator.getExactLookupIndex(getSheet(), _sheetIndex, firstRow, firstColumn, lastRow, lastColumn, _tracker);
+	}
+
+	/**
+	 * @see WorkbookEvaluator#getAreaValues(EvaluationSheet, int, int, int, int, int, EvaluationTracker)
+	 */
+	public AreaValues getAreaValues(int firstRow, int firstColumn, int lastRow, int lastColumn) {
+		return _bookEvaluator.getAreaValues(getSheet(), _sheetIndex, firstRow, firstColumn, lastRow, lastColumn, _tracker);
+	}
+
 	private EvaluationSheet getSheet() {
 		if (_sheet == null) {
 			_sheet = _bookEvaluator.getSheet(_sheetIndex);
@@ -17,10 +17,13 @@
 
 package org.apache.poi.ss.formula;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Stack;
 import java.util.TreeSet;
@@ -197,6 +200,24 @@ public final class WorkbookEvaluator {
         int sheetIndex = getSheetIndex(cell.getSheet());
         _cache.notifyDeleteCell(_workbookIx, sheetIndex, cell);
     }
+
+    /**
+     * Returns and resets the formula cells, whose cached results were cleared by the notify~ methods
+     * since the last call, i.e. the formula cells which directly or indirectly depend on updated cells.
+     * The cells are sorted in topological order, so evaluating them one after the other only finds
+     * already evaluated precedents and doesn't need to recurse into the dirty part of the dependency graph.<p>
+     *
+     * The dependencies are recorded when the formulas are evaluated, so this only covers the formula cells
+     * which were evaluated before, e.g. by a full recalculation. After {@link #clearAllCachedResultValues()}
+     * the list of dirty cells is empty.
+     *
+     * @return the dirty formula cells of this workbook in evaluation order
+     *
+     * @since POI 4.1.1
+     */
+    public List<EvaluationCell> pollDirtyFormulaCells() {
+        return _cache.pollDirtyFormulaCells(_workbookIx);
+    }
     
     private int getSheetIndex(EvaluationSheet sheet) {
         Integer result = _sheetIndexesBySheet.get(sheet);
@@ -255,7 +276,7 @@ public final class WorkbookEvaluator {
             return result;
         }
 
-        FormulaCellCacheEntry cce = _cache.getOrCreateFormulaCellEntry(srcCell);
+        FormulaCellCacheEntry cce = _cache.getOrCreateFormulaCellEntry(_workbookIx, srcCell);
         if (shouldCellDependencyBeRecorded || cce.isInputSensitive()) {
             tracker.acceptFormulaDependency(cce);
         }
@@ -791,6 +812,154 @@ public final class WorkbookEvaluator {
         EvaluationCell cell = sheet.getCell(rowIndex, columnIndex);
         return evaluateAny(cell, sheetIndex, rowIndex, columnIndex, tracker);
     }
+    /**
+     * Returns the cached exact lookup index of a single row or column, see {@link ExactLookupIndexProvider}.
+     * The index is only built, when the row or column is looked up for the second time,
+     * because a single lookup is cheaper as (partial) linear scan.
+     *
+     * @return the index or {@code null}, if the values need to be scanned
+     */
+    /* package */ Map<Object,Integer> getExactLookupIndex(EvaluationSheet sheet, int sheetIndex,
+            int firstRow, int firstColumn, int lastRow, int lastColumn, EvaluationTracker tracker) {
+        AreaCache.Entry<Map<Object,Integer>> entry = _cache.getOrCreateLookupIndex(_workbookIx, sheetIndex, firstRow, firstColumn, lastRow, lastColumn);
+        Map<Object,Integer> index = entry.getValue();
+        if (index == null) {
+            if (entry.incrementUseCount() < 2) {
+                return null;
+            }
+            index = buildExactLookupIndex(entry, sheet, sheetIndex, firstRow, firstColumn, lastRow, lastColumn, tracker);
+            if (index == null) {
+                return null;
+            }
+        }
+        // the consuming formula depends on the whole indexed row or column
+        tracker.acceptFormulaDependency(entry.getCacheEntry());
+        return index;
+    }
+
+    private Map<Object,Integer> buildExactLookupIndex(AreaCache.Entry<Map<Object,Integer>> entry, EvaluationSheet sheet, int sheetIndex,
+            int firstRow, int firstColumn, int lastRow, int lastColumn, EvaluationTracker tracker) {
+        FormulaCellCacheEntry cce = entry.getCacheEntry();
+        if (!tracker.startEvaluate(cce)) {
+            return null;
+        }
+        try {
+            Map<Object,Integer> index = new HashMap<>();
+            int i = 0;
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int col = firstColumn; col <= lastColumn; col++, i++) {
+                    // the cells are evaluated within the frame of the index, i.e. the index depends on them
+                    ValueEval value;
+                    try {
+                        value = evaluateReference(sheet, sheetIndex, row, col, tracker);
+                    } catch (NotImplementedException e) {
+                        // the linear scan stops at the first match and might not reach this cell
+                        return null;
+                    }
+                    if (value == ErrorEval.CIRCULAR_REF_ERROR) {
+                        // the area contains a cell, which is currently evaluated - don't cache a partial result
+                        return null;
+                    }
+                    Object key = ExactLookupIndexProvider.getExactLookupKey(value);
+                    if (key != null) {
+                        index.putIfAbsent(key, i);
+                    }
+                }
+            }
+            entry.setValue(index);
+            tracker.updateCacheResult(new NumberEval(index.size()));
+            return index;
+        } finally {
+            tracker.endEvaluate(cce);
+        }
+    }
+
+    /**
+     * Returns the cached encoded values of an area, see {@link AreaValuesProvider}.
+     * Like the lookup indexes, the values are only encoded, when the area is used for the second time.
+     *
+     * @return the values or {@code null}, if the cells need to be scanned
+     */
+    /* package */ AreaValues getAreaValues(EvaluationSheet sheet, int sheetIndex,
+            int firstRow, int firstColumn, int lastRow, int lastColumn, EvaluationTracker tracker) {
+        AreaCache.Entry<AreaValues> entry = _cache.getOrCreateAreaValues(_workbookIx, sheetIndex, firstRow, firstColumn, lastRow, lastColumn);
+        AreaValues values = entry.getValue();
+        if (values == null) {
+            if (entry.incrementUseCount() < 2) {
+                return null;
+            }
+            values = buildAreaValues(entry, sheet, sheetIndex, firstRow, firstColumn, lastRow, lastColumn, tracker);
+            if (values == null) {
+                return null;
+            }
+        }
+        // the consuming formula depends on the whole area
+        tracker.acceptFormulaDependency(entry.getCacheEntry());
+        return values;
+    }
+
+    private AreaValues buildAreaValues(AreaCache.Entry<AreaValues> entry, EvaluationSheet sheet, int sheetIndex,
+            int firstRow, int firstColumn, int lastRow, int lastColumn, EvaluationTracker tracker) {
+        FormulaCellCacheEntry cce = entry.getCacheEntry();
+        if (!tracker.startEvaluate(cce)) {
+            return null;
+        }
+        try {
+            int[] codes = new int[(lastRow - firstRow + 1) * (lastColumn - firstColumn + 1)];
+            Map<Object,Integer> dictionary = new HashMap<>();
+            List<ValueEval> distinctValues = new ArrayList<>();
+            int i = 0;
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int col = firstColumn; col <= lastColumn; col++, i++) {
+                    // the cells are evaluated within the frame of the values, i.e. the values depend on them
+                    ValueEval value;
+                    try {
+                        value = evaluateReference(sheet, sheetIndex, row, col, tracker);
+                    } catch (NotImplementedException e) {
+                        // the cell scan only evaluates the cells of the rows, which matched the previous criteria
+                        return null;
+                    }
+                    if (value == ErrorEval.CIRCULAR_REF_ERROR) {
+                        // the area contains a cell, which is currently evaluated - don't cache a partial result
+                        return null;
+                    }
+                    Object key = getAreaValueKey(value);
+                    Integer code = dictionary.get(key);
+                    if (code == null) {
+                        code = distinctValues.size();
+                        dictionary.put(key, code);
+                        distinctValues.add(value);
+                    }
+                    codes[i] = code;
+                }
+            }
+            AreaValues values = new AreaValues(distinctValues.toArray(new ValueEval[0]), codes);
+            entry.setValue(values);
+            tracker.updateCacheResult(new NumberEval(distinctValues.size()));
+            return values;
+        } finally {
+            tracker.endEvaluate(cce);
+        }
+    }
+
+    /**
+     * @return a key, which is equal for cell values of the same class and value
+     */
+    private static Object getAreaValueKey(ValueEval value) {
+        // keep the value classes apart, e.g. the number 1 and the string "1" match different criteria
+        if (value instanceof NumberEval) {
+            return ((NumberEval)value).getNumberValue();
+        }
+        if (value instanceof StringEval) {
+            return ((StringEval)value).getStringValue();
+        }
+        if (value instanceof BoolEval) {
+            return ((BoolEval)value).getBooleanValue();
+        }
+        // blanks and errors are singletons, other values are only matched by identity
+        return value;
+    }
+
     public FreeRefFunction findUserDefinedFunction(String functionName) {
         return _udfFinder.findFunction(functionName);
     }
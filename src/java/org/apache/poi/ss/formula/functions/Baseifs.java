@@ -19,6 +19,8 @@
 
 package org.apache.poi.ss.formula.functions;
 
+import org.apache.poi.ss.formula.AreaValues;
+import org.apache.poi.ss.formula.AreaValuesProvider;
 import org.apache.poi.ss.formula.OperationEvaluationContext;
 import org.apache.poi.ss.formula.eval.AreaEval;
 import org.apache.poi.ss.formula.eval.ErrorEval;
@@ -123,6 +125,11 @@ import org.apache.poi.ss.formula.functions.Countif.ErrorMatcher;
      * @return the computed value
      */
     private static double aggregateMatchingCells(AreaEval sumRange, AreaEval[] ranges, I_MatchPredicate[] predicates) {
+        AreaValues[] values = getAreaValues(ranges);
+        if (values != null) {
+            return aggregateMatchingValues(sumRange, ranges[0].getWidth(), values, predicates);
+        }
+
         int height = ranges[0].getHeight();
         int width = ranges[0].getWidth();
 
@@ -151,6 +158,88 @@ import org.apache.poi.ss.formula.functions.Countif.ErrorMatcher;
         return result;
     }
 
+    /**
+     * The same as {@link #aggregateMatchingCells(AreaEval, AreaEval[], I_MatchPredicate[])}, but based on
+     * the encoded area values: each predicate is only evaluated once per distinct value of its range and
+     * the matching cells are combined as bitmasks. Only the matching cells of the sum range are evaluated.
+     *
+     * @param sumRange  the range to sum, if used (uses 1 for each match if not present)
+     * @param width  the width of the ranges
+     * @param values  the values of the criteria ranges
+     * @param predicates  array of predicates, a predicate for each value in <code>values</code>
+     * @return the computed value
+     */
+    private static double aggregateMatchingValues(AreaEval sumRange, int width, AreaValues[] values, I_MatchPredicate[] predicates) {
+        int size = values[0].getSize();
+        long[] matches = null;
+        for (int i = 0; i < values.length; i++) {
+            I_MatchPredicate mp = predicates[i];
+            // Bugs 60858 and 56420 show predicate can be null
+            if (mp == null) {
+                return 0.0;
+            }
+
+            ValueEval[] distinctValues = values[i].getDistinctValues();
+            boolean[] distinctMatches = new boolean[distinctValues.length];
+            for (int d = 0; d < distinctValues.length; d++) {
+                distinctMatches[d] = mp.matches(distinctValues[d]);
+            }
+
+            int[] codes = values[i].getCodes();
+            if (matches == null) {
+                matches = new long[(size + 63) >>> 6];
+                for (int j = 0; j < size; j++) {
+                    if (distinctMatches[codes[j]]) {
+                        matches[j >>> 6] |= 1L << j;
+                    }
+                }
+            } else {
+                // only the cells which matched the previous criteria need to be checked
+                for (int w = 0; w < matches.length; w++) {
+                    for (long bits = matches[w]; bits != 0; bits &= bits - 1) {
+                        int j = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        if (!distinctMatches[codes[j]]) {
+                            matches[w] &= ~(1L << j);
+                        }
+                    }
+                }
+            }
+        }
+
+        // sum in row-major order, like the cell based aggregation
+        double result = 0.0;
+        for (int w = 0; w < matches.length; w++) {
+            long bits = matches[w];
+            if (sumRange == null) {
+                result += Long.bitCount(bits);
+                continue;
+            }
+            for (; bits != 0; bits &= bits - 1) {
+                int j = (w << 6) + Long.numberOfTrailingZeros(bits);
+                result += accumulate(sumRange, j / width, j % width);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the encoded values of all ranges, or {@code null} if any range doesn't provide them
+     */
+    private static AreaValues[] getAreaValues(AreaEval[] ranges) {
+        AreaValues[] values = new AreaValues[ranges.length];
+        for (int i = 0; i < ranges.length; i++) {
+            values[i] = getAreaValues(ranges[i]);
+            if (values[i] == null) {
+                return null;
+            }
+        }
+        return values;
+    }
+
+    private static AreaValues getAreaValues(AreaEval range) {
+        return (range instanceof AreaValuesProvider) ? ((AreaValuesProvider)range).getAreaValues() : null;
+    }
+
     /**
      * For counts, this would return 1, for sums it returns a cell value or zero.
      * This is only called after all the criteria are confirmed true for the coordinates.
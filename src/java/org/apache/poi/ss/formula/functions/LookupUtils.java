@@ -17,9 +17,11 @@
 
 package org.apache.poi.ss.formula.functions;
 
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.poi.ss.formula.ExactLookupIndexProvider;
 import org.apache.poi.ss.formula.TwoDEval;
 import org.apache.poi.ss.formula.eval.BlankEval;
 import org.apache.poi.ss.formula.eval.BoolEval;
@@ -73,6 +75,10 @@ final class LookupUtils {
 		public int getSize() {
 			return _size;
 		}
+		public Map<Object,Integer> getExactLookupIndex() {
+			return (_tableArray instanceof ExactLookupIndexProvider)
+				? ((ExactLookupIndexProvider)_tableArray).getExactLookupIndex(true, _rowIndex) : null;
+		}
 	}
 
 	private static final class ColumnVector implements ValueVector {
@@ -102,6 +108,10 @@ final class LookupUtils {
 		public int getSize() {
 			return _size;
 		}
+		public Map<Object,Integer> getExactLookupIndex() {
+			return (_tableArray instanceof ExactLookupIndexProvider)
+				? ((ExactLookupIndexProvider)_tableArray).getExactLookupIndex(false, _columnIndex) : null;
+		}
 	}
 
     private static final class SheetVector implements ValueVector {
@@ -480,7 +490,7 @@ final class LookupUtils {
 		if(isRangeLookup) {
 			result = performBinarySearch(vector, lookupComparer);
 		} else {
-			result = lookupIndexOfExactValue(lookupComparer, vector);
+			result = lookupIndexOfExactValue(lookupValue, lookupComparer, vector);
 		}
 		if(result < 0) {
 			throw new EvaluationException(ErrorEval.NA);
@@ -491,12 +501,29 @@ final class LookupUtils {
 
 	/**
 	 * Finds first (lowest index) exact occurrence of specified value.
-	 * @param lookupComparer the value to be found in column or row vector
+	 * If the vector is a row or column of a cell area, its cached lookup index is used
+	 * (see {@link ExactLookupIndexProvider}), otherwise the vector is scanned.
+	 *
+	 * @param lookupValue the value to be found
+	 * @param lookupComparer the comparer of the value to be found in column or row vector
 	 * @param vector the values to be searched. For VLOOKUP this is the first column of the
 	 * 	tableArray. For HLOOKUP this is the first row of the tableArray.
 	 * @return zero based index into the vector, -1 if value cannot be found
 	 */
-	private static int lookupIndexOfExactValue(LookupValueComparer lookupComparer, ValueVector vector) {
+	static int lookupIndexOfExactValue(ValueEval lookupValue, LookupValueComparer lookupComparer, ValueVector vector) {
+		Object lookupKey = getExactLookupKey(lookupValue);
+		if (lookupKey != null) {
+			Map<Object,Integer> index = null;
+			if (vector instanceof ColumnVector) {
+				index = ((ColumnVector)vector).getExactLookupIndex();
+			} else if (vector instanceof RowVector) {
+				index = ((RowVector)vector).getExactLookupIndex();
+			}
+			if (index != null) {
+				Integer result = index.get(lookupKey);
+				return (result == null) ? -1 : result;
+			}
+		}
 
 		// find first occurrence of lookup value
 		int size = vector.getSize();
@@ -509,6 +536,22 @@ final class LookupUtils {
 	}
 
 
+	/**
+	 * @return the key of the lookup value for the cached lookup index or {@code null},
+	 *  if the value is compared by wildcards
+	 */
+	private static Object getExactLookupKey(ValueEval lookupValue) {
+		if (lookupValue == BlankEval.instance) {
+			// blank eval translates to zero - see createLookupComparer()
+			return ExactLookupIndexProvider.getExactLookupKey(NumberEval.ZERO);
+		}
+		if (lookupValue instanceof StringEval
+			&& Countif.StringMatcher.getWildCardPattern(((StringEval)lookupValue).getStringValue()) != null) {
+			return null;
+		}
+		return ExactLookupIndexProvider.getExactLookupKey(lookupValue);
+	}
+
 	/**
 	 * Encapsulates some standard binary search functionality so the unusual Excel behaviour can
 	 * be clearly distinguished.
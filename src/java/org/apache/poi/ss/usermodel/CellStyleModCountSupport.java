@@ -0,0 +1,39 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel;
+
+import org.apache.poi.util.Internal;
+
+/**
+ * Implemented by workbooks, which count the changes to their cell styles
+ *
+ * @since POI 4.1.1
+ */
+@Internal
+public interface CellStyleModCountSupport {
+    /**
+     * Gets the number of changes to the properties of the cell styles of the workbook.
+     * <p>
+     * The count is increased by the setters of the cell styles, so caches of the style
+     * properties (see {@link org.apache.poi.ss.util.CellUtil}) know when they need to be
+     * rebuilt. Styles which are only added to the workbook don't need to change the count.
+     * </p>
+     * @return the number of changes to the cell styles so far
+     */
+    int getCellStyleModCount();
+}
@@ -37,7 +37,11 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Observable;
+import java.util.Objects;
 import java.util.Observer;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -204,6 +208,16 @@ public class DataFormatter implements Observer {
      */
     private final Map<String,Format> formats = new HashMap<>();
 
+    /** the maximum number of shared formats, the shared cache is reset when it's exceeded */
+    private static final int MAX_SHARED_FORMATS = 10000;
+
+    /**
+     * The compiled date and number formats, which are shared by all instances.
+     * The shared formats are only used as prototypes for the clones in the per-instance cache,
+     * i.e. they are never used for formatting and can be read by all threads without locking.
+     */
+    private static final ConcurrentMap<SharedFormatKey,Format> sharedFormats = new ConcurrentHashMap<>();
+
     private final boolean emulateCSV;
 
     /** stores the locale valid it the last formatting call */
@@ -438,7 +452,7 @@ public class DataFormatter implements Observer {
 
         if(DateUtil.isADateFormat(formatIndex,formatStr) &&
                 DateUtil.isValidExcelDate(cellValue)) {
-            return createDateFormat(formatStr, cellValue);
+            return getSharedFormat(true, formatStr, cellValue);
         }
         // Excel supports fractions in format strings, which Java doesn't
         if (formatStr.contains("#/") || formatStr.contains("?/")) {
@@ -462,7 +476,7 @@ public class DataFormatter implements Observer {
         }
         
         if (numPattern.matcher(formatStr).find()) {
-            return createNumberFormat(formatStr, cellValue);
+            return getSharedFormat(false, formatStr, cellValue);
         }
 
         if (emulateCSV) {
@@ -474,6 +488,61 @@ public class DataFormatter implements Observer {
     
  
 
+    /**
+     * Returns a clone of the shared date or number format, so the format string is only compiled
+     * once for all instances, which use the same locale, time zone and CSV emulation.
+     * Each instance gets its own clone, because the {@link Format}s aren't thread-safe.
+     */
+    private Format getSharedFormat(boolean isDate, String formatStr, double cellValue) {
+        SharedFormatKey key = new SharedFormatKey(locale, LocaleUtil.getUserTimeZone(), emulateCSV, isDate, formatStr);
+        Format prototype = sharedFormats.get(key);
+        if (prototype != null) {
+            return (Format)prototype.clone();
+        }
+
+        Format format = isDate ? createDateFormat(formatStr, cellValue) : createNumberFormat(formatStr, cellValue);
+        if (format instanceof ExcelStyleDateFormatter || format instanceof InternalDecimalFormatWithScale) {
+            // the fallback formats depend on the settings of this instance and aren't shared
+            if (sharedFormats.size() >= MAX_SHARED_FORMATS) {
+                sharedFormats.clear();
+            }
+            sharedFormats.putIfAbsent(key, (Format)format.clone());
+        }
+        return format;
+    }
+
+    private static final class SharedFormatKey {
+        private final Locale locale;
+        private final TimeZone timeZone;
+        private final boolean emulateCSV;
+        private final boolean isDate;
+        private final String formatStr;
+
+        SharedFormatKey(Locale locale, TimeZone timeZone, boolean emulateCSV, boolean isDate, String formatStr) {
+            this.locale = locale;
+            this.timeZone = timeZone;
+            this.emulateCSV = emulateCSV;
+            this.isDate = isDate;
+            this.formatStr = formatStr;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(locale, timeZone, emulateCSV, isDate, formatStr);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SharedFormatKey)) {
+                return false;
+            }
+            SharedFormatKey other = (SharedFormatKey)obj;
+            return emulateCSV == other.emulateCSV && isDate == other.isDate
+                && formatStr.equals(other.formatStr) && locale.equals(other.locale)
+                && timeZone.equals(other.timeZone);
+        }
+    }
+
     private Format createDateFormat(String pFormatStr, double cellValue) {
         String formatStr = pFormatStr;
         formatStr = formatStr.replaceAll("\\\\-","-");
@@ -697,7 +766,7 @@ public class DataFormatter implements Observer {
     private static class InternalDecimalFormatWithScale extends Format {
 
         private static final Pattern endsWithCommas = Pattern.compile("(,+)$");
-        private BigDecimal divider;
+        private final BigDecimal divider;
         private static final BigDecimal ONE_THOUSAND = new BigDecimal(1000);
         private final DecimalFormat df;
         private static String trimTrailingCommas(String s) {
@@ -720,6 +789,16 @@ public class DataFormatter implements Observer {
             }
         }
 
+        private InternalDecimalFormatWithScale(InternalDecimalFormatWithScale other) {
+            df = (DecimalFormat)other.df.clone();
+            divider = other.divider;
+        }
+
+        @Override
+        public Object clone() {
+            return new InternalDecimalFormatWithScale(this);
+        }
+
         private Object scaleInput(Object obj) {
             if (divider != null) {
                 if (obj instanceof BigDecimal) {
@@ -1160,14 +1239,14 @@ public class DataFormatter implements Observer {
     @SuppressWarnings("serial")
    private static final class SSNFormat extends Format {
         public static final Format instance = new SSNFormat();
-        private static final DecimalFormat df = createIntegerOnlyFormat("000000000");
+        private static final ThreadLocal<DecimalFormat> df = ThreadLocal.withInitial(() -> createIntegerOnlyFormat("000000000"));
         private SSNFormat() {
             // enforce singleton
         }
 
         /** Format a number as an SSN */
         public static String format(Number num) {
-            String result = df.format(num);
+            String result = df.get().format(num);
             return result.substring(0, 3) + '-' +
                     result.substring(3, 5) + '-' +
                     result.substring(5, 9);
@@ -1180,7 +1259,7 @@ public class DataFormatter implements Observer {
 
         @Override
         public Object parseObject(String source, ParsePosition pos) {
-            return df.parseObject(source, pos);
+            return df.get().parseObject(source, pos);
         }
     }
 
@@ -1192,14 +1271,14 @@ public class DataFormatter implements Observer {
     @SuppressWarnings("serial")
    private static final class ZipPlusFourFormat extends Format {
         public static final Format instance = new ZipPlusFourFormat();
-        private static final DecimalFormat df = createIntegerOnlyFormat("000000000");
+        private static final ThreadLocal<DecimalFormat> df = ThreadLocal.withInitial(() -> createIntegerOnlyFormat("000000000"));
         private ZipPlusFourFormat() {
             // enforce singleton
         }
 
         /** Format a number as Zip + 4 */
         public static String format(Number num) {
-            String result = df.format(num);
+            String result = df.get().format(num);
             return result.substring(0, 5) + '-' +
                     result.substring(5, 9);
         }
@@ -1211,7 +1290,7 @@ public class DataFormatter implements Observer {
 
         @Override
         public Object parseObject(String source, ParsePosition pos) {
-            return df.parseObject(source, pos);
+            return df.get().parseObject(source, pos);
         }
     }
 
@@ -1223,14 +1302,14 @@ public class DataFormatter implements Observer {
     @SuppressWarnings("serial")
    private static final class PhoneFormat extends Format {
         public static final Format instance = new PhoneFormat();
-        private static final DecimalFormat df = createIntegerOnlyFormat("##########");
+        private static final ThreadLocal<DecimalFormat> df = ThreadLocal.withInitial(() -> createIntegerOnlyFormat("##########"));
         private PhoneFormat() {
             // enforce singleton
         }
 
         /** Format a number as a phone number */
         public static String format(Number num) {
-            String result = df.format(num);
+            String result = df.get().format(num);
             StringBuilder sb = new StringBuilder();
             String seg1, seg2, seg3;
             int len = result.length();
@@ -1259,7 +1338,7 @@ public class DataFormatter implements Observer {
 
         @Override
         public Object parseObject(String source, ParsePosition pos) {
-            return df.parseObject(source, pos);
+            return df.get().parseObject(source, pos);
         }
     }
     
@@ -1276,7 +1355,7 @@ public class DataFormatter implements Observer {
      */
     @SuppressWarnings("serial")
    private static final class ConstantStringFormat extends Format {
-        private static final DecimalFormat df = createIntegerOnlyFormat("##########");
+        private static final ThreadLocal<DecimalFormat> df = ThreadLocal.withInitial(() -> createIntegerOnlyFormat("##########"));
         private final String str;
         public ConstantStringFormat(String s) {
             str = s;
@@ -1289,7 +1368,7 @@ public class DataFormatter implements Observer {
 
         @Override
         public Object parseObject(String source, ParsePosition pos) {
-            return df.parseObject(source, pos);
+            return df.get().parseObject(source, pos);
         }
     }
     /**
@@ -24,10 +24,12 @@ import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellStyleModCountSupport;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
@@ -105,6 +107,12 @@ public final class CellUtil {
             )));
 
 
+    /**
+     * The cell style indexes of the workbooks, which are modified via {@link #setCellStyleProperties(Cell, Map)}.
+     * The workbooks are weakly referenced, so the index is removed together with its workbook.
+     */
+    private static final Map<Workbook, StyleIndex> styleIndexes = Collections.synchronizedMap(new WeakHashMap<>());
+
     private static UnicodeMapping[] unicodeMappings;
 
     private static final class UnicodeMapping {
@@ -281,26 +289,118 @@ public final class CellUtil {
 
         // index seems like what index the cellstyle is in the list of styles for a workbook.
         // not good to compare on!
-        int numberCellStyles = workbook.getNumCellStyles();
+        StyleIndex styleIndex = styleIndexes.computeIfAbsent(workbook, wb -> new StyleIndex());
+        synchronized (styleIndex) {
+            newStyle = styleIndex.find(workbook, values);
+
+            // the desired style does not exist in the workbook. Create a new style with desired properties.
+            if (newStyle == null) {
+                newStyle = workbook.createCellStyle();
+                setFormatProperties(newStyle, workbook, values);
+                styleIndex.created(workbook);
+            }
+        }
 
-        for (int i = 0; i < numberCellStyles; i++) {
-            CellStyle wbStyle = workbook.getCellStyleAt(i);
-            Map<String, Object> wbStyleMap = getFormatProperties(wbStyle);
+        cell.setCellStyle(newStyle);
+    }
 
-            // the desired style already exists in the workbook. Use the existing style.
-            if (wbStyleMap.equals(values)) {
-                newStyle = wbStyle;
-                break;
+    /**
+     * Indexes the cell styles of a workbook by the hash code of their format properties,
+     * so a matching style can be found without comparing the properties of all styles.<p>
+     *
+     * Styles, which are added to the workbook in other ways, are indexed on the next lookup.
+     * Candidates are compared with their current properties, so a style, which has been modified
+     * after it was indexed, is never returned by mistake. As a modified style would be missed under
+     * its new properties, the index is rebuilt once the style modification count of the workbook
+     * (see {@link CellStyleModCountSupport}) has changed since the last lookup. Only for workbooks
+     * without such a count, the index is rebuilt before a miss is reported.
+     */
+    private static final class StyleIndex {
+        /** the first style index for each hash code of the format properties */
+        private final Map<Integer, Integer> firstByHash = new HashMap<>();
+        /** the next style index with the same hash code or -1, indexed by style index */
+        private int[] nextWithSameHash = new int[16];
+        /** the last style index with the same hash code, used to append to the chains */
+        private final Map<Integer, Integer> lastByHash = new HashMap<>();
+        private int indexedStyles;
+        /** the style modification count of the workbook, when the index was last updated */
+        private int indexedModCount;
+
+        CellStyle find(Workbook workbook, Map<String, Object> values) {
+            boolean counted = workbook instanceof CellStyleModCountSupport;
+            if (counted) {
+                int modCount = ((CellStyleModCountSupport)workbook).getCellStyleModCount();
+                if (modCount != indexedModCount) {
+                    // styles have been modified after they were indexed
+                    clear();
+                    indexedModCount = modCount;
+                }
+            }
+            update(workbook);
+            CellStyle style = lookup(workbook, values);
+            if (style == null && !counted && indexedStyles > 0) {
+                // styles might have been modified after they were indexed
+                clear();
+                update(workbook);
+                style = lookup(workbook, values);
             }
+            return style;
         }
 
-        // the desired style does not exist in the workbook. Create a new style with desired properties.
-        if (newStyle == null) {
-            newStyle = workbook.createCellStyle();
-            setFormatProperties(newStyle, workbook, values);
+        private CellStyle lookup(Workbook workbook, Map<String, Object> values) {
+            Integer idx = firstByHash.get(values.hashCode());
+            while (idx != null && idx != -1) {
+                CellStyle wbStyle = workbook.getCellStyleAt(idx);
+                // the desired style already exists in the workbook. Use the existing style.
+                if (getFormatProperties(wbStyle).equals(values)) {
+                    return wbStyle;
+                }
+                idx = nextWithSameHash[idx];
+            }
+            return null;
         }
 
-        cell.setCellStyle(newStyle);
+        private void update(Workbook workbook) {
+            int numberCellStyles = workbook.getNumCellStyles();
+            if (numberCellStyles < indexedStyles) {
+                // styles have been removed, e.g. by the HSSFOptimiser
+                clear();
+            }
+            if (nextWithSameHash.length < numberCellStyles) {
+                nextWithSameHash = Arrays.copyOf(nextWithSameHash, Math.max(numberCellStyles, nextWithSameHash.length * 2));
+            }
+            for (int i = indexedStyles; i < numberCellStyles; i++) {
+                CellStyle wbStyle = workbook.getCellStyleAt(i);
+                // getCellStyleAt() might return null for invalid styles
+                Integer hash = (wbStyle == null) ? null : getFormatProperties(wbStyle).hashCode();
+                nextWithSameHash[i] = -1;
+                if (hash != null) {
+                    Integer last = lastByHash.put(hash, i);
+                    if (last == null) {
+                        firstByHash.put(hash, i);
+                    } else {
+                        nextWithSameHash[last] = i;
+                    }
+                }
+            }
+            indexedStyles = numberCellStyles;
+        }
+
+        /**
+         * Called after a new style has been created and set up, which hasn't been indexed yet.
+         * Its own modifications don't require a rebuild, as it is indexed with its final properties.
+         */
+        void created(Workbook workbook) {
+            if (workbook instanceof CellStyleModCountSupport) {
+                indexedModCount = ((CellStyleModCountSupport)workbook).getCellStyleModCount();
+            }
+        }
+
+        private void clear() {
+            firstByHash.clear();
+            lastByHash.clear();
+            indexedStyles = 0;
+        }
     }
 
     /**
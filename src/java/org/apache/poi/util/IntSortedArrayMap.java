@@ -0,0 +1,608 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.util;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * A {@link SortedMap} keyed by int, which keeps its keys in a sorted primitive
+ * array and its values in a parallel object array.<p>
+ *
+ * Compared to a {@link java.util.TreeMap} this avoids the boxed key and the tree
+ * entry per mapping, lookups are binary searches and appending in ascending key
+ * order (the usual case when reading rows or cells) is amortized O(1).
+ * Inserting or removing in the middle needs to move the trailing elements.<p>
+ *
+ * Subclasses can store placeholders via {@link #putUnresolved(int, Object)} which
+ * are converted by {@link #resolve(int, Object)} the first time the value is accessed.
+ * The sub-map views are backed by this map, i.e. changes are reflected in both directions.
+ *
+ * @param <V> the type of the values
+ */
+@Internal
+public class IntSortedArrayMap<V> extends AbstractMap<Integer,V> implements SortedMap<Integer,V> {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    /** number of structural modifications, used to fail fast in iterators */
+    private int modCount;
+
+    private Range fullRange;
+
+    public IntSortedArrayMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntSortedArrayMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        keys = new int[initialCapacity];
+        values = new Object[initialCapacity];
+    }
+
+    /**
+     * Converts a placeholder, which was stored via {@link #putUnresolved(int, Object)},
+     * into the actual value. The result replaces the placeholder in the map.
+     *
+     * @param key the key of the mapping
+     * @param stored the stored placeholder
+     * @return the resolved value
+     */
+    @SuppressWarnings("unchecked")
+    protected V resolve(int key, Object stored) {
+        return (V)stored;
+    }
+
+    /**
+     * Subclasses which store placeholders need to override this together with {@link #resolve(int, Object)}
+     *
+     * @return {@code true}, if the stored object is already a resolved value
+     */
+    protected boolean isResolved(Object stored) {
+        return true;
+    }
+
+    /**
+     * Binary search for the given key
+     *
+     * @return the index of the key, or {@code (-(insertion point) - 1)} if the key is not contained
+     */
+    public int indexOfKey(int key) {
+        // fast path for the typical append / lookup of the last element
+        if (size > 0 && keys[size-1] == key) {
+            return size-1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    /**
+     * @return the number of keys which are less than the given key
+     */
+    public int rank(int key) {
+        int idx = indexOfKey(key);
+        return (idx < 0) ? -idx-1 : idx;
+    }
+
+    public int keyAt(int index) {
+        checkIndex(index);
+        return keys[index];
+    }
+
+    public V valueAt(int index) {
+        checkIndex(index);
+        return resolveAt(index);
+    }
+
+    public V get(int key) {
+        int idx = indexOfKey(key);
+        return (idx < 0) ? null : resolveAt(idx);
+    }
+
+    public boolean containsKey(int key) {
+        return indexOfKey(key) >= 0;
+    }
+
+    public V put(int key, V value) {
+        return putInternal(key, value);
+    }
+
+    /**
+     * Stores a placeholder, which is converted on first access by {@link #resolve(int, Object)}
+     */
+    protected void putUnresolved(int key, Object stored) {
+        putInternal(key, stored);
+    }
+
+    public V remove(int key) {
+        int idx = indexOfKey(key);
+        if (idx < 0) {
+            return null;
+        }
+        V old = resolveAt(idx);
+        removeAt(idx);
+        return old;
+    }
+
+    public int firstIntKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return keys[0];
+    }
+
+    public int lastIntKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return keys[size-1];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        return (key instanceof Integer) ? get(((Integer)key).intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return (key instanceof Integer) && containsKey(((Integer)key).intValue());
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return (key instanceof Integer) ? remove(((Integer)key).intValue()) : null;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            modCount++;
+            Arrays.fill(values, 0, size, null);
+            size = 0;
+        }
+    }
+
+    @Override
+    public Comparator<? super Integer> comparator() {
+        return null;
+    }
+
+    @Override
+    public SortedMap<Integer, V> subMap(Integer fromKey, Integer toKey) {
+        return range().subMap(fromKey, toKey);
+    }
+
+    @Override
+    public SortedMap<Integer, V> headMap(Integer toKey) {
+        return range().headMap(toKey);
+    }
+
+    @Override
+    public SortedMap<Integer, V> tailMap(Integer fromKey) {
+        return range().tailMap(fromKey);
+    }
+
+    @Override
+    public Integer firstKey() {
+        return firstIntKey();
+    }
+
+    @Override
+    public Integer lastKey() {
+        return lastIntKey();
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        return range().keySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return range().values();
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, V>> entrySet() {
+        return range().entrySet();
+    }
+
+    private Range range() {
+        if (fullRange == null) {
+            fullRange = new Range(Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        return fullRange;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V resolveAt(int index) {
+        Object stored = values[index];
+        if (stored == null || isResolved(stored)) {
+            return (V)stored;
+        }
+        V value = resolve(keys[index], stored);
+        values[index] = value;
+        return value;
+    }
+
+    private V putInternal(int key, Object value) {
+        int idx;
+        if (size == 0 || keys[size-1] < key) {
+            idx = -size-1;
+        } else {
+            idx = indexOfKey(key);
+        }
+
+        if (idx >= 0) {
+            V old = resolveAt(idx);
+            values[idx] = value;
+            return old;
+        }
+
+        idx = -idx-1;
+        if (size == keys.length) {
+            int newCapacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+            keys = Arrays.copyOf(keys, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+        if (idx < size) {
+            System.arraycopy(keys, idx, keys, idx+1, size-idx);
+            System.arraycopy(values, idx, values, idx+1, size-idx);
+        }
+        keys[idx] = key;
+        values[idx] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    private void removeAt(int index) {
+        int moved = size-index-1;
+        if (moved > 0) {
+            System.arraycopy(keys, index+1, keys, index, moved);
+            System.arraycopy(values, index+1, values, index, moved);
+        }
+        values[--size] = null;
+        modCount++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * A view on the keys within [lo, hi) - the full map uses the whole long range,
+     * so the int keys never hit the bounds
+     */
+    private final class Range extends AbstractMap<Integer,V> implements SortedMap<Integer,V> {
+        private final long lo, hi;
+
+        Range(long lo, long hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        private boolean inRange(long key) {
+            return lo <= key && key < hi;
+        }
+
+        private int fromIndex() {
+            return (lo <= Integer.MIN_VALUE) ? 0 : rank((int)lo);
+        }
+
+        private int toIndex() {
+            return (hi > Integer.MAX_VALUE) ? size : rank((int)hi);
+        }
+
+        @Override
+        public int size() {
+            return Math.max(0, toIndex() - fromIndex());
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        @Override
+        public V get(Object key) {
+            return (key instanceof Integer && inRange((Integer)key)) ? IntSortedArrayMap.this.get(((Integer)key).intValue()) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && inRange((Integer)key) && IntSortedArrayMap.this.containsKey(((Integer)key).intValue());
+        }
+
+        @Override
+        public V put(Integer key, V value) {
+            if (!inRange(key)) {
+                throw new IllegalArgumentException("key out of range");
+            }
+            return IntSortedArrayMap.this.put(key.intValue(), value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            return (key instanceof Integer && inRange((Integer)key)) ? IntSortedArrayMap.this.remove(((Integer)key).intValue()) : null;
+        }
+
+        @Override
+        public void clear() {
+            int from = fromIndex(), to = toIndex();
+            if (from >= to) {
+                return;
+            }
+            System.arraycopy(keys, to, keys, from, size-to);
+            System.arraycopy(values, to, values, from, size-to);
+            int newSize = size-(to-from);
+            Arrays.fill(values, newSize, size, null);
+            size = newSize;
+            modCount++;
+        }
+
+        @Override
+        public Comparator<? super Integer> comparator() {
+            return null;
+        }
+
+        @Override
+        public SortedMap<Integer, V> subMap(Integer fromKey, Integer toKey) {
+            if (fromKey > toKey) {
+                throw new IllegalArgumentException("fromKey > toKey");
+            }
+            checkBound(fromKey);
+            checkBound(toKey);
+            return new Range(fromKey, toKey);
+        }
+
+        @Override
+        public SortedMap<Integer, V> headMap(Integer toKey) {
+            checkBound(toKey);
+            return new Range(lo, toKey);
+        }
+
+        @Override
+        public SortedMap<Integer, V> tailMap(Integer fromKey) {
+            checkBound(fromKey);
+            return new Range(fromKey, hi);
+        }
+
+        private void checkBound(int key) {
+            if (key < lo || key > hi) {
+                throw new IllegalArgumentException("key out of range");
+            }
+        }
+
+        @Override
+        public Integer firstKey() {
+            int from = fromIndex();
+            if (from >= toIndex()) {
+                throw new NoSuchElementException();
+            }
+            return keys[from];
+        }
+
+        @Override
+        public Integer lastKey() {
+            int to = toIndex();
+            if (fromIndex() >= to) {
+                throw new NoSuchElementException();
+            }
+            return keys[to-1];
+        }
+
+        @Override
+        public Set<Integer> keySet() {
+            return new AbstractSet<Integer>() {
+                @Override
+                public Iterator<Integer> iterator() {
+                    return new RangeIterator<Integer>() {
+                        @Override
+                        Integer get(int index) {
+                            return keys[index];
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return Range.this.size();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return Range.this.containsKey(o);
+                }
+            };
+        }
+
+        @Override
+        public Collection<V> values() {
+            return new AbstractCollection<V>() {
+                @Override
+                public Iterator<V> iterator() {
+                    return new RangeIterator<V>() {
+                        @Override
+                        V get(int index) {
+                            return resolveAt(index);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return Range.this.size();
+                }
+            };
+        }
+
+        @Override
+        public Set<Map.Entry<Integer, V>> entrySet() {
+            return new AbstractSet<Map.Entry<Integer, V>>() {
+                @Override
+                public Iterator<Map.Entry<Integer, V>> iterator() {
+                    return new RangeIterator<Map.Entry<Integer, V>>() {
+                        @Override
+                        Map.Entry<Integer, V> get(int index) {
+                            return new IndexEntry(index);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return Range.this.size();
+                }
+            };
+        }
+
+        private abstract class RangeIterator<T> implements Iterator<T> {
+            private int next = fromIndex();
+            private int end = toIndex();
+            private int lastReturned = -1;
+            private int expectedModCount = modCount;
+
+            abstract T get(int index);
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public T next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                lastReturned = next++;
+                return get(lastReturned);
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                removeAt(lastReturned);
+                next = lastReturned;
+                end--;
+                lastReturned = -1;
+                expectedModCount = modCount;
+            }
+        }
+    }
+
+    /**
+     * An entry which refers to the current position of its key
+     */
+    private final class IndexEntry implements Map.Entry<Integer, V> {
+        private final int key;
+        private int index;
+
+        IndexEntry(int index) {
+            this.key = keys[index];
+            this.index = index;
+        }
+
+        private int index() {
+            if (index >= size || keys[index] != key) {
+                index = indexOfKey(key);
+                if (index < 0) {
+                    throw new IllegalStateException("entry was removed");
+                }
+            }
+            return index;
+        }
+
+        @Override
+        public Integer getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return resolveAt(index());
+        }
+
+        @Override
+        public V setValue(V value) {
+            int idx = index();
+            V old = resolveAt(idx);
+            values[idx] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            V value = getValue();
+            return getKey().equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            V value = getValue();
+            return key ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+}
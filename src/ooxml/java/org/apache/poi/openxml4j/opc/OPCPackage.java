@@ -47,6 +47,7 @@ import org.apache.poi.openxml4j.opc.internal.PackagePropertiesPart;
 import org.apache.poi.openxml4j.opc.internal.PartMarshaller;
 import org.apache.poi.openxml4j.opc.internal.PartUnmarshaller;
 import org.apache.poi.openxml4j.opc.internal.ZipContentTypeManager;
+import org.apache.poi.openxml4j.opc.internal.ZipHelper;
 import org.apache.poi.openxml4j.opc.internal.marshallers.DefaultMarshaller;
 import org.apache.poi.openxml4j.opc.internal.marshallers.ZipPackagePropertiesMarshaller;
 import org.apache.poi.openxml4j.opc.internal.unmarshallers.PackagePropertiesUnmarshaller;
@@ -316,6 +317,43 @@ public abstract class OPCPackage implements RelationshipSource, Closeable {
 		return pack;
 	}
 
+	/**
+	 * Open a package from a stream in random access mode.
+	 * <p>
+	 * Opposed to {@link #open(InputStream)}, the entries of the stream are not inflated into memory
+	 * up-front. The stream is spooled to a temp file and the entries are only inflated on demand.
+	 * This reduces the memory usage of big packages, but the stream needs to be a zip archive with
+	 * a valid central directory. The stream can be closed after the package has been opened.
+	 *
+	 * @param in
+	 *            The InputStream to read the package from
+	 * @param encryptSpoolFile
+	 *            {@code true} to encrypt the temp file with a random session key, so sensitive data
+	 *            is not stored in raw format on disk
+	 * @return A PackageBase object
+	 *
+	 * @throws InvalidFormatException
+	 * 				Throws if the specified file exist and is not valid.
+	 * @throws IOException If reading the stream fails
+	 *
+	 * @see ZipHelper#openRandomAccessZipEntrySource(InputStream, boolean)
+	 * @since POI 4.1.1
+	 */
+	public static OPCPackage openSpooled(InputStream in, boolean encryptSpoolFile)
+			throws InvalidFormatException, IOException {
+		OPCPackage pack = new ZipPackage(ZipHelper.openRandomAccessZipEntrySource(in, encryptSpoolFile),
+				PackageAccess.READ_WRITE);
+		try {
+			if (pack.partList == null) {
+				pack.getParts();
+			}
+		} catch (InvalidFormatException | RuntimeException e) {
+			IOUtils.closeQuietly(pack);
+			throw e;
+		}
+		return pack;
+	}
+
 	/**
 	 * Opens a package if it exists, else it creates one.
 	 *
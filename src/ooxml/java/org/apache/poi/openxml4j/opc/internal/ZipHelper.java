@@ -32,8 +32,12 @@ import org.apache.poi.openxml4j.exceptions.OLE2NotOfficeXmlFileException;
 import org.apache.poi.openxml4j.opc.PackageRelationship;
 import org.apache.poi.openxml4j.opc.PackageRelationshipTypes;
 import org.apache.poi.openxml4j.opc.ZipPackage;
+import org.apache.poi.openxml4j.util.TempFileZipEntrySource;
 import org.apache.poi.openxml4j.util.ZipArchiveThresholdInputStream;
+import org.apache.poi.openxml4j.util.ZipEntrySource;
+import org.apache.poi.openxml4j.util.ZipInputStreamZipEntrySource;
 import org.apache.poi.openxml4j.util.ZipSecureFile;
+import org.apache.poi.poifs.crypt.temp.AesZipFileZipEntrySource;
 import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.util.Internal;
 
@@ -178,6 +182,30 @@ public final class ZipHelper {
         return new ZipArchiveThresholdInputStream(new ZipArchiveInputStream(checkedStream));
     }
 
+    /**
+     * Opens the specified stream as a random access {@link ZipEntrySource}, which only inflates
+     * the entries on demand. The stream is spooled to a temp file first, so it can be closed
+     * after opening like with the in-memory {@link ZipInputStreamZipEntrySource}.
+     *
+     * @param stream
+     *            The stream to open. It's read till its end.
+     * @param encrypt
+     *            Whether the spooled temp file is encrypted with a random session key.
+     * @return The entry source freshly open.
+     * @throws IOException if the stream can't be read or isn't a valid zip archive
+     * @throws NotOfficeXmlFileException if stream does not start with zip header signature
+     *
+     * @since POI 4.1.1
+     */
+    public static ZipEntrySource openRandomAccessZipEntrySource(InputStream stream, boolean encrypt) throws IOException {
+        InputStream checkedStream = FileMagic.prepareToCheckMagic(stream);
+        verifyZipHeader(checkedStream);
+        if (encrypt) {
+            return AesZipFileZipEntrySource.createZipEntrySource(checkedStream);
+        }
+        return TempFileZipEntrySource.create(checkedStream);
+    }
+
     /**
      * Opens the specified file as a secure zip, or returns null if no 
      *  such file exists
@@ -0,0 +1,103 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.openxml4j.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.POILogFactory;
+import org.apache.poi.util.POILogger;
+import org.apache.poi.util.TempFile;
+
+/**
+ * A ZipEntrySource, which spools a zip stream to a temp file and then
+ *  accesses the entries via a {@link ZipSecureFile}.
+ * Unlike the {@link ZipInputStreamZipEntrySource}, the entries are
+ *  only inflated on demand, so the memory usage doesn't depend on the
+ *  size of the package.
+ * The temp file is removed when the source is closed.
+ *
+ * @since POI 4.1.1
+ */
+public class TempFileZipEntrySource extends ZipFileZipEntrySource {
+    private static final POILogger LOG = POILogFactory.getLogger(TempFileZipEntrySource.class);
+
+    private final File tempFile;
+
+    private TempFileZipEntrySource(ZipSecureFile zipFile, File tempFile) {
+        super(zipFile);
+        this.tempFile = tempFile;
+    }
+
+    /**
+     * Spools the given stream to a temp file and opens it as zip file.
+     * The stream is read till its end, but not closed.<p>
+     *
+     * If the zip file can't be opened, e.g. because of a missing central directory,
+     * the entries of the temp file are read into memory like the {@link ZipInputStreamZipEntrySource} does.
+     *
+     * @param stream the zip stream
+     * @return the entry source of the temp file
+     * @throws IOException if the stream can't be read
+     */
+    public static ZipEntrySource create(InputStream stream) throws IOException {
+        final File tmp = TempFile.createTempFile("poi-opc-spool", ".zip");
+        boolean keepFile = false;
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tmp)) {
+                IOUtils.copy(stream, fos);
+            }
+            ZipSecureFile zipFile;
+            try {
+                zipFile = new ZipSecureFile(tmp);
+            } catch (IOException e) {
+                LOG.log(POILogger.WARN, "Error in spooled zip file - falling back to stream processing (i.e. ignoring zip central directory)", e);
+                try (FileInputStream fis = new FileInputStream(tmp)) {
+                    return new ZipInputStreamZipEntrySource(
+                        new ZipArchiveThresholdInputStream(new ZipArchiveInputStream(fis)));
+                }
+            }
+            keepFile = true;
+            return new TempFileZipEntrySource(zipFile, tmp);
+        } finally {
+            if (!keepFile) {
+                deleteTempFile(tmp);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            deleteTempFile(tempFile);
+        }
+    }
+
+    private static void deleteTempFile(File file) {
+        if (file.exists() && !file.delete()) {
+            LOG.log(POILogger.WARN, "Can't delete temporary spool file: " + file);
+        }
+    }
+}
@@ -52,12 +52,15 @@ import org.apache.poi.poifs.crypt.agile.AgileEncryptionVerifier.AgileCertificate
 import org.apache.poi.poifs.filesystem.DirectoryNode;
 import org.apache.poi.poifs.filesystem.DocumentInputStream;
 import org.apache.poi.util.LittleEndian;
+import org.apache.poi.util.LittleEndianConsts;
 
 /**
  * Decryptor implementation for Agile Encryption
  */
 public class AgileDecryptor extends Decryptor implements Cloneable {
     private long _length = -1;
+    private int _threads = 1;
+    private Boolean _integrityValid;
 
     /* package */ static final byte[] kVerifierInputBlock;
     /* package */ static final byte[] kHashedVerifierBlock;
@@ -85,6 +88,44 @@ public class AgileDecryptor extends Decryptor implements Cloneable {
 
     protected AgileDecryptor() {
     }
+
+    /**
+     * Sets the number of threads, which decrypt the segments of the encrypted package in parallel.
+     * The segments are read in batches by the calling thread, which also calculates the integrity
+     * HMAC of the encrypted data, while the workers decrypt the batch.
+     * This needs to be set before the data stream is opened.
+     *
+     * @param threads the number of worker threads - values below 2 use the sequential decryption (default)
+     * @see #verifyIntegrity()
+     * @since POI 4.1.1
+     */
+    public void setThreads(int threads) {
+        _threads = threads;
+    }
+
+    /**
+     * @return the number of threads, which decrypt the encrypted package
+     * @since POI 4.1.1
+     */
+    public int getThreads() {
+        return _threads;
+    }
+
+    /**
+     * Checks the integrity HMAC of the encrypted package (see [MS-OFFCRYPTO] 2.3.4.14).
+     * The HMAC is only calculated in parallel mode, i.e. with more than one {@link #setThreads(int) thread},
+     * and the data stream needs to be read sequentially until its end before.
+     *
+     * @return {@code true}, if the calculated HMAC matches the stored HMAC
+     * @throws IllegalStateException if the HMAC wasn't calculated
+     * @since POI 4.1.1
+     */
+    public boolean verifyIntegrity() {
+        if (_integrityValid == null) {
+            throw new IllegalStateException("The integrity HMAC is only available after the data stream has been read completely in parallel mode");
+        }
+        return _integrityValid;
+    }
     
     /**
      * set decryption password
@@ -282,6 +323,7 @@ public class AgileDecryptor extends Decryptor implements Cloneable {
     public InputStream getDataStream(DirectoryNode dir) throws IOException, GeneralSecurityException {
         DocumentInputStream dis = dir.createDocumentInputStream(DEFAULT_POIFS_ENTRY);
         _length = dis.readLong();
+        _integrityValid = null;
         return new AgileCipherInputStream(dis, _length);
     }
 
@@ -334,19 +376,78 @@ public class AgileDecryptor extends Decryptor implements Cloneable {
      * unencrypted data as specified in section 2.3.4.4.
      */
     private class AgileCipherInputStream extends ChunkedCipherInputStream {
+        /** the integrity HMAC of the encrypted package - null, if it isn't calculated */
+        private Mac integrityMac;
+        private long integrityPos;
+
         public AgileCipherInputStream(DocumentInputStream stream, long size)
         throws GeneralSecurityException {
             super(stream, size, 4096);
+            if (_threads > 1) {
+                setThreads(_threads);
+                // the HMAC is calculated while the workers are decrypting, so it's basically for free
+                byte[] hmacKey = getIntegrityHmacKey();
+                if (hmacKey != null) {
+                    HashAlgorithm hashAlgo = getEncryptionInfo().getHeader().getHashAlgorithm();
+                    integrityMac = CryptoFunctions.getMac(hashAlgo);
+                    integrityMac.init(new SecretKeySpec(hmacKey, hashAlgo.jceHmacId));
+                    byte[] streamSize = new byte[LittleEndianConsts.LONG_SIZE];
+                    LittleEndian.putLong(streamSize, 0, size);
+                    integrityMac.update(streamSize);
+                }
+            }
         }
 
-        // TODO: calculate integrity hmac while reading the stream
-        // for a post-validation of the data
-        
         @Override
         protected Cipher initCipherForBlock(Cipher cipher, int block)
         throws GeneralSecurityException {
             return AgileDecryptor.initCipherForBlock(cipher, block, false, getEncryptionInfo(), getSecretKey(), Cipher.DECRYPT_MODE);
         }
+
+        @Override
+        protected void readEncryptedBytes(long chunkPos, byte[] buf, int off, int len) throws IOException {
+            if (integrityMac == null) {
+                return;
+            }
+            if (chunkPos != integrityPos) {
+                // segments have been skipped, so the HMAC can't be calculated
+                integrityMac = null;
+                return;
+            }
+            integrityMac.update(buf, off, len);
+            integrityPos += len;
+            finishIntegrityMac();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int readBytes = super.read(b, off, len);
+            if (readBytes == -1) {
+                // an empty package doesn't provide any encrypted bytes
+                finishIntegrityMac();
+            }
+            return readBytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finishIntegrityMac();
+            super.close();
+        }
+
+        private void finishIntegrityMac() throws IOException {
+            if (integrityMac == null || integrityPos < _length) {
+                return;
+            }
+            // the whole EncryptedPackage stream is used as message, including any trailing bytes
+            byte[] rest = new byte[4096];
+            int readBytes;
+            while ((readBytes = in.read(rest)) != -1) {
+                integrityMac.update(rest, 0, readBytes);
+            }
+            _integrityValid = MessageDigest.isEqual(integrityMac.doFinal(), getIntegrityHmacValue());
+            integrityMac = null;
+        }
     }
     
     @Override
@@ -58,10 +58,13 @@ import org.apache.poi.poifs.crypt.HashAlgorithm;
 import org.apache.poi.poifs.crypt.agile.AgileEncryptionVerifier.AgileCertificateEntry;
 import org.apache.poi.poifs.crypt.standard.EncryptionRecord;
 import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.DocumentEntry;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
 import org.apache.poi.util.IOUtils;
 import org.apache.poi.util.LittleEndian;
 import org.apache.poi.util.LittleEndianByteArrayOutputStream;
 import org.apache.poi.util.LittleEndianConsts;
+import org.apache.poi.util.Removal;
 import org.apache.xmlbeans.XmlOptions;
 
 import com.microsoft.schemas.office.x2006.encryption.CTDataIntegrity;
@@ -83,10 +86,31 @@ public class AgileEncryptor extends Encryptor implements Cloneable {
 
     private byte[] integritySalt;
     private byte[] pwHash;
+    private int threads = 1;
     
 	protected AgileEncryptor() {
 	}
 
+    /**
+     * Sets the number of threads, which encrypt the segments of the encrypted package in parallel.
+     * The written data is collected in batches of segments, which are encrypted by the workers.
+     * This needs to be set before the data stream is opened.
+     *
+     * @param threads the number of worker threads - values below 2 use the sequential encryption (default)
+     * @since POI 4.1.1
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @return the number of threads, which encrypt the encrypted package
+     * @since POI 4.1.1
+     */
+    public int getThreads() {
+        return threads;
+    }
+
     @Override
     public void confirmPassword(String password) {
         // see [MS-OFFCRYPTO] - 2.3.3 EncryptionVerifier
@@ -236,31 +260,60 @@ public class AgileEncryptor extends Encryptor implements Cloneable {
      * 
      * Encrypt the HMAC as in step 3 by using a blockKey byte array consisting of the following bytes:
      * 0xa0, 0x67, 0x7f, 0x02, 0xb2, 0x2c, 0x84, and 0x33.
+     *
+     * @param encryptedPackage the EncryptedPackage entry
+     * @since POI 4.1.1
      **/
+    protected void updateIntegrityHMAC(DocumentEntry encryptedPackage) throws GeneralSecurityException, IOException {
+        // as the integrity hmac needs to start with the StreamSize, it can't be calculated
+        // on-the-fly while streaming the encrypted data - the entry is read again instead
+        Mac integrityMD = initIntegrityHMAC();
+        try (InputStream is = new DocumentInputStream(encryptedPackage)) {
+            updateIntegrityHMAC(integrityMD, is);
+        }
+        setEncryptedHmacValue(integrityMD);
+    }
+
+    /**
+     * @deprecated the encrypted package isn't buffered in a temp file anymore,
+     *   use {@link #updateIntegrityHMAC(DocumentEntry)}
+     */
+    @Deprecated
+    @Removal(version = "4.3")
     protected void updateIntegrityHMAC(File tmpFile, int oleStreamSize) throws GeneralSecurityException, IOException {
-        // as the integrity hmac needs to contain the StreamSize,
-        // it's not possible to calculate it on-the-fly while buffering
-        // TODO: add stream size parameter to getDataStream()
+        Mac integrityMD = initIntegrityHMAC();
+
+        byte[] buf = new byte[LittleEndianConsts.LONG_SIZE];
+        LittleEndian.putLong(buf, 0, oleStreamSize);
+        integrityMD.update(buf, 0, LittleEndianConsts.LONG_SIZE);
+        
+        try (InputStream fis = new FileInputStream(tmpFile)) {
+            updateIntegrityHMAC(integrityMD, fis);
+        }
+        setEncryptedHmacValue(integrityMD);
+    }
+
+    private Mac initIntegrityHMAC() throws GeneralSecurityException {
         AgileEncryptionHeader header = (AgileEncryptionHeader)getEncryptionInfo().getHeader();
         int blockSize = header.getBlockSize();
         HashAlgorithm hashAlgo = header.getHashAlgorithm();
         Mac integrityMD = CryptoFunctions.getMac(hashAlgo);
         byte[] hmacKey = getBlock0(this.integritySalt, getNextBlockSize(this.integritySalt.length, blockSize));
         integrityMD.init(new SecretKeySpec(hmacKey, hashAlgo.jceHmacId));
+        return integrityMD;
+    }
 
-        byte[] buf = new byte[1024];
-        LittleEndian.putLong(buf, 0, oleStreamSize);
-        integrityMD.update(buf, 0, LittleEndianConsts.LONG_SIZE);
-        
-        InputStream fis = new FileInputStream(tmpFile);
-        try {
-            int readBytes;
-            while ((readBytes = fis.read(buf)) != -1) {
-                integrityMD.update(buf, 0, readBytes);
-            }
-        } finally {
-        	fis.close();
+    private static void updateIntegrityHMAC(Mac integrityMD, InputStream is) throws IOException {
+        byte[] buf = new byte[4096];
+        int readBytes;
+        while ((readBytes = is.read(buf)) != -1) {
+            integrityMD.update(buf, 0, readBytes);
         }
+    }
+
+    private void setEncryptedHmacValue(Mac integrityMD) throws GeneralSecurityException {
+        AgileEncryptionHeader header = (AgileEncryptionHeader)getEncryptionInfo().getHeader();
+        int blockSize = header.getBlockSize();
 
         byte[] hmacValue = integrityMD.doFinal();
         byte[] hmacValueFilled = getBlock0(hmacValue, getNextBlockSize(hmacValue.length, blockSize));
@@ -389,7 +442,21 @@ public class AgileEncryptor extends Encryptor implements Cloneable {
         }
     }
 
+    /**
+     * @deprecated the encrypted package isn't buffered in a temp file anymore,
+     *   use {@link #createEncryptionInfoEntry(DirectoryNode)}
+     */
+    @Deprecated
+    @Removal(version = "4.3")
     protected void createEncryptionInfoEntry(DirectoryNode dir, File tmpFile)
+    throws IOException, GeneralSecurityException {
+        createEncryptionInfoEntry(dir);
+    }
+
+    /**
+     * @since POI 4.1.1
+     */
+    protected void createEncryptionInfoEntry(DirectoryNode dir)
     throws IOException, GeneralSecurityException {
         DataSpaceMapUtils.addDefaultDataSpace(dir);
 
@@ -432,6 +499,7 @@ public class AgileEncryptor extends Encryptor implements Cloneable {
     private class AgileCipherOutputStream extends ChunkedCipherOutputStream {
         public AgileCipherOutputStream(DirectoryNode dir) throws IOException, GeneralSecurityException {
             super(dir, 4096);
+            setThreads(threads);
         }
         
         @Override
@@ -441,16 +509,16 @@ public class AgileEncryptor extends Encryptor implements Cloneable {
         }
 
         @Override
-        protected void calculateChecksum(File fileOut, int oleStreamSize)
+        protected void calculateChecksum(DocumentEntry encryptedPackage)
         throws GeneralSecurityException, IOException {
             // integrityHMAC needs to be updated before the encryption document is created
-            updateIntegrityHMAC(fileOut, oleStreamSize); 
+            updateIntegrityHMAC(encryptedPackage); 
         }
         
         @Override
-        protected void createEncryptionInfoEntry(DirectoryNode dir, File tmpFile)
+        protected void createEncryptionInfoEntry(DirectoryNode dir)
         throws IOException, GeneralSecurityException {
-            AgileEncryptor.this.createEncryptionInfoEntry(dir, tmpFile);
+            AgileEncryptor.this.createEncryptionInfoEntry(dir);
         }
     }
 
@@ -33,8 +33,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators.AbstractSpliterator;
@@ -54,6 +58,7 @@ import org.apache.poi.sl.draw.BitmapImageRenderer;
 import org.apache.poi.sl.draw.DrawPictureShape;
 import org.apache.poi.sl.draw.Drawable;
 import org.apache.poi.sl.draw.ImageRenderer;
+import org.apache.poi.sl.draw.SlideRenderer;
 import org.apache.poi.sl.usermodel.PictureData;
 import org.apache.poi.sl.usermodel.Slide;
 import org.apache.poi.sl.usermodel.SlideShow;
@@ -87,6 +92,7 @@ public class PPTX2PNG {
             "    -outpat <pattern> output filename pattern, defaults to '"+OUTPUT_PAT_REGEX+"'\n" +
             "                      patterns: basename, slideno, format, ext\n" +
             "    -dump <file>      dump the annotated records to a file\n" +
+            "    -threads <int>    number of threads to render the slides of a ppt/pptx file, defaults to 1\n" +
             "    -quiet            do not write to console (for normal processing)";
 
         System.out.println(msg);
@@ -109,7 +115,7 @@ public class PPTX2PNG {
         String outPattern = OUTPUT_PAT_REGEX;
         File dumpfile = null;
         String fixSide = "scale";
-
+        int threads = 1;
 
         for (int i = 0; i < args.length; i++) {
             String opt = (i+1 < args.length) ? args[i+1] : null;
@@ -145,6 +151,10 @@ public class PPTX2PNG {
                     dumpfile = new File(opt);
                     i++;
                     break;
+                case "-threads":
+                    threads = Integer.parseInt(opt);
+                    i++;
+                    break;
                 case "-fixside":
                     fixSide = opt.toLowerCase(Locale.ROOT);
                     i++;
@@ -179,6 +189,11 @@ public class PPTX2PNG {
             return;
         }
 
+        if (threads < 1) {
+            usage("Invalid number of threads given");
+            return;
+        }
+
         if (!"long,short,width,height,scale".contains(fixSide)) {
             usage("<fixside> must be one of long / short / width / height");
             return;
@@ -221,54 +236,82 @@ public class PPTX2PNG {
             final int width = (int) Math.rint(pgsize.getWidth() * scale / lenSide);
             final int height = (int) Math.rint(pgsize.getHeight() * scale / lenSide);
 
-            for (int slideNo : slidenum) {
-                proxy.setSlideNo(slideNo);
-                if (!quiet) {
-                    String title = proxy.getTitle();
-                    System.out.println("Rendering slide " + (slideNo + 1) + (title == null ? "" : ": " + title.trim()));
+            if (threads > 1 && proxy instanceof PPTHandler) {
+                final SlideShow<?,?> ppt = ((PPTHandler)proxy).ppt;
+                final List<Slide<?,?>> slides = new ArrayList<>();
+                final Map<Slide<?,?>,Integer> slideNos = new IdentityHashMap<>();
+                for (int slideNo : slidenum) {
+                    Slide<?,?> slide = ppt.getSlides().get(slideNo-1);
+                    slides.add(slide);
+                    slideNos.put(slide, slideNo);
                 }
 
-                GenericRecord gr = proxy.getRoot();
                 if (dumpfile != null) {
-                    try (GenericRecordJsonWriter fw = new GenericRecordJsonWriter(dumpfile)) {
-                        if (gr == null) {
-                            fw.writeError(file.getName()+" doesn't support GenericRecord interface and can't be dumped to a file.");
-                        } else {
-                            fw.write(gr);
-                        }
-                    }
+                    dump(proxy, file, dumpfile);
                 }
 
-                BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-                Graphics2D graphics = img.createGraphics();
+                final File infile = file;
+                final String fmt = format;
+                final File dir = outdir;
+                final String outf = outfile;
+                final String outp = outPattern;
+                final boolean q = quiet;
+
+                SlideRenderer renderer = new SlideRenderer();
+                renderer.setScale(scale / lenSide);
+                renderer.setThreads(threads);
+                renderer.render(slides, (slide, img) -> {
+                    int slideNo = slideNos.get(slide);
+                    if (!q) {
+                        String title = slide.getTitle();
+                        System.out.println("Rendered slide " + slideNo + (title == null ? "" : ": " + title.trim()));
+                    }
+                    if (!"null".equals(fmt)) {
+                        String outname = getOutputName(proxy, infile, slideNo, fmt, outf, outp);
+                        ImageIO.write(img, fmt, new File(dir, outname));
+                    }
+                });
+            } else {
+                for (int slideNo : slidenum) {
+                    proxy.setSlideNo(slideNo);
+                    if (!quiet) {
+                        String title = proxy.getTitle();
+                        System.out.println("Rendering slide " + slideNo + (title == null ? "" : ": " + title.trim()));
+                    }
+
+                    if (dumpfile != null) {
+                        dump(proxy, file, dumpfile);
+                    }
 
-                // default rendering options
-                graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-                graphics.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_SPEED);
-                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-                graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-                graphics.setRenderingHint(Drawable.BUFFERED_IMAGE, new WeakReference<>(img));
+                    BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+                    Graphics2D graphics = img.createGraphics();
 
-                graphics.scale(scale / lenSide, scale / lenSide);
+                    // default rendering options
+                    graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                    graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                    graphics.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_SPEED);
+                    graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                    graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+                    graphics.setRenderingHint(Drawable.BUFFERED_IMAGE, new WeakReference<>(img));
 
-                graphics.setComposite(AlphaComposite.Clear);
-                graphics.fillRect(0, 0, (int)width, (int)height);
-                graphics.setComposite(AlphaComposite.SrcOver);
+                    graphics.scale(scale / lenSide, scale / lenSide);
 
-                // draw stuff
-                proxy.draw(graphics);
+                    graphics.setComposite(AlphaComposite.Clear);
+                    graphics.fillRect(0, 0, (int)width, (int)height);
+                    graphics.setComposite(AlphaComposite.SrcOver);
 
-                // save the result
-                if (!"null".equals(format)) {
-                    String inname = String.format(Locale.ROOT, "%04d|%s|%s", slideNo, format, file.getName());
-                    String outpat = (proxy.getSlideCount() > 1 ? outPattern : outPattern.replaceAll("-?\\$\\{slideno\\}", ""));
-                    String outname = (outfile != null) ? outfile : INPUT_PATTERN.matcher(inname).replaceAll(outpat);
-                    ImageIO.write(img, format, new File(outdir, outname));
-                }
+                    // draw stuff
+                    proxy.draw(graphics);
+
+                    // save the result
+                    if (!"null".equals(format)) {
+                        String outname = getOutputName(proxy, file, slideNo, format, outfile, outPattern);
+                        ImageIO.write(img, format, new File(outdir, outname));
+                    }
 
-                graphics.dispose();
-                img.flush();
+                    graphics.dispose();
+                    img.flush();
+                }
             }
         } catch (NoScratchpadException e) {
             usage("'"+file.getName()+"': Format not supported - try to include poi-scratchpad.jar into the CLASSPATH.");
@@ -280,6 +323,23 @@ public class PPTX2PNG {
         }
     }
 
+    private static void dump(MFProxy proxy, File file, File dumpfile) throws IOException {
+        GenericRecord gr = proxy.getRoot();
+        try (GenericRecordJsonWriter fw = new GenericRecordJsonWriter(dumpfile)) {
+            if (gr == null) {
+                fw.writeError(file.getName()+" doesn't support GenericRecord interface and can't be dumped to a file.");
+            } else {
+                fw.write(gr);
+            }
+        }
+    }
+
+    private static String getOutputName(MFProxy proxy, File file, int slideNo, String format, String outfile, String outPattern) {
+        String inname = String.format(Locale.ROOT, "%04d|%s|%s", slideNo, format, file.getName());
+        String outpat = (proxy.getSlideCount() > 1 ? outPattern : outPattern.replaceAll("-?\\$\\{slideno\\}", ""));
+        return (outfile != null) ? outfile : INPUT_PATTERN.matcher(inname).replaceAll(outpat);
+    }
+
     private static MFProxy initProxy(File file) throws IOException {
         MFProxy proxy;
         final String fileName = file.getName().toLowerCase(Locale.ROOT);
@@ -0,0 +1,268 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import java.io.IOException;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+
+/**
+ * A cell style of the {@link XSSFBWorkbookWriter}. Like the fonts, the styles are only written
+ * together with the workbook, so they can be modified until
+ * {@link XSSFBWorkbookWriter#write(java.io.OutputStream)} is called.
+ *
+ * @since POI 4.1.1
+ */
+public class XSSFBCellStyle {
+    /** the indexed color, which Excel uses for the automatic foreground color */
+    static final int COLOR_SYSTEM_FOREGROUND = 64;
+    /** the indexed color, which Excel uses for the automatic background color */
+    static final int COLOR_SYSTEM_BACKGROUND = 65;
+
+    private final int index;
+    private String dataFormat = BuiltinFormats.getBuiltinFormat(0);
+    private XSSFBFont font;
+    private HorizontalAlignment alignment = HorizontalAlignment.GENERAL;
+    private VerticalAlignment verticalAlignment = VerticalAlignment.BOTTOM;
+    private boolean wrapText;
+    private FillPatternType fillPattern = FillPatternType.NO_FILL;
+    private int fillForegroundColor = -1;
+    private BorderStyle borderTop = BorderStyle.NONE;
+    private BorderStyle borderBottom = BorderStyle.NONE;
+    private BorderStyle borderLeft = BorderStyle.NONE;
+    private BorderStyle borderRight = BorderStyle.NONE;
+
+    XSSFBCellStyle(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @return the index of the style in the cell XFs of the styles part
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public String getDataFormatString() {
+        return dataFormat;
+    }
+
+    /**
+     * @param format the number format, e.g. {@code "0.00"} or {@code "yyyy-mm-dd"} - the built-in
+     *  formats are referenced by their index, other formats are added to the styles part
+     */
+    public void setDataFormat(String format) {
+        if (format == null || format.isEmpty()) {
+            throw new IllegalArgumentException("The data format must not be empty");
+        }
+        this.dataFormat = format;
+    }
+
+    /**
+     * @return the font or {@code null} for the default font
+     */
+    public XSSFBFont getFont() {
+        return font;
+    }
+
+    /**
+     * @param font the font created by the same workbook writer or {@code null} for the default font
+     */
+    public void setFont(XSSFBFont font) {
+        this.font = font;
+    }
+
+    public HorizontalAlignment getAlignment() {
+        return alignment;
+    }
+
+    public void setAlignment(HorizontalAlignment alignment) {
+        this.alignment = (alignment == null) ? HorizontalAlignment.GENERAL : alignment;
+    }
+
+    public VerticalAlignment getVerticalAlignment() {
+        return verticalAlignment;
+    }
+
+    public void setVerticalAlignment(VerticalAlignment verticalAlignment) {
+        this.verticalAlignment = (verticalAlignment == null) ? VerticalAlignment.BOTTOM : verticalAlignment;
+    }
+
+    public boolean getWrapText() {
+        return wrapText;
+    }
+
+    public void setWrapText(boolean wrapText) {
+        this.wrapText = wrapText;
+    }
+
+    public FillPatternType getFillPattern() {
+        return fillPattern;
+    }
+
+    public void setFillPattern(FillPatternType fillPattern) {
+        this.fillPattern = (fillPattern == null) ? FillPatternType.NO_FILL : fillPattern;
+    }
+
+    /**
+     * @return the fill foreground color as 0xRRGGBB value or -1 for the automatic color
+     */
+    public int getFillForegroundColor() {
+        return fillForegroundColor;
+    }
+
+    /**
+     * @param rgb the fill foreground color as 0xRRGGBB value or -1 for the automatic color
+     */
+    public void setFillForegroundColor(int rgb) {
+        this.fillForegroundColor = (rgb == -1) ? -1 : (rgb & 0xFFFFFF);
+    }
+
+    public BorderStyle getBorderTop() {
+        return borderTop;
+    }
+
+    public void setBorderTop(BorderStyle border) {
+        this.borderTop = (border == null) ? BorderStyle.NONE : border;
+    }
+
+    public BorderStyle getBorderBottom() {
+        return borderBottom;
+    }
+
+    public void setBorderBottom(BorderStyle border) {
+        this.borderBottom = (border == null) ? BorderStyle.NONE : border;
+    }
+
+    public BorderStyle getBorderLeft() {
+        return borderLeft;
+    }
+
+    public void setBorderLeft(BorderStyle border) {
+        this.borderLeft = (border == null) ? BorderStyle.NONE : border;
+    }
+
+    public BorderStyle getBorderRight() {
+        return borderRight;
+    }
+
+    public void setBorderRight(BorderStyle border) {
+        this.borderRight = (border == null) ? BorderStyle.NONE : border;
+    }
+
+    /**
+     * @return the key of the fill, which is used to share equal fills between the styles
+     */
+    String getFillKey() {
+        return fillPattern.getCode() + ":" + fillForegroundColor;
+    }
+
+    /**
+     * @return the key of the border, which is used to share equal borders between the styles
+     */
+    String getBorderKey() {
+        return borderTop.getCode() + ":" + borderBottom.getCode() + ":" +
+            borderLeft.getCode() + ":" + borderRight.getCode();
+    }
+
+    /**
+     * Writes the BrtFill record - see [MS-XLSB] 2.4.487
+     */
+    void writeFill(XSSFBRecordWriter writer) throws IOException {
+        writeFill(writer, fillPattern, fillForegroundColor);
+    }
+
+    static void writeFill(XSSFBRecordWriter writer, FillPatternType pattern, int foregroundColor) throws IOException {
+        writer.putInt(pattern.getCode());
+        putColor(writer, foregroundColor, COLOR_SYSTEM_FOREGROUND);
+        putColor(writer, -1, COLOR_SYSTEM_BACKGROUND);
+        // no gradient: iGradientType, xnumDegree, xnumFillToLeft/Right/Top/Bottom and cNumStop
+        writer.putInt(0);
+        for (int i = 0; i < 5; i++) {
+            writer.putDouble(0);
+        }
+        writer.putInt(0);
+        writer.writeRecord(XSSFBRecordType.BrtFill);
+    }
+
+    /**
+     * Writes the BrtBorder record - see [MS-XLSB] 2.4.299
+     */
+    void writeBorder(XSSFBRecordWriter writer) throws IOException {
+        // no diagonal borders
+        writer.putByte(0);
+        for (BorderStyle bs : new BorderStyle[]{ borderTop, borderBottom, borderLeft, borderRight, BorderStyle.NONE }) {
+            // Blxf: dg, reserved and the color
+            writer.putByte(bs.getCode()).putByte(0);
+            putColor(writer, -1, COLOR_SYSTEM_FOREGROUND);
+        }
+        writer.writeRecord(XSSFBRecordType.BrtBorder);
+    }
+
+    /**
+     * Writes the BrtXf record of the cell XFs - see [MS-XLSB] 2.4.812
+     */
+    void writeXf(XSSFBRecordWriter writer, int numberFormat, int fill, int border) throws IOException {
+        final int fontIdx = (font == null) ? 0 : font.getIndex();
+        final boolean alignmentSet = alignment != HorizontalAlignment.GENERAL
+            || verticalAlignment != VerticalAlignment.BOTTOM || wrapText;
+        // xfGrbitAtr: the attributes which are specified by this XF and not by the cell style XF
+        final int atr = (numberFormat != 0 ? 0x01 : 0) | (fontIdx != 0 ? 0x02 : 0)
+            | (alignmentSet ? 0x04 : 0) | (border != 0 ? 0x08 : 0) | (fill != 0 ? 0x10 : 0);
+        writeXf(writer, 0, numberFormat, fontIdx, fill, border, alignment, verticalAlignment, wrapText, atr);
+    }
+
+    static void writeXf(XSSFBRecordWriter writer, int parent, int numberFormat, int font, int fill, int border,
+        HorizontalAlignment alignment, VerticalAlignment verticalAlignment, boolean wrapText, int atr)
+    throws IOException {
+        writer.putShort(parent)
+            .putShort(numberFormat)
+            .putShort(font)
+            .putShort(fill)
+            .putShort(border)
+            // trot and indent
+            .putByte(0)
+            .putByte(0)
+            // alc, alcv, fWrap and fLocked, which is the default of Excel
+            .putShort(alignment.getCode() | (verticalAlignment.getCode() << 3) | (wrapText ? 0x40 : 0) | 0x1000)
+            .putByte(atr)
+            .putByte(0)
+            .writeRecord(XSSFBRecordType.BrtXf);
+    }
+
+    /**
+     * Puts a BrtColor - see [MS-XLSB] 2.4.324
+     *
+     * @param rgb the color as 0xRRGGBB value or -1 for the indexed color
+     * @param defaultIndex the indexed color, which is used instead of the automatic color
+     */
+    static void putColor(XSSFBRecordWriter writer, int rgb, int defaultIndex) {
+        if (rgb == -1) {
+            // fValidRGB = 0, xColorType = 1 (indexed)
+            writer.putByte(1 << 1).putByte(defaultIndex).putShort(0).putInt(0);
+        } else {
+            // fValidRGB = 1, xColorType = 2 (rgb), index, nTintAndShade, red, green, blue and alpha
+            writer.putByte(1 | (2 << 1)).putByte(0).putShort(0)
+                .putByte(rgb >>> 16).putByte(rgb >>> 8).putByte(rgb).putByte(0xFF);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import java.io.IOException;
+
+/**
+ * A font of the {@link XSSFBWorkbookWriter}. The font is only written together with the
+ * workbook, so it can be modified until {@link XSSFBWorkbookWriter#write(java.io.OutputStream)}
+ * is called.
+ *
+ * @since POI 4.1.1
+ */
+public class XSSFBFont {
+    /** the default font name of new workbooks */
+    public static final String DEFAULT_FONT_NAME = "Calibri";
+
+    /** the default font size of new workbooks */
+    public static final short DEFAULT_FONT_SIZE = 11;
+
+    private final int index;
+    private String fontName = DEFAULT_FONT_NAME;
+    private short fontHeight = DEFAULT_FONT_SIZE * 20;
+    private boolean bold;
+    private boolean italic;
+    private boolean underline;
+    private boolean strikeout;
+    private int color = -1;
+
+    XSSFBFont(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @return the index of the font in the styles part
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public String getFontName() {
+        return fontName;
+    }
+
+    public void setFontName(String fontName) {
+        if (fontName == null || fontName.isEmpty()) {
+            throw new IllegalArgumentException("The font name must not be empty");
+        }
+        this.fontName = fontName;
+    }
+
+    /**
+     * @return the font height in twips (1/20th of a point)
+     */
+    public short getFontHeight() {
+        return fontHeight;
+    }
+
+    /**
+     * @param height the font height in twips (1/20th of a point)
+     */
+    public void setFontHeight(short height) {
+        if (height <= 0) {
+            throw new IllegalArgumentException("The font height must be positive, but was " + height);
+        }
+        this.fontHeight = height;
+    }
+
+    public short getFontHeightInPoints() {
+        return (short)(fontHeight / 20);
+    }
+
+    public void setFontHeightInPoints(short height) {
+        setFontHeight((short)(height * 20));
+    }
+
+    public boolean getBold() {
+        return bold;
+    }
+
+    public void setBold(boolean bold) {
+        this.bold = bold;
+    }
+
+    public boolean getItalic() {
+        return italic;
+    }
+
+    public void setItalic(boolean italic) {
+        this.italic = italic;
+    }
+
+    /**
+     * @return {@code true}, if the font is underlined with a single line
+     */
+    public boolean getUnderline() {
+        return underline;
+    }
+
+    public void setUnderline(boolean underline) {
+        this.underline = underline;
+    }
+
+    public boolean getStrikeout() {
+        return strikeout;
+    }
+
+    public void setStrikeout(boolean strikeout) {
+        this.strikeout = strikeout;
+    }
+
+    /**
+     * @return the font color as 0xRRGGBB value or -1 for the automatic color
+     */
+    public int getColor() {
+        return color;
+    }
+
+    /**
+     * @param rgb the font color as 0xRRGGBB value or -1 for the automatic color
+     */
+    public void setColor(int rgb) {
+        this.color = (rgb == -1) ? -1 : (rgb & 0xFFFFFF);
+    }
+
+    /**
+     * Writes the BrtFont record - see [MS-XLSB] 2.4.490
+     */
+    void write(XSSFBRecordWriter writer) throws IOException {
+        writer.putShort(fontHeight)
+            // grbit: fItalic is bit 1, fStrikeout is bit 3
+            .putShort((italic ? 0x02 : 0) | (strikeout ? 0x08 : 0))
+            // bls: the font weight
+            .putShort(bold ? 700 : 400)
+            // sss: no super/subscript
+            .putShort(0)
+            .putByte(underline ? 1 : 0)
+            // bFamily: swiss
+            .putByte(2)
+            // bCharSet: ANSI
+            .putByte(0)
+            .putByte(0);
+        XSSFBCellStyle.putColor(writer, color, XSSFBCellStyle.COLOR_SYSTEM_FOREGROUND);
+        // bFontScheme: none, because there's no theme part
+        writer.putByte(0)
+            .putXLWideString(fontName)
+            .writeRecord(XSSFBRecordType.BrtFont);
+    }
+}
@@ -17,9 +17,6 @@
 
 package org.apache.poi.xssf.binary;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.apache.poi.util.Internal;
 
 /**
@@ -42,6 +39,7 @@ public enum XSSFBRecordType {
     BrtRowHdr(0),
     BrtCellRString(62),
     BrtBeginSheet(129),
+    BrtEndSheet(130),
     BrtWsProp(147),
     BrtWsDim(148),
     BrtColInfo(60),
@@ -66,12 +64,30 @@ public enum XSSFBRecordType {
     BrtEndCellXFs(618),
     BrtBeginCellStyleXFS(626),
     BrtEndCellStyleXFS(627),
+    BrtBeginStyleSheet(278),
+    BrtEndStyleSheet(279),
+    BrtFont(43),
+    BrtBeginFonts(611),
+    BrtEndFonts(612),
+    BrtFill(45),
+    BrtBeginFills(603),
+    BrtEndFills(604),
+    BrtBorder(46),
+    BrtBeginBorders(613),
+    BrtEndBorders(614),
+    BrtStyle(48),
+    BrtBeginStyles(619),
+    BrtEndStyles(620),
 
     //stored strings table
     BrtSstItem(19),   //stored strings items
     BrtBeginSst(159), //stored strings begin sst
     BrtEndSst(160),   //stored strings end sst
 
+    BrtBeginBook(131),
+    BrtEndBook(132),
+    BrtBeginBundleShs(143),
+    BrtEndBundleShs(144),
     BrtBundleSh(156), //defines worksheet in wb part
 
     BrtAbsPath15(2071), //Excel 2013 path where the file was stored in wbpart
@@ -81,12 +97,19 @@ public enum XSSFBRecordType {
     //BrtWbProp(153), //Workbook prop contains 1904/1900-date based bit
     Unimplemented(-1);
 
-    private static final Map<Integer, XSSFBRecordType> TYPE_MAP =
-            new HashMap<>();
+    // indexed by the record id, so the lookup of each record doesn't need to box the id
+    private static final XSSFBRecordType[] TYPES;
 
     static {
+        int maxId = 0;
+        for (XSSFBRecordType type : XSSFBRecordType.values()) {
+            maxId = Math.max(maxId, type.getId());
+        }
+        TYPES = new XSSFBRecordType[maxId+1];
         for (XSSFBRecordType type : XSSFBRecordType.values()) {
-            TYPE_MAP.put(type.getId(), type);
+            if (type.getId() >= 0) {
+                TYPES[type.getId()] = type;
+            }
         }
     }
 
@@ -101,7 +124,7 @@ public enum XSSFBRecordType {
     }
 
     public static XSSFBRecordType lookup(int id) {
-        XSSFBRecordType type = TYPE_MAP.get(id);
+        XSSFBRecordType type = (id >= 0 && id < TYPES.length) ? TYPES[id] : null;
         if (type == null) {
             return Unimplemented;
         }
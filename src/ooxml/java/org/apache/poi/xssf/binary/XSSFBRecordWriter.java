@@ -0,0 +1,159 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.apache.poi.util.Internal;
+import org.apache.poi.util.LittleEndian;
+
+/**
+ * Writes BIFF12 records, i.e. the counterpart of {@link XSSFBParser}.<p>
+ *
+ * The record data is assembled with the put methods and is written together with the
+ * record header by {@link #writeRecord(XSSFBRecordType)}.
+ *
+ * @since POI 4.1.1
+ */
+@Internal
+final class XSSFBRecordWriter {
+    private static final int MAX_RECORD_LENGTH = (1 << 28) - 1;
+
+    private final OutputStream out;
+    private final byte[] header = new byte[6];
+    private byte[] data = new byte[256];
+    private int length;
+    private long bytesWritten;
+
+    XSSFBRecordWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * @return the number of bytes written so far, including the record headers
+     */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @param type the record type
+     * @param dataLength the length of the record data
+     * @return the size of the record including the header
+     */
+    static int getRecordSize(XSSFBRecordType type, int dataLength) {
+        int headerSize = (type.getId() >= 0x80) ? 2 : 1;
+        for (int len = dataLength; ; len >>>= 7) {
+            headerSize++;
+            if (len < 0x80) {
+                break;
+            }
+        }
+        return headerSize + dataLength;
+    }
+
+    XSSFBRecordWriter putByte(int b) {
+        ensureCapacity(1);
+        data[length++] = (byte)b;
+        return this;
+    }
+
+    XSSFBRecordWriter putShort(int s) {
+        ensureCapacity(LittleEndian.SHORT_SIZE);
+        LittleEndian.putShort(data, length, (short)s);
+        length += LittleEndian.SHORT_SIZE;
+        return this;
+    }
+
+    XSSFBRecordWriter putInt(int i) {
+        ensureCapacity(LittleEndian.INT_SIZE);
+        LittleEndian.putInt(data, length, i);
+        length += LittleEndian.INT_SIZE;
+        return this;
+    }
+
+    XSSFBRecordWriter put24BitInt(int i) {
+        ensureCapacity(3);
+        data[length++] = (byte)i;
+        data[length++] = (byte)(i >>> 8);
+        data[length++] = (byte)(i >>> 16);
+        return this;
+    }
+
+    XSSFBRecordWriter putDouble(double d) {
+        ensureCapacity(LittleEndian.DOUBLE_SIZE);
+        LittleEndian.putDouble(data, length, d);
+        length += LittleEndian.DOUBLE_SIZE;
+        return this;
+    }
+
+    /**
+     * Puts an XLWideString, i.e. the char count followed by the UTF-16LE chars
+     */
+    XSSFBRecordWriter putXLWideString(String str) {
+        final int numChars = str.length();
+        ensureCapacity(LittleEndian.INT_SIZE + 2 * numChars);
+        LittleEndian.putInt(data, length, numChars);
+        length += LittleEndian.INT_SIZE;
+        for (int i = 0; i < numChars; i++) {
+            char c = str.charAt(i);
+            data[length++] = (byte)c;
+            data[length++] = (byte)(c >>> 8);
+        }
+        return this;
+    }
+
+    /**
+     * Writes the record header and the data, which has been put since the last record
+     */
+    void writeRecord(XSSFBRecordType type) throws IOException {
+        int pos = 0;
+        // the record id is stored in up to 2 bytes and the length in up to 4 bytes,
+        // 7 bits per byte with the highest bit as continuation flag
+        int id = type.getId();
+        if (id >= 0x80) {
+            header[pos++] = (byte)(0x80 | (id & 0x7F));
+            header[pos++] = (byte)(id >>> 7);
+        } else {
+            header[pos++] = (byte)id;
+        }
+        int len = length;
+        do {
+            int b = len & 0x7F;
+            len >>>= 7;
+            header[pos++] = (byte)(len > 0 ? b | 0x80 : b);
+        } while (len > 0);
+
+        out.write(header, 0, pos);
+        out.write(data, 0, length);
+        bytesWritten += pos + length;
+        length = 0;
+    }
+
+    private void ensureCapacity(int count) {
+        final int newLength = length + count;
+        if (newLength > MAX_RECORD_LENGTH) {
+            throw new IllegalArgumentException("The record exceeds the maximum length of " + MAX_RECORD_LENGTH + " bytes");
+        }
+        if (newLength > data.length) {
+            data = Arrays.copyOf(data, Math.min(MAX_RECORD_LENGTH, Math.max(newLength, data.length * 2)));
+        }
+    }
+}
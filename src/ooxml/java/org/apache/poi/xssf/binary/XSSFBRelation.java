@@ -43,6 +43,13 @@ public class XSSFBRelation extends POIXMLRelation {
             null
     );
 
+    static final XSSFBRelation WORKSHEET_BINARY = new XSSFBRelation(
+            "application/vnd.ms-excel.worksheet",
+            "http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet",
+            "/xl/worksheets/sheet#.bin",
+            null
+    );
+
     public static final XSSFBRelation STYLES_BINARY = new XSSFBRelation(
             "application/vnd.ms-excel.styles",
             PackageRelationshipTypes.STYLE_PART,
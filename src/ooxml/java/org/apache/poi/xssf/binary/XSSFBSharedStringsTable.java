@@ -144,6 +144,7 @@ public class XSSFBSharedStringsTable implements SharedStrings {
     }
 
     private class SSTBinaryReader extends XSSFBParser {
+        private final StringBuilder sb = new StringBuilder();
 
         SSTBinaryReader(InputStream is) {
             super(is);
@@ -151,12 +152,19 @@ public class XSSFBSharedStringsTable implements SharedStrings {
 
         @Override
         public void handleRecord(int recordType, byte[] data) throws XSSFBParseException {
+            handleRecord(recordType, data, data.length);
+        }
+
+        @Override
+        protected void handleRecord(int recordType, byte[] data, int length) throws XSSFBParseException {
             XSSFBRecordType type = XSSFBRecordType.lookup(recordType);
 
             switch (type) {
                 case BrtSstItem:
-                    XSSFBRichStr rstr = XSSFBRichStr.build(data, 0);
-                    strings.add(rstr.getString());
+                    // see XSSFBRichStr.build - the flags byte is followed by the string
+                    sb.setLength(0);
+                    XSSFBUtils.readXLWideString(data, 1, length, sb);
+                    strings.add(sb.toString());
                     break;
                 case BrtBeginSst:
                     count = XSSFBUtils.castToInt(LittleEndian.getUInt(data,0));
@@ -19,6 +19,7 @@ package org.apache.poi.xssf.binary;
 
 
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Queue;
 
 import org.apache.poi.ss.usermodel.BuiltinFormats;
@@ -52,6 +53,7 @@ public class XSSFBSheetHandler extends XSSFBParser {
     private byte[] rkBuffer = new byte[8];
     private XSSFBCellRange hyperlinkCellRange;
     private StringBuilder xlWideStringBuffer = new StringBuilder();
+    private final StringBuilder cellRefBuffer = new StringBuilder();
 
     private final XSSFBCellHeader cellBuffer = new XSSFBCellHeader();
     public XSSFBSheetHandler(InputStream is,
@@ -72,10 +74,22 @@ public class XSSFBSheetHandler extends XSSFBParser {
 
     @Override
     public void handleRecord(int id, byte[] data) throws XSSFBParseException {
+        handleRecord(id, data, data.length);
+    }
+
+    /**
+     * Handles the records in the reused record buffer of the parser,
+     * so there's no allocation per record for the cell values.
+     *
+     * @since POI 4.1.1
+     */
+    @Override
+    protected void handleRecord(int id, byte[] data, int length) throws XSSFBParseException {
         XSSFBRecordType type = XSSFBRecordType.lookup(id);
 
         switch(type) {
             case BrtRowHdr:
+                checkLength(type, length, LittleEndian.INT_SIZE);
                 int rw = XSSFBUtils.castToInt(LittleEndian.getUInt(data, 0));
                 if (rw > 0x00100000) {//could make sure this is larger than currentRow, according to spec?
                     throw new XSSFBParseException("Row number beyond allowable range: "+rw);
@@ -85,34 +99,34 @@ public class XSSFBSheetHandler extends XSSFBParser {
                 startRow(currentRow);
                 break;
             case BrtCellIsst:
-                handleBrtCellIsst(data);
+                handleBrtCellIsst(data, length);
                 break;
             case BrtCellSt: //TODO: needs test
-                handleCellSt(data);
+                handleCellSt(data, length);
                 break;
             case BrtCellRk:
-                handleCellRk(data);
+                handleCellRk(data, length);
                 break;
             case BrtCellReal:
-                handleCellReal(data);
+                handleCellReal(data, length);
                 break;
             case BrtCellBool:
-                handleBoolean(data);
+                handleBoolean(data, length);
                 break;
             case BrtCellError:
-                handleCellError(data);
+                handleCellError(data, length);
                 break;
             case BrtCellBlank:
-                beforeCellValue(data);//read cell info and check for missing comments
+                beforeCellValue(data, length, 0);//read cell info and check for missing comments
                 break;
             case BrtFmlaString:
-                handleFmlaString(data);
+                handleFmlaString(data, length);
                 break;
             case BrtFmlaNum:
-                handleFmlaNum(data);
+                handleFmlaNum(data, length);
                 break;
             case BrtFmlaError:
-                handleFmlaError(data);
+                handleFmlaError(data, length);
                 break;
                 //TODO: All the PCDI and PCDIA
             case BrtEndSheetData:
@@ -120,74 +134,102 @@ public class XSSFBSheetHandler extends XSSFBParser {
                 endRow(lastStartedRow);
                 break;
             case BrtBeginHeaderFooter:
-                handleHeaderFooter(data);
+                // the header/footer parser relies on the array length
+                handleHeaderFooter(Arrays.copyOf(data, length));
                 break;
         }
     }
 
 
-    private void beforeCellValue(byte[] data) {
+    private void beforeCellValue(byte[] data, int length, int valueLength) {
+        checkLength(null, length, XSSFBCellHeader.length + valueLength);
         XSSFBCellHeader.parse(data, 0, currentRow, cellBuffer);
         checkMissedComments(currentRow, cellBuffer.getColNum());
     }
 
+    private static void checkLength(XSSFBRecordType type, int length, int minLength) {
+        // the record buffer is reused, so reading beyond the record wouldn't fail
+        if (length < minLength) {
+            throw new XSSFBParseException("Record " + (type == null ? "" : type + " ") +
+                "is too short: expected at least " + minLength + " bytes, but had " + length);
+        }
+    }
+
     private void handleCellValue(String formattedValue) {
-        CellAddress cellAddress = new CellAddress(currentRow, cellBuffer.getColNum());
+        final int colNum = cellBuffer.getColNum();
         XSSFBComment comment = null;
         if (comments != null) {
-            comment = comments.get(cellAddress);
+            comment = comments.get(new CellAddress(currentRow, colNum));
+        }
+        handler.cell(formatCellReference(currentRow, colNum), formattedValue, comment);
+    }
+
+    /**
+     * Same as {@link CellAddress#formatAsString()}, but with a reused buffer
+     */
+    private String formatCellReference(int row, int col) {
+        cellRefBuffer.setLength(0);
+        // see CellReference.convertNumToColString
+        int colRemain = col + 1;
+        while (colRemain > 0) {
+            int thisPart = colRemain % 26;
+            if (thisPart == 0) {
+                thisPart = 26;
+            }
+            colRemain = (colRemain - thisPart) / 26;
+            cellRefBuffer.insert(0, (char)(thisPart + 'A' - 1));
         }
-        handler.cell(cellAddress.formatAsString(), formattedValue, comment);
+        return cellRefBuffer.append(row + 1).toString();
     }
 
-    private void handleFmlaNum(byte[] data) {
-        beforeCellValue(data);
+    private void handleFmlaNum(byte[] data, int length) {
+        beforeCellValue(data, length, LittleEndian.DOUBLE_SIZE);
         //xNum
         double val = LittleEndian.getDouble(data, XSSFBCellHeader.length);
         handleCellValue(formatVal(val, cellBuffer.getStyleIdx()));
     }
 
-    private void handleCellSt(byte[] data) {
-        beforeCellValue(data);
+    private void handleCellSt(byte[] data, int length) {
+        beforeCellValue(data, length, LittleEndian.INT_SIZE);
         xlWideStringBuffer.setLength(0);
-        XSSFBUtils.readXLWideString(data, XSSFBCellHeader.length, xlWideStringBuffer);
+        XSSFBUtils.readXLWideString(data, XSSFBCellHeader.length, length, xlWideStringBuffer);
         handleCellValue(xlWideStringBuffer.toString());
     }
 
-    private void handleFmlaString(byte[] data) {
-        beforeCellValue(data);
+    private void handleFmlaString(byte[] data, int length) {
+        beforeCellValue(data, length, LittleEndian.INT_SIZE);
         xlWideStringBuffer.setLength(0);
-        XSSFBUtils.readXLWideString(data, XSSFBCellHeader.length, xlWideStringBuffer);
+        XSSFBUtils.readXLWideString(data, XSSFBCellHeader.length, length, xlWideStringBuffer);
         handleCellValue(xlWideStringBuffer.toString());
     }
 
-    private void handleCellError(byte[] data) {
-        beforeCellValue(data);
+    private void handleCellError(byte[] data, int length) {
+        beforeCellValue(data, length, 0);
         //TODO, read byte to figure out the type of error
         handleCellValue("ERROR");
     }
 
-    private void handleFmlaError(byte[] data) {
-        beforeCellValue(data);
+    private void handleFmlaError(byte[] data, int length) {
+        beforeCellValue(data, length, 0);
         //TODO, read byte to figure out the type of error
         handleCellValue("ERROR");
     }
 
-    private void handleBoolean(byte[] data) {
-        beforeCellValue(data);
+    private void handleBoolean(byte[] data, int length) {
+        beforeCellValue(data, length, 1);
         String formattedVal = (data[XSSFBCellHeader.length] == 1) ? "TRUE" : "FALSE";
         handleCellValue(formattedVal);
     }
 
-    private void handleCellReal(byte[] data) {
-        beforeCellValue(data);
+    private void handleCellReal(byte[] data, int length) {
+        beforeCellValue(data, length, LittleEndian.DOUBLE_SIZE);
         //xNum
         double val = LittleEndian.getDouble(data, XSSFBCellHeader.length);
         handleCellValue(formatVal(val, cellBuffer.getStyleIdx()));
     }
 
-    private void handleCellRk(byte[] data) {
-        beforeCellValue(data);
+    private void handleCellRk(byte[] data, int length) {
+        beforeCellValue(data, length, LittleEndian.INT_SIZE);
         double val = rkNumber(data, XSSFBCellHeader.length);
         handleCellValue(formatVal(val, cellBuffer.getStyleIdx()));
     }
@@ -206,8 +248,8 @@ public class XSSFBSheetHandler extends XSSFBParser {
         return dataFormatter.formatRawCellContents(val, styleIndex, formatString);
     }
 
-    private void handleBrtCellIsst(byte[] data) {
-        beforeCellValue(data);
+    private void handleBrtCellIsst(byte[] data, int length) {
+        beforeCellValue(data, length, LittleEndian.INT_SIZE);
         int idx = XSSFBUtils.castToInt(LittleEndian.getUInt(data, XSSFBCellHeader.length));
         RichTextString rtss = stringsTable.getItemAt(idx);
         handleCellValue(rtss.getString());
@@ -0,0 +1,324 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.POILogFactory;
+import org.apache.poi.util.POILogger;
+import org.apache.poi.util.TempFile;
+
+/**
+ * Writes the rows of a sheet of the {@link XSSFBWorkbookWriter}.<p>
+ *
+ * The rows and their cells are encoded to BIFF12 records right away and are spooled to a
+ * temp file, so the memory usage doesn't depend on the size of the sheet. This also means,
+ * that the rows have to be written in ascending order and the cells of a row in ascending
+ * column order.<p>
+ *
+ * Usage:
+ * <pre>
+ * XSSFBSheetWriter sheet = wb.createSheet("Data");
+ * sheet.startRow(0);
+ * sheet.writeString(0, "Name");
+ * sheet.writeNumber(1, 42);
+ * </pre>
+ *
+ * @since POI 4.1.1
+ */
+public class XSSFBSheetWriter {
+    private static final POILogger LOG = POILogFactory.getLogger(XSSFBSheetWriter.class);
+
+    private static final SpreadsheetVersion VERSION = SpreadsheetVersion.EXCEL2007;
+
+    /** the default row height of Excel in twips */
+    private static final int DEFAULT_ROW_HEIGHT = 300;
+
+    private final XSSFBWorkbookWriter workbook;
+    private final String sheetName;
+    private final File file;
+    private final OutputStream os;
+    private final XSSFBRecordWriter writer;
+
+    private int currentRow = -1;
+    private int lastColumn = -1;
+    private int firstRow = -1, firstColumn = -1, lastColumnOfSheet = -1;
+
+    XSSFBSheetWriter(XSSFBWorkbookWriter workbook, String sheetName) throws IOException {
+        this.workbook = workbook;
+        this.sheetName = sheetName;
+        file = TempFile.createTempFile("poi-xlsb-sheet", ".bin");
+        os = new BufferedOutputStream(new FileOutputStream(file));
+        writer = new XSSFBRecordWriter(os);
+    }
+
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    /**
+     * @return the row number of the last started row or -1, if no row has been started
+     */
+    public int getLastRowNum() {
+        return currentRow;
+    }
+
+    /**
+     * Starts a new row with the default height
+     *
+     * @param rownum the 0-based row number, which needs to be greater than the last row number
+     */
+    public void startRow(int rownum) throws IOException {
+        startRow(rownum, -1);
+    }
+
+    /**
+     * Starts a new row
+     *
+     * @param rownum the 0-based row number, which needs to be greater than the last row number
+     * @param heightInPoints the row height in points or -1 for the default height
+     */
+    public void startRow(int rownum, float heightInPoints) throws IOException {
+        final int maxrow = VERSION.getLastRowIndex();
+        if (rownum < 0 || rownum > maxrow) {
+            throw new IllegalArgumentException("Invalid row number (" + rownum
+                    + ") outside allowable range (0.." + maxrow + ")");
+        }
+        if (rownum <= currentRow) {
+            throw new IllegalArgumentException("Attempting to write row " + rownum
+                    + ", but the rows need to be written in ascending order and row " + currentRow
+                    + " has already been written");
+        }
+        final boolean customHeight = heightInPoints != -1;
+        if (customHeight && (heightInPoints < 0 || heightInPoints > 409)) {
+            throw new IllegalArgumentException("Invalid row height " + heightInPoints);
+        }
+
+        currentRow = rownum;
+        lastColumn = -1;
+        if (firstRow == -1) {
+            firstRow = rownum;
+        }
+
+        // BrtRowHdr - see [MS-XLSB] 2.4.726
+        writer.putInt(rownum)
+            // ixfe: no row style
+            .putInt(0)
+            .putShort(customHeight ? Math.round(heightInPoints * 20) : DEFAULT_ROW_HEIGHT)
+            // fExtraAsc/fExtraDsc
+            .putByte(0)
+            // fDyZero for 0 height rows and fUnsynced for the custom height
+            .putByte((customHeight ? 0x20 : 0) | (heightInPoints == 0 ? 0x10 : 0))
+            // fPhShow
+            .putByte(0)
+            // ccolspan: the optional column span hints are left out
+            .putInt(0)
+            .writeRecord(XSSFBRecordType.BrtRowHdr);
+    }
+
+    public void writeBlank(int column, XSSFBCellStyle style) throws IOException {
+        putCellHeader(column, style);
+        writer.writeRecord(XSSFBRecordType.BrtCellBlank);
+    }
+
+    public void writeNumber(int column, double value) throws IOException {
+        writeNumber(column, value, null);
+    }
+
+    /**
+     * Writes a numeric cell - the values, which are representable by an RK number,
+     * are stored in the shorter BrtCellRk record
+     */
+    public void writeNumber(int column, double value, XSSFBCellStyle style) throws IOException {
+        if (Double.isInfinite(value)) {
+            // Excel does not support positive/negative infinities,
+            // rather, it gives a #DIV/0! error in these cases.
+            writeError(column, FormulaError.DIV0, style);
+            return;
+        } else if (Double.isNaN(value)) {
+            writeError(column, FormulaError.NUM, style);
+            return;
+        }
+        putCellHeader(column, style);
+        final int rk = toRkNumber(value);
+        if (rk != 0) {
+            writer.putInt(rk).writeRecord(XSSFBRecordType.BrtCellRk);
+        } else {
+            writer.putDouble(value).writeRecord(XSSFBRecordType.BrtCellReal);
+        }
+    }
+
+    public void writeString(int column, String value) throws IOException {
+        writeString(column, value, null);
+    }
+
+    /**
+     * Writes a string cell - depending on the workbook writer, the string is added to the
+     * shared strings table or stored inline
+     */
+    public void writeString(int column, String value, XSSFBCellStyle style) throws IOException {
+        if (value == null) {
+            writeBlank(column, style);
+            return;
+        }
+        if (value.length() > VERSION.getMaxTextLength()) {
+            throw new IllegalArgumentException("The maximum length of cell contents (text) is "
+                    + VERSION.getMaxTextLength() + " characters");
+        }
+        putCellHeader(column, style);
+        final int sstIdx = workbook.addSharedString(value);
+        if (sstIdx == -1) {
+            writer.putXLWideString(value).writeRecord(XSSFBRecordType.BrtCellSt);
+        } else {
+            writer.putInt(sstIdx).writeRecord(XSSFBRecordType.BrtCellIsst);
+        }
+    }
+
+    public void writeBoolean(int column, boolean value) throws IOException {
+        writeBoolean(column, value, null);
+    }
+
+    public void writeBoolean(int column, boolean value, XSSFBCellStyle style) throws IOException {
+        putCellHeader(column, style);
+        writer.putByte(value ? 1 : 0).writeRecord(XSSFBRecordType.BrtCellBool);
+    }
+
+    public void writeError(int column, FormulaError error) throws IOException {
+        writeError(column, error, null);
+    }
+
+    public void writeError(int column, FormulaError error, XSSFBCellStyle style) throws IOException {
+        if (!FormulaError.isValidCode(error.getCode())) {
+            throw new IllegalArgumentException("Invalid error value " + error);
+        }
+        putCellHeader(column, style);
+        writer.putByte(error.getCode()).writeRecord(XSSFBRecordType.BrtCellError);
+    }
+
+    /**
+     * Puts the Cell structure, which precedes the value of the cell records - see [MS-XLSB] 2.5.9
+     */
+    private void putCellHeader(int column, XSSFBCellStyle style) {
+        if (currentRow == -1) {
+            throw new IllegalStateException("A row needs to be started, before cells can be written");
+        }
+        final int maxcol = VERSION.getLastColumnIndex();
+        if (column < 0 || column > maxcol) {
+            throw new IllegalArgumentException("Invalid column index (" + column
+                    + ").  Allowable column range for " + VERSION.name() + " is (0.."
+                    + maxcol + ") or ('A'..'" + VERSION.getLastColumnName() + "')");
+        }
+        if (column <= lastColumn) {
+            throw new IllegalArgumentException("Attempting to write column " + column
+                    + ", but the cells of a row need to be written in ascending order and column "
+                    + lastColumn + " has already been written");
+        }
+        final int styleIdx = (style == null) ? 0 : workbook.checkStyle(style);
+
+        lastColumn = column;
+        if (firstColumn == -1 || column < firstColumn) {
+            firstColumn = column;
+        }
+        if (column > lastColumnOfSheet) {
+            lastColumnOfSheet = column;
+        }
+
+        // the style index is a 24 bit integer followed by the fPhShow flag byte
+        writer.putInt(column).put24BitInt(styleIdx).putByte(0);
+    }
+
+    /**
+     * Converts the value to an RkNumber - see [MS-XLSB] 2.5.122
+     *
+     * @return the RkNumber or 0, if the value can't be represented exactly - a valid RkNumber
+     *  is never 0, because 0 is stored as integer
+     */
+    static int toRkNumber(double value) {
+        // a 30 bit signed integer
+        if (value == Math.rint(value) && value >= -(1 << 29) && value < (1 << 29)) {
+            return ((int)value << 2) | 0x02;
+        }
+        // the upper 30 bits of the IEEE 754 double, i.e. the lower 34 bits are 0
+        final long bits = Double.doubleToLongBits(value);
+        if ((bits & 0x3FFFFFFFFL) == 0) {
+            return (int)(bits >>> 32);
+        }
+        return 0;
+    }
+
+    /**
+     * Writes the sheet part, i.e. the spooled records enclosed by the sheet records
+     */
+    void writePart(ZipArchiveOutputStream zos, String name) throws IOException {
+        os.flush();
+
+        final ByteArrayOutputStream header = new ByteArrayOutputStream(64);
+        final XSSFBRecordWriter hw = new XSSFBRecordWriter(header);
+        hw.writeRecord(XSSFBRecordType.BrtBeginSheet);
+        // BrtWsDim: the used range
+        hw.putInt(Math.max(0, firstRow)).putInt(Math.max(0, currentRow))
+            .putInt(Math.max(0, firstColumn)).putInt(Math.max(0, lastColumnOfSheet))
+            .writeRecord(XSSFBRecordType.BrtWsDim);
+        hw.writeRecord(XSSFBRecordType.BrtBeginSheetData);
+
+        final ByteArrayOutputStream footer = new ByteArrayOutputStream(8);
+        final XSSFBRecordWriter fw = new XSSFBRecordWriter(footer);
+        fw.writeRecord(XSSFBRecordType.BrtEndSheetData);
+        fw.writeRecord(XSSFBRecordType.BrtEndSheet);
+
+        final ZipArchiveEntry ze = new ZipArchiveEntry(name);
+        // the size is known upfront, so the Zip64 extra fields are only added if necessary
+        ze.setSize(header.size() + writer.getBytesWritten() + footer.size());
+        zos.putArchiveEntry(ze);
+        try {
+            header.writeTo(zos);
+            try (InputStream is = new FileInputStream(file)) {
+                IOUtils.copy(is, zos);
+            }
+            footer.writeTo(zos);
+        } finally {
+            zos.closeArchiveEntry();
+        }
+    }
+
+    /**
+     * Deletes the temp file - called by {@link XSSFBWorkbookWriter#close()}
+     */
+    void close() throws IOException {
+        try {
+            os.close();
+        } finally {
+            if (!file.delete()) {
+                LOG.log(POILogger.WARN, "Can't delete temporary file of the sheet data: " + file);
+            }
+        }
+    }
+}
@@ -18,8 +18,6 @@
 package org.apache.poi.xssf.binary;
 
 
-import java.nio.charset.StandardCharsets;
-
 import org.apache.poi.ooxml.POIXMLException;
 import org.apache.poi.util.Internal;
 import org.apache.poi.util.LittleEndian;
@@ -39,6 +37,19 @@ public class XSSFBUtils {
      * @throws XSSFBParseException if there was an exception during reading
      */
     static int readXLNullableWideString(byte[] data, int offset, StringBuilder sb) throws XSSFBParseException {
+        return readXLNullableWideString(data, offset, data.length, sb);
+    }
+
+    /**
+     * Reads an XLNullableWideString from a (reused) record buffer.
+     * @param data data from which to read
+     * @param offset in data from which to start
+     * @param length the length of the valid data in the buffer
+     * @param sb buffer to which to write.  You must setLength(0) before calling!
+     * @return number of bytes read
+     * @throws XSSFBParseException if there was an exception during reading
+     */
+    static int readXLNullableWideString(byte[] data, int offset, int length, StringBuilder sb) throws XSSFBParseException {
         long numChars = LittleEndian.getUInt(data, offset);
         if (numChars < 0) {
             throw new XSSFBParseException("too few chars to read");
@@ -50,11 +61,11 @@ public class XSSFBUtils {
 
         int numBytes = 2*(int)numChars;
         offset += 4;
-        if (offset+numBytes > data.length) {
+        if (offset+numBytes > length) {
             throw new XSSFBParseException("trying to read beyond data length: " +
-             "offset="+offset+", numBytes="+numBytes+", data.length="+data.length);
+             "offset="+offset+", numBytes="+numBytes+", data.length="+length);
         }
-        sb.append(new String(data, offset, numBytes, StandardCharsets.UTF_16LE));
+        appendUTF16LE(data, offset, numBytes, sb);
         numBytes+=4;
         return numBytes;
     }
@@ -69,6 +80,21 @@ public class XSSFBUtils {
      * @throws XSSFBParseException if there was an exception while trying to read the string
      */
     public static int readXLWideString(byte[] data, int offset, StringBuilder sb) throws XSSFBParseException {
+        return readXLWideString(data, offset, data.length, sb);
+    }
+
+    /**
+     * Reads an XLWideString from a (reused) record buffer.
+     * @param data data from which to read
+     * @param offset in data from which to start
+     * @param length the length of the valid data in the buffer
+     * @param sb buffer to which to write.  You must setLength(0) before calling!
+     * @return number of bytes read
+     * @throws XSSFBParseException if there was an exception while trying to read the string
+     *
+     * @since POI 4.1.1
+     */
+    public static int readXLWideString(byte[] data, int offset, int length, StringBuilder sb) throws XSSFBParseException {
         long numChars = LittleEndian.getUInt(data, offset);
         if (numChars < 0) {
             throw new XSSFBParseException("too few chars to read");
@@ -77,14 +103,39 @@ public class XSSFBUtils {
         }
         int numBytes = 2*(int)numChars;
         offset += 4;
-        if (offset+numBytes > data.length) {
+        if (offset+numBytes > length) {
             throw new XSSFBParseException("trying to read beyond data length");
         }
-        sb.append(new String(data, offset, numBytes, StandardCharsets.UTF_16LE));
+        appendUTF16LE(data, offset, numBytes, sb);
         numBytes+=4;
         return numBytes;
     }
 
+    /**
+     * Appends UTF-16LE encoded chars without creating an intermediate String.
+     * Unpaired surrogates are replaced by U+FFFD.
+     */
+    private static void appendUTF16LE(byte[] data, int offset, int numBytes, StringBuilder sb) {
+        final int end = offset + numBytes;
+        sb.ensureCapacity(sb.length() + numBytes / 2);
+        for (int i = offset; i < end; i += 2) {
+            char c = (char)((data[i] & 0xFF) | ((data[i+1] & 0xFF) << 8));
+            if (Character.isHighSurrogate(c)) {
+                char low = (i+3 < end) ? (char)((data[i+2] & 0xFF) | ((data[i+3] & 0xFF) << 8)) : 0;
+                if (Character.isLowSurrogate(low)) {
+                    sb.append(c).append(low);
+                    i += 2;
+                } else {
+                    sb.append('\uFFFD');
+                }
+            } else if (Character.isLowSurrogate(c)) {
+                sb.append('\uFFFD');
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
     static int castToInt(long val) {
         if (val < Integer.MAX_VALUE && val > Integer.MIN_VALUE) {
             return (int)val;
@@ -0,0 +1,465 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.poi.openxml4j.opc.ContentTypes;
+import org.apache.poi.openxml4j.opc.PackageNamespaces;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.model.MappedStringStore;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+
+/**
+ * Streaming writer for binary workbooks (.xlsb), i.e. the write counterpart of the
+ * {@link org.apache.poi.xssf.eventusermodel.XSSFBReader}.<p>
+ *
+ * Similar to SXSSF, the sheet data is spooled to temp files, which are only assembled to the
+ * package, when the workbook is written. In contrast to SXSSF, there's no window of accessible
+ * rows - the rows are encoded to BIFF12 records right away and can't be modified afterwards.<p>
+ *
+ * The shared strings are kept in a {@link MappedStringStore}, i.e. outside the java heap.
+ * The fonts and cell styles are written to the styles part together with the workbook.<p>
+ *
+ * Only values are supported - formulas, merged regions, column settings, comments and
+ * drawings can't be written.<p>
+ *
+ * Don't forget to {@link #close()} the writer, to delete the temp files.
+ *
+ * @since POI 4.1.1
+ */
+public class XSSFBWorkbookWriter implements Closeable {
+    private static final String WORKBOOK_PART = XSSFRelation.XLSB_BINARY_WORKBOOK.getDefaultFileName();
+
+    private final List<XSSFBSheetWriter> sheets = new ArrayList<>();
+    private final List<XSSFBFont> fonts = new ArrayList<>();
+    private final List<XSSFBCellStyle> styles = new ArrayList<>();
+    private final MappedStringStore sharedStrings;
+    private int sharedStringCount;
+    /** the size of the BrtSstItem records of the unique strings */
+    private long sharedStringsSize;
+    private Zip64Mode zip64Mode = Zip64Mode.AsNeeded;
+    private boolean closed;
+
+    /**
+     * Creates a writer, which stores the strings inline
+     */
+    public XSSFBWorkbookWriter() {
+        this(false);
+    }
+
+    /**
+     * @param useSharedStrings {@code true}, to add the strings to the shared strings table,
+     *  {@code false}, to store the strings inline in the cell records. The shared strings result in
+     *  smaller files with repeated strings, but need to be looked up while writing.
+     */
+    public XSSFBWorkbookWriter(boolean useSharedStrings) {
+        sharedStrings = useSharedStrings ? new MappedStringStore() : null;
+        // the default font
+        fonts.add(new XSSFBFont(0));
+    }
+
+    /**
+     * Creates a sheet, which is added after the existing sheets
+     *
+     * @param sheetname the sheet name
+     * @return the writer of the sheet rows
+     * @throws IllegalArgumentException if the name is invalid or the workbook already
+     *  contains a sheet with this name
+     * @throws IOException if the temp file of the sheet can't be created
+     */
+    public XSSFBSheetWriter createSheet(String sheetname) throws IOException {
+        checkOpen();
+        if (sheetname == null) {
+            throw new IllegalArgumentException("sheetName must not be null");
+        }
+        // Mimic Excel and silently truncate sheet names longer than 31 characters
+        if (sheetname.length() > 31) {
+            sheetname = sheetname.substring(0, 31);
+        }
+        WorkbookUtil.validateSheetName(sheetname);
+        for (XSSFBSheetWriter sh : sheets) {
+            if (sh.getSheetName().equalsIgnoreCase(sheetname)) {
+                throw new IllegalArgumentException("The workbook already contains a sheet named '" + sheetname + "'");
+            }
+        }
+        XSSFBSheetWriter sheet = new XSSFBSheetWriter(this, sheetname);
+        sheets.add(sheet);
+        return sheet;
+    }
+
+    public int getNumberOfSheets() {
+        return sheets.size();
+    }
+
+    public XSSFBSheetWriter getSheetAt(int index) {
+        return sheets.get(index);
+    }
+
+    /**
+     * @return the default font, which is used by the cells without a style or a font
+     */
+    public XSSFBFont getDefaultFont() {
+        return fonts.get(0);
+    }
+
+    public XSSFBFont createFont() {
+        XSSFBFont font = new XSSFBFont(fonts.size());
+        fonts.add(font);
+        return font;
+    }
+
+    public XSSFBCellStyle createCellStyle() {
+        // the index 0 is reserved for the default style
+        XSSFBCellStyle style = new XSSFBCellStyle(styles.size() + 1);
+        styles.add(style);
+        return style;
+    }
+
+    /**
+     * @param zip64Mode {@link Zip64Mode}
+     */
+    public void setZip64Mode(Zip64Mode zip64Mode) {
+        this.zip64Mode = zip64Mode;
+    }
+
+    /**
+     * Writes the workbook. The writer can still be used afterwards, e.g. to write further rows.
+     *
+     * @param stream the stream to write to - the stream isn't closed
+     */
+    public void write(OutputStream stream) throws IOException {
+        checkOpen();
+        ZipArchiveOutputStream zos = new ZipArchiveOutputStream(stream);
+        zos.setUseZip64(zip64Mode);
+        try {
+            writeEntry(zos, "[Content_Types].xml", createContentTypes());
+            writeEntry(zos, "_rels/.rels", createRelationships(
+                XSSFRelation.XLSB_BINARY_WORKBOOK.getRelation(), WORKBOOK_PART.substring(1)));
+            writeEntry(zos, WORKBOOK_PART.substring(1), createWorkbookPart());
+            writeEntry(zos, "xl/_rels/workbook.bin.rels", createWorkbookRelationships());
+            writeEntry(zos, XSSFBRelation.STYLES_BINARY.getDefaultFileName().substring(1), createStylesPart());
+            if (sharedStrings != null) {
+                writeSharedStringsPart(zos);
+            }
+            for (int i = 0; i < sheets.size(); i++) {
+                sheets.get(i).writePart(zos, getSheetPartName(i).substring(1));
+            }
+        } finally {
+            zos.finish();
+        }
+    }
+
+    /**
+     * Deletes the temp files of the sheets and the shared strings
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            for (XSSFBSheetWriter sheet : sheets) {
+                sheet.close();
+            }
+        } finally {
+            if (sharedStrings != null) {
+                sharedStrings.close();
+            }
+        }
+    }
+
+    /**
+     * @return the index of the string in the shared strings table or -1, if the strings are stored inline
+     */
+    int addSharedString(String str) throws IOException {
+        if (sharedStrings == null) {
+            return -1;
+        }
+        final int uniqueCount = sharedStrings.size();
+        final int idx = sharedStrings.addIfAbsent(str);
+        if (idx == uniqueCount) {
+            // the flags of the RichStr and the XLWideString
+            sharedStringsSize += XSSFBRecordWriter.getRecordSize(XSSFBRecordType.BrtSstItem, 1 + 4 + 2 * str.length());
+        }
+        sharedStringCount++;
+        return idx;
+    }
+
+    /**
+     * @return the index of the style, if it belongs to this workbook writer
+     */
+    int checkStyle(XSSFBCellStyle style) {
+        final int idx = style.getIndex();
+        if (idx < 1 || idx > styles.size() || styles.get(idx - 1) != style) {
+            throw new IllegalArgumentException("This style does not belong to the supplied workbook writer. " +
+                "Are you trying to assign a style from one workbook to the cell of a different workbook?");
+        }
+        return idx;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The workbook writer has already been closed");
+        }
+    }
+
+    private static String getSheetPartName(int index) {
+        return XSSFBRelation.WORKSHEET_BINARY.getFileName(index + 1);
+    }
+
+    private byte[] createContentTypes() {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        sb.append("<Types xmlns=\"").append(PackageNamespaces.CONTENT_TYPES).append("\">");
+        sb.append("<Default Extension=\"rels\" ContentType=\"").append(ContentTypes.RELATIONSHIPS_PART).append("\"/>");
+        sb.append("<Default Extension=\"xml\" ContentType=\"").append(ContentTypes.PLAIN_OLD_XML).append("\"/>");
+        appendOverride(sb, WORKBOOK_PART, XSSFRelation.XLSB_BINARY_WORKBOOK.getContentType());
+        for (int i = 0; i < sheets.size(); i++) {
+            appendOverride(sb, getSheetPartName(i), XSSFBRelation.WORKSHEET_BINARY.getContentType());
+        }
+        appendOverride(sb, XSSFBRelation.STYLES_BINARY.getDefaultFileName(), XSSFBRelation.STYLES_BINARY.getContentType());
+        if (sharedStrings != null) {
+            appendOverride(sb, XSSFBRelation.SHARED_STRINGS_BINARY.getDefaultFileName(),
+                XSSFBRelation.SHARED_STRINGS_BINARY.getContentType());
+        }
+        sb.append("</Types>");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendOverride(StringBuilder sb, String partName, String contentType) {
+        sb.append("<Override PartName=\"").append(partName)
+          .append("\" ContentType=\"").append(contentType).append("\"/>");
+    }
+
+    private byte[] createWorkbookRelationships() {
+        // the relation ids are referenced by the BrtBundleSh records
+        Map<String,String> rels = new LinkedHashMap<>();
+        for (int i = 0; i < sheets.size(); i++) {
+            rels.put(getSheetPartName(i), XSSFBRelation.WORKSHEET_BINARY.getRelation());
+        }
+        rels.put(XSSFBRelation.STYLES_BINARY.getDefaultFileName(), XSSFBRelation.STYLES_BINARY.getRelation());
+        if (sharedStrings != null) {
+            rels.put(XSSFBRelation.SHARED_STRINGS_BINARY.getDefaultFileName(),
+                XSSFBRelation.SHARED_STRINGS_BINARY.getRelation());
+        }
+
+        String[] relsAndTargets = new String[rels.size() * 2];
+        int i = 0;
+        for (Map.Entry<String,String> me : rels.entrySet()) {
+            relsAndTargets[i++] = me.getValue();
+            // the targets are relative to /xl/
+            relsAndTargets[i++] = me.getKey().substring(4);
+        }
+        return createRelationships(relsAndTargets);
+    }
+
+    /**
+     * @param relsAndTargets pairs of relationship type and target - the relation ids are numbered
+     *  in the same order, starting with rId1
+     */
+    private static byte[] createRelationships(String... relsAndTargets) {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        sb.append("<Relationships xmlns=\"").append(PackageNamespaces.RELATIONSHIPS).append("\">");
+        for (int i = 0; i < relsAndTargets.length; i += 2) {
+            sb.append("<Relationship Id=\"rId").append(i / 2 + 1)
+              .append("\" Type=\"").append(relsAndTargets[i])
+              .append("\" Target=\"").append(relsAndTargets[i + 1]).append("\"/>");
+        }
+        sb.append("</Relationships>");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] createWorkbookPart() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        XSSFBRecordWriter writer = new XSSFBRecordWriter(bos);
+        writer.writeRecord(XSSFBRecordType.BrtBeginBook);
+        writer.writeRecord(XSSFBRecordType.BrtBeginBundleShs);
+        for (int i = 0; i < sheets.size(); i++) {
+            // hsState (visible), iTabID, strRelID and strName - the sheets have the first relation ids
+            writer.putInt(0)
+                .putInt(i + 1)
+                .putXLWideString("rId" + (i + 1))
+                .putXLWideString(sheets.get(i).getSheetName())
+                .writeRecord(XSSFBRecordType.BrtBundleSh);
+        }
+        writer.writeRecord(XSSFBRecordType.BrtEndBundleShs);
+        writer.writeRecord(XSSFBRecordType.BrtEndBook);
+        return bos.toByteArray();
+    }
+
+    private byte[] createStylesPart() throws IOException {
+        // the fills and borders are shared between the styles, the first two fills are reserved by Excel
+        final Map<String,XSSFBCellStyle> fills = new LinkedHashMap<>();
+        final Map<String,XSSFBCellStyle> borders = new LinkedHashMap<>();
+        final Map<String,Integer> numberFormats = new LinkedHashMap<>();
+        final int[] fillIdx = new int[styles.size()];
+        final int[] borderIdx = new int[styles.size()];
+        final int[] formatIdx = new int[styles.size()];
+        final Map<String,Integer> fillIndexes = new HashMap<>();
+        final Map<String,Integer> borderIndexes = new HashMap<>();
+        fillIndexes.put(new XSSFBCellStyle(0).getFillKey(), 0);
+        borderIndexes.put(new XSSFBCellStyle(0).getBorderKey(), 0);
+
+        for (int i = 0; i < styles.size(); i++) {
+            final XSSFBCellStyle style = styles.get(i);
+            final XSSFBFont font = style.getFont();
+            if (font != null && (font.getIndex() >= fonts.size() || fonts.get(font.getIndex()) != font)) {
+                throw new IllegalArgumentException("The font of style " + style.getIndex()
+                    + " does not belong to this workbook writer.");
+            }
+
+            final String fillKey = style.getFillKey();
+            Integer fill = fillIndexes.get(fillKey);
+            if (fill == null) {
+                fill = fills.size() + 2;
+                fills.put(fillKey, style);
+                fillIndexes.put(fillKey, fill);
+            }
+            fillIdx[i] = fill;
+
+            final String borderKey = style.getBorderKey();
+            Integer border = borderIndexes.get(borderKey);
+            if (border == null) {
+                border = borders.size() + 1;
+                borders.put(borderKey, style);
+                borderIndexes.put(borderKey, border);
+            }
+            borderIdx[i] = border;
+
+            final String format = style.getDataFormatString();
+            int fmt = BuiltinFormats.getBuiltinFormat(format);
+            if (fmt == -1) {
+                Integer customFmt = numberFormats.get(format);
+                if (customFmt == null) {
+                    customFmt = BuiltinFormats.FIRST_USER_DEFINED_FORMAT_INDEX + numberFormats.size();
+                    numberFormats.put(format, customFmt);
+                }
+                fmt = customFmt;
+            }
+            formatIdx[i] = fmt;
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(1024);
+        XSSFBRecordWriter writer = new XSSFBRecordWriter(bos);
+        writer.writeRecord(XSSFBRecordType.BrtBeginStyleSheet);
+
+        writer.putInt(numberFormats.size()).writeRecord(XSSFBRecordType.BrtBeginFmts);
+        for (Map.Entry<String,Integer> me : numberFormats.entrySet()) {
+            writer.putShort(me.getValue()).putXLWideString(me.getKey()).writeRecord(XSSFBRecordType.BrtFmt);
+        }
+        writer.writeRecord(XSSFBRecordType.BrtEndFmts);
+
+        writer.putInt(fonts.size()).writeRecord(XSSFBRecordType.BrtBeginFonts);
+        for (XSSFBFont font : fonts) {
+            font.write(writer);
+        }
+        writer.writeRecord(XSSFBRecordType.BrtEndFonts);
+
+        writer.putInt(fills.size() + 2).writeRecord(XSSFBRecordType.BrtBeginFills);
+        XSSFBCellStyle.writeFill(writer, FillPatternType.NO_FILL, -1);
+        // gray125, which Excel expects as second fill
+        XSSFBCellStyle.writeFill(writer, FillPatternType.LESS_DOTS, -1);
+        for (XSSFBCellStyle style : fills.values()) {
+            style.writeFill(writer);
+        }
+        writer.writeRecord(XSSFBRecordType.BrtEndFills);
+
+        writer.putInt(borders.size() + 1).writeRecord(XSSFBRecordType.BrtBeginBorders);
+        new XSSFBCellStyle(0).writeBorder(writer);
+        for (XSSFBCellStyle style : borders.values()) {
+            style.writeBorder(writer);
+        }
+        writer.writeRecord(XSSFBRecordType.BrtEndBorders);
+
+        // the XF of the "Normal" cell style
+        writer.putInt(1).writeRecord(XSSFBRecordType.BrtBeginCellStyleXFS);
+        XSSFBCellStyle.writeXf(writer, 0xFFFF, 0, 0, 0, 0,
+            HorizontalAlignment.GENERAL, VerticalAlignment.BOTTOM, false, 0);
+        writer.writeRecord(XSSFBRecordType.BrtEndCellStyleXFS);
+
+        writer.putInt(styles.size() + 1).writeRecord(XSSFBRecordType.BrtBeginCellXFs);
+        new XSSFBCellStyle(0).writeXf(writer, 0, 0, 0);
+        for (int i = 0; i < styles.size(); i++) {
+            styles.get(i).writeXf(writer, formatIdx[i], fillIdx[i], borderIdx[i]);
+        }
+        writer.writeRecord(XSSFBRecordType.BrtEndCellXFs);
+
+        writer.putInt(1).writeRecord(XSSFBRecordType.BrtBeginStyles);
+        // ixf, grbitObj1 (fBuiltIn), iStyBuiltIn (Normal), iLevel and stName
+        writer.putInt(0).putShort(0x01).putByte(0).putByte(0xFF).putXLWideString("Normal")
+            .writeRecord(XSSFBRecordType.BrtStyle);
+        writer.writeRecord(XSSFBRecordType.BrtEndStyles);
+
+        writer.writeRecord(XSSFBRecordType.BrtEndStyleSheet);
+        return bos.toByteArray();
+    }
+
+    private void writeSharedStringsPart(ZipArchiveOutputStream zos) throws IOException {
+        final int beginSize = XSSFBRecordWriter.getRecordSize(XSSFBRecordType.BrtBeginSst, 8);
+        final int endSize = XSSFBRecordWriter.getRecordSize(XSSFBRecordType.BrtEndSst, 0);
+        ZipArchiveEntry ze = new ZipArchiveEntry(XSSFBRelation.SHARED_STRINGS_BINARY.getDefaultFileName().substring(1));
+        ze.setSize(beginSize + sharedStringsSize + endSize);
+        zos.putArchiveEntry(ze);
+        try {
+            // the stream isn't closed, as this would close the zip stream too
+            BufferedOutputStream os = new BufferedOutputStream(zos);
+            XSSFBRecordWriter writer = new XSSFBRecordWriter(os);
+            // cstTotal and cstUnique
+            writer.putInt(sharedStringCount).putInt(sharedStrings.size()).writeRecord(XSSFBRecordType.BrtBeginSst);
+            for (String str : sharedStrings.asList()) {
+                // RichStr without formatting runs and phonetic string
+                writer.putByte(0).putXLWideString(str).writeRecord(XSSFBRecordType.BrtSstItem);
+            }
+            writer.writeRecord(XSSFBRecordType.BrtEndSst);
+            os.flush();
+        } finally {
+            zos.closeArchiveEntry();
+        }
+    }
+
+    private static void writeEntry(ZipArchiveOutputStream zos, String name, byte[] data) throws IOException {
+        ZipArchiveEntry ze = new ZipArchiveEntry(name);
+        ze.setSize(data.length);
+        zos.putArchiveEntry(ze);
+        try {
+            zos.write(data);
+        } finally {
+            zos.closeArchiveEntry();
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.apache.poi.openxml4j.opc.PackagePart;
 import org.apache.poi.ooxml.util.SAXHelper;
 import org.apache.poi.ss.usermodel.RichTextString;
 import org.apache.poi.util.Removal;
+import org.apache.poi.xssf.model.MappedStringStore;
 import org.apache.poi.xssf.model.SharedStrings;
 import org.apache.poi.xssf.usermodel.XSSFRelation;
 import org.apache.poi.xssf.usermodel.XSSFRichTextString;
@@ -101,6 +102,11 @@ public class ReadOnlySharedStringsTable extends DefaultHandler implements Shared
      */
     private List<String> strings;
 
+    /**
+     * Optional off-heap storage of the strings
+     */
+    private final MappedStringStore store;
+
     /**
      * Calls {{@link #ReadOnlySharedStringsTable(OPCPackage, boolean)}} with
      * a value of <code>true</code> for including phonetic runs
@@ -124,7 +130,25 @@ public class ReadOnlySharedStringsTable extends DefaultHandler implements Shared
      */
     public ReadOnlySharedStringsTable(OPCPackage pkg, boolean includePhoneticRuns)
             throws IOException, SAXException {
+        this(pkg, includePhoneticRuns, null);
+    }
+
+    /**
+     * Creates a shared strings table, which keeps its strings in the given store instead of the
+     * java heap. This is useful for workbooks with millions of unique strings.
+     * The caller is responsible for closing the store, after the table isn't used anymore.
+     *
+     * @param pkg The {@link OPCPackage} to use as basis for the shared-strings table.
+     * @param includePhoneticRuns whether or not to concatenate phoneticRuns onto the shared string
+     * @param store an empty store for the strings or {@code null} to keep the strings on the heap
+     * @since POI 4.1.1
+     * @throws IOException If reading the data from the package fails.
+     * @throws SAXException if parsing the XML data fails.
+     */
+    public ReadOnlySharedStringsTable(OPCPackage pkg, boolean includePhoneticRuns, MappedStringStore store)
+            throws IOException, SAXException {
         this.includePhoneticRuns = includePhoneticRuns;
+        this.store = checkStore(store);
         ArrayList<PackagePart> parts =
                 pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
 
@@ -153,10 +177,32 @@ public class ReadOnlySharedStringsTable extends DefaultHandler implements Shared
      * @since POI 3.14-Beta3
      */
     public ReadOnlySharedStringsTable(PackagePart part, boolean includePhoneticRuns)
+        throws IOException, SAXException {
+        this(part, includePhoneticRuns, null);
+    }
+
+    /**
+     * Like POIXMLDocumentPart constructor, but keeps the strings in the given store
+     *
+     * @param part the package part of the shared strings table
+     * @param includePhoneticRuns whether or not to concatenate phoneticRuns onto the shared string
+     * @param store an empty store for the strings or {@code null} to keep the strings on the heap
+     * @see #ReadOnlySharedStringsTable(OPCPackage, boolean, MappedStringStore)
+     * @since POI 4.1.1
+     */
+    public ReadOnlySharedStringsTable(PackagePart part, boolean includePhoneticRuns, MappedStringStore store)
         throws IOException, SAXException {
         this.includePhoneticRuns = includePhoneticRuns;
+        this.store = checkStore(store);
         readFrom(part.getInputStream());
     }
+
+    private static MappedStringStore checkStore(MappedStringStore store) {
+        if (store != null && store.size() > 0) {
+            throw new IllegalArgumentException("The string store needs to be empty");
+        }
+        return store;
+    }
     
     /**
      * Read this shared strings table from an XML file.
@@ -253,7 +299,7 @@ public class ReadOnlySharedStringsTable extends DefaultHandler implements Shared
             String uniqueCount = attributes.getValue("uniqueCount");
             if(uniqueCount != null) this.uniqueCount = Integer.parseInt(uniqueCount);
 
-            this.strings = new ArrayList<>(this.uniqueCount);
+            this.strings = (store == null) ? new ArrayList<>(this.uniqueCount) : store.asList();
             characters = new StringBuilder(64);
         } else if ("si".equals(localName)) {
             characters.setLength(0);
@@ -274,7 +320,15 @@ public class ReadOnlySharedStringsTable extends DefaultHandler implements Shared
         }
 
         if ("si".equals(localName)) {
-            strings.add(characters.toString());
+            if (store == null) {
+                strings.add(characters.toString());
+            } else {
+                try {
+                    store.add(characters.toString());
+                } catch (IOException e) {
+                    throw new SAXException("Unable to store shared string", e);
+                }
+            }
         } else if ("t".equals(localName)) {
             tIsOpen = false;
         } else if ("rPh".equals(localName)) {
@@ -0,0 +1,401 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.eventusermodel;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.apache.poi.xssf.usermodel.XSSFRelation.NS_SPREADSHEETML;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.util.CellAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.StaxHelper;
+import org.apache.poi.xssf.model.SharedStrings;
+
+/**
+ * A pull based alternative to the {@link XSSFSheetXMLHandler}, which returns the rows of a sheet
+ * with the raw, typed cell values instead of pushing formatted strings to a callback.<p>
+ *
+ * The sheet is parsed with StAX, one row per call of {@link #next()}, so the consumer controls
+ * the pace and only the current row is kept in memory. The values aren't formatted - use the
+ * style index with the {@link org.apache.poi.xssf.model.StylesTable} and a
+ * {@link org.apache.poi.ss.usermodel.DataFormatter}, if formatted values are needed:
+ * <pre>
+ * XSSFReader reader = new XSSFReader(pkg);
+ * SharedStrings strings = new ReadOnlySharedStringsTable(pkg);
+ * Iterator&lt;InputStream&gt; sheets = reader.getSheetsData();
+ * while (sheets.hasNext()) {
+ *     try (XSSFSheetRowIterator rows = new XSSFSheetRowIterator(sheets.next(), strings)) {
+ *         while (rows.hasNext()) {
+ *             for (XSSFSheetRowIterator.SheetCell cell : rows.next().getCells()) {
+ *                 ...
+ *             }
+ *         }
+ *     }
+ * }
+ * </pre>
+ *
+ * @since POI 4.1.1
+ */
+public class XSSFSheetRowIterator implements Iterator<XSSFSheetRowIterator.SheetRow>, Closeable {
+    private final InputStream sheetData;
+    private final XMLStreamReader reader;
+    private final SharedStrings strings;
+
+    private SheetRow nextRow;
+    private int nextRowNum;
+    private boolean finished;
+
+    /**
+     * @param sheetData the stream of the sheet part, e.g. from {@link XSSFReader#getSheetsData()}.
+     *  It's closed together with this iterator.
+     * @param strings the shared strings table to resolve the shared string values,
+     *  or {@code null} if only the shared string indexes are used
+     * @throws IOException if the stream can't be parsed
+     */
+    public XSSFSheetRowIterator(InputStream sheetData, SharedStrings strings) throws IOException {
+        this.sheetData = sheetData;
+        this.strings = strings;
+        try {
+            reader = StaxHelper.newXMLInputFactory().createXMLStreamReader(sheetData);
+        } catch (XMLStreamException e) {
+            throw new IOException("unable to parse sheet", e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextRow == null && !finished) {
+            try {
+                nextRow = readRow();
+            } catch (XMLStreamException e) {
+                throw new POIXMLException("unable to parse sheet", e);
+            }
+            finished = (nextRow == null);
+        }
+        return nextRow != null;
+    }
+
+    @Override
+    public SheetRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SheetRow row = nextRow;
+        nextRow = null;
+        return row;
+    }
+
+    /**
+     * Closes the parser and the underlying stream
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("unable to close sheet parser", e);
+        } finally {
+            sheetData.close();
+        }
+    }
+
+    private SheetRow readRow() throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT && isElement("row")) {
+                String rowNumStr = reader.getAttributeValue(null, "r");
+                int rowNum = (rowNumStr != null) ? Integer.parseInt(rowNumStr) - 1 : nextRowNum;
+                nextRowNum = rowNum + 1;
+
+                List<SheetCell> cells = new ArrayList<>();
+                int nextColumn = 0;
+                while (reader.hasNext()) {
+                    event = reader.next();
+                    if (event == START_ELEMENT && isElement("c")) {
+                        SheetCell cell = readCell(rowNum, nextColumn);
+                        cells.add(cell);
+                        nextColumn = cell.getColumnIndex() + 1;
+                    } else if (event == END_ELEMENT && isElement("row")) {
+                        break;
+                    }
+                }
+                return new SheetRow(rowNum, cells);
+            }
+            if (event == END_ELEMENT && isElement("sheetData")) {
+                // the remaining elements of the sheet don't contain cells
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private SheetCell readCell(int rowNum, int nextColumn) throws XMLStreamException {
+        String cellRef = reader.getAttributeValue(null, "r");
+        int column = (cellRef != null) ? new CellReference(cellRef).getCol() : nextColumn;
+        String cellType = reader.getAttributeValue(null, "t");
+        String styleStr = reader.getAttributeValue(null, "s");
+        int styleIndex = (styleStr != null) ? Integer.parseInt(styleStr) : 0;
+
+        String value = null;
+        String formula = null;
+        boolean isFormula = false;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+                if (isElement("v")) {
+                    value = reader.getElementText();
+                } else if (isElement("f")) {
+                    isFormula = true;
+                    String text = reader.getElementText();
+                    // cells using a shared formula only refer to the formula of the master cell
+                    formula = text.isEmpty() ? null : text;
+                } else if (isElement("is")) {
+                    value = readInlineString();
+                }
+            } else if (event == END_ELEMENT && isElement("c")) {
+                break;
+            }
+        }
+
+        CellType type;
+        boolean sharedString = false;
+        if (value == null) {
+            type = CellType.BLANK;
+        } else if ("s".equals(cellType)) {
+            type = CellType.STRING;
+            sharedString = true;
+        } else if ("inlineStr".equals(cellType) || "str".equals(cellType) || "d".equals(cellType)) {
+            type = CellType.STRING;
+        } else if ("b".equals(cellType)) {
+            type = CellType.BOOLEAN;
+        } else if ("e".equals(cellType)) {
+            type = CellType.ERROR;
+        } else {
+            type = CellType.NUMERIC;
+        }
+        return new SheetCell(this, rowNum, column, type, sharedString, value, isFormula, formula, styleIndex);
+    }
+
+    /**
+     * @return the text of the inline string, i.e. of the t elements excluding the phonetic runs
+     */
+    private String readInlineString() throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int phoneticDepth = 0;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+                if (isElement("rPh")) {
+                    phoneticDepth++;
+                } else if (isElement("t") && phoneticDepth == 0) {
+                    text.append(reader.getElementText());
+                }
+            } else if (event == END_ELEMENT) {
+                if (isElement("rPh")) {
+                    phoneticDepth--;
+                } else if (isElement("is")) {
+                    break;
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private boolean isElement(String localName) {
+        return localName.equals(reader.getLocalName()) && NS_SPREADSHEETML.equals(reader.getNamespaceURI());
+    }
+
+    private String getSharedString(int index) {
+        if (strings == null) {
+            throw new IllegalStateException("The shared strings table wasn't provided - only the index is available");
+        }
+        return strings.getItemAt(index).getString();
+    }
+
+    /**
+     * A row with its (non-empty) cells
+     */
+    public static final class SheetRow {
+        private final int rowNum;
+        private final List<SheetCell> cells;
+
+        private SheetRow(int rowNum, List<SheetCell> cells) {
+            this.rowNum = rowNum;
+            this.cells = Collections.unmodifiableList(cells);
+        }
+
+        /**
+         * @return the row number (0-based)
+         */
+        public int getRowNum() {
+            return rowNum;
+        }
+
+        /**
+         * @return the cells of the row in document order, i.e. ascending by column
+         */
+        public List<SheetCell> getCells() {
+            return cells;
+        }
+    }
+
+    /**
+     * The raw value of a cell. For formula cells, the type and value are the cached result.
+     */
+    public static final class SheetCell {
+        private final XSSFSheetRowIterator owner;
+        private final int rowIndex;
+        private final int columnIndex;
+        private final CellType type;
+        private final boolean sharedString;
+        private final String rawValue;
+        private final boolean isFormula;
+        private final String formula;
+        private final int styleIndex;
+
+        private SheetCell(XSSFSheetRowIterator owner, int rowIndex, int columnIndex, CellType type,
+                boolean sharedString, String rawValue, boolean isFormula, String formula, int styleIndex) {
+            this.owner = owner;
+            this.rowIndex = rowIndex;
+            this.columnIndex = columnIndex;
+            this.type = type;
+            this.sharedString = sharedString;
+            this.rawValue = rawValue;
+            this.isFormula = isFormula;
+            this.formula = formula;
+            this.styleIndex = styleIndex;
+        }
+
+        public int getRowIndex() {
+            return rowIndex;
+        }
+
+        public int getColumnIndex() {
+            return columnIndex;
+        }
+
+        public CellAddress getAddress() {
+            return new CellAddress(rowIndex, columnIndex);
+        }
+
+        /**
+         * @return the type of the value, i.e. NUMERIC, STRING, BOOLEAN, ERROR or BLANK
+         *  - for formula cells, the type of the cached result
+         */
+        public CellType getType() {
+            return type;
+        }
+
+        /**
+         * @return the index of the cell style in the styles table
+         */
+        public int getStyleIndex() {
+            return styleIndex;
+        }
+
+        /**
+         * @return the unparsed value, i.e. the content of the v element or the text of the inline string,
+         *  or {@code null} for blank cells
+         */
+        public String getRawValue() {
+            return rawValue;
+        }
+
+        /**
+         * @return true, if the cell contains a formula
+         */
+        public boolean isFormula() {
+            return isFormula;
+        }
+
+        /**
+         * @return the formula text without the leading '=', or {@code null} if the cell isn't a formula cell
+         *  or it uses the shared formula of another cell
+         */
+        public String getFormula() {
+            return formula;
+        }
+
+        public double getNumericValue() {
+            checkType(CellType.NUMERIC);
+            return Double.parseDouble(rawValue);
+        }
+
+        public boolean getBooleanValue() {
+            checkType(CellType.BOOLEAN);
+            return !"0".equals(rawValue);
+        }
+
+        public FormulaError getErrorValue() {
+            checkType(CellType.ERROR);
+            return FormulaError.forString(rawValue);
+        }
+
+        /**
+         * @return true, if the value is an index into the shared strings table
+         */
+        public boolean isSharedString() {
+            return sharedString;
+        }
+
+        /**
+         * @return the index into the shared strings table
+         * @throws IllegalStateException if the value isn't a shared string
+         */
+        public int getSharedStringIndex() {
+            if (!sharedString) {
+                throw new IllegalStateException("Cannot get a shared string index from a cell without shared string");
+            }
+            return Integer.parseInt(rawValue);
+        }
+
+        /**
+         * @return the text of a string cell, the shared strings are resolved on demand
+         */
+        public String getStringValue() {
+            checkType(CellType.STRING);
+            return sharedString ? owner.getSharedString(Integer.parseInt(rawValue)) : rawValue;
+        }
+
+        private void checkType(CellType expected) {
+            if (type != expected) {
+                throw new IllegalStateException("Cannot get a " + expected + " value from a " + type + " cell");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return getAddress() + ":" + type + "=" + rawValue;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.apache.poi.poifs.nio.CleanerUtil;
+import org.apache.poi.util.POILogFactory;
+import org.apache.poi.util.POILogger;
+import org.apache.poi.util.TempFile;
+
+/**
+ * An append-only list of strings, which keeps the string data outside of the java heap.<p>
+ *
+ * The UTF-8 encoded strings, their offsets and the hash index for the reverse lookup are
+ * kept in memory-mapped temp files, which are mapped in windows of 16 MB. The temp files are
+ * only created when they are first written to, and the first window grows from 64 KB with the
+ * content, so small stores stay small. Only a bounded number of recently used strings is cached
+ * on the heap.<p>
+ *
+ * The hash index is built on the first call to {@link #indexOf(String)} or
+ * {@link #addIfAbsent(String)}, so a store which is only used for index based lookups,
+ * e.g. by the {@link org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable},
+ * doesn't pay for it.<p>
+ *
+ * This class is not thread-safe. Don't forget to {@link #close()} the store,
+ * otherwise the temp files are only removed on JVM exit.
+ *
+ * @since POI 4.1.1
+ */
+public class MappedStringStore implements Closeable {
+    private static final POILogger LOG = POILogFactory.getLogger(MappedStringStore.class);
+
+    /** the default number of strings cached on the heap */
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+
+    /** size of the mapped windows - a multiple of 8, so int/long slots don't span windows */
+    private static final int WINDOW_SIZE = 1 << 24;
+
+    /** initial size of the first window, which is doubled up to {@link #WINDOW_SIZE} as needed */
+    private static final int MIN_WINDOW_SIZE = 1 << 16;
+
+    /** minimum number of slots of the hash index, needs to be a power of 2 */
+    private static final int MIN_INDEX_SLOTS = 1 << 10;
+
+    /** UTF-8 strings, each prefixed by its byte length */
+    private final MappedFile data;
+    /** the data offset per string index */
+    private final MappedFile offsets;
+    /** open-addressing hash table with long slots of (hashCode &lt;&lt; 32 | string index + 1) */
+    private MappedFile index;
+    private int indexSlots;
+
+    private final Map<Integer,String> cache;
+
+    private int size;
+    private long dataSize;
+    private boolean closed;
+
+    /**
+     * Creates a store which caches {@value #DEFAULT_CACHE_SIZE} strings on the heap
+     */
+    public MappedStringStore() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param cacheSize the maximum number of recently used strings, which are cached on the heap
+     */
+    public MappedStringStore(final int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize must be >= 0, but was " + cacheSize);
+        }
+        data = new MappedFile("poi-strings-data");
+        offsets = new MappedFile("poi-strings-offsets");
+        cache = new LinkedHashMap<Integer,String>(Math.min(cacheSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * @return the number of strings in this store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends the string, even if it's already contained
+     *
+     * @param str the string to append
+     * @return the index of the appended string
+     * @throws IOException if the string can't be written to the temp file
+     */
+    public int add(String str) throws IOException {
+        checkOpen();
+        final int idx = size;
+        final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        final byte[] len = { (byte)(bytes.length >>> 24), (byte)(bytes.length >>> 16), (byte)(bytes.length >>> 8), (byte)bytes.length };
+        data.write(dataSize, len, 0, 4);
+        data.write(dataSize+4, bytes, 0, bytes.length);
+        offsets.putLong(idx*8L, dataSize);
+        dataSize += 4 + bytes.length;
+        size++;
+
+        if (index != null) {
+            if (size*2L > indexSlots) {
+                rehash(indexSlots*2);
+            }
+            insertIndex(str.hashCode(), idx);
+        }
+        return idx;
+    }
+
+    /**
+     * Appends the string, if it's not contained yet
+     *
+     * @param str the string to look for / append
+     * @return the index of the existing or appended string
+     * @throws IOException if the temp files can't be accessed
+     */
+    public int addIfAbsent(String str) throws IOException {
+        int idx = indexOf(str);
+        return (idx >= 0) ? idx : add(str);
+    }
+
+    /**
+     * @param str the string to look for
+     * @return the index of the first occurrence of the string or -1, if it's not contained
+     * @throws IOException if the temp files can't be accessed
+     */
+    public int indexOf(String str) throws IOException {
+        checkOpen();
+        if (index == null) {
+            buildIndex();
+        }
+        final int hash = str.hashCode();
+        byte[] bytes = null;
+        for (int slot = spread(hash) & (indexSlots-1); ; slot = (slot+1) & (indexSlots-1)) {
+            final long entry = index.getLong(slot*8L);
+            if (entry == 0) {
+                return -1;
+            }
+            if ((int)(entry >>> 32) != hash) {
+                continue;
+            }
+            final int idx = (int)entry - 1;
+            final String cached = cache.get(idx);
+            if (cached != null) {
+                if (cached.equals(str)) {
+                    return idx;
+                }
+                continue;
+            }
+            if (bytes == null) {
+                bytes = str.getBytes(StandardCharsets.UTF_8);
+            }
+            if (equalsAt(idx, bytes)) {
+                return idx;
+            }
+        }
+    }
+
+    /**
+     * @param idx the index of the string
+     * @return the string at the given index
+     * @throws IOException if the temp files can't be accessed
+     */
+    public String get(int idx) throws IOException {
+        checkOpen();
+        if (idx < 0 || idx >= size) {
+            throw new IndexOutOfBoundsException("Index: " + idx + ", Size: " + size);
+        }
+        String str = cache.get(idx);
+        if (str == null) {
+            str = read(idx);
+            cache.put(idx, str);
+        }
+        return str;
+    }
+
+    /**
+     * @return a read-only list view of the strings - the IOExceptions of the temp file
+     *  access are rethrown as {@link IllegalStateException}
+     */
+    public List<String> asList() {
+        return new StringList();
+    }
+
+    /**
+     * Unmaps and deletes the temp files
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        cache.clear();
+        try {
+            data.close();
+        } finally {
+            try {
+                offsets.close();
+            } finally {
+                if (index != null) {
+                    index.close();
+                }
+            }
+        }
+    }
+
+    private String read(int idx) throws IOException {
+        final long off = offsets.getLong(idx*8L);
+        final byte[] bytes = new byte[readLength(off)];
+        data.read(off+4, bytes, 0, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readLength(long off) throws IOException {
+        final byte[] len = new byte[4];
+        data.read(off, len, 0, 4);
+        return ((len[0] & 0xFF) << 24) | ((len[1] & 0xFF) << 16) | ((len[2] & 0xFF) << 8) | (len[3] & 0xFF);
+    }
+
+    private boolean equalsAt(int idx, byte[] bytes) throws IOException {
+        final long off = offsets.getLong(idx*8L);
+        if (readLength(off) != bytes.length) {
+            return false;
+        }
+        final byte[] stored = new byte[bytes.length];
+        data.read(off+4, stored, 0, stored.length);
+        for (int i=0; i<bytes.length; i++) {
+            if (stored[i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void buildIndex() throws IOException {
+        int slots = MIN_INDEX_SLOTS;
+        while (slots < size*2L) {
+            slots <<= 1;
+        }
+        index = new MappedFile("poi-strings-index");
+        indexSlots = slots;
+        for (int i=0; i<size; i++) {
+            // bypass the cache, otherwise all recently used strings would be evicted
+            final String str = read(i);
+            // keep the first index of duplicates, like indexOf() of a List
+            if (indexOf(str) == -1) {
+                insertIndex(str.hashCode(), i);
+            }
+        }
+    }
+
+    private void rehash(int newSlots) throws IOException {
+        final MappedFile oldIndex = index;
+        final int oldSlots = indexSlots;
+        index = new MappedFile("poi-strings-index");
+        indexSlots = newSlots;
+        try {
+            for (int slot = 0; slot < oldSlots; slot++) {
+                final long entry = oldIndex.getLong(slot*8L);
+                if (entry != 0) {
+                    insertEntry(entry);
+                }
+            }
+        } finally {
+            oldIndex.close();
+        }
+    }
+
+    private void insertIndex(int hash, int idx) throws IOException {
+        insertEntry(((long)hash << 32) | ((idx+1) & 0xFFFFFFFFL));
+    }
+
+    private void insertEntry(long entry) throws IOException {
+        final int hash = (int)(entry >>> 32);
+        int slot = spread(hash) & (indexSlots-1);
+        while (index.getLong(slot*8L) != 0) {
+            slot = (slot+1) & (indexSlots-1);
+        }
+        index.putLong(slot*8L, entry);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("MappedStringStore is already closed");
+        }
+    }
+
+    private final class StringList extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int idx) {
+            try {
+                return MappedStringStore.this.get(idx);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A temp file, which is mapped in windows of {@link #WINDOW_SIZE} bytes on demand.
+     * The file is created on the first access and the first window is remapped with
+     * twice the size, until it reaches the full window size.
+     */
+    private static final class MappedFile implements Closeable {
+        private final String prefix;
+        private File file;
+        private RandomAccessFile raf;
+        private FileChannel channel;
+        private final List<MappedByteBuffer> windows = new ArrayList<>();
+
+        MappedFile(String prefix) {
+            this.prefix = prefix;
+        }
+
+        private MappedByteBuffer window(long pos) throws IOException {
+            final int win = (int)(pos / WINDOW_SIZE);
+            if (win == 0 && (windows.isEmpty() || pos >= windows.get(0).capacity())) {
+                int winSize = windows.isEmpty() ? MIN_WINDOW_SIZE : windows.get(0).capacity();
+                while (winSize <= pos) {
+                    winSize <<= 1;
+                }
+                final MappedByteBuffer first = map(0, winSize);
+                if (windows.isEmpty()) {
+                    windows.add(first);
+                } else {
+                    // the new mapping shares the written pages with the old one
+                    unmap(windows.set(0, first));
+                }
+            }
+            while (windows.size() <= win) {
+                windows.add(map(windows.size()*(long)WINDOW_SIZE, WINDOW_SIZE));
+            }
+            return windows.get(win);
+        }
+
+        private MappedByteBuffer map(long pos, int size) throws IOException {
+            if (channel == null) {
+                file = TempFile.createTempFile(prefix, ".tmp");
+                raf = new RandomAccessFile(file, "rw");
+                channel = raf.getChannel();
+            }
+            // mapping beyond the end of the file extends it (as a sparse file, where supported)
+            return channel.map(FileChannel.MapMode.READ_WRITE, pos, size);
+        }
+
+        long getLong(long pos) throws IOException {
+            return window(pos).getLong((int)(pos % WINDOW_SIZE));
+        }
+
+        void putLong(long pos, long value) throws IOException {
+            window(pos).putLong((int)(pos % WINDOW_SIZE), value);
+        }
+
+        void read(long pos, byte[] buf, int off, int len) throws IOException {
+            while (len > 0) {
+                final MappedByteBuffer win = window(pos);
+                final int winPos = (int)(pos % WINDOW_SIZE);
+                final int chunk = Math.min(len, win.capacity() - winPos);
+                win.position(winPos);
+                win.get(buf, off, chunk);
+                pos += chunk;
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        void write(long pos, byte[] buf, int off, int len) throws IOException {
+            while (len > 0) {
+                final MappedByteBuffer win = window(pos);
+                final int winPos = (int)(pos % WINDOW_SIZE);
+                final int chunk = Math.min(len, win.capacity() - winPos);
+                win.position(winPos);
+                win.put(buf, off, chunk);
+                pos += chunk;
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (MappedByteBuffer win : windows) {
+                unmap(win);
+            }
+            windows.clear();
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+                raf.close();
+            } finally {
+                if (!file.delete()) {
+                    LOG.log(POILogger.WARN, "Failed to delete temp file " + file);
+                }
+            }
+        }
+
+        private static void unmap(MappedByteBuffer buffer) {
+            if (CleanerUtil.UNMAP_SUPPORTED) {
+                try {
+                    CleanerUtil.getCleaner().freeBuffer(buffer);
+                } catch (IOException e) {
+                    LOG.log(POILogger.WARN, "Failed to unmap the buffer", e);
+                }
+            } else {
+                LOG.log(POILogger.DEBUG, CleanerUtil.UNMAP_NOT_SUPPORTED_REASON);
+            }
+        }
+    }
+}
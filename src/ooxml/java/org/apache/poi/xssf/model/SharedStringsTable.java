@@ -111,6 +111,22 @@ public class SharedStringsTable extends POIXMLDocumentPart implements SharedStri
         readFrom(part.getInputStream());
     }
 
+    /**
+     * Constructor for subclasses, which keep their strings elsewhere and therefore
+     * need to initialize their storage before reading the part.
+     * The subclass is responsible for calling {@link #readFrom(InputStream)}.
+     *
+     * @param part the package part of the shared strings table
+     * @param readPart if true, the part is read like in {@link #SharedStringsTable(PackagePart)}
+     * @since POI 4.1.1
+     */
+    protected SharedStringsTable(PackagePart part, boolean readPart) throws IOException {
+        super(part);
+        if (readPart) {
+            readFrom(part.getInputStream());
+        }
+    }
+
     /**
      * Read this shared strings table from an XML file.
      *
@@ -26,9 +26,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Function;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -66,6 +68,18 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
 
     private final List<CTDxf> dxfs = new ArrayList<>();
     private final Map<String, TableStyle> tableStyles = new HashMap<>();
+
+    // Hashed indexes for the de-duplication of the put* methods, which map each entry to its first index.
+    // They are built on demand and dropped, when entries are changed in a way which isn't tracked.
+    // Fills and borders are mutable, so they are keyed by detached copies. Registered entries, which
+    // have been modified in place, are detected when a hit doesn't match the entry anymore.
+    private Map<XSSFCellFill, Integer> fillIndex;
+    private Map<XSSFCellBorder, Integer> borderIndex;
+    private Map<String, Short> numberFormatIndex;
+    // CTXf have an identity based equals, so they are indexed by identity
+    private Map<CTXf, Integer> xfIndex;
+    // the number of modifications of the cell styles, see CellUtil
+    private int cellStyleModCount;
     
     private IndexedColorMap indexedColors = new DefaultIndexedColorMap();
     
@@ -165,6 +179,8 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
         for(XSSFCellBorder border : borders) {
             border.setThemesTable(theme);
         }
+        // the border colors are resolved via the theme
+        borderIndex = null;
     }
     
     /**
@@ -238,6 +254,8 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
             CTDxfs styleDxfs = styleSheet.getDxfs();
             if(styleDxfs != null) dxfs.addAll(Arrays.asList(styleDxfs.getDxfArray()));
 
+            clearIndexes();
+
             CTTableStyles ctTableStyles = styleSheet.getTableStyles();
             if (ctTableStyles != null) {
                 int idx = 0;
@@ -269,12 +287,58 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
     
     private short getNumberFormatId(String fmt) {
         // Find the key, and return that
-        for (Entry<Short,String> numFmt : numberFormats.entrySet()) {
-            if(numFmt.getValue().equals(fmt)) {
-                return numFmt.getKey();
+        Short id = getNumberFormatIndex().get(fmt);
+        if (id == null) {
+            throw new IllegalStateException("Number format not in style table: " + fmt);
+        }
+        return id;
+    }
+
+    private Map<String, Short> getNumberFormatIndex() {
+        if (numberFormatIndex == null) {
+            numberFormatIndex = new HashMap<>();
+            // the formats are sorted by id, so the lowest id of duplicated formats is kept
+            for (Entry<Short,String> numFmt : numberFormats.entrySet()) {
+                numberFormatIndex.putIfAbsent(numFmt.getValue(), numFmt.getKey());
             }
         }
-        throw new IllegalStateException("Number format not in style table: " + fmt);
+        return numberFormatIndex;
+    }
+
+    private static <K> Map<K, Integer> buildIndex(List<K> entries, Map<K, Integer> index, Function<K, K> keyFunction) {
+        // keep the first index of duplicated entries like List.indexOf does
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            index.put(keyFunction.apply(entries.get(i)), i);
+        }
+        return index;
+    }
+
+    /**
+     * Looks up an entry in a snapshot index and rebuilds the index, if the indexed entry has been modified since
+     */
+    private static <K> Integer lookup(List<K> entries, Map<K, Integer> index, K entry, Function<K, K> keyFunction) {
+        Integer idx = index.get(entry);
+        if (idx != null && !entries.get(idx).equals(entry)) {
+            index.clear();
+            buildIndex(entries, index, keyFunction);
+            idx = index.get(entry);
+        }
+        return idx;
+    }
+
+    private XSSFCellFill fillKey(XSSFCellFill fill) {
+        return new XSSFCellFill((CTFill)fill.getCTFill().copy(), indexedColors);
+    }
+
+    private XSSFCellBorder borderKey(XSSFCellBorder border) {
+        return new XSSFCellBorder((CTBorder)border.getCTBorder().copy(), theme, indexedColors);
+    }
+
+    private void clearIndexes() {
+        fillIndex = null;
+        borderIndex = null;
+        numberFormatIndex = null;
+        xfIndex = null;
     }
 
     /**
@@ -290,12 +354,9 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
     @Override
     public int putNumberFormat(String fmt) {
         // Check if number format already exists
-        if (numberFormats.containsValue(fmt)) {
-            try {
-                return getNumberFormatId(fmt);
-            } catch (final IllegalStateException e) {
-                throw new IllegalStateException("Found the format, but couldn't figure out where - should never happen!");
-            }
+        Short existingId = getNumberFormatIndex().get(fmt);
+        if (existingId != null) {
+            return existingId;
         }
         
         
@@ -324,6 +385,7 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
         }
         
         numberFormats.put(formatIndex, fmt);
+        getNumberFormatIndex().put(fmt, formatIndex);
         return formatIndex;
     }
     
@@ -340,6 +402,8 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
     @Override
     public void putNumberFormat(short index, String fmt) {
         numberFormats.put(index, fmt);
+        // the format might replace another one
+        numberFormatIndex = null;
     }
     
     /**
@@ -354,6 +418,7 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
         String fmt = numberFormats.remove(index);
         boolean removed = (fmt != null);
         if (removed) {
+            numberFormatIndex = null;
             for (final CTXf style : xfs) {
                 if (style.isSetNumFmtId() && style.getNumFmtId() == index) {
                     style.unsetApplyNumberFormat();
@@ -438,10 +503,13 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
     public int putStyle(XSSFCellStyle style) {
         CTXf mainXF = style.getCoreXf();
 
-        if(! xfs.contains(mainXF)) {
+        Integer idx = getXfIndex().get(mainXF);
+        if (idx == null) {
             xfs.add(mainXF);
+            idx = xfs.size() - 1;
+            xfIndex.put(mainXF, idx);
         }
-        return xfs.indexOf(mainXF);
+        return idx;
     }
 
     @Override
@@ -458,13 +526,19 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
      */
     @Override
     public int putBorder(XSSFCellBorder border) {
-        int idx = borders.indexOf(border);
-        if (idx != -1) {
+        if (borderIndex == null) {
+            borderIndex = buildIndex(borders, new HashMap<>(), this::borderKey);
+        }
+        Integer idx = lookup(borders, borderIndex, border, this::borderKey);
+        if (idx != null) {
             return idx;
         }
         borders.add(border);
         border.setThemesTable(theme);
-        return borders.size() - 1;
+        idx = borders.size() - 1;
+        // the hash code depends on the theme, so the border is indexed after setting it
+        borderIndex.put(borderKey(border), idx);
+        return idx;
     }
 
     @Override
@@ -497,12 +571,17 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
      */
     @Override
     public int putFill(XSSFCellFill fill) {
-        int idx = fills.indexOf(fill);
-        if (idx != -1) {
+        if (fillIndex == null) {
+            fillIndex = buildIndex(fills, new HashMap<>(), this::fillKey);
+        }
+        Integer idx = lookup(fills, fillIndex, fill, this::fillKey);
+        if (idx != null) {
             return idx;
         }
         fills.add(fill);
-        return fills.size() - 1;
+        idx = fills.size() - 1;
+        fillIndex.put(fillKey(fill), idx);
+        return idx;
     }
 
     @Internal
@@ -520,12 +599,54 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
     @Internal
     public int putCellXf(CTXf cellXf) {
         xfs.add(cellXf);
+        if (xfIndex != null) {
+            xfIndex.putIfAbsent(cellXf, xfs.size() - 1);
+        }
         return xfs.size();
     }
     
     @Internal
     public void replaceCellXfAt(int idx, CTXf cellXf) {
-        xfs.set(idx, cellXf);
+        cellStyleModCount++;
+        CTXf oldXf = xfs.set(idx, cellXf);
+        if (xfIndex != null && oldXf != cellXf) {
+            if (xfIndex.remove(oldXf, idx)) {
+                // the replaced xf might be used at another index as well
+                for (int i = idx + 1; i < xfs.size(); i++) {
+                    if (xfs.get(i) == oldXf) {
+                        xfIndex.put(oldXf, i);
+                        break;
+                    }
+                }
+            }
+            Integer newIdx = xfIndex.get(cellXf);
+            if (newIdx == null || newIdx > idx) {
+                xfIndex.put(cellXf, idx);
+            }
+        }
+    }
+
+    /**
+     * Records that the properties of a cell style have been changed.
+     */
+    @Internal
+    public void incrementCellStyleModCount() {
+        cellStyleModCount++;
+    }
+
+    /**
+     * @return the number of changes to the cell styles so far
+     */
+    @Internal
+    public int getCellStyleModCount() {
+        return cellStyleModCount;
+    }
+
+    private Map<CTXf, Integer> getXfIndex() {
+        if (xfIndex == null) {
+            xfIndex = buildIndex(xfs, new IdentityHashMap<>(), Function.identity());
+        }
+        return xfIndex;
     }
 
     @Internal
@@ -0,0 +1,321 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.model;
+
+import static org.apache.poi.ooxml.POIXMLTypeLoader.DEFAULT_XML_OPTIONS;
+import static org.apache.poi.xssf.usermodel.XSSFRelation.NS_SPREADSHEETML;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.ooxml.POIXMLDocumentPart;
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.util.StaxHelper;
+import org.apache.poi.xssf.usermodel.XSSFFactory;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlOptions;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTRst;
+
+/**
+ * A {@link SharedStringsTable}, which keeps its strings in a {@link MappedStringStore},
+ * i.e. in memory-mapped temp files instead of the java heap.<p>
+ *
+ * This is useful for huge workbooks with millions of unique strings, especially when
+ * streaming them with {@link org.apache.poi.xssf.streaming.SXSSFWorkbook} and the shared
+ * strings table enabled. To use it, create the workbook with the {@link Factory}:
+ * <pre>
+ * XSSFWorkbook template = new XSSFWorkbook(new TempFileSharedStringsTable.Factory());
+ * try (SXSSFWorkbook wb = new SXSSFWorkbook(template, 100, false, true)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * The strings are kept in serialized form, so the entries returned by {@link #getEntryAt(int)}
+ * and {@link #getItemAt(int)} are detached copies - modifying them doesn't change the table.
+ * Don't forget to close the workbook to remove the temp files.
+ *
+ * @since POI 4.1.1
+ */
+public class TempFileSharedStringsTable extends SharedStringsTable {
+    private static final String SI_START = "<si xmlns=\"" + NS_SPREADSHEETML + "\">";
+
+    private static final XmlOptions SAVE_OPTIONS = new XmlOptions(DEFAULT_XML_OPTIONS);
+    private static final XmlOptions LOAD_OPTIONS = new XmlOptions(DEFAULT_XML_OPTIONS);
+    static {
+        // serialize each item as standalone si element and strip it again on loading
+        SAVE_OPTIONS.setSaveSyntheticDocumentElement(new QName(NS_SPREADSHEETML, "si"));
+        SAVE_OPTIONS.setSaveAggressiveNamespaces();
+        SAVE_OPTIONS.setUseDefaultNamespace();
+        LOAD_OPTIONS.setLoadReplaceDocumentElement(null);
+    }
+
+    /** the serialized string items, which are also used as key for the de-duplication */
+    private final MappedStringStore strings;
+
+    public TempFileSharedStringsTable() {
+        this(MappedStringStore.DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param cacheSize the number of recently used strings, which are cached on the heap
+     */
+    public TempFileSharedStringsTable(int cacheSize) {
+        super();
+        strings = new MappedStringStore(cacheSize);
+    }
+
+    public TempFileSharedStringsTable(PackagePart part) throws IOException {
+        this(part, MappedStringStore.DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param part the package part of the shared strings table
+     * @param cacheSize the number of recently used strings, which are cached on the heap
+     */
+    public TempFileSharedStringsTable(PackagePart part, int cacheSize) throws IOException {
+        super(part, false);
+        strings = new MappedStringStore(cacheSize);
+        try (InputStream is = part.getInputStream()) {
+            readFrom(is);
+        } catch (IOException|RuntimeException e) {
+            strings.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read this shared strings table from an XML file.
+     * The string items are parsed one by one, so the whole document is never kept in memory.
+     *
+     * @param is The input stream containing the XML document.
+     * @throws IOException if an error occurs while reading.
+     */
+    @Override
+    public void readFrom(InputStream is) throws IOException {
+        try {
+            XMLStreamReader reader = StaxHelper.newXMLInputFactory().createXMLStreamReader(is);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT || !NS_SPREADSHEETML.equals(reader.getNamespaceURI())) {
+                        continue;
+                    }
+                    String name = reader.getLocalName();
+                    if ("sst".equals(name)) {
+                        count = parseCount(reader.getAttributeValue(null, "count"));
+                        uniqueCount = parseCount(reader.getAttributeValue(null, "uniqueCount"));
+                    } else if ("si".equals(name)) {
+                        // parsing from the reader consumes the whole si element
+                        CTRst st = CTRst.Factory.parse(reader, LOAD_OPTIONS);
+                        strings.add(serialize(st));
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException|XmlException e) {
+            throw new IOException("unable to parse shared strings table", e);
+        }
+    }
+
+    private static int parseCount(String val) {
+        return (val == null) ? 0 : Integer.parseInt(val);
+    }
+
+    private static String serialize(CTRst st) {
+        return st.xmlText(SAVE_OPTIONS);
+    }
+
+    /**
+     * Return a string item by index
+     *
+     * @param idx index of item to return.
+     * @return a detached copy of the item at the specified position in this Shared String table.
+     * @deprecated use <code>getItemAt(int idx)</code> instead
+     */
+    @Override
+    @Deprecated
+    public CTRst getEntryAt(int idx) {
+        try {
+            return CTRst.Factory.parse(strings.get(idx), LOAD_OPTIONS);
+        } catch (IOException|XmlException e) {
+            throw new POIXMLException("unable to read shared string " + idx, e);
+        }
+    }
+
+    @Override
+    public RichTextString getItemAt(int idx) {
+        return new XSSFRichTextString(getEntryAt(idx));
+    }
+
+    /**
+     * Add an entry to this Shared String table (a new value is appended to the end).
+     *
+     * <p>
+     * If the Shared String table already contains this <code>CTRst</code> bean, its index is returned.
+     * Otherwise a new entry is aded.
+     * </p>
+     *
+     * @param st the entry to add
+     * @return index the index of added entry
+     * @deprecated use <code>addSharedStringItem(RichTextString string)</code> instead
+     */
+    @Override
+    @Deprecated
+    public int addEntry(CTRst st) {
+        String s = serialize(st);
+        count++;
+        try {
+            int idx = strings.indexOf(s);
+            if (idx == -1) {
+                uniqueCount++;
+                idx = strings.add(s);
+            }
+            return idx;
+        } catch (IOException e) {
+            throw new POIXMLException("unable to add shared string", e);
+        }
+    }
+
+    /**
+     * @return a read-only view of the detached string items
+     * @deprecated use <code>getSharedStringItems</code> instead
+     */
+    @Override
+    @Deprecated
+    public List<CTRst> getItems() {
+        return new AbstractList<CTRst>() {
+            @Override
+            public CTRst get(int index) {
+                return getEntryAt(index);
+            }
+
+            @Override
+            public int size() {
+                return strings.size();
+            }
+        };
+    }
+
+    /**
+     * @return a read-only view of the detached string items, which are created on access
+     */
+    @Override
+    public List<RichTextString> getSharedStringItems() {
+        return Collections.unmodifiableList(new AbstractList<RichTextString>() {
+            @Override
+            public RichTextString get(int index) {
+                return getItemAt(index);
+            }
+
+            @Override
+            public int size() {
+                return strings.size();
+            }
+        });
+    }
+
+    /**
+     * Write this table out as XML. The string items are streamed from the temp file.
+     *
+     * @param out The stream to write to.
+     * @throws IOException if an error occurs while writing.
+     */
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        // don't close the writer, as this would close the underlying stream
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        writer.write("<sst xmlns=\"" + NS_SPREADSHEETML + "\" count=\"" + count + "\" uniqueCount=\"" + uniqueCount + "\">");
+        final int size = strings.size();
+        for (int i = 0; i < size; i++) {
+            String si = strings.get(i);
+            // the default namespace is already declared by the sst element
+            if (si.startsWith(SI_START)) {
+                writer.write("<si>");
+                writer.write(si, SI_START.length(), si.length()-SI_START.length());
+            } else {
+                writer.write(si);
+            }
+        }
+        writer.write("</sst>");
+        writer.flush();
+    }
+
+    /**
+     * Removes the temp files. This method is called by <code>XSSFWorkbook#close()</code>.
+     */
+    @Override
+    public void close() throws IOException {
+        strings.close();
+    }
+
+    /**
+     * A factory, which creates {@link TempFileSharedStringsTable}s instead of the default
+     * {@link SharedStringsTable}s, when the workbook creates its shared strings part.
+     */
+    public static class Factory extends XSSFFactory {
+        private final int cacheSize;
+
+        public Factory() {
+            this(MappedStringStore.DEFAULT_CACHE_SIZE);
+        }
+
+        /**
+         * @param cacheSize the number of recently used strings, which are cached on the heap
+         */
+        public Factory(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        @Override
+        protected POIXMLDocumentPart createDocumentPart
+        (Class<? extends POIXMLDocumentPart> cls, Class<?>[] classes, Object[] values)
+                throws SecurityException, NoSuchMethodException, InstantiationException, IllegalAccessException, InvocationTargetException {
+            if (cls != SharedStringsTable.class) {
+                return super.createDocumentPart(cls, classes, values);
+            }
+            try {
+                if (classes == null || classes.length == 0) {
+                    return new TempFileSharedStringsTable(cacheSize);
+                } else if (classes.length == 1 && classes[0] == PackagePart.class) {
+                    return new TempFileSharedStringsTable((PackagePart)values[0], cacheSize);
+                }
+            } catch (IOException e) {
+                throw new InvocationTargetException(e);
+            }
+            throw new NoSuchMethodException("TempFileSharedStringsTable doesn't support the given constructor arguments");
+        }
+    }
+}
@@ -0,0 +1,504 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.streaming;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.LittleEndianInputStream;
+import org.apache.poi.util.LittleEndianOutputStream;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.xssf.model.SharedStringsTable;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+
+/**
+ * Sheet writer, which keeps the flushed rows in a compact binary encoding instead of
+ * SpreadsheetML text. The rows are transcoded to the "sheetData" xml fragment only once,
+ * when the workbook is written.<p>
+ *
+ * Each row is stored as row number, a flag byte and the optional row properties, followed by
+ * the cells. A cell is stored as (column index + 1), style index, type and its typed value.
+ * All indexes are variable length integers, i.e. small values only take a single byte.
+ *
+ * @since POI 4.1.1
+ */
+public class BinarySheetDataWriter extends SheetDataWriter {
+    private static final int ROW_MARKER = 1;
+
+    private static final int FLAG_CUSTOM_HEIGHT = 0x01;
+    private static final int FLAG_ZERO_HEIGHT = 0x02;
+    private static final int FLAG_FORMATTED = 0x04;
+    private static final int FLAG_HIDDEN_SET = 0x08;
+    private static final int FLAG_HIDDEN = 0x10;
+    private static final int FLAG_COLLAPSED_SET = 0x20;
+    private static final int FLAG_COLLAPSED = 0x40;
+
+    private static final int TYPE_BLANK = 0;
+    private static final int TYPE_NUMERIC = 1;
+    private static final int TYPE_INLINE_STRING = 2;
+    private static final int TYPE_SHARED_STRING = 3;
+    private static final int TYPE_BOOLEAN = 4;
+    private static final int TYPE_ERROR = 5;
+    private static final int TYPE_FORMULA = 6;
+
+    private final boolean _compress;
+    private final LittleEndianOutputStream _out;
+
+    public BinarySheetDataWriter() throws IOException {
+        this(null, false);
+    }
+
+    /**
+     * @param sharedStringsTable the shared strings table, or null if inline text is used
+     * @param compress whether the temp file is additionally gzip compressed
+     */
+    public BinarySheetDataWriter(SharedStringsTable sharedStringsTable, boolean compress) throws IOException {
+        super(sharedStringsTable, TempFile.createTempFile("poi-sxssf-sheet-bin", compress ? ".gz" : ".bin"));
+        _compress = compress;
+        FileOutputStream fos = new FileOutputStream(getTempFile());
+        OutputStream decorated;
+        try {
+            decorated = decorateOutputStream(fos);
+        } catch (final IOException e) {
+            fos.close();
+            throw e;
+        }
+        _out = new LittleEndianOutputStream(new BufferedOutputStream(decorated));
+    }
+
+    @Override
+    protected OutputStream decorateOutputStream(FileOutputStream fos) throws IOException {
+        return _compress ? new GZIPOutputStream(fos) : fos;
+    }
+
+    @Override
+    protected InputStream decorateInputStream(FileInputStream fis) throws IOException {
+        return _compress ? new GZIPInputStream(fis) : fis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        _out.flush();
+        _out.close();
+    }
+
+    /**
+     * @return a stream, which transcodes the binary rows of the temp file to the "sheetData" xml fragment
+     */
+    @Override
+    public InputStream getWorksheetXMLInputStream() throws IOException {
+        return new XmlInputStream(super.getWorksheetXMLInputStream());
+    }
+
+    @Override
+    public void writeRow(int rownum, SXSSFRow row) throws IOException {
+        updateFlushedRows(rownum, row);
+
+        int flags = 0;
+        if (row.hasCustomHeight()) {
+            flags |= FLAG_CUSTOM_HEIGHT;
+        }
+        if (row.getZeroHeight()) {
+            flags |= FLAG_ZERO_HEIGHT;
+        }
+        if (row.isFormatted()) {
+            flags |= FLAG_FORMATTED;
+        }
+        Boolean hidden = row.getHidden();
+        if (hidden != null) {
+            flags |= FLAG_HIDDEN_SET | (hidden ? FLAG_HIDDEN : 0);
+        }
+        Boolean collapsed = row.getCollapsed();
+        if (collapsed != null) {
+            flags |= FLAG_COLLAPSED_SET | (collapsed ? FLAG_COLLAPSED : 0);
+        }
+
+        _out.writeByte(ROW_MARKER);
+        writeVarInt(rownum);
+        _out.writeByte(flags);
+        if (row.hasCustomHeight()) {
+            _out.writeInt(Float.floatToIntBits(row.getHeightInPoints()));
+        }
+        if (row.isFormatted()) {
+            writeVarInt(row.getRowStyleIndex());
+        }
+        writeVarInt(row.getOutlineLevel());
+
+        Iterator<Cell> cells = row.allCellsIterator();
+        int columnIndex = 0;
+        while (cells.hasNext()) {
+            writeCell(columnIndex++, cells.next());
+        }
+        // end of row
+        writeVarInt(0);
+    }
+
+    @Override
+    public void writeCell(int columnIndex, Cell cell) throws IOException {
+        if (cell == null) {
+            return;
+        }
+        writeVarInt(columnIndex + 1);
+        // need to convert the short to unsigned short as the indexes can be up to 64k
+        writeVarInt(cell.getCellStyle().getIndex() & 0xffff);
+
+        CellType cellType = cell.getCellType();
+        switch (cellType) {
+            case BLANK:
+                _out.writeByte(TYPE_BLANK);
+                break;
+            case FORMULA:
+                _out.writeByte(TYPE_FORMULA);
+                writeString(cell.getCellFormula());
+                switch (cell.getCachedFormulaResultType()) {
+                    case NUMERIC:
+                        _out.writeByte(TYPE_NUMERIC);
+                        _out.writeDouble(cell.getNumericCellValue());
+                        break;
+                    case STRING:
+                        String value = cell.getStringCellValue();
+                        _out.writeByte(TYPE_INLINE_STRING);
+                        writeString(value == null ? "" : value);
+                        break;
+                    case BOOLEAN:
+                        _out.writeByte(TYPE_BOOLEAN);
+                        _out.writeByte(cell.getBooleanCellValue() ? 1 : 0);
+                        break;
+                    case ERROR:
+                        _out.writeByte(TYPE_ERROR);
+                        _out.writeByte(cell.getErrorCellValue());
+                        break;
+                    default:
+                        _out.writeByte(TYPE_BLANK);
+                        break;
+                }
+                break;
+            case STRING:
+                SharedStringsTable sst = getSharedStringSource();
+                if (sst != null) {
+                    XSSFRichTextString rt = new XSSFRichTextString(cell.getStringCellValue());
+                    _out.writeByte(TYPE_SHARED_STRING);
+                    writeVarInt(sst.addSharedStringItem(rt));
+                } else {
+                    _out.writeByte(TYPE_INLINE_STRING);
+                    writeString(cell.getStringCellValue());
+                }
+                break;
+            case NUMERIC:
+                _out.writeByte(TYPE_NUMERIC);
+                _out.writeDouble(cell.getNumericCellValue());
+                break;
+            case BOOLEAN:
+                _out.writeByte(TYPE_BOOLEAN);
+                _out.writeByte(cell.getBooleanCellValue() ? 1 : 0);
+                break;
+            case ERROR:
+                _out.writeByte(TYPE_ERROR);
+                _out.writeByte(cell.getErrorCellValue());
+                break;
+            default:
+                throw new IllegalStateException("Invalid cell type: " + cellType);
+        }
+    }
+
+    private void writeVarInt(int value) {
+        int v = value;
+        while ((v & ~0x7F) != 0) {
+            _out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        _out.writeByte(v);
+    }
+
+    private void writeString(String s) {
+        byte[] buf = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(buf.length);
+        _out.write(buf);
+    }
+
+    @Override
+    boolean dispose() throws IOException {
+        final boolean ret;
+        try {
+            _out.close();
+        } finally {
+            ret = getTempFile().delete();
+        }
+        return ret;
+    }
+
+    /**
+     * Decodes the binary rows one by one and provides their xml representation
+     */
+    private static final class XmlInputStream extends InputStream {
+        private final LittleEndianInputStream _in;
+        private final StringWriter _xml = new StringWriter(1024);
+        private byte[] _buf = new byte[0];
+        private int _pos;
+        private boolean _eof;
+
+        XmlInputStream(InputStream is) {
+            _in = new LittleEndianInputStream(new BufferedInputStream(is));
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return _buf[_pos++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int cnt = Math.min(len, _buf.length - _pos);
+            System.arraycopy(_buf, _pos, b, off, cnt);
+            _pos += cnt;
+            return cnt;
+        }
+
+        @Override
+        public void close() throws IOException {
+            _in.close();
+        }
+
+        private boolean fill() throws IOException {
+            while (_pos == _buf.length) {
+                if (_eof) {
+                    return false;
+                }
+                int marker = _in.read();
+                if (marker == -1) {
+                    _eof = true;
+                    return false;
+                }
+                if (marker != ROW_MARKER) {
+                    throw new IOException("Invalid binary sheet data - row marker expected, but found " + marker);
+                }
+                StringBuffer sb = _xml.getBuffer();
+                sb.setLength(0);
+                try {
+                    transcodeRow();
+                } catch (RuntimeException e) {
+                    // LittleEndianInputStream signals a truncated file with a RuntimeException
+                    throw new EOFException("Truncated binary sheet data: " + e.getMessage());
+                }
+                _buf = sb.toString().getBytes(StandardCharsets.UTF_8);
+                _pos = 0;
+            }
+            return true;
+        }
+
+        /**
+         * Write the row in the same format as {@link SheetDataWriter}
+         */
+        private void transcodeRow() throws IOException {
+            final int rownum = readVarInt();
+            final int flags = _in.readUByte();
+
+            _xml.write("<row");
+            writeAttribute(_xml, "r", Integer.toString(rownum + 1));
+            if ((flags & FLAG_CUSTOM_HEIGHT) != 0) {
+                writeAttribute(_xml, "customHeight", "true");
+                writeAttribute(_xml, "ht", Float.toString(Float.intBitsToFloat(_in.readInt())));
+            }
+            if ((flags & FLAG_ZERO_HEIGHT) != 0) {
+                writeAttribute(_xml, "hidden", "true");
+            }
+            if ((flags & FLAG_FORMATTED) != 0) {
+                writeAttribute(_xml, "s", Integer.toString(readVarInt()));
+                writeAttribute(_xml, "customFormat", "1");
+            }
+            int outlineLevel = readVarInt();
+            if (outlineLevel != 0) {
+                writeAttribute(_xml, "outlineLevel", Integer.toString(outlineLevel));
+            }
+            if ((flags & FLAG_HIDDEN_SET) != 0) {
+                writeAttribute(_xml, "hidden", (flags & FLAG_HIDDEN) != 0 ? "1" : "0");
+            }
+            if ((flags & FLAG_COLLAPSED_SET) != 0) {
+                writeAttribute(_xml, "collapsed", (flags & FLAG_COLLAPSED) != 0 ? "1" : "0");
+            }
+            _xml.write(">\n");
+
+            for (int col; (col = readVarInt()) != 0; ) {
+                transcodeCell(rownum, col - 1);
+            }
+            _xml.write("</row>\n");
+        }
+
+        private void transcodeCell(int rownum, int columnIndex) throws IOException {
+            _xml.write("<c");
+            writeAttribute(_xml, "r", new CellReference(rownum, columnIndex).formatAsString());
+            int style = readVarInt();
+            if (style != 0) {
+                writeAttribute(_xml, "s", Integer.toString(style));
+            }
+
+            int type = _in.readUByte();
+            switch (type) {
+                case TYPE_BLANK:
+                    _xml.write('>');
+                    break;
+                case TYPE_FORMULA:
+                    transcodeFormula();
+                    break;
+                case TYPE_SHARED_STRING:
+                    writeAttribute(_xml, "t", "s");
+                    _xml.write("><v>");
+                    _xml.write(Integer.toString(readVarInt()));
+                    _xml.write("</v>");
+                    break;
+                case TYPE_INLINE_STRING: {
+                    String value = readString();
+                    writeAttribute(_xml, "t", "inlineStr");
+                    _xml.write("><is><t");
+                    if (hasLeadingTrailingSpaces(value)) {
+                        writeAttribute(_xml, "xml:space", "preserve");
+                    }
+                    _xml.write(">");
+                    writeQuotedString(_xml, value);
+                    _xml.write("</t></is>");
+                    break;
+                }
+                case TYPE_NUMERIC:
+                    writeAttribute(_xml, "t", "n");
+                    _xml.write("><v>");
+                    _xml.write(Double.toString(_in.readDouble()));
+                    _xml.write("</v>");
+                    break;
+                case TYPE_BOOLEAN:
+                    writeAttribute(_xml, "t", "b");
+                    _xml.write("><v>");
+                    _xml.write(_in.readUByte() != 0 ? "1" : "0");
+                    _xml.write("</v>");
+                    break;
+                case TYPE_ERROR:
+                    writeAttribute(_xml, "t", "e");
+                    _xml.write("><v>");
+                    _xml.write(FormulaError.forInt(_in.readByte()).getString());
+                    _xml.write("</v>");
+                    break;
+                default:
+                    throw new IOException("Invalid binary sheet data - unknown cell type " + type);
+            }
+            _xml.write("</c>");
+        }
+
+        private void transcodeFormula() throws IOException {
+            String formula = readString();
+            int resultType = _in.readUByte();
+            switch (resultType) {
+                case TYPE_NUMERIC:
+                    writeAttribute(_xml, "t", "n");
+                    break;
+                case TYPE_INLINE_STRING:
+                    writeAttribute(_xml, "t", "str");
+                    break;
+                case TYPE_BOOLEAN:
+                    writeAttribute(_xml, "t", "b");
+                    break;
+                case TYPE_ERROR:
+                    writeAttribute(_xml, "t", "e");
+                    break;
+                default:
+                    break;
+            }
+            _xml.write("><f>");
+            writeQuotedString(_xml, formula);
+            _xml.write("</f>");
+            switch (resultType) {
+                case TYPE_NUMERIC: {
+                    double nval = _in.readDouble();
+                    if (!Double.isNaN(nval)) {
+                        _xml.write("<v>");
+                        _xml.write(Double.toString(nval));
+                        _xml.write("</v>");
+                    }
+                    break;
+                }
+                case TYPE_INLINE_STRING: {
+                    String value = readString();
+                    if (!value.isEmpty()) {
+                        _xml.write("<v>");
+                        writeQuotedString(_xml, value);
+                        _xml.write("</v>");
+                    }
+                    break;
+                }
+                case TYPE_BOOLEAN:
+                    _xml.write("<v>");
+                    _xml.write(_in.readUByte() != 0 ? "1" : "0");
+                    _xml.write("</v>");
+                    break;
+                case TYPE_ERROR:
+                    _xml.write("<v>");
+                    _xml.write(FormulaError.forInt(_in.readByte()).getString());
+                    _xml.write("</v>");
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private static boolean hasLeadingTrailingSpaces(String str) {
+            if (str.isEmpty()) {
+                return false;
+            }
+            return Character.isWhitespace(str.charAt(0)) || Character.isWhitespace(str.charAt(str.length() - 1));
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = _in.readUByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        private String readString() {
+            byte[] buf = new byte[readVarInt()];
+            _in.readFully(buf);
+            return new String(buf, StandardCharsets.UTF_8);
+        }
+    }
+}
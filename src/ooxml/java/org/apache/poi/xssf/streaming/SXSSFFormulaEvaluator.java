@@ -94,8 +94,10 @@ public final class SXSSFFormulaEvaluator extends BaseXSSFFormulaEvaluator {
      *  it can either skip them silently, or give an exception
      */
     public static void evaluateAllFormulaCells(SXSSFWorkbook wb, boolean skipOutOfWindow) {
-        SXSSFFormulaEvaluator eval = new SXSSFFormulaEvaluator(wb);
-        
+        evaluateAllFormulaCells(wb, new SXSSFFormulaEvaluator(wb), skipOutOfWindow);
+    }
+
+    private static void evaluateAllFormulaCells(SXSSFWorkbook wb, SXSSFFormulaEvaluator eval, boolean skipOutOfWindow) {
         // Check they're all available
         for (Sheet sheet : wb) {
             if (((SXSSFSheet)sheet).areAllRowsFlushed()) {
@@ -133,7 +135,7 @@ public final class SXSSFFormulaEvaluator extends BaseXSSFFormulaEvaluator {
      */
     public void evaluateAll() {
         // Have the evaluation done, with exceptions
-        evaluateAllFormulaCells(wb, false);
+        evaluateAllFormulaCells(wb, this, false);
     }
     
     public static class SheetsFlushedException extends IllegalStateException {
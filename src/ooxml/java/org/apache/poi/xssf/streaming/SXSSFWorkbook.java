@@ -17,25 +17,43 @@
 
 package org.apache.poi.xssf.streaming;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
 
+import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
 import org.apache.commons.compress.archivers.zip.Zip64Mode;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.parallel.FileBasedScatterGatherBackingStore;
+import org.apache.commons.compress.parallel.ScatterGatherBackingStore;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JRuntimeException;
 import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.openxml4j.util.ZipArchiveThresholdInputStream;
 import org.apache.poi.openxml4j.util.ZipEntrySource;
@@ -44,6 +62,7 @@ import org.apache.poi.openxml4j.util.ZipSecureFile;
 import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.formula.udf.UDFFinder;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellStyleModCountSupport;
 import org.apache.poi.ss.usermodel.CreationHelper;
 import org.apache.poi.ss.usermodel.DataFormat;
 import org.apache.poi.ss.usermodel.Font;
@@ -85,7 +104,7 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
  * Carefully review your memory budget and compatibility needs before deciding
  * whether to enable shared strings or not.
  */
-public class SXSSFWorkbook implements Workbook {
+public class SXSSFWorkbook implements Workbook, CellStyleModCountSupport {
     /**
      * Specifies how many rows can be accessed at most via {@link SXSSFSheet#getRow}.
      * When a new node is created via {@link SXSSFSheet#createRow} and the total number
@@ -108,6 +127,11 @@ public class SXSSFWorkbook implements Workbook {
      */
     private boolean _compressTmpFiles;
 
+    /**
+     * whether the temp files contain binary encoded rows instead of xml
+     */
+    private boolean _binaryTmpFiles;
+
     /**
      * shared string table - a cache of strings in this workbook
      */
@@ -115,6 +139,16 @@ public class SXSSFWorkbook implements Workbook {
 
     private Zip64Mode zip64Mode = Zip64Mode.AsNeeded;
 
+    /**
+     * whether the workbook is written in one pass without the intermediate template file
+     */
+    private boolean _directWrite;
+
+    /**
+     * number of threads, which merge and compress the sheet data on writing
+     */
+    private int _writeThreads = 1;
+
     /**
      * Construct a new workbook with default row window size
      */
@@ -228,6 +262,12 @@ public class SXSSFWorkbook implements Workbook {
      * A value of <code>0</code> is not allowed because it would flush any newly created row
      * without having a chance to specify any cells.
      * </p>
+     * <p>
+     * The shared strings table of the template workbook keeps all strings on the heap.
+     * For a huge number of unique strings, create the template workbook with the
+     * {@link org.apache.poi.xssf.model.TempFileSharedStringsTable.Factory}, which keeps
+     * them in memory-mapped temp files instead.
+     * </p>
      *
      * @param workbook  the template workbook
      * @param rowAccessWindowSize the number of rows that are kept in memory until flushed out, see above.
@@ -299,6 +339,73 @@ public class SXSSFWorkbook implements Workbook {
         this.zip64Mode = zip64Mode;
     }
 
+    /**
+     * Set whether {@link #write(OutputStream)} streams the workbook directly into the target zip.
+     * <p>
+     *   By default, the underlying {@link XSSFWorkbook} is saved to a temporary template file first,
+     *   which is then copied entry by entry to the output stream, while the sheet data is injected.
+     *   In the direct write mode, the parts of the underlying workbook are written straight into the
+     *   target zip and the sheet data is injected while the worksheet parts are written. This avoids
+     *   the temp file and compressing/uncompressing the template twice.
+     * </p>
+     * <p>
+     *   Subclasses, which customize the output by overriding {@link #injectData(ZipEntrySource, OutputStream)},
+     *   should keep the default mode.
+     * </p>
+     *
+     * @param directWrite whether to write the workbook without the intermediate template file
+     *
+     * @since POI 4.1.1
+     */
+    public void setDirectWrite(boolean directWrite) {
+        _directWrite = directWrite;
+    }
+
+    /**
+     * @return whether the workbook is written without the intermediate template file
+     *
+     * @see #setDirectWrite(boolean)
+     * @since POI 4.1.1
+     */
+    public boolean isDirectWrite() {
+        return _directWrite;
+    }
+
+    /**
+     * Set the number of threads, which are used by {@link #write(OutputStream)} to merge and compress
+     * the sheet data concurrently.
+     * <p>
+     *   With more than one thread, the workbook is written in the direct write mode (see {@link #setDirectWrite(boolean)})
+     *   and each sheet is deflated by a worker thread into a temporary scatter file. The compressed sheets are
+     *   then appended to the target zip. This is useful for big workbooks with several sheets, where
+     *   the compression is the bottleneck. The thread pool is created for each write and shut down afterwards.
+     * </p>
+     * <p>
+     *   The Excel compatible {@link Zip64Mode#Always} stream doesn't support adding precompressed entries,
+     *   so the sheets are compressed sequentially in that mode.
+     * </p>
+     *
+     * @param writeThreads the number of threads, 1 for sequential compression (default)
+     *
+     * @since POI 4.1.1
+     */
+    public void setWriteThreads(int writeThreads) {
+        if (writeThreads < 1) {
+            throw new IllegalArgumentException("writeThreads must be greater than 0");
+        }
+        _writeThreads = writeThreads;
+    }
+
+    /**
+     * @return the number of threads, which are used to merge and compress the sheet data
+     *
+     * @see #setWriteThreads(int)
+     * @since POI 4.1.1
+     */
+    public int getWriteThreads() {
+        return _writeThreads;
+    }
+
     /**
      * Get whether temp files should be compressed.
      *
@@ -328,6 +435,35 @@ public class SXSSFWorkbook implements Workbook {
     public void setCompressTempFiles(boolean compress) {
         _compressTmpFiles = compress;
     }
+
+    /**
+     * Get whether the rows in the temp files are binary encoded.
+     *
+     * @return whether to use binary temp files
+     * @since POI 4.1.1
+     */
+    public boolean isBinaryTempFiles() {
+        return _binaryTmpFiles;
+    }
+
+    /**
+     * Set whether the rows in the temp files are binary encoded.
+     * <p>
+     *   By default, the flushed rows are written as SpreadsheetML text to the temp files.
+     *   If the "binary" flag is set to <code>true</code>, the rows are written in a compact
+     *   binary encoding, which is transcoded to xml when the workbook is written.
+     *   This usually reduces the size of the temp files several-fold and can be combined
+     *   with the "compress" option - see {@link BinarySheetDataWriter}.
+     * </p>
+     * <p>
+     *     Setting this option only affects subsequent <code>createSheet()</code> calls.
+     * </p>
+     * @param binary whether to use binary temp files
+     * @since POI 4.1.1
+     */
+    public void setBinaryTempFiles(boolean binary) {
+        _binaryTmpFiles = binary;
+    }
     
     @Internal
     protected SharedStringsTable getSharedStringSource() {
@@ -335,6 +471,9 @@ public class SXSSFWorkbook implements Workbook {
     }
 
     protected SheetDataWriter createSheetDataWriter() throws IOException {
+        if(_binaryTmpFiles) {
+            return new BinarySheetDataWriter(_sharedStringSource, _compressTmpFiles);
+        }
         if(_compressTmpFiles) {
             return new GZIPSheetDataWriter(_sharedStringSource);
         }
@@ -895,6 +1034,12 @@ public class SXSSFWorkbook implements Workbook {
         return _wb.getNumCellStyles();
     }
 
+    @Internal
+    @Override
+    public int getCellStyleModCount() {
+        return _wb.getCellStyleModCount();
+    }
+
     /**
      * Get the cell style object at the given index
      *
@@ -945,6 +1090,11 @@ public class SXSSFWorkbook implements Workbook {
     public void write(OutputStream stream) throws IOException {
         flushSheets();
 
+        if (_directWrite || _writeThreads > 1) {
+            writeDirect(stream);
+            return;
+        }
+
         //Save the template
         File tmplFile = TempFile.createTempFile("poi-sxssf-template", ".xlsx");
         boolean deleted;
@@ -966,6 +1116,106 @@ public class SXSSFWorkbook implements Workbook {
         }
     }
     
+    /**
+     * Write the parts of the underlying workbook directly into the target zip,
+     * replacing the worksheet parts on the fly with the generated sheet data
+     */
+    private void writeDirect(OutputStream stream) throws IOException {
+        ZipArchiveOutputStream zos = createArchiveOutputStream(stream);
+        // the sheets can't be added as raw entries to the Excel compatible ZIP64 stream
+        ExecutorService executor = (_writeThreads > 1 && !(zos instanceof OpcZipArchiveOutputStream))
+            ? Executors.newFixedThreadPool(_writeThreads) : null;
+        // the scatter creator only removes its temporary files in writeTo, so they need to be tracked
+        // for the case of an error while writing the other parts
+        List<ScatterGatherBackingStore> stores = Collections.synchronizedList(new ArrayList<>());
+        boolean scattered = false;
+        try {
+            ParallelScatterZipCreator scatter = (executor == null) ? null : new ParallelScatterZipCreator(executor, () -> {
+                ScatterGatherBackingStore store =
+                    new FileBasedScatterGatherBackingStore(TempFile.createTempFile("poi-sxssf-scatter", ".tmp"));
+                stores.add(store);
+                return store;
+            });
+
+            SheetInjectingOutputStream sos = new SheetInjectingOutputStream(zos, scatter);
+            try {
+                _wb.write(sos);
+            } catch (OpenXML4JRuntimeException e) {
+                if (sos.failure != null) {
+                    throw sos.failure;
+                }
+                throw e;
+            }
+
+            if (scatter != null) {
+                // append the compressed sheets, the order of the zip entries doesn't matter for OPC
+                scattered = true;
+                try {
+                    scatter.writeTo(zos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while compressing the sheets");
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof UncheckedIOException) {
+                        throw ((UncheckedIOException)cause).getCause();
+                    }
+                    throw new IOException("Failed to compress the sheets", cause);
+                }
+            }
+            zos.finish();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+                if (!scattered) {
+                    discardScatterStores(executor, stores);
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait for the compressing workers to stop and remove their temporary files
+     */
+    private static void discardScatterStores(ExecutorService executor, List<ScatterGatherBackingStore> stores) {
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.log(POILogger.WARN, "Compressing worker threads didn't terminate");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (stores) {
+            for (ScatterGatherBackingStore store : stores) {
+                IOUtils.closeQuietly(store);
+            }
+        }
+    }
+
+    /**
+     * Split the template worksheet into the xml before and after the sheet data,
+     * so the worksheet can be streamed independently of this workbook
+     */
+    private static byte[][] splitWorksheetTemplate(byte[] template) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(template.length + 32);
+        try (InputStream is = new ByteArrayInputStream(template);
+             InputStream empty = new ByteArrayInputStream(new byte[0])) {
+            copyStreamAndInjectWorksheet(is, bos, empty);
+        }
+        byte[] merged = bos.toByteArray();
+        byte[] endTag = "</sheetData>".getBytes(StandardCharsets.US_ASCII);
+        outer:
+        for (int i = 0; i <= merged.length - endTag.length; i++) {
+            for (int j = 0; j < endTag.length; j++) {
+                if (merged[i + j] != endTag[j]) {
+                    continue outer;
+                }
+            }
+            return new byte[][]{ Arrays.copyOf(merged, i), Arrays.copyOfRange(merged, i, merged.length) };
+        }
+        throw new IOException("Invalid worksheet template - sheetData end tag not found");
+    }
+
     protected void flushSheets() throws IOException {
         for (SXSSFSheet sheet : _xFromSxHash.values())
         {
@@ -1371,4 +1621,126 @@ public class SXSSFWorkbook implements Workbook {
     }
     
 //end of interface implementation
+
+    /**
+     * A zip output stream, which is handed to the underlying {@link XSSFWorkbook} and delegates all
+     * entries to the target zip stream. The (small) template worksheets of the streamed sheets are
+     * buffered and merged with the sheet data, when their zip entry is closed. If a scatter zip creator
+     * is given, the merged worksheets are compressed by its worker threads instead.
+     */
+    private final class SheetInjectingOutputStream extends ZipArchiveOutputStream {
+        private final ZipArchiveOutputStream zos;
+        private final ParallelScatterZipCreator scatter;
+        private SXSSFSheet currentSheet;
+        private String currentName;
+        private ByteArrayOutputStream template;
+        private IOException failure;
+
+        SheetInjectingOutputStream(ZipArchiveOutputStream zos, ParallelScatterZipCreator scatter) {
+            super(zos);
+            this.zos = zos;
+            this.scatter = scatter;
+        }
+
+        @Override
+        public void putArchiveEntry(ArchiveEntry archiveEntry) throws IOException {
+            XSSFSheet xSheet = getSheetFromZipEntryName(archiveEntry.getName());
+            // See bug 56557, we should not inject data into the special ChartSheets
+            if (xSheet != null && !(xSheet instanceof XSSFChartSheet)) {
+                currentSheet = getSXSSFSheet(xSheet);
+                currentName = archiveEntry.getName();
+                template = new ByteArrayOutputStream();
+            }
+            if (currentSheet == null || scatter == null) {
+                zos.putArchiveEntry(archiveEntry);
+            }
+        }
+
+        @Override
+        public void closeArchiveEntry() throws IOException {
+            if (currentSheet != null && scatter != null) {
+                try {
+                    addScatterEntry();
+                } finally {
+                    currentSheet = null;
+                    template = null;
+                }
+                return;
+            }
+            try {
+                if (currentSheet != null) {
+                    try (InputStream is = new ByteArrayInputStream(template.toByteArray());
+                         InputStream xis = currentSheet.getWorksheetXMLInputStream()) {
+                        copyStreamAndInjectWorksheet(is, zos, xis);
+                    }
+                }
+            } catch (IOException e) {
+                // the part marshaller swallows the cause, so keep it for the caller
+                failure = e;
+                throw e;
+            } finally {
+                currentSheet = null;
+                template = null;
+                zos.closeArchiveEntry();
+            }
+        }
+
+        private void addScatterEntry() throws IOException {
+            final byte[][] parts = splitWorksheetTemplate(template.toByteArray());
+            final SXSSFSheet sheet = currentSheet;
+            ZipArchiveEntry ze = new ZipArchiveEntry(currentName);
+            ze.setMethod(ZipEntry.DEFLATED);
+            scatter.addArchiveEntry(ze, () -> {
+                // the sheet data writer of each sheet is independent, so it's closed by the worker
+                InputStream xis;
+                try {
+                    xis = sheet.getWorksheetXMLInputStream();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return new SequenceInputStream(Collections.enumeration(Arrays.asList(
+                    new ByteArrayInputStream(parts[0]), xis, new ByteArrayInputStream(parts[1]))));
+            });
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (currentSheet != null) {
+                template.write(b);
+            } else {
+                zos.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (currentSheet != null) {
+                template.write(b, off, len);
+            } else {
+                zos.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void setLevel(int level) {
+            zos.setLevel(level);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            // the target stream is finished after the compressed sheets are appended
+            zos.flush();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            zos.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // the target stream is owned by the caller
+            zos.flush();
+        }
+    }
 }
@@ -76,6 +76,20 @@ public class SheetDataWriter implements Closeable {
         this();
         this._sharedStringSource = sharedStringsTable;
     }
+
+    /**
+     * Constructor for subclasses, which don't write the sheet data as xml text
+     * and therefore manage the stream to the temp file themselves.
+     *
+     * @param sharedStringsTable the shared strings table, or null if inline text is used
+     * @param fd the temp file for the sheet data
+     */
+    SheetDataWriter(SharedStringsTable sharedStringsTable, File fd) {
+        _fd = fd;
+        _out = null;
+        _sharedStringSource = sharedStringsTable;
+    }
+
     /**
      * Create a temp file to write sheet data. 
      * By default, temp files are created in the default temporary-file directory
@@ -195,11 +209,7 @@ public class SheetDataWriter implements Closeable {
      * @throws IOException If an I/O error occurs
      */
     public void writeRow(int rownum, SXSSFRow row) throws IOException {
-        if (_numberOfFlushedRows == 0)
-            _lowestIndexOfFlushedRows = rownum;
-        _numberLastFlushedRow = Math.max(rownum, _numberLastFlushedRow);
-        _numberOfCellsOfLastFlushedRow = row.getLastCellNum();
-        _numberOfFlushedRows++;
+        updateFlushedRows(rownum, row);
         beginRow(rownum, row);
         Iterator<Cell> cells = row.allCellsIterator();
         int columnIndex = 0;
@@ -209,6 +219,21 @@ public class SheetDataWriter implements Closeable {
         endRow();
     }
 
+    /**
+     * Update the statistics of the flushed rows
+     */
+    void updateFlushedRows(int rownum, SXSSFRow row) {
+        if (_numberOfFlushedRows == 0)
+            _lowestIndexOfFlushedRows = rownum;
+        _numberLastFlushedRow = Math.max(rownum, _numberLastFlushedRow);
+        _numberOfCellsOfLastFlushedRow = row.getLastCellNum();
+        _numberOfFlushedRows++;
+    }
+
+    SharedStringsTable getSharedStringSource() {
+        return _sharedStringSource;
+    }
+
     void beginRow(int rownum, SXSSFRow row) throws IOException {
         _out.write("<row");
         writeAttribute("r", Integer.toString(rownum + 1));
@@ -267,7 +292,8 @@ public class SheetDataWriter implements Closeable {
                         writeAttribute("t", "n");
                         break;
                     case STRING:
-                        writeAttribute("t", STCellType.S.toString());
+                        // a string result is stored in the cell, "s" would mark an index of the shared strings
+                        writeAttribute("t", STCellType.STR.toString());
                         break;
                     case BOOLEAN:
                         writeAttribute("t", "b");
@@ -292,19 +318,19 @@ public class SheetDataWriter implements Closeable {
                         String value = cell.getStringCellValue();
                         if(value != null && !value.isEmpty()) {
                             _out.write("<v>");
-                            _out.write(value);
+                            outputQuotedString(value);
                             _out.write("</v>");
                         }
                         break;
                     case BOOLEAN:
-                        _out.write("><v>");
+                        _out.write("<v>");
                         _out.write(cell.getBooleanCellValue() ? "1" : "0");
                         _out.write("</v>");
                         break;
                     case ERROR: {
                         FormulaError error = FormulaError.forInt(cell.getErrorCellValue());
 
-                        _out.write("><v>");
+                        _out.write("<v>");
                         _out.write(error.getString());
                         _out.write("</v>");
                         break;
@@ -364,11 +390,15 @@ public class SheetDataWriter implements Closeable {
     }
 
     private void writeAttribute(String name, String value) throws IOException {
-        _out.write(' ');
-        _out.write(name);
-        _out.write("=\"");
-        _out.write(value);
-        _out.write('\"');
+        writeAttribute(_out, name, value);
+    }
+
+    static void writeAttribute(Writer out, String name, String value) throws IOException {
+        out.write(' ');
+        out.write(name);
+        out.write("=\"");
+        out.write(value);
+        out.write('\"');
     }
 
     /**
@@ -385,6 +415,10 @@ public class SheetDataWriter implements Closeable {
     }
 
     protected void outputQuotedString(String s) throws IOException {
+        writeQuotedString(_out, s);
+    }
+
+    static void writeQuotedString(Writer out, String s) throws IOException {
         if (s == null || s.length() == 0) {
             return;
         }
@@ -392,29 +426,29 @@ public class SheetDataWriter implements Closeable {
         for (String codepoint : new StringCodepointsIterable(s)) {
             switch (codepoint) {
                 case "<":
-                    _out.write("&lt;");
+                    out.write("&lt;");
                     break;
                 case ">":
-                    _out.write("&gt;");
+                    out.write("&gt;");
                     break;
                 case "&":
-                    _out.write("&amp;");
+                    out.write("&amp;");
                     break;
                 case "\"":
-                    _out.write("&quot;");
+                    out.write("&quot;");
                     break;
                 // Special characters
                 case "\n":
-                    _out.write("&#xa;");
+                    out.write("&#xa;");
                     break;
                 case "\r":
-                    _out.write("&#xd;");
+                    out.write("&#xd;");
                     break;
                 case "\t":
-                    _out.write("&#x9;");
+                    out.write("&#x9;");
                     break;
                 case "\u00A0": // NO-BREAK SPACE
-                    _out.write("&#xa0;");
+                    out.write("&#xa0;");
                     break;
                 default:
                     if (codepoint.length() == 1) {
@@ -422,12 +456,12 @@ public class SheetDataWriter implements Closeable {
                         // YK: XmlBeans silently replaces all ISO control characters ( < 32) with question marks.
                         // the same rule applies to "not a character" symbols.
                         if (replaceWithQuestionMark(c)) {
-                            _out.write('?');
+                            out.write('?');
                         } else {
-                            _out.write(c);
+                            out.write(c);
                         }
                     } else {
-                        _out.write(codepoint);
+                        out.write(codepoint);
                     }
                     break;
             }
@@ -58,6 +58,10 @@ public abstract class BaseXSSFEvaluationWorkbook implements FormulaRenderingWork
     // keys are lower-case to make this a quasi-case-insensitive map
     private Map<String, XSSFTable> _tableCache;
 
+    // lazily populated cache of the parsed cell formulas. This should only be accessed through getCachedFormulaTokens
+    private Map<FormulaKey, Ptg[]> _formulaCache;
+    // the name modification count, when the formula cache was created - name tokens refer to the name index
+    private int _formulaCacheNamesModCount;
 
     protected BaseXSSFEvaluationWorkbook(XSSFWorkbook book) {
         _uBook = book;
@@ -69,6 +73,7 @@ public abstract class BaseXSSFEvaluationWorkbook implements FormulaRenderingWork
     @Override
     public void clearAllCachedResultValues() {
         _tableCache = null;
+        _formulaCache = null;
     }
     
     private int convertFromExternalSheetIndex(int externSheetIndex) {
@@ -397,6 +402,37 @@ public abstract class BaseXSSFEvaluationWorkbook implements FormulaRenderingWork
         return getTableCache().get(lname);
     }
     
+    /**
+     * Returns the parsed tokens of a cell formula. The tokens are cached by the formula text, so formulas
+     * with the same text are only parsed once. As the formula text of a cell changes, when it is set
+     * or shifted, there's no need to invalidate the cache for these modifications. Adding, removing or
+     * renaming names clears the cache, other structural changes require a call to {@link #clearAllCachedResultValues()}.<p>
+     *
+     * The returned tokens are shared and must not be modified.
+     *
+     * @param formula the formula text
+     * @param sheetIndex the sheet index of the formula cell
+     * @param rowIndex the row index of the formula cell, which is only relevant for structured references
+     * @return the parsed tokens
+     *
+     * @since POI 4.1.1
+     */
+    protected Ptg[] getCachedFormulaTokens(String formula, int sheetIndex, int rowIndex) {
+        final int namesModCount = _uBook.getNamedRangesModCount();
+        if (_formulaCache == null || _formulaCacheNamesModCount != namesModCount) {
+            _formulaCache = new HashMap<>();
+            _formulaCacheNamesModCount = namesModCount;
+        }
+        // only table references like Table1[[#This Row],[Col]] depend on the row of the formula
+        final FormulaKey key = new FormulaKey(formula, sheetIndex, formula.indexOf('[') == -1 ? -1 : rowIndex);
+        Ptg[] ptgs = _formulaCache.get(key);
+        if (ptgs == null) {
+            ptgs = FormulaParser.parse(formula, this, FormulaType.CELL, sheetIndex, rowIndex);
+            _formulaCache.put(key, ptgs);
+        }
+        return ptgs;
+    }
+
     @Override
     public UDFFinder getUDFFinder(){
         return _uBook.getUDFFinder();
@@ -446,4 +482,32 @@ public abstract class BaseXSSFEvaluationWorkbook implements FormulaRenderingWork
             return new NamePtg(_index);
         }
     }
+
+    private static final class FormulaKey {
+        private final String _formula;
+        private final int _sheetIndex;
+        private final int _rowIndex;
+
+        FormulaKey(String formula, int sheetIndex, int rowIndex) {
+            _formula = formula;
+            _sheetIndex = sheetIndex;
+            _rowIndex = rowIndex;
+        }
+
+        @Override
+        public int hashCode() {
+            return (_formula.hashCode() * 31 + _sheetIndex) * 31 + _rowIndex;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof FormulaKey)) {
+                return false;
+            }
+            FormulaKey other = (FormulaKey) obj;
+            return _sheetIndex == other._sheetIndex
+                && _rowIndex == other._rowIndex
+                && _formula.equals(other._formula);
+        }
+    }
 }
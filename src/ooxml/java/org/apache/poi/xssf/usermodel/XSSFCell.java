@@ -472,6 +472,31 @@ public final class XSSFCell extends CellBase {
         }
     }
 
+    /**
+     * package use only - the parsed formula tokens for the formula evaluation.
+     * Shared formulas are parsed once per group and only the references are adjusted to this cell,
+     * instead of rendering and re-parsing the formula of each cell.
+     *
+     * @param fpb evaluation workbook, which caches the parsed formulas
+     * @param sheetIndex the index of the sheet of this cell
+     * @return the formula tokens of this cell
+     */
+    Ptg[] getFormulaTokens(BaseXSSFEvaluationWorkbook fpb, int sheetIndex) {
+        CTCellFormula f = _cell.getF();
+        if (f != null && f.getT() == STCellFormulaType.SHARED && !isPartOfArrayFormulaGroup()) {
+            CTCellFormula master = getSheet().getSharedFormula(Math.toIntExact(f.getSi()));
+            // table references depend on the row of the formula cell, so they are converted the slow way
+            if (master != null && master.getStringValue().indexOf('[') == -1) {
+                CellRangeAddress ref = CellRangeAddress.valueOf(master.getRef());
+                Ptg[] ptgs = fpb.getCachedFormulaTokens(master.getStringValue(), sheetIndex, ref.getFirstRow());
+                SharedFormula sf = new SharedFormula(SpreadsheetVersion.EXCEL2007);
+                return sf.convertSharedFormulas(ptgs,
+                        getRowIndex() - ref.getFirstRow(), getColumnIndex() - ref.getFirstColumn());
+            }
+        }
+        return fpb.getCachedFormulaTokens(getCellFormula(fpb), sheetIndex, getRowIndex());
+    }
+
     /**
      * Creates a non shared formula from the shared formula counterpart
      *
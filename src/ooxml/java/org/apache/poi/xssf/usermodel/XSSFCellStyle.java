@@ -136,6 +136,7 @@ public class XSSFCellStyle implements CellStyle {
      */
     @Override
     public void cloneStyleFrom(CellStyle source) {
+        _stylesSource.incrementCellStyleModCount();
         if(source instanceof XSSFCellStyle) {
             XSSFCellStyle src = (XSSFCellStyle)source;
 
@@ -682,6 +683,7 @@ public class XSSFCellStyle implements CellStyle {
      */
     @Override
     public void setAlignment(HorizontalAlignment align) {
+        _stylesSource.incrementCellStyleModCount();
         getCellAlignment().setHorizontal(align);
     }
 
@@ -694,6 +696,7 @@ public class XSSFCellStyle implements CellStyle {
      */
     @Override
     public void setBorderBottom(BorderStyle border) {
+        _stylesSource.incrementCellStyleModCount();
         CTBorder ct = getCTBorder();
         CTBorderPr pr = ct.isSetBottom() ? ct.getBottom() : ct.addNewBottom();
         if(border == BorderStyle.NONE) ct.unsetBottom();
@@ -713,6 +716,7 @@ public class XSSFCellStyle implements CellStyle {
      */
     @Override
     public void setBorderLeft(BorderStyle border) {
+        _stylesSource.incrementCellStyleModCount();
         CTBorder ct = getCTBorder();
         CTBorderPr pr = ct.isSetLeft() ? ct.getLeft() : ct.addNewLeft();
         if(border == BorderStyle.NONE) ct.unsetLeft();
@@ -732,6 +736,7 @@ public class XSSFCellStyle implements CellStyle {
      */
     @Override
     public void setBorderRight(BorderStyle border) {
+        _stylesSource.incrementCellStyleModCount();
         CTBorder ct = getCTBorder();
         CTBorderPr pr = ct.isSetRight() ? ct.getRight() : ct.addNewRight();
         if(border == BorderStyle.NONE) ct.unsetRight();
@@ -751,6 +756,7 @@ public class XSSFCellStyle implements CellStyle {
      */
     @Override
     public void setBorderTop(BorderStyle border) {
+        _stylesSource.incrementCellStyleModCount();
         CTBorder ct = getCTBorder();
         CTBorderPr pr = ct.isSetTop() ? ct.getTop() : ct.addNewTop();
         if(border == BorderStyle.NONE) ct.unsetTop();
@@ -780,6 +786,7 @@ public class XSSFCellStyle implements CellStyle {
      * @param color the color to use, null means no color
      */
     public void setBottomBorderColor(XSSFColor color) {
+        _stylesSource.incrementCellStyleModCount();
         CTBorder ct = getCTBorder();
         if(color == null && !ct.isSetBottom()) return;
 
@@ -809,6 +816,7 @@ public class XSSFCellStyle implements CellStyle {
      * @param fmt the index of a data format
      */
     public void setDataFormat(int fmt) {
+        _stylesSource.incrementCellStyleModCount();
         _cellXf.setApplyNumberFormat(true);
         _cellXf.setNumFmtId(fmt);
     }
@@ -839,6 +847,7 @@ public class XSSFCellStyle implements CellStyle {
      * @param color - the color to use
      */
     public void setFillBackgroundColor(XSSFColor color) {
+        _stylesSource.incrementCellStyleModCount();
         CTFill ct = getCTFill();
         CTPatternFill ptrn = ct.getPatternFill();
         if(color == null) {
@@ -892,6 +901,7 @@ public class XSSFCellStyle implements CellStyle {
     * @see #setFillBackgroundColor(org.apache.poi.xssf.usermodel.XSSFColor) )
     */
     public void setFillForegroundColor(XSSFColor color) {
+        _stylesSource.incrementCellStyleModCount();
         CTFill ct = getCTFill();
 
         CTPatternFill ptrn = ct.getPatternFill();
@@ -942,6 +952,7 @@ public class XSSFCellStyle implements CellStyle {
      * @param order - the reading order
      */
     public void setReadingOrder(ReadingOrder order) {
+        _stylesSource.incrementCellStyleModCount();
         getCellAlignment().setReadingOrder(order);
     }
 
@@ -981,6 +992,7 @@ public class XSSFCellStyle implements CellStyle {
      */
     @Override
     public void setFillPattern(FillPatternType pattern) {
+        _stylesSource.incrementCellStyleModCount();
         CTFill ct = getCTFill();
         CTPatternFill ctptrn = ct.isSetPatternFill() ? ct.getPatternFill() : ct.addNewPatternFill();
         if (pattern == FillPatternType.NO_FILL && ctptrn.isSetPatternType()) {
@@ -1001,6 +1013,7 @@ public class XSSFCellStyle implements CellStyle {
      */
     @Override
     public void setFont(Font font) {
+        _stylesSource.incrementCellStyleModCount();
         if(font != null){
             long index = font.getIndexAsInt();
             this._cellXf.setFontId(index);
@@ -1017,6 +1030,7 @@ public class XSSFCellStyle implements CellStyle {
      */
     @Override
     public void setHidden(boolean hidden) {
+        _stylesSource.incrementCellStyleModCount();
         if (!_cellXf.isSetProtection()) {
              _cellXf.addNewProtection();
          }
@@ -1030,6 +1044,7 @@ public class XSSFCellStyle implements CellStyle {
      */
     @Override
     public void setIndention(short indent) {
+        _stylesSource.incrementCellStyleModCount();
         getCellAlignment().setIndent(indent);
     }
 
@@ -1052,6 +1067,7 @@ public class XSSFCellStyle implements CellStyle {
      * @param color the color to use
      */
     public void setLeftBorderColor(XSSFColor color) {
+        _stylesSource.incrementCellStyleModCount();
         CTBorder ct = getCTBorder();
         if(color == null && !ct.isSetLeft()) return;
 
@@ -1072,6 +1088,7 @@ public class XSSFCellStyle implements CellStyle {
      */
     @Override
     public void setLocked(boolean locked) {
+        _stylesSource.incrementCellStyleModCount();
         if (!_cellXf.isSetProtection()) {
              _cellXf.addNewProtection();
          }
@@ -1085,6 +1102,7 @@ public class XSSFCellStyle implements CellStyle {
      */
     @Override
     public void setQuotePrefixed(boolean quotePrefix) {
+        _stylesSource.incrementCellStyleModCount();
         _cellXf.setQuotePrefix(quotePrefix);
     }
 
@@ -1107,6 +1125,7 @@ public class XSSFCellStyle implements CellStyle {
      * @param color the color to use
      */
     public void setRightBorderColor(XSSFColor color) {
+        _stylesSource.incrementCellStyleModCount();
         CTBorder ct = getCTBorder();
         if(color == null && !ct.isSetRight()) return;
 
@@ -1141,6 +1160,7 @@ public class XSSFCellStyle implements CellStyle {
      */
     @Override
     public void setRotation(short rotation) {
+        _stylesSource.incrementCellStyleModCount();
         getCellAlignment().setTextRotation(rotation);
     }
 
@@ -1164,6 +1184,7 @@ public class XSSFCellStyle implements CellStyle {
      * @param color the color to use
      */
     public void setTopBorderColor(XSSFColor color) {
+        _stylesSource.incrementCellStyleModCount();
         CTBorder ct = getCTBorder();
         if(color == null && !ct.isSetTop()) return;
 
@@ -1183,6 +1204,7 @@ public class XSSFCellStyle implements CellStyle {
      * @param align - the type of alignment
      */
     public void setVerticalAlignment(VerticalAlignment align) {
+        _stylesSource.incrementCellStyleModCount();
         getCellAlignment().setVertical(align);
     }
 
@@ -1197,6 +1219,7 @@ public class XSSFCellStyle implements CellStyle {
      */
     @Override
     public void setWrapText(boolean wrapped) {
+        _stylesSource.incrementCellStyleModCount();
         getCellAlignment().setWrapText(wrapped);
     }
 
@@ -1246,6 +1269,7 @@ public class XSSFCellStyle implements CellStyle {
 
     @Override
     public void setShrinkToFit(boolean shrinkToFit) {
+        _stylesSource.incrementCellStyleModCount();
         getCellAlignment().setShrinkToFit(shrinkToFit);
     }
 
@@ -406,7 +406,19 @@ public class XSSFColor extends ExtendedColor {
     
     @Override
     public int hashCode(){
-        return ctColor.toString().hashCode();
+        // only hash the properties compared by equals(), as equivalent colors
+        // may have different XML string representations
+        int hash = Boolean.hashCode(isAuto());
+        if (isRGB()) {
+            hash = hash * 31 + Arrays.hashCode(getARGB());
+        }
+        if (isThemed()) {
+            hash = hash * 31 + getTheme();
+        }
+        if (isIndexed()) {
+            hash = hash * 31 + getIndexed();
+        }
+        return hash;
     }
 
     // Helper methods for {@link #equals(Object)}
@@ -17,13 +17,10 @@
 
 package org.apache.poi.xssf.usermodel;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import org.apache.poi.ss.formula.EvaluationCell;
 import org.apache.poi.ss.formula.EvaluationSheet;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.util.Internal;
 
 /**
@@ -33,7 +30,11 @@ import org.apache.poi.util.Internal;
 final class XSSFEvaluationSheet implements EvaluationSheet {
 
     private final XSSFSheet _xs;
-    private Map<CellKey, EvaluationCell> _cellCache;
+    /**
+     * The cell wrappers indexed by row and column number. The rows and cells are only
+     * added on their first access, so unused parts of the sheet don't allocate anything.
+     */
+    private EvaluationCell[][] _cellCache;
 
     public XSSFEvaluationSheet(XSSFSheet sheet) {
         _xs = sheet;
@@ -74,27 +75,22 @@ final class XSSFEvaluationSheet implements EvaluationSheet {
     public EvaluationCell getCell(int rowIndex, int columnIndex) {
         // shortcut evaluation if reference is outside the bounds of existing data
         // see issue #61841 for impact on VLOOKUP in particular
-        if (rowIndex > getLastRowNum()) {
+        final int lastRowNum = getLastRowNum();
+        if (rowIndex < 0 || rowIndex > lastRowNum) {
             return null;
         }
 
         // cache for performance: ~30% speedup due to caching
         if (_cellCache == null) {
-            _cellCache = new HashMap<>(_xs.getLastRowNum() * 3);
-            for (final Row row : _xs) {
-                final int rowNum = row.getRowNum();
-                for (final Cell cell : row) {
-                    // cast is safe, the iterator is just defined using the interface
-                    final CellKey key = new CellKey(rowNum, cell.getColumnIndex());
-                    final EvaluationCell evalcell = new XSSFEvaluationCell((XSSFCell) cell, this);
-                    _cellCache.put(key, evalcell);
-                }
-            }
+            _cellCache = new EvaluationCell[lastRowNum + 1][];
+        } else if (rowIndex >= _cellCache.length) {
+            // rows have been added since the cache was created
+            _cellCache = Arrays.copyOf(_cellCache, lastRowNum + 1);
         }
-        
-        final CellKey key = new CellKey(rowIndex, columnIndex);
-        EvaluationCell evalcell = _cellCache.get(key);
-        
+
+        EvaluationCell[] rowCells = _cellCache[rowIndex];
+        EvaluationCell evalcell = (rowCells != null && columnIndex < rowCells.length) ? rowCells[columnIndex] : null;
+
         // If cache is stale, update cache with this one cell
         // This is a compromise between rebuilding the entire cache
         // (which would quickly defeat the benefit of the cache)
@@ -110,38 +106,15 @@ final class XSSFEvaluationSheet implements EvaluationSheet {
                 return null;
             }
             evalcell = new XSSFEvaluationCell(cell, this);
-            _cellCache.put(key, evalcell);
+            if (rowCells == null || columnIndex >= rowCells.length) {
+                // size the row for all of its current cells, so it usually needs to be allocated only once
+                int size = Math.max(row.getLastCellNum(), columnIndex + 1);
+                rowCells = (rowCells == null) ? new EvaluationCell[size] : Arrays.copyOf(rowCells, size);
+                _cellCache[rowIndex] = rowCells;
+            }
+            rowCells[columnIndex] = evalcell;
         }
 
         return evalcell;
     }
-    
-    private static class CellKey {
-        private final int _row;
-        private final int _col;
-        private int _hash = -1; //lazily computed
-        
-        protected CellKey(int row, int col) {
-            _row = row;
-            _col = col;
-        }
-        
-        @Override
-        public int hashCode() {
-            if ( _hash == -1 ) {
-                 _hash = (17 * 37 + _row) * 37 + _col;
-            }
-            return _hash;
-        }
-        
-        @Override
-        public boolean equals(Object obj) {
-            if (!(obj instanceof CellKey)) {
-                return false;
-            }
-            // assumes other object is one of us, otherwise ClassCastException is thrown
-            final CellKey oKey = (CellKey) obj;
-            return _row == oKey._row && _col == oKey._col;
-        }
-    }
 }
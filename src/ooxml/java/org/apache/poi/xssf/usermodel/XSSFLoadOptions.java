@@ -0,0 +1,77 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.usermodel;
+
+/**
+ * Options for reading an existing workbook, which need to be known before the workbook is loaded.
+ * An instance is only evaluated by the constructor of the {@link XSSFWorkbook}, so it can be reused
+ * for several workbooks.
+ *
+ * @see XSSFWorkbook#XSSFWorkbook(org.apache.poi.openxml4j.opc.OPCPackage, XSSFLoadOptions)
+ * @since POI 4.1.1
+ */
+public class XSSFLoadOptions {
+    private boolean compactRowStorage;
+    private boolean lazySheetLoading;
+
+    /**
+     * @return {@code true}, if the rows and cells of the sheets are kept in compact storage
+     * @see XSSFWorkbook#setCompactRowStorage(boolean)
+     */
+    public boolean isCompactRowStorage() {
+        return compactRowStorage;
+    }
+
+    /**
+     * @param compactRowStorage {@code true} to keep the rows and cells of the sheets in compact storage
+     * @return this options object
+     * @see XSSFWorkbook#setCompactRowStorage(boolean)
+     */
+    public XSSFLoadOptions setCompactRowStorage(boolean compactRowStorage) {
+        this.compactRowStorage = compactRowStorage;
+        return this;
+    }
+
+    /**
+     * @return {@code true}, if the worksheet parts are only parsed when a sheet is accessed
+     * @see XSSFWorkbook#isLazySheetLoading()
+     */
+    public boolean isLazySheetLoading() {
+        return lazySheetLoading;
+    }
+
+    /**
+     * Enables the lazy loading of sheets.<p>
+     *
+     * The worksheet parts are then only parsed, when the sheet is accessed the first time, e.g. via
+     * {@link XSSFWorkbook#getSheetAt(int)}, {@link XSSFWorkbook#getSheet(String)} or the sheet iterator.
+     * This reduces the open time and the heap usage, if only a few sheets of a large workbook are processed.
+     * Sheets, which have never been accessed, are written unchanged. Parsed sheets can be released via
+     * {@link XSSFWorkbook#unloadSheet(int)}.<p>
+     *
+     * As the pivot tables of a sheet are only known after the sheet has been loaded,
+     * {@link XSSFWorkbook#getPivotTables()} only returns the pivot tables of the loaded sheets in this mode.
+     *
+     * @param lazySheetLoading {@code true} to enable the lazy sheet loading
+     * @return this options object
+     */
+    public XSSFLoadOptions setLazySheetLoading(boolean lazySheetLoading) {
+        this.lazySheetLoading = lazySheetLoading;
+        return this;
+    }
+}
@@ -22,6 +22,7 @@ import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.TreeMap;
 
 import org.apache.poi.ss.SpreadsheetVersion;
@@ -34,7 +35,9 @@ import org.apache.poi.ss.usermodel.FormulaError;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.helpers.RowShifter;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
 import org.apache.poi.util.Beta;
+import org.apache.poi.util.IntSortedArrayMap;
 import org.apache.poi.util.Internal;
 import org.apache.poi.xssf.model.StylesTable;
 import org.apache.poi.xssf.usermodel.helpers.XSSFRowShifter;
@@ -54,9 +57,9 @@ public class XSSFRow implements Row, Comparable<XSSFRow> {
 
     /**
      * Cells of this row keyed by their column indexes.
-     * The TreeMap ensures that the cells are ordered by columnIndex in the ascending order.
+     * The SortedMap ensures that the cells are ordered by columnIndex in the ascending order.
      */
-    private final TreeMap<Integer, XSSFCell> _cells;
+    private final SortedMap<Integer, XSSFCell> _cells;
 
     /**
      * the parent sheet
@@ -72,13 +75,31 @@ public class XSSFRow implements Row, Comparable<XSSFRow> {
     protected XSSFRow(CTRow row, XSSFSheet sheet) {
         _row = row;
         _sheet = sheet;
-        _cells = new TreeMap<>();
-        for (CTCell c : row.getCArray()) {
-            XSSFCell cell = new XSSFCell(this, c);
-            // Performance optimization for bug 57840: explicit boxing is slightly faster than auto-unboxing, though may use more memory
-            final Integer colI = Integer.valueOf(cell.getColumnIndex()); // NOSONAR
-            _cells.put(colI, cell);
-            sheet.onReadCell(cell);
+        final CTCell[] cArray = row.getCArray();
+        if (sheet.isCompactRowStorage()) {
+            LazyCellMap cells = new LazyCellMap();
+            _cells = cells;
+            for (CTCell c : cArray) {
+                int colIdx = c.isSetF() ? -1 : getColumnIndex(c.getR());
+                if (colIdx == -1) {
+                    // formula cells need to be registered with the sheet and cells without
+                    // a reference depend on their predecessor, so create those eagerly
+                    XSSFCell cell = new XSSFCell(this, c);
+                    cells.put(cell.getColumnIndex(), cell);
+                    sheet.onReadCell(cell);
+                } else {
+                    cells.putUnresolved(colIdx, c);
+                }
+            }
+        } else {
+            _cells = new TreeMap<>();
+            for (CTCell c : cArray) {
+                XSSFCell cell = new XSSFCell(this, c);
+                // Performance optimization for bug 57840: explicit boxing is slightly faster than auto-unboxing, though may use more memory
+                final Integer colI = Integer.valueOf(cell.getColumnIndex()); // NOSONAR
+                _cells.put(colI, cell);
+                sheet.onReadCell(cell);
+            }
         }
 
         if (! row.isSetR()) {
@@ -92,6 +113,54 @@ public class XSSFRow implements Row, Comparable<XSSFRow> {
         }
     }
 
+    /**
+     * Parses the column index of a cell reference like "AB12" without creating a {@link CellReference}
+     *
+     * @return the 0-based column index or -1, if the reference is missing or not a simple A1 reference
+     */
+    private static int getColumnIndex(String ref) {
+        if (ref == null) {
+            return -1;
+        }
+        int col = 0, i = 0;
+        final int len = ref.length();
+        for (; i < len; i++) {
+            char ch = ref.charAt(i);
+            if (ch >= 'A' && ch <= 'Z') {
+                col = col*26 + (ch - 'A' + 1);
+            } else if (ch >= 'a' && ch <= 'z') {
+                col = col*26 + (ch - 'a' + 1);
+            } else {
+                break;
+            }
+            if (col > SpreadsheetVersion.EXCEL2007.getMaxColumns()) {
+                return -1;
+            }
+        }
+        return (i == 0 || i == len) ? -1 : col-1;
+    }
+
+    /**
+     * Compact cell storage, which keeps the plain CTCell beans until the cell is accessed
+     */
+    private final class LazyCellMap extends IntSortedArrayMap<XSSFCell> {
+        @Override
+        protected boolean isResolved(Object stored) {
+            return stored instanceof XSSFCell;
+        }
+
+        @Override
+        protected XSSFCell resolve(int key, Object stored) {
+            return new XSSFCell(XSSFRow.this, (CTCell)stored);
+        }
+
+        // overridden to make it accessible for the enclosing row
+        @Override
+        protected void putUnresolved(int key, Object stored) {
+            super.putUnresolved(key, stored);
+        }
+    }
+
     /**
      * Returns the XSSFSheet this row belongs to
      *
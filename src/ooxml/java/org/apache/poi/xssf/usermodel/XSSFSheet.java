@@ -76,6 +76,7 @@ import org.apache.poi.ss.util.PaneInformation;
 import org.apache.poi.ss.util.SSCellRange;
 import org.apache.poi.ss.util.SheetUtil;
 import org.apache.poi.util.Beta;
+import org.apache.poi.util.IntSortedArrayMap;
 import org.apache.poi.util.Internal;
 import org.apache.poi.util.POILogFactory;
 import org.apache.poi.util.POILogger;
@@ -162,7 +163,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet  {
     protected CTSheet sheet;
     protected CTWorksheet worksheet;
 
-    private final SortedMap<Integer, XSSFRow> _rows = new TreeMap<>();
+    private SortedMap<Integer, XSSFRow> _rows = new TreeMap<>();
     private List<XSSFHyperlink> hyperlinks;
     private ColumnHelper columnHelper;
     private CommentsTable sheetComments;
@@ -174,6 +175,17 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet  {
     private SortedMap<String,XSSFTable> tables;
     private List<CellRangeAddress> arrayFormulas;
     private XSSFDataValidationHelper dataValidationHelper;
+    /**
+     * {@code true}, if the worksheet part hasn't been parsed yet
+     * @see XSSFLoadOptions#setLazySheetLoading(boolean)
+     */
+    private boolean deferredRead;
+    /**
+     * The row storage of a deferred worksheet, which is chosen when the parsing is deferred,
+     * or {@code null} to use the current setting of the workbook
+     * @see XSSFWorkbook#setCompactRowStorage(boolean)
+     */
+    private Boolean deferredCompactRows;
 
     /**
      * Creates new XSSFSheet   - called by XSSFWorkbook to create a sheet from scratch.
@@ -240,7 +252,11 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet  {
                 tables.put( rp.getRelationship().getId(), (XSSFTable)p );
             }
             if(p instanceof XSSFPivotTable) {
-                getWorkbook().getPivotTables().add((XSSFPivotTable) p);
+                // lazily loaded sheets might be read more than once
+                List<XSSFPivotTable> pivotTables = getWorkbook().getPivotTables();
+                if (!pivotTables.contains(p)) {
+                    pivotTables.add((XSSFPivotTable) p);
+                }
             }
         }
 
@@ -248,6 +264,68 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet  {
         initHyperlinks();
     }
 
+    /**
+     * Defers the parsing of the worksheet part until the sheet is accessed via the workbook
+     */
+    void deferRead() {
+        deferredRead = true;
+        // the storage is chosen on opening, like for sheets which are parsed right away
+        deferredCompactRows = getWorkbook().isCompactRowStorage();
+    }
+
+    /**
+     * @return {@code true}, if the worksheet part has been parsed or the sheet was newly created
+     */
+    boolean isRead() {
+        return !deferredRead;
+    }
+
+    /**
+     * Parses the worksheet part, if this has been deferred
+     */
+    void ensureRead() {
+        if (!deferredRead) {
+            return;
+        }
+        deferredRead = false;
+        // the part is replaced by the package, when a zip part is written, e.g. when a sheet is unloaded
+        PackagePart part = getPackagePart();
+        PackagePart current = part.getPackage().getPart(part.getPartName());
+        try (InputStream is = (current == null ? part : current).getInputStream()) {
+            read(is);
+            deferredCompactRows = null;
+        } catch (IOException e) {
+            deferredRead = true;
+            throw new POIXMLException(e);
+        }
+    }
+
+    /**
+     * Releases the parsed worksheet, so it's parsed again on the next access
+     *
+     * @param writeChanges if {@code true}, the worksheet is written to the package part beforehand
+     * @throws IOException if the worksheet can't be written
+     */
+    void unload(boolean writeChanges) throws IOException {
+        if (deferredRead) {
+            return;
+        }
+        if (writeChanges) {
+            prepareForCommit();
+            commit();
+        }
+        // the sheet keeps its storage, when it's parsed again
+        deferredCompactRows = isCompactRowStorage();
+        worksheet = null;
+        _rows = new TreeMap<>();
+        hyperlinks = null;
+        columnHelper = null;
+        sharedFormulas = null;
+        tables = null;
+        arrayFormulas = null;
+        deferredRead = true;
+    }
+
     /**
      * Initialize worksheet data when creating a new sheet.
      */
@@ -260,7 +338,10 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet  {
     }
 
     private void initRows(CTWorksheet worksheetParam) {
-        _rows.clear();
+        // newly created sheets aren't attached to the workbook yet, see useCompactRowStorage()
+        final XSSFWorkbook wb = getWorkbook();
+        final boolean compact = (deferredCompactRows != null) ? deferredCompactRows : (wb != null && wb.isCompactRowStorage());
+        _rows = compact ? new IntSortedArrayMap<>() : new TreeMap<>();
         tables = new TreeMap<>();
         sharedFormulas = new HashMap<>();
         arrayFormulas = new ArrayList<>();
@@ -272,6 +353,23 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet  {
         }
     }
 
+    /**
+     * @return {@code true}, if the rows of this sheet and their cells are kept in compact storage
+     * @see XSSFWorkbook#setCompactRowStorage(boolean)
+     */
+    boolean isCompactRowStorage() {
+        return _rows instanceof IntSortedArrayMap;
+    }
+
+    /**
+     * Switches a newly created (empty) sheet to the compact storage
+     */
+    void useCompactRowStorage() {
+        if (_rows.isEmpty()) {
+            _rows = new IntSortedArrayMap<>();
+        }
+    }
+
     /**
      * Read hyperlink relations, link them with CTHyperlink beans in this worksheet
      * and initialize the internal array of XSSFHyperlink objects
@@ -3570,8 +3668,19 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet  {
         }
     }
 
+    @Override
+    protected void prepareForCommit() {
+        // keep the content of worksheet parts, which haven't been parsed
+        if (!deferredRead) {
+            super.prepareForCommit();
+        }
+    }
+
     @Override
     protected void commit() throws IOException {
+        if (deferredRead) {
+            return;
+        }
         PackagePart part = getPackagePart();
         OutputStream out = part.getOutputStream();
         write(out);
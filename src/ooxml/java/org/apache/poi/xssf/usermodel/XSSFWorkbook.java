@@ -115,7 +115,7 @@ import org.openxmlformats.schemas.spreadsheetml.x2006.main.WorkbookDocument;
  * will construct whether they are reading or writing a workbook.  It is also the
  * top level object for creating new sheets/etc.
  */
-public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Support {
+public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Support, CellStyleModCountSupport {
     private static final Pattern COMMA_PATTERN = Pattern.compile(",");
 
     /**
@@ -161,6 +161,11 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
      */
     private List<XSSFName> namedRanges;
 
+    /**
+     * the number of modifications of the named ranges, i.e. additions, removals, renames and scope changes
+     */
+    private int namedRangesModCount;
+
     /**
      * shared string table - a cache of strings in this workbook
      */
@@ -213,6 +218,16 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
      */
     private boolean cellFormulaValidation = true;
 
+    /**
+     * Whether sheets, which are read or created afterwards, keep their rows and cells in compact storage.
+     */
+    private boolean compactRowStorage;
+
+    /**
+     * Whether the worksheet parts are only parsed when a sheet is accessed
+     */
+    private boolean lazySheetLoading;
+
     /**
      * array of pictures for this workbook
      */
@@ -273,8 +288,25 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
      * @param pkg the OpenXML4J <code>OPC Package</code> object.
      */
     public XSSFWorkbook(OPCPackage pkg) throws IOException {
+        this(pkg, null);
+    }
+
+    /**
+     * Constructs a XSSFWorkbook object given a OpenXML4J <code>Package</code> object and
+     * the options for loading the workbook.
+     *
+     * @param pkg the OpenXML4J <code>OPC Package</code> object.
+     * @param options the load options or {@code null} for the defaults
+     * @see #XSSFWorkbook(OPCPackage)
+     * @since POI 4.1.1
+     */
+    public XSSFWorkbook(OPCPackage pkg, XSSFLoadOptions options) throws IOException {
         super(pkg);
         this.xssfFactory = XSSFFactory.getInstance();
+        if (options != null) {
+            this.compactRowStorage = options.isCompactRowStorage();
+            this.lazySheetLoading = options.isLazySheetLoading();
+        }
 
         beforeDocumentRead();
 
@@ -303,6 +335,19 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
         this(PackageHelper.open(is));
     }
 
+    /**
+     * Constructs a XSSFWorkbook object, by buffering the whole stream into memory
+     *  and then opening an {@link OPCPackage} object for it.
+     *
+     * @param is the input stream
+     * @param options the load options or {@code null} for the defaults
+     * @see #XSSFWorkbook(InputStream)
+     * @since POI 4.1.1
+     */
+    public XSSFWorkbook(InputStream is, XSSFLoadOptions options) throws IOException {
+        this(PackageHelper.open(is), options);
+    }
+
     /**
      * Constructs a XSSFWorkbook object from a given file.
      *
@@ -319,6 +364,18 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
         this(OPCPackage.open(file));
     }
 
+    /**
+     * Constructs a XSSFWorkbook object from a given file and the options for loading the workbook.
+     *
+     * @param file   the file to open
+     * @param options the load options or {@code null} for the defaults
+     * @see #XSSFWorkbook(File)
+     * @since POI 4.1.1
+     */
+    public XSSFWorkbook(File file, XSSFLoadOptions options) throws IOException, InvalidFormatException {
+        this(OPCPackage.open(file), options);
+    }
+
     /**
      * Constructs a XSSFWorkbook object given a file name.
      *
@@ -445,7 +502,11 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
             return;
         }
         sh.sheet = ctSheet;
-        sh.onDocumentRead();
+        if (lazySheetLoading) {
+            sh.deferRead();
+        } else {
+            sh.onDocumentRead();
+        }
         sheets.add(sh);
     }
 
@@ -601,7 +662,7 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
      */
     public XSSFSheet cloneSheet(int sheetNum, String newName) {
         validateSheetIndex(sheetNum);
-        XSSFSheet srcSheet = sheets.get(sheetNum);
+        XSSFSheet srcSheet = getSheetAt(sheetNum);
 
         if (newName == null) {
             String srcName = srcSheet.getSheetName();
@@ -783,6 +844,7 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
         XSSFName name = new XSSFName(ctName, this);
         namedRanges.add(name);
         namedRangesByName.put(ctName.getName().toLowerCase(Locale.ENGLISH), name);
+        namedRangesModCount++;
         return name;
     }
 
@@ -892,6 +954,9 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
         RelationPart rp = createRelationship(XSSFRelation.WORKSHEET, this.xssfFactory, sheetNumber, false);
         XSSFSheet wrapper = rp.getDocumentPart();
         wrapper.sheet = sheet;
+        if (compactRowStorage) {
+            wrapper.useCompactRowStorage();
+        }
         sheet.setId(rp.getRelationship().getId());
         sheet.setSheetId(sheetNumber);
         if (sheets.isEmpty()) {
@@ -1071,6 +1136,12 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
         return stylesSource.getNumCellStyles();
     }
 
+    @Internal
+    @Override
+    public int getCellStyleModCount() {
+        return stylesSource.getCellStyleModCount();
+    }
+
     @Override
     public short getNumberOfFonts() {
         return (short)getNumberOfFontsAsInt();
@@ -1127,6 +1198,7 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
     public XSSFSheet getSheet(String name) {
         for (XSSFSheet sheet : sheets) {
             if (name.equalsIgnoreCase(sheet.getSheetName())) {
+                sheet.ensureRead();
                 return sheet;
             }
         }
@@ -1144,7 +1216,9 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
     @Override
     public XSSFSheet getSheetAt(int index) {
         validateSheetIndex(index);
-        return sheets.get(index);
+        XSSFSheet sheet = sheets.get(index);
+        sheet.ensureRead();
+        return sheet;
     }
 
     /**
@@ -1235,7 +1309,9 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
         }
         @Override
         public T next() throws NoSuchElementException {
-            return it.next();
+            T sheet = it.next();
+            ((XSSFSheet)sheet).ensureRead();
+            return sheet;
         }
         /**
          * Unexpected behavior may occur if sheets are reordered after iterator
@@ -1308,6 +1384,7 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
                 || !namedRanges.remove(name)) {
             throw new IllegalArgumentException("Name was not found: " + name);
         }
+        namedRangesModCount++;
     }
 
     void updateName(XSSFName name, String oldName) {
@@ -1315,6 +1392,22 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
             throw new IllegalArgumentException("Name was not found: " + name);
         }
         namedRangesByName.put(name.getNameName().toLowerCase(Locale.ENGLISH), name);
+        namedRangesModCount++;
+    }
+
+    /**
+     * Called when the scope of a name has changed
+     */
+    void updateNameScope() {
+        namedRangesModCount++;
+    }
+
+    /**
+     * @return the number of modifications of the named ranges - each addition, removal, rename or
+     *   scope change increments the count
+     */
+    int getNamedRangesModCount() {
+        return namedRangesModCount;
     }
 
 
@@ -1586,6 +1679,7 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
     public void setSelectedTab(int index) {
         int idx = 0;
         for (XSSFSheet sh : sheets) {
+            sh.ensureRead();
             sh.setSelected(idx == index);
             idx++;
         }
@@ -1741,6 +1835,7 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
     private void reprocessNamedRanges() {
         namedRangesByName = new ArrayListValuedHashMap<>();
         namedRanges = new ArrayList<>();
+        namedRangesModCount++;
         if(workbook.isSetDefinedNames()) {
             for(CTDefinedName ctName : workbook.getDefinedNames().getDefinedNameArray()) {
                 createAndStoreName(ctName);
@@ -2362,6 +2457,7 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
     public XSSFTable getTable(String name) {
         if (name != null && sheets != null) {
             for (XSSFSheet sheet : sheets) {
+                sheet.ensureRead();
                 for (XSSFTable tbl : sheet.getTables()) {
                     if (name.equalsIgnoreCase(tbl.getName())) {
                         return tbl;
@@ -2428,4 +2524,73 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
     public boolean getCellFormulaValidation() {
         return this.cellFormulaValidation;
     }
+
+    /**
+     * Enables the compact storage of rows and cells for sheets of this workbook, which are created or
+     * parsed afterwards. To apply it to the sheets of an existing workbook, use the
+     * {@link XSSFLoadOptions} when opening the workbook. Lazily loaded sheets use the setting
+     * at the time the workbook was opened, even though they are parsed later on.<p>
+     *
+     * Instead of tree maps, the rows of a sheet and the cells of a row are kept in sorted
+     * int-keyed arrays. Furthermore the {@link XSSFCell} wrappers of plain (non-formula) cells
+     * are only created when the cell is accessed the first time, so reading a large workbook
+     * and accessing only a few cells costs considerably less heap.<p>
+     *
+     * Random inserts of rows/cells in the middle of large sheets/rows are slower in this mode,
+     * therefore it's disabled by default.
+     *
+     * @param compact {@code true} to enable the compact storage
+     * @since POI 4.1.1
+     */
+    public void setCompactRowStorage(boolean compact) {
+        compactRowStorage = compact;
+    }
+
+    /**
+     * @return {@code true}, if rows and cells of sheets, which are read or created afterwards, are kept in compact storage
+     * @see #setCompactRowStorage(boolean)
+     * @since POI 4.1.1
+     */
+    public boolean isCompactRowStorage() {
+        return compactRowStorage;
+    }
+
+    /**
+     * @return {@code true}, if the sheets of this workbook are only parsed when they are accessed
+     * @see XSSFLoadOptions#setLazySheetLoading(boolean)
+     * @since POI 4.1.1
+     */
+    public boolean isLazySheetLoading() {
+        return lazySheetLoading;
+    }
+
+    /**
+     * @param sheetIndex the sheet index (0-based)
+     * @return {@code true}, if the sheet content has been parsed, i.e. the sheet has been created or
+     *  accessed since the workbook was read in lazy mode or since it was unloaded.
+     * @see XSSFLoadOptions#setLazySheetLoading(boolean)
+     * @since POI 4.1.1
+     */
+    public boolean isSheetLoaded(int sheetIndex) {
+        validateSheetIndex(sheetIndex);
+        return sheets.get(sheetIndex).isRead();
+    }
+
+    /**
+     * Releases the parsed content of a sheet - it will be parsed again on the next access.
+     * Any modifications are written to the package part beforehand, unless the package was opened
+     * read-only, in which case they are discarded.<p>
+     *
+     * The sheet object itself stays valid, but the rows, cells and other objects obtained from the sheet
+     * before unloading must not be used anymore.
+     *
+     * @param sheetIndex the sheet index (0-based)
+     * @throws IOException if the modified sheet can't be written to its package part
+     * @see XSSFLoadOptions#setLazySheetLoading(boolean)
+     * @since POI 4.1.1
+     */
+    public void unloadSheet(int sheetIndex) throws IOException {
+        validateSheetIndex(sheetIndex);
+        sheets.get(sheetIndex).unload(getPackage().getPackageAccess() != PackageAccess.READ);
+    }
 }
@@ -191,7 +191,12 @@ public class XSSFCellBorder {
 
 
     public int hashCode() {
-        return border.toString().hashCode();
+        // hash the properties compared by equals(), see there
+        int hash = 0;
+        for (BorderSide side : BorderSide.values()) {
+            hash = hash * 31 + Objects.hash(getBorderColor(side), getBorderStyle(side));
+        }
+        return hash;
     }
 
     public boolean equals(Object o) {
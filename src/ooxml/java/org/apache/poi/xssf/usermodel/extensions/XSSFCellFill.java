@@ -169,7 +169,8 @@ public final class XSSFCellFill {
 
 
     public int hashCode() {
-        return _fill.toString().hashCode();
+        // hash the properties compared by equals(), see there
+        return Objects.hash(getFillBackgroundColor(), getFillForegroundColor(), getPatternType());
     }
 
     public boolean equals(Object o) {
@@ -0,0 +1,147 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Calendar;
+import java.util.Random;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Generates the workbooks used by the benchmarks. The content only depends on the number of rows,
+ * so each run measures the same documents and no test data files are needed.<p>
+ *
+ * Each row contains a string from a limited vocabulary (to exercise the shared strings table), a unique
+ * string, a number, a date, a percentage and two formulas referring to the preceding cells and rows.
+ */
+final class BenchmarkFixtures {
+    static final String HSSF = "HSSF";
+    static final String XSSF = "XSSF";
+    static final String SXSSF = "SXSSF";
+
+    static final int COLUMNS = 7;
+
+    private static final long SEED = 4711;
+
+    private BenchmarkFixtures() {}
+
+    static Workbook createWorkbook(String format) {
+        switch (format) {
+            case HSSF: return new HSSFWorkbook();
+            case XSSF: return new XSSFWorkbook();
+            case SXSSF: return new SXSSFWorkbook(100);
+            default: throw new IllegalArgumentException("Unknown format: " + format);
+        }
+    }
+
+    /**
+     * Fills the first sheet of the workbook with the generated rows
+     */
+    static void fillWorkbook(Workbook wb, int rows) {
+        Random rnd = new Random(SEED);
+        CreationHelper helper = wb.getCreationHelper();
+        CellStyle dateStyle = wb.createCellStyle();
+        dateStyle.setDataFormat(helper.createDataFormat().getFormat("yyyy-mm-dd"));
+        CellStyle percentStyle = wb.createCellStyle();
+        percentStyle.setDataFormat(helper.createDataFormat().getFormat("0.00%"));
+        CellStyle numberStyle = wb.createCellStyle();
+        numberStyle.setDataFormat(helper.createDataFormat().getFormat("#,##0.00"));
+
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(2019, Calendar.JANUARY, 1);
+
+        Sheet sheet = wb.createSheet("data");
+        for (int r = 0; r < rows; r++) {
+            Row row = sheet.createRow(r);
+            row.createCell(0).setCellValue("category " + rnd.nextInt(50));
+            row.createCell(1).setCellValue("item " + r + " " + Long.toHexString(rnd.nextLong()));
+
+            Cell amount = row.createCell(2);
+            amount.setCellValue(rnd.nextInt(1000000) / 100.0);
+            amount.setCellStyle(numberStyle);
+
+            Cell date = row.createCell(3);
+            cal.add(Calendar.HOUR_OF_DAY, rnd.nextInt(48));
+            date.setCellValue(cal.getTime());
+            date.setCellStyle(dateStyle);
+
+            Cell share = row.createCell(4);
+            share.setCellValue(rnd.nextDouble());
+            share.setCellStyle(percentStyle);
+
+            String rowRef = Integer.toString(r + 1);
+            row.createCell(5).setCellFormula("C" + rowRef + "*E" + rowRef);
+            Cell total = row.createCell(6);
+            if (r == 0) {
+                total.setCellFormula("F1");
+            } else {
+                total.setCellFormula(new CellReference(r - 1, 6).formatAsString() + "+F" + rowRef);
+            }
+            total.setCellStyle(numberStyle);
+        }
+    }
+
+    /**
+     * @return the serialized generated workbook
+     */
+    static byte[] createWorkbookBytes(String format, int rows) throws IOException {
+        try (Workbook wb = createWorkbook(format)) {
+            fillWorkbook(wb, rows);
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            wb.write(bos);
+            if (wb instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook)wb).dispose();
+            }
+            return bos.toByteArray();
+        }
+    }
+
+    /**
+     * An output stream which discards the written bytes, so writing is measured without buffer copies
+     */
+    static final class NullOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
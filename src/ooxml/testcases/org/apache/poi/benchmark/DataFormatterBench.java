@@ -0,0 +1,76 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures formatting all cells of the generated workbook with {@link DataFormatter},
+ * which covers the number, date and percentage formats and the cached formula results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataFormatterBench {
+
+    @Param({"10000"})
+    public int rows;
+
+    private Workbook wb;
+    private FormulaEvaluator evaluator;
+
+    @Setup(Level.Trial)
+    public void createFixture() throws IOException {
+        byte[] bytes = BenchmarkFixtures.createWorkbookBytes(BenchmarkFixtures.XSSF, rows);
+        wb = WorkbookFactory.create(new ByteArrayInputStream(bytes));
+        evaluator = wb.getCreationHelper().createFormulaEvaluator();
+        // store the formula results, so the benchmark doesn't measure the evaluation
+        evaluator.evaluateAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        wb.close();
+    }
+
+    @Benchmark
+    public long formatCellValues() {
+        // a new formatter in each invocation, so its format cache is measured as well
+        DataFormatter formatter = new DataFormatter();
+        long length = 0;
+        for (Row row : wb.getSheetAt(0)) {
+            for (Cell cell : row) {
+                length += formatter.formatCellValue(cell).length();
+            }
+        }
+        return length;
+    }
+}
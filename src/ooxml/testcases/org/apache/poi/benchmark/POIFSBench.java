@@ -0,0 +1,86 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
+import org.apache.poi.poifs.filesystem.Entry;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.util.IOUtils;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the block I/O of {@link POIFSFileSystem}: writing and reading back a file system
+ * with streams in the mini stream (&lt; 4096 bytes) and in the big block stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class POIFSBench {
+
+    @Param({"100", "100000"})
+    public int documentSize;
+
+    @Param({"20"})
+    public int documents;
+
+    private byte[] content;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void createFixture() throws IOException {
+        content = new byte[documentSize];
+        new Random(4711).nextBytes(content);
+        bytes = write();
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        try (POIFSFileSystem fs = new POIFSFileSystem()) {
+            DirectoryNode root = fs.getRoot();
+            for (int i = 0; i < documents; i++) {
+                root.createDocument("doc" + i, new ByteArrayInputStream(content));
+            }
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(documents * documentSize + 8192);
+            fs.writeFilesystem(bos);
+            return bos.toByteArray();
+        }
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        long size = 0;
+        try (POIFSFileSystem fs = new POIFSFileSystem(new ByteArrayInputStream(bytes))) {
+            for (Entry entry : fs.getRoot()) {
+                try (DocumentInputStream dis = fs.getRoot().createDocumentInputStream(entry)) {
+                    size += IOUtils.toByteArray(dis).length;
+                }
+            }
+        }
+        return size;
+    }
+}
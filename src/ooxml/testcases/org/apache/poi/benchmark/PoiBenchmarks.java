@@ -0,0 +1,49 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of this package with allocation profiling, i.e. the results contain
+ * the allocation rate and the normalized allocations per operation ({@code gc.alloc.rate.norm}).<p>
+ *
+ * Usage: {@code PoiBenchmarks [regexp]}, e.g. {@code PoiBenchmarks WorkbookWriteBench} - without
+ * an argument all benchmarks are run. The JSON results are written to {@code poi-benchmarks.json},
+ * which can be compared between releases to spot throughput or allocation regressions.
+ */
+public final class PoiBenchmarks {
+    private PoiBenchmarks() {}
+
+    public static void main(String[] args) throws RunnerException {
+        String include = (args.length > 0) ? args[0] : PoiBenchmarks.class.getPackage().getName() + ".*";
+        Options opt = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("poi-benchmarks.json")
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,56 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures creating and writing the generated workbooks with the user model of each format
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkbookWriteBench {
+
+    @Param({BenchmarkFixtures.HSSF, BenchmarkFixtures.XSSF, BenchmarkFixtures.SXSSF})
+    public String format;
+
+    @Param({"10000"})
+    public int rows;
+
+    @Benchmark
+    public long write() throws IOException {
+        try (Workbook wb = BenchmarkFixtures.createWorkbook(format)) {
+            BenchmarkFixtures.fillWorkbook(wb, rows);
+            BenchmarkFixtures.NullOutputStream os = new BenchmarkFixtures.NullOutputStream();
+            wb.write(os);
+            if (wb instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook)wb).dispose();
+            }
+            return os.getCount();
+        }
+    }
+}
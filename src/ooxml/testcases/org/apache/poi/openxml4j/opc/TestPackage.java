@@ -1228,4 +1228,32 @@ public final class TestPackage {
 		}
 
 	}
+
+	@Test
+	public void openSpooledStream() throws IOException, InvalidFormatException {
+		for (boolean encrypt : new boolean[]{false, true}) {
+			final OPCPackage pkg;
+			try (InputStream is = OpenXML4JTestDataSamples.openSampleStream("sample.xlsx")) {
+				pkg = OPCPackage.openSpooled(is, encrypt);
+			}
+			// the stream can be closed right after opening
+			try {
+				PackagePart part = pkg.getPart(PackagingURIHelper.createPartName("/xl/workbook.xml"));
+				assertNotNull(part);
+				try (InputStream pis = part.getInputStream()) {
+					assertTrue(new String(IOUtils.toByteArray(pis), "UTF-8").contains("<sheets>"));
+				}
+			} finally {
+				pkg.close();
+			}
+		}
+
+		// broken or non-zip streams are rejected
+		try (InputStream is = new ByteArrayInputStream("PK\u0003\u0004 no zip".getBytes("UTF-8"))) {
+			OPCPackage.openSpooled(is, false).close();
+			fail("invalid zip should fail");
+		} catch (IOException|InvalidFormatException|UnsupportedFileFormatException e) {
+			// expected
+		}
+	}
 }
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Iterator;
+import java.util.Random;
 
 import javax.crypto.Cipher;
 
@@ -33,9 +34,12 @@ import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.poifs.crypt.agile.AgileDecryptor;
 import org.apache.poi.poifs.crypt.agile.AgileEncryptionHeader;
 import org.apache.poi.poifs.crypt.agile.AgileEncryptionVerifier;
+import org.apache.poi.poifs.crypt.agile.AgileEncryptor;
 import org.apache.poi.poifs.filesystem.*;
+import org.apache.poi.util.DefaultTempFileCreationStrategy;
 import org.apache.poi.util.IOUtils;
 import org.apache.poi.util.TempFile;
+import org.apache.poi.util.TempFileCreationStrategy;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
 import org.junit.Assume;
@@ -121,6 +125,131 @@ public class TestEncryptor {
         assertArrayEquals(payloadExpected, payloadActual);
     }
 
+    @Test
+    public void parallelAgileEncryption() throws Exception {
+        String password = "pass";
+        EncryptionInfo ei = new EncryptionInfo(EncryptionMode.agile);
+        AgileEncryptor enc = (AgileEncryptor)ei.getEncryptor();
+        enc.confirmPassword(password);
+
+        // more segments than a batch, with and without a padded last segment, and an empty package
+        Random rnd = new Random(4711);
+        for (int size : new int[]{ 4096*70, 4096*70+123, 100, 0 }) {
+            byte[] payloadExpected = new byte[size];
+            rnd.nextBytes(payloadExpected);
+
+            enc.setThreads(1);
+            byte[] encSequential = encryptPackage(enc, payloadExpected);
+            enc.setThreads(4);
+            byte[] encParallel = encryptPackage(enc, payloadExpected);
+
+            try (POIFSFileSystem fsSequential = new POIFSFileSystem(new ByteArrayInputStream(encSequential));
+                 POIFSFileSystem fsParallel = new POIFSFileSystem(new ByteArrayInputStream(encParallel))) {
+                byte[] packSequential, packParallel;
+                try (InputStream is = fsSequential.createDocumentInputStream(Decryptor.DEFAULT_POIFS_ENTRY)) {
+                    packSequential = IOUtils.toByteArray(is);
+                }
+                try (InputStream is = fsParallel.createDocumentInputStream(Decryptor.DEFAULT_POIFS_ENTRY)) {
+                    packParallel = IOUtils.toByteArray(is);
+                }
+                assertArrayEquals(packSequential, packParallel);
+
+                AgileDecryptor dec = (AgileDecryptor)new EncryptionInfo(fsParallel).getDecryptor();
+                assertTrue(dec.verifyPassword(password));
+                dec.setThreads(4);
+                try (InputStream is = dec.getDataStream(fsParallel)) {
+                    assertArrayEquals(payloadExpected, IOUtils.toByteArray(is));
+                }
+                assertTrue(dec.verifyIntegrity());
+            }
+        }
+
+        // the integrity check of a document encrypted by Office
+        File file = POIDataSamples.getDocumentInstance().getFile("bug53475-password-is-pass.docx");
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            EncryptionInfo info = new EncryptionInfo(fs);
+            AgileDecryptor dec = (AgileDecryptor)info.getDecryptor();
+            assertTrue(dec.verifyPassword("pass"));
+
+            byte[] payloadSequential;
+            try (InputStream is = dec.getDataStream(fs)) {
+                payloadSequential = IOUtils.toByteArray(is);
+            }
+            try {
+                dec.verifyIntegrity();
+                fail("the integrity HMAC is only calculated in parallel mode");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+
+            dec.setThreads(2);
+            try (InputStream is = dec.getDataStream(fs)) {
+                assertArrayEquals(payloadSequential, IOUtils.toByteArray(is));
+            }
+            assertTrue(dec.verifyIntegrity());
+        }
+    }
+
+    @Test
+    public void agileEncryptionWithoutTempFile() throws Exception {
+        String password = "pass";
+        EncryptionInfo ei = new EncryptionInfo(EncryptionMode.agile);
+        Encryptor enc = ei.getEncryptor();
+        enc.confirmPassword(password);
+
+        byte[] payloadExpected = new byte[10000];
+        new Random(42).nextBytes(payloadExpected);
+
+        final byte[] encrypted;
+        TempFile.setTempFileCreationStrategy(new TempFileCreationStrategy() {
+            @Override
+            public File createTempFile(String prefix, String suffix) throws IOException {
+                throw new IOException("the encrypted package is streamed into the filesystem");
+            }
+
+            @Override
+            public File createTempDirectory(String prefix) throws IOException {
+                throw new IOException("the encrypted package is streamed into the filesystem");
+            }
+        });
+        try {
+            encrypted = encryptPackage(enc, payloadExpected);
+        } finally {
+            TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy());
+        }
+
+        try (POIFSFileSystem fs = new POIFSFileSystem(new ByteArrayInputStream(encrypted))) {
+            DocumentEntry entry = (DocumentEntry)fs.getRoot().getEntry(Decryptor.DEFAULT_POIFS_ENTRY);
+            // StreamSize + data padded to the AES block size
+            assertEquals(8 + 10000 + 16 - 10000 % 16, entry.getSize());
+            try (DocumentInputStream dis = fs.createDocumentInputStream(Decryptor.DEFAULT_POIFS_ENTRY)) {
+                assertEquals(10000, dis.readLong());
+            }
+
+            AgileDecryptor dec = (AgileDecryptor)new EncryptionInfo(fs).getDecryptor();
+            assertTrue(dec.verifyPassword(password));
+            dec.setThreads(2);
+            try (InputStream is = dec.getDataStream(fs)) {
+                assertArrayEquals(payloadExpected, IOUtils.toByteArray(is));
+            }
+            assertTrue(dec.verifyIntegrity());
+        }
+    }
+
+    private static byte[] encryptPackage(Encryptor enc, byte[] payload) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (POIFSFileSystem fs = new POIFSFileSystem()) {
+            try (OutputStream os = enc.getDataStream(fs)) {
+                // odd write sizes to cross the segment boundaries
+                for (int off = 0; off < payload.length; off += 1000) {
+                    os.write(payload, off, Math.min(1000, payload.length - off));
+                }
+            }
+            fs.writeFilesystem(bos);
+        }
+        return bos.toByteArray();
+    }
+
     @Test
     public void agileEncryption() throws Exception {
         int maxKeyLen = Cipher.getMaxAllowedKeyLength("AES");
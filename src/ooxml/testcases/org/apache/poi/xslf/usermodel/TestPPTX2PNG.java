@@ -76,9 +76,19 @@ public class TestPPTX2PNG {
 
     @Test
     public void render() throws Exception {
+        render("1");
+    }
+
+    @Test
+    public void renderThreaded() throws Exception {
+        render("3");
+    }
+
+    private void render(String threads) throws Exception {
         assumeFalse("ignore HSLF (.ppt) / HEMF (.emf) / HWMF (.wmf) files in no-scratchpad run", xslfOnly && pptFile.matches(".*\\.(ppt|emf|wmf)$"));
 
         String[] args = {
+            "-threads", threads,
             "-format", "null", // png,gif,jpg or null for test
             "-slide", "-1", // -1 for all
             "-outdir", new File("build/tmp/").getCanonicalPath(),
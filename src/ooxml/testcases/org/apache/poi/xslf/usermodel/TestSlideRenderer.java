@@ -0,0 +1,111 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xslf.usermodel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.poi.sl.draw.SlideRenderer;
+import org.apache.poi.xslf.XSLFTestDataSamples;
+import org.junit.Test;
+
+public class TestSlideRenderer {
+    @Test
+    public void parallelEqualsSequential() throws IOException {
+        try (XMLSlideShow ppt1 = XSLFTestDataSamples.openSampleDocument("layouts.pptx");
+             XMLSlideShow ppt2 = XSLFTestDataSamples.openSampleDocument("layouts.pptx")) {
+            SlideRenderer renderer = new SlideRenderer();
+            renderer.setScale(0.5);
+
+            final List<int[]> expected = new ArrayList<>();
+            renderer.render(ppt1.getSlides(), (slide, img) -> expected.add(getPixels(img)));
+
+            final Map<Integer,int[]> actual = new ConcurrentHashMap<>();
+            renderer.setThreads(4);
+            renderer.render(ppt2.getSlides(), (slide, img) -> actual.put(slide.getSlideNumber(), getPixels(img)));
+
+            List<XSLFSlide> slides = ppt2.getSlides();
+            assertEquals(slides.size(), expected.size());
+            assertEquals(slides.size(), actual.size());
+            for (int i = 0; i < slides.size(); i++) {
+                assertArrayEquals("slide " + (i + 1), expected.get(i), actual.get(slides.get(i).getSlideNumber()));
+            }
+        }
+    }
+
+    @Test
+    public void sharedExecutor() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (XMLSlideShow ppt1 = XSLFTestDataSamples.openSampleDocument("layouts.pptx");
+             XMLSlideShow ppt2 = XSLFTestDataSamples.openSampleDocument("layouts.pptx")) {
+            SlideRenderer renderer = new SlideRenderer();
+            renderer.setScale(0.2);
+
+            final List<int[]> expected = new ArrayList<>();
+            renderer.render(ppt1.getSlides(), (slide, img) -> expected.add(getPixels(img)));
+
+            final Map<Integer,int[]> actual = new ConcurrentHashMap<>();
+            renderer.render(ppt2.getSlides(), (slide, img) -> actual.put(slide.getSlideNumber(), getPixels(img)), executor);
+            assertFalse(executor.isShutdown());
+
+            List<XSLFSlide> slides = ppt2.getSlides();
+            assertEquals(slides.size(), actual.size());
+            for (int i = 0; i < slides.size(); i++) {
+                assertArrayEquals("slide " + (i + 1), expected.get(i), actual.get(slides.get(i).getSlideNumber()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void handlerException() throws IOException {
+        try (XMLSlideShow ppt = XSLFTestDataSamples.openSampleDocument("layouts.pptx")) {
+            SlideRenderer renderer = new SlideRenderer();
+            renderer.setScale(0.1);
+            renderer.setThreads(2);
+            final IOException ex = new IOException("handler failed");
+            try {
+                renderer.render(ppt.getSlides(), (slide, img) -> {
+                    if (slide.getSlideNumber() == ppt.getSlides().size()) {
+                        throw ex;
+                    }
+                });
+                fail("the handler exception wasn't propagated");
+            } catch (IOException e) {
+                assertSame(ex, e);
+            }
+        }
+    }
+
+    private static int[] getPixels(BufferedImage img) {
+        return img.getRGB(0, 0, img.getWidth(), img.getHeight(), null, 0, img.getWidth());
+    }
+}
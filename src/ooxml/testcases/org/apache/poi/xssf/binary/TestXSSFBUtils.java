@@ -0,0 +1,72 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.apache.poi.util.LittleEndian;
+import org.junit.Test;
+
+public class TestXSSFBUtils {
+    @Test(expected = XSSFBParseException.class)
+    public void readBeyondRecordLength() {
+        // the trailing bytes of a reused record buffer must not be read
+        byte[] data = wideString("abc", 8);
+        XSSFBUtils.readXLWideString(data, 0, 4 + 4, new StringBuilder());
+    }
+
+    @Test
+    public void decode() {
+        String[] strs = {
+            "", "plain", "\u65E5\u672C", "\uD83D\uDE00 surrogate pair",
+            "unpaired \uD83D high", "unpaired \uDE00 low", "trailing high \uD83D"
+        };
+        String[] expected = {
+            "", "plain", "\u65E5\u672C", "\uD83D\uDE00 surrogate pair",
+            "unpaired \uFFFD high", "unpaired \uFFFD low", "trailing high \uFFFD"
+        };
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < strs.length; i++) {
+            byte[] data = wideString(strs[i], 5);
+            int length = data.length - 5;
+
+            sb.setLength(0);
+            assertEquals(length, XSSFBUtils.readXLWideString(data, 0, length, sb));
+            assertEquals(expected[i], sb.toString());
+
+            // the nullable variant appends to the buffer
+            sb.setLength(0);
+            sb.append('x');
+            assertEquals(length, XSSFBUtils.readXLNullableWideString(data, 0, length, sb));
+            assertEquals("x" + expected[i], sb.toString());
+        }
+    }
+
+    private static byte[] wideString(String str, int padding) {
+        // String.getBytes would replace the unpaired surrogates
+        byte[] data = new byte[4 + 2 * str.length() + padding];
+        LittleEndian.putInt(data, 0, str.length());
+        for (int i = 0; i < str.length(); i++) {
+            LittleEndian.putShort(data, 4 + 2 * i, (short)str.charAt(i));
+        }
+        Arrays.fill(data, 4 + 2 * str.length(), data.length, (byte)'?');
+        return data;
+    }
+}
@@ -0,0 +1,306 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackagingURIHelper;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.util.LittleEndian;
+import org.apache.poi.util.StringUtil;
+import org.apache.poi.xssf.eventusermodel.XSSFBReader;
+import org.apache.poi.xssf.extractor.XSSFBEventBasedExcelExtractor;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.junit.Test;
+
+public class TestXSSFBWorkbookWriter {
+
+    @Test
+    public void writeAndReadBack() throws Exception {
+        for (boolean useSharedStrings : new boolean[]{ false, true }) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try (XSSFBWorkbookWriter wb = new XSSFBWorkbookWriter(useSharedStrings)) {
+                XSSFBFont bold = wb.createFont();
+                bold.setBold(true);
+                bold.setColor(0xFF0000);
+
+                XSSFBCellStyle header = wb.createCellStyle();
+                header.setFont(bold);
+                header.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                header.setFillForegroundColor(0xCCCCCC);
+                header.setBorderBottom(BorderStyle.THIN);
+
+                XSSFBCellStyle percent = wb.createCellStyle();
+                percent.setDataFormat("0.00%");
+                XSSFBCellStyle custom = wb.createCellStyle();
+                custom.setDataFormat("#,##0.000 \"units\"");
+
+                XSSFBSheetWriter sh1 = wb.createSheet("Data");
+                sh1.startRow(0);
+                sh1.writeString(0, "Name", header);
+                sh1.writeString(1, "Value", header);
+                for (int r = 1; r <= 100; r++) {
+                    sh1.startRow(r);
+                    sh1.writeString(0, "item " + (r % 10));
+                    sh1.writeNumber(1, r);
+                    sh1.writeNumber(2, r / 8d, percent);
+                    sh1.writeNumber(3, r + 0.1234, custom);
+                }
+                sh1.startRow(200, 30);
+                sh1.writeBoolean(0, true);
+                sh1.writeError(1, FormulaError.NA);
+                sh1.writeBlank(2, header);
+                sh1.writeNumber(5, Double.POSITIVE_INFINITY);
+                sh1.writeString(16383, "last column \u65e5\u672c");
+
+                XSSFBSheetWriter sh2 = wb.createSheet("Empty");
+                assertEquals(-1, sh2.getLastRowNum());
+                assertEquals(2, wb.getNumberOfSheets());
+
+                wb.write(bos);
+            }
+
+            try (OPCPackage pkg = OPCPackage.open(new ByteArrayInputStream(bos.toByteArray()))) {
+                XSSFBReader r = new XSSFBReader(pkg);
+                XSSFBSharedStringsTable sst = new XSSFBSharedStringsTable(pkg);
+                assertEquals(useSharedStrings ? 103 : 0, sst.getCount());
+                assertEquals(useSharedStrings ? 13 : 0, sst.getUniqueCount());
+                XSSFBStylesTable styles = r.getXSSFBStylesTable();
+                checkStyleRecords(pkg);
+
+                XSSFBReader.SheetIterator it = (XSSFBReader.SheetIterator) r.getSheetsData();
+                List<String> cells = new ArrayList<>();
+                try (InputStream is = it.next()) {
+                    assertEquals("Data", it.getSheetName());
+                    readSheet(is, styles, sst, cells);
+                }
+                // the blank cell isn't reported
+                assertEquals(2 + 100 * 4 + 4, cells.size());
+                assertEquals("A1=Name", cells.get(0));
+                assertEquals("B1=Value", cells.get(1));
+                assertEquals("A2=item 1", cells.get(2));
+                assertEquals("B2=1", cells.get(3));
+                assertEquals("C2=12.50%", cells.get(4));
+                assertEquals("D2=1.123 units", cells.get(5));
+                assertEquals("B101=100", cells.get(399));
+                assertEquals("A201=TRUE", cells.get(402));
+                assertEquals("B201=ERROR", cells.get(403));
+                assertEquals("F201=ERROR", cells.get(404));
+                assertEquals("XFD201=last column \u65e5\u672c", cells.get(405));
+
+                try (InputStream is = it.next()) {
+                    assertEquals("Empty", it.getSheetName());
+                    cells.clear();
+                    readSheet(is, styles, sst, cells);
+                    assertEquals(0, cells.size());
+                }
+                assertFalse(it.hasNext());
+            }
+        }
+    }
+
+    @Test
+    public void extractor() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (XSSFBWorkbookWriter wb = new XSSFBWorkbookWriter(true)) {
+            XSSFBSheetWriter sh = wb.createSheet("Sheet1");
+            sh.startRow(0);
+            sh.writeString(0, "Hello");
+            sh.writeNumber(1, 1.5);
+            wb.write(bos);
+        }
+        try (XSSFBEventBasedExcelExtractor ext = new XSSFBEventBasedExcelExtractor(
+                OPCPackage.open(new ByteArrayInputStream(bos.toByteArray())))) {
+            String text = ext.getText();
+            assertTrue(text, text.contains("Sheet1\nHello\t1.5"));
+        }
+    }
+
+    @Test
+    public void rkNumbers() {
+        double[] values = { 0, 1, -1, 42, (1 << 29) - 1, -(1 << 29), 0.5, 1.25, -2.75, Math.pow(2, 40), -Math.pow(2, -10) };
+        for (double d : values) {
+            int rk = XSSFBSheetWriter.toRkNumber(d);
+            assertTrue("RK number expected for " + d, rk != 0);
+            double back;
+            if ((rk & 0x02) != 0) {
+                back = rk >> 2;
+            } else {
+                back = Double.longBitsToDouble(((long) (rk & ~0x03)) << 32);
+            }
+            assertEquals(d, back, 0);
+        }
+        assertEquals(0, XSSFBSheetWriter.toRkNumber(0.1));
+        assertEquals(0, XSSFBSheetWriter.toRkNumber(123456789.123));
+        assertEquals(0, XSSFBSheetWriter.toRkNumber(Math.PI));
+    }
+
+    @Test
+    public void invalidOrder() throws IOException {
+        try (XSSFBWorkbookWriter wb = new XSSFBWorkbookWriter();
+             XSSFBWorkbookWriter wb2 = new XSSFBWorkbookWriter()) {
+            XSSFBSheetWriter sh = wb.createSheet("Sheet1");
+            try {
+                sh.writeNumber(0, 1);
+                fail("expected IllegalStateException, because no row was started");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            sh.startRow(1);
+            sh.writeNumber(1, 1);
+            try {
+                sh.writeNumber(1, 2);
+                fail("expected IllegalArgumentException, because the column was already written");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            try {
+                sh.startRow(1);
+                fail("expected IllegalArgumentException, because the row was already written");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            try {
+                sh.writeNumber(2, 2, wb2.createCellStyle());
+                fail("expected IllegalArgumentException, because the style belongs to a different writer");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            try {
+                wb.createSheet("SHEET1");
+                fail("expected IllegalArgumentException, because of the duplicate sheet name");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Checks the fonts, fills, borders and XFs of the styles part, which aren't read by XSSFBStylesTable
+     */
+    private static void checkStyleRecords(OPCPackage pkg) throws Exception {
+        final Map<XSSFBRecordType,List<byte[]>> records = new EnumMap<>(XSSFBRecordType.class);
+        PackagePart part = pkg.getPart(PackagingURIHelper.createPartName(XSSFBRelation.STYLES_BINARY.getDefaultFileName()));
+        try (InputStream is = part.getInputStream()) {
+            new XSSFBParser(is) {
+                @Override
+                public void handleRecord(int recordType, byte[] data) {
+                    records.computeIfAbsent(XSSFBRecordType.lookup(recordType), k -> new ArrayList<>()).add(data);
+                }
+            }.parse();
+        }
+
+        // dyHeight, grbit, bls, sss, uls, bFamily, bCharSet, unused, brtColor, bFontScheme and the name
+        List<byte[]> fonts = records.get(XSSFBRecordType.BrtFont);
+        assertEquals(2, fonts.size());
+        byte[] defaultFont = fonts.get(0);
+        assertEquals(12 + 8 + 1 + 4 + 2 * XSSFBFont.DEFAULT_FONT_NAME.length(), defaultFont.length);
+        assertEquals(XSSFBFont.DEFAULT_FONT_SIZE * 20, LittleEndian.getUShort(defaultFont, 0));
+        assertEquals(400, LittleEndian.getUShort(defaultFont, 4));
+        byte[] boldFont = fonts.get(1);
+        assertEquals(700, LittleEndian.getUShort(boldFont, 4));
+        // fValidRGB with xColorType rgb, followed by red, green and blue
+        assertEquals(0x05, boldFont[12]);
+        assertArrayEquals(new byte[]{ (byte)0xFF, 0, 0 }, Arrays.copyOfRange(boldFont, 16, 19));
+        assertEquals(XSSFBFont.DEFAULT_FONT_NAME.length(), LittleEndian.getInt(boldFont, 21));
+        assertEquals(XSSFBFont.DEFAULT_FONT_NAME,
+            StringUtil.getFromUnicodeLE(boldFont, 25, XSSFBFont.DEFAULT_FONT_NAME.length()));
+
+        // fls, fgColor, bgColor, the gradient type, 5 gradient doubles and the number of gradient stops
+        List<byte[]> fills = records.get(XSSFBRecordType.BrtFill);
+        assertEquals(3, fills.size());
+        assertEquals(FillPatternType.NO_FILL.getCode(), LittleEndian.getInt(fills.get(0), 0));
+        assertEquals(FillPatternType.LESS_DOTS.getCode(), LittleEndian.getInt(fills.get(1), 0));
+        byte[] solidFill = fills.get(2);
+        assertEquals(4 + 8 + 8 + 4 + 5 * 8 + 4, solidFill.length);
+        assertEquals(FillPatternType.SOLID_FOREGROUND.getCode(), LittleEndian.getInt(solidFill, 0));
+        assertEquals(0x05, solidFill[4]);
+        assertArrayEquals(new byte[]{ (byte)0xCC, (byte)0xCC, (byte)0xCC }, Arrays.copyOfRange(solidFill, 8, 11));
+
+        // the diagonal flags and a Blxf of 10 bytes for the top, bottom, left, right and diagonal border
+        List<byte[]> borders = records.get(XSSFBRecordType.BrtBorder);
+        assertEquals(2, borders.size());
+        byte[] thinBorder = borders.get(1);
+        assertEquals(1 + 5 * 10, thinBorder.length);
+        assertEquals(BorderStyle.NONE.getCode(), thinBorder[1]);
+        assertEquals(BorderStyle.THIN.getCode(), thinBorder[11]);
+        assertEquals(BorderStyle.NONE.getCode(), thinBorder[21]);
+        assertEquals(BorderStyle.NONE.getCode(), thinBorder[31]);
+
+        // the cell style XF of "Normal", followed by the cell XFs of the default and the created styles
+        List<byte[]> xfs = records.get(XSSFBRecordType.BrtXf);
+        assertEquals(5, xfs.size());
+        assertEquals(0xFFFF, LittleEndian.getUShort(xfs.get(0), 0));
+        assertXf(xfs.get(1), 0, 0, 0, 0);
+        assertXf(xfs.get(2), 0, 1, 2, 1);
+        assertXf(xfs.get(3), BuiltinFormats.getBuiltinFormat("0.00%"), 0, 0, 0);
+        assertXf(xfs.get(4), BuiltinFormats.FIRST_USER_DEFINED_FORMAT_INDEX, 0, 0, 0);
+    }
+
+    private static void assertXf(byte[] xf, int numberFormat, int font, int fill, int border) {
+        assertEquals(16, xf.length);
+        // ixfeParent, iFmt, iFont, iFill and ixBorder
+        assertEquals(0, LittleEndian.getUShort(xf, 0));
+        assertEquals(numberFormat, LittleEndian.getUShort(xf, 2));
+        assertEquals(font, LittleEndian.getUShort(xf, 4));
+        assertEquals(fill, LittleEndian.getUShort(xf, 6));
+        assertEquals(border, LittleEndian.getUShort(xf, 8));
+    }
+
+    private static void readSheet(InputStream is, XSSFBStylesTable styles, XSSFBSharedStringsTable sst, final List<String> cells)
+    throws IOException {
+        XSSFBSheetHandler.SheetContentsHandler handler = new XSSFBSheetHandler.SheetContentsHandler() {
+            @Override
+            public void startRow(int rowNum) {}
+
+            @Override
+            public void endRow(int rowNum) {}
+
+            @Override
+            public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+                cells.add(cellReference + "=" + formattedValue);
+            }
+
+            @Override
+            public void hyperlinkCell(String cellReference, String formattedValue, String url, String toolTip, XSSFComment comment) {
+                cell(cellReference, formattedValue, comment);
+            }
+        };
+        new XSSFBSheetHandler(is, styles, null, sst, handler, new DataFormatter(), false).parse();
+    }
+}
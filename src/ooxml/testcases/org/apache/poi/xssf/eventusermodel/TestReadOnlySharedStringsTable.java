@@ -27,6 +27,7 @@ import junit.framework.TestCase;
 import org.apache.poi.POIDataSamples;
 import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.xssf.model.MappedStringStore;
 import org.apache.poi.xssf.model.SharedStringsTable;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTRst;
@@ -82,6 +83,21 @@ public final class TestReadOnlySharedStringsTable extends TestCase {
         }
     }
 
+    public void testMappedStringStore() throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(_ssTests.openResourceAsStream("51519.xlsx"));
+             MappedStringStore store = new MappedStringStore(5)) {
+            List<PackagePart> parts = pkg.getPartsByName(Pattern.compile("/xl/sharedStrings.xml"));
+            ReadOnlySharedStringsTable heapTbl = new ReadOnlySharedStringsTable(parts.get(0), true);
+            ReadOnlySharedStringsTable storeTbl = new ReadOnlySharedStringsTable(parts.get(0), true, store);
+
+            assertEquals(49, store.size());
+            assertEquals(heapTbl.getCount(), storeTbl.getCount());
+            assertEquals(heapTbl.getUniqueCount(), storeTbl.getUniqueCount());
+            assertEquals(heapTbl.getItems(), storeTbl.getItems());
+            assertEquals(heapTbl.getItemAt(3).getString(), storeTbl.getItemAt(3).getString());
+        }
+    }
+
     public void testEmptySSTOnPackageObtainedViaWorkbook() throws Exception {
         XSSFWorkbook wb = new XSSFWorkbook(_ssTests.openResourceAsStream("noSharedStringTable.xlsx"));
         OPCPackage pkg = wb.getPackage();
@@ -0,0 +1,170 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.eventusermodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.xssf.XSSFTestDataSamples;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetRowIterator.SheetCell;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetRowIterator.SheetRow;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+/**
+ * Tests for {@link XSSFSheetRowIterator}
+ */
+public final class TestXSSFSheetRowIterator {
+
+    @Test
+    public void typedValues() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            XSSFCellStyle style = wb.createCellStyle();
+            style.setDataFormat(wb.createDataFormat().getFormat("0.00"));
+
+            XSSFSheet sheet = wb.createSheet();
+            XSSFRow row = sheet.createRow(0);
+            row.createCell(0).setCellValue("text");
+            XSSFCell num = row.createCell(1);
+            num.setCellValue(1.5);
+            num.setCellStyle(style);
+            row.createCell(2).setCellValue(true);
+            row.createCell(3).setCellErrorValue(FormulaError.DIV0);
+            row.createCell(4).setCellFormula("B1*2");
+            row.createCell(5).setCellFormula("A1&\"!\"");
+
+            // a gap and a styled blank cell
+            sheet.createRow(2).createCell(3).setCellStyle(style);
+            wb.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            wb.write(bos);
+        }
+
+        try (OPCPackage pkg = OPCPackage.open(new ByteArrayInputStream(bos.toByteArray()))) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            try (XSSFSheetRowIterator rows = new XSSFSheetRowIterator(reader.getSheetsData().next(), strings)) {
+                assertTrue(rows.hasNext());
+                SheetRow row = rows.next();
+                assertEquals(0, row.getRowNum());
+                assertEquals(6, row.getCells().size());
+
+                SheetCell cell = row.getCells().get(0);
+                assertEquals(CellType.STRING, cell.getType());
+                assertTrue(cell.isSharedString());
+                assertEquals(0, cell.getSharedStringIndex());
+                assertEquals("text", cell.getStringValue());
+
+                cell = row.getCells().get(1);
+                assertEquals(CellType.NUMERIC, cell.getType());
+                assertEquals(1.5, cell.getNumericValue(), 0);
+                assertEquals("B1", cell.getAddress().formatAsString());
+                assertTrue(cell.getStyleIndex() > 0);
+
+                assertTrue(row.getCells().get(2).getBooleanValue());
+                assertEquals(FormulaError.DIV0, row.getCells().get(3).getErrorValue());
+
+                cell = row.getCells().get(4);
+                assertTrue(cell.isFormula());
+                assertEquals("B1*2", cell.getFormula());
+                assertEquals(3.0, cell.getNumericValue(), 0);
+
+                cell = row.getCells().get(5);
+                assertEquals(CellType.STRING, cell.getType());
+                assertFalse(cell.isSharedString());
+                assertEquals("text!", cell.getStringValue());
+
+                row = rows.next();
+                assertEquals(2, row.getRowNum());
+                cell = row.getCells().get(0);
+                assertEquals(CellType.BLANK, cell.getType());
+                assertEquals(3, cell.getColumnIndex());
+                assertNull(cell.getRawValue());
+
+                assertFalse(rows.hasNext());
+            }
+        }
+    }
+
+    @Test
+    public void matchesUserModel() throws Exception {
+        try (XSSFWorkbook wb = XSSFTestDataSamples.openSampleWorkbook("InlineStrings.xlsx");
+             OPCPackage pkg = XSSFTestDataSamples.openSamplePackage("InlineStrings.xlsx")) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            int sheetIndex = 0;
+            int cellCount = 0;
+            while (sheets.hasNext()) {
+                XSSFSheet sheet = wb.getSheetAt(sheetIndex++);
+                try (XSSFSheetRowIterator rows = new XSSFSheetRowIterator(sheets.next(), strings)) {
+                    while (rows.hasNext()) {
+                        SheetRow row = rows.next();
+                        for (SheetCell cell : row.getCells()) {
+                            XSSFCell expected = sheet.getRow(row.getRowNum()).getCell(cell.getColumnIndex());
+                            assertCellEquals(expected, cell);
+                            cellCount++;
+                        }
+                    }
+                }
+            }
+            assertTrue(cellCount > 0);
+        }
+    }
+
+    private static void assertCellEquals(XSSFCell expected, SheetCell actual) {
+        String msg = actual.toString();
+        assertEquals(msg, expected.getCellStyle().getIndex(), actual.getStyleIndex());
+        CellType type = expected.getCellType();
+        assertEquals(msg, type == CellType.FORMULA, actual.isFormula());
+        if (type == CellType.FORMULA) {
+            if (actual.getFormula() != null) {
+                assertEquals(msg, expected.getCellFormula(), actual.getFormula());
+            }
+            type = expected.getCachedFormulaResultType();
+        }
+        assertEquals(msg, type, actual.getType());
+        switch (type) {
+            case NUMERIC:
+                assertEquals(msg, expected.getNumericCellValue(), actual.getNumericValue(), 0);
+                break;
+            case STRING:
+                assertEquals(msg, expected.getStringCellValue(), actual.getStringValue());
+                break;
+            case BOOLEAN:
+                assertEquals(msg, expected.getBooleanCellValue(), actual.getBooleanValue());
+                break;
+            default:
+                break;
+        }
+    }
+}
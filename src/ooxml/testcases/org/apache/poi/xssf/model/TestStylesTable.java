@@ -23,6 +23,8 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -35,6 +37,12 @@ import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.xssf.XSSFTestDataSamples;
 import org.apache.poi.xssf.usermodel.XSSFCellStyle;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.usermodel.extensions.XSSFCellBorder;
+import org.apache.poi.xssf.usermodel.extensions.XSSFCellFill;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTBorder;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTFill;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STBorderStyle;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STPatternType;
 
 public final class TestStylesTable {
     private static final String testFile = "Formatting.xlsx";
@@ -363,4 +371,67 @@ public final class TestStylesTable {
             assertNotNull(XSSFTestDataSamples.writeOutAndReadBack(workbook));
         }
     }
+
+    @Test
+    public void putReusesEquivalentEntries() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            StylesTable st = workbook.getStylesSource();
+
+            int numFills = st.getFills().size();
+            int[] fillIdx = new int[2];
+            int[] borderIdx = new int[2];
+            for (int i = 0; i < 2; i++) {
+                // each iteration uses new, but equivalent XML objects
+                CTFill ctFill = CTFill.Factory.newInstance();
+                ctFill.addNewPatternFill().setPatternType(STPatternType.SOLID);
+                ctFill.getPatternFill().addNewFgColor().setRgb(new byte[]{(byte)0xFF, 0x12, 0x34, 0x56});
+                fillIdx[i] = st.putFill(new XSSFCellFill(ctFill, st.getIndexedColors()));
+
+                CTBorder ctBorder = CTBorder.Factory.newInstance();
+                ctBorder.addNewLeft().setStyle(STBorderStyle.THICK);
+                borderIdx[i] = st.putBorder(new XSSFCellBorder(ctBorder, st.getIndexedColors()));
+            }
+            assertEquals(numFills, fillIdx[0]);
+            assertEquals(fillIdx[0], fillIdx[1]);
+            assertEquals(borderIdx[0], borderIdx[1]);
+            assertEquals(numFills + 1, st.getFills().size());
+            assertEquals(st.getFillAt(fillIdx[0]).hashCode(), st.getFillAt(fillIdx[1]).hashCode());
+
+            // number formats with the same code resolve to the lowest id
+            st.putNumberFormat((short)200, customDataFormat);
+            st.putNumberFormat((short)180, customDataFormat);
+            assertEquals(180, st.putNumberFormat(customDataFormat));
+            assertTrue(st.removeNumberFormat((short)180));
+            assertEquals(200, st.putNumberFormat(customDataFormat));
+
+            // cell styles are indexed by their xf
+            XSSFCellStyle style = workbook.createCellStyle();
+            assertEquals(style.getIndex(), st.putStyle(style));
+            assertSame(style.getCoreXf(), st.getCellXfAt(st.putStyle(style)));
+        }
+    }
+
+    @Test
+    public void putFillAfterInPlaceModification() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            StylesTable st = workbook.getStylesSource();
+            int redIdx = st.putFill(newSolidFill(st, 0xFF, 0, 0));
+
+            // the registered fill is modified in place after it has been indexed
+            st.getFillAt(redIdx).getCTFill().getPatternFill().getFgColor().setRgb(new byte[]{(byte)0xFF, 0, 0, (byte)0xFF});
+
+            // the former properties don't resolve to the modified entry anymore
+            int newRedIdx = st.putFill(newSolidFill(st, 0xFF, 0, 0));
+            assertNotEquals(redIdx, newRedIdx);
+            assertEquals(newRedIdx, st.putFill(newSolidFill(st, 0xFF, 0, 0)));
+            assertEquals(redIdx, st.putFill(newSolidFill(st, 0, 0, 0xFF)));
+        }
+    }
+
+    private static XSSFCellFill newSolidFill(StylesTable st, int red, int green, int blue) {
+        CTFill ctFill = CTFill.Factory.newInstance();
+        ctFill.addNewPatternFill().setPatternType(STPatternType.SOLID);
+        ctFill.getPatternFill().addNewFgColor().setRgb(new byte[]{(byte)0xFF, (byte)red, (byte)green, (byte)blue});
+        return new XSSFCellFill(ctFill, st.getIndexedColors());
+    }
 }
@@ -0,0 +1,164 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.xssf.SXSSFITestDataProvider;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+/**
+ * Test {@link TempFileSharedStringsTable} and the underlying {@link MappedStringStore}
+ */
+public final class TestTempFileSharedStringsTable {
+
+    @Test
+    public void storeAddAndLookup() throws IOException {
+        // a tiny cache and more strings than the initial index slots, to test reading the temp files and rehashing
+        try (MappedStringStore store = new MappedStringStore(10)) {
+            for (int i = 0; i < 5000; i++) {
+                assertEquals(i, store.addIfAbsent("str" + i + "\u00e4\u20ac"));
+            }
+            for (int i = 0; i < 5000; i++) {
+                assertEquals(i, store.addIfAbsent("str" + i + "\u00e4\u20ac"));
+            }
+            assertEquals(5000, store.size());
+            assertEquals("str4711\u00e4\u20ac", store.get(4711));
+            assertEquals(-1, store.indexOf("str5000\u00e4\u20ac"));
+
+            // duplicates are appended by add(), but the lookup returns the first occurrence
+            assertEquals(5000, store.add("str42\u00e4\u20ac"));
+            assertEquals(42, store.indexOf("str42\u00e4\u20ac"));
+            assertEquals(5001, store.asList().size());
+            assertEquals("str42\u00e4\u20ac", store.asList().get(5000));
+        }
+    }
+
+    @Test
+    public void storeGrowsTheMappings() throws IOException {
+        File tmpDir = TempFile.createTempFile("poi-strings-probe", ".tmp");
+        assertTrue(tmpDir.delete());
+        tmpDir = tmpDir.getParentFile();
+        final String[] before = tmpDir.list();
+        Arrays.sort(before);
+
+        try (MappedStringStore store = new MappedStringStore(0)) {
+            // the temp files are only created, when strings are added
+            final String[] after = tmpDir.list();
+            Arrays.sort(after);
+            assertArrayEquals(before, after);
+
+            // strings, which span the initial and the grown first window, and the full windows
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; sb.length() < 100000; i++) {
+                sb.append(i).append('\u20ac');
+            }
+            final String big = sb.toString();
+            for (int i = 0; i < 200; i++) {
+                assertEquals(i, store.add(i + big));
+            }
+            for (int i = 0; i < 200; i += 37) {
+                assertEquals(i + big, store.get(i));
+                assertEquals(i, store.indexOf(i + big));
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void writeAndReadRichText() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (TempFileSharedStringsTable sst = new TempFileSharedStringsTable(1)) {
+            XSSFRichTextString rt = new XSSFRichTextString("Apache POI");
+            XSSFFont font = new XSSFFont();
+            font.setBold(true);
+            rt.applyFont(0, 6, font);
+
+            assertEquals(0, sst.addSharedStringItem(new XSSFRichTextString("plain")));
+            assertEquals(1, sst.addSharedStringItem(rt));
+            assertEquals(0, sst.addSharedStringItem(new XSSFRichTextString("plain")));
+            assertEquals(1, sst.addSharedStringItem(new XSSFRichTextString(rt.getCTRst())));
+            assertEquals(4, sst.getCount());
+            assertEquals(2, sst.getUniqueCount());
+            assertEquals(2, sst.getSharedStringItems().size());
+            assertEquals("Apache POI", sst.getItemAt(1).getString());
+            assertEquals(2, sst.getEntryAt(1).sizeOfRArray());
+            sst.writeTo(bos);
+        }
+
+        // the heap based table reads the output as well
+        SharedStringsTable heapSst = new SharedStringsTable();
+        heapSst.readFrom(new ByteArrayInputStream(bos.toByteArray()));
+        assertEquals(4, heapSst.getCount());
+        assertEquals(2, heapSst.getUniqueCount());
+
+        try (TempFileSharedStringsTable sst = new TempFileSharedStringsTable()) {
+            sst.readFrom(new ByteArrayInputStream(bos.toByteArray()));
+            assertEquals(4, sst.getCount());
+            assertEquals(2, sst.getUniqueCount());
+            for (int i = 0; i < 2; i++) {
+                assertEquals(heapSst.getItemAt(i).getString(), sst.getItemAt(i).getString());
+                assertEquals(heapSst.getEntryAt(i).sizeOfRArray(), sst.getEntryAt(i).sizeOfRArray());
+            }
+            // existing strings are found again
+            assertEquals(1, sst.addEntry(heapSst.getEntryAt(1)));
+        }
+    }
+
+    @Test
+    public void streamingWorkbook() throws IOException {
+        XSSFWorkbook template = new XSSFWorkbook(new TempFileSharedStringsTable.Factory(100));
+        assertTrue(template.getSharedStringSource() instanceof TempFileSharedStringsTable);
+
+        SXSSFWorkbook wb = new SXSSFWorkbook(template, 10, false, true);
+        Sheet sh = wb.createSheet();
+        for (int r = 0; r < 1000; r++) {
+            Row row = sh.createRow(r);
+            row.createCell(0).setCellValue("unique " + r);
+            row.createCell(1).setCellValue("repeated " + (r % 10));
+        }
+
+        XSSFWorkbook wbBack = SXSSFITestDataProvider.instance.writeOutAndReadBack(wb);
+        wb.dispose();
+        wb.close();
+
+        SharedStringsTable sst = wbBack.getSharedStringSource();
+        assertEquals(2000, sst.getCount());
+        assertEquals(1010, sst.getUniqueCount());
+        XSSFSheet shBack = wbBack.getSheetAt(0);
+        assertEquals("unique 999", shBack.getRow(999).getCell(0).getStringCellValue());
+        assertEquals("repeated 7", shBack.getRow(517).getCell(1).getStringCellValue());
+        wbBack.close();
+    }
+}
@@ -24,6 +24,7 @@ import static org.apache.poi.POITestCase.assertEndsWith;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -34,21 +35,30 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
 import org.apache.poi.POIDataSamples;
 import org.apache.poi.POITestCase;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JRuntimeException;
 import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.BaseTestXWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FormulaError;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.DefaultTempFileCreationStrategy;
 import org.apache.poi.util.NullOutputStream;
+import org.apache.poi.util.TempFile;
 import org.apache.poi.xssf.SXSSFITestDataProvider;
 import org.apache.poi.xssf.XSSFTestDataSamples;
 import org.apache.poi.xssf.model.SharedStringsTable;
@@ -544,4 +554,177 @@ public final class TestSXSSFWorkbook extends BaseTestXWorkbook {
 
         wb.close();
     }
+
+    @Test
+    public void directWrite() throws IOException {
+        XSSFWorkbook xssfWb = XSSFTestDataSamples.openSampleWorkbook("56557.xlsx");
+        int numSheets = xssfWb.getNumberOfSheets();
+        try (SXSSFWorkbook wb = new SXSSFWorkbook(xssfWb, 10)) {
+            assertFalse(wb.isDirectWrite());
+            wb.setDirectWrite(true);
+            assertTrue(wb.isDirectWrite());
+
+            Sheet sheet = wb.createSheet("direct");
+            for (int r = 0; r < 100; r++) {
+                sheet.createRow(r).createCell(0).setCellValue("row " + r);
+            }
+
+            // the chart sheet is copied unchanged, while the sheet data is injected
+            try (XSSFWorkbook wbBack = SXSSFITestDataProvider.instance.writeOutAndReadBack(wb)) {
+                assertEquals(numSheets + 1, wbBack.getNumberOfSheets());
+                Sheet sheetBack = wbBack.getSheet("direct");
+                assertEquals(100, sheetBack.getPhysicalNumberOfRows());
+                assertEquals("row 99", sheetBack.getRow(99).getCell(0).getStringCellValue());
+            }
+            assertTrue(wb.dispose());
+        }
+    }
+
+    @Test
+    public void parallelWrite() throws IOException {
+        for (Zip64Mode mode : new Zip64Mode[]{ Zip64Mode.AsNeeded, Zip64Mode.Always }) {
+            try (SXSSFWorkbook wb = new SXSSFWorkbook(10)) {
+                wb.setZip64Mode(mode);
+                wb.setWriteThreads(3);
+                assertEquals(3, wb.getWriteThreads());
+                for (int s = 0; s < 4; s++) {
+                    Sheet sheet = wb.createSheet("S" + s);
+                    for (int r = 0; r < 200; r++) {
+                        sheet.createRow(r).createCell(s).setCellValue(s * 1000 + r);
+                    }
+                }
+
+                try (XSSFWorkbook wbBack = SXSSFITestDataProvider.instance.writeOutAndReadBack(wb)) {
+                    assertEquals(4, wbBack.getNumberOfSheets());
+                    for (int s = 0; s < 4; s++) {
+                        Sheet sheetBack = wbBack.getSheetAt(s);
+                        assertEquals("S" + s, sheetBack.getSheetName());
+                        assertEquals(200, sheetBack.getPhysicalNumberOfRows());
+                        assertEquals(s * 1000 + 199, sheetBack.getRow(199).getCell(s).getNumericCellValue(), 0);
+                    }
+                }
+                assertTrue(wb.dispose());
+            }
+        }
+    }
+
+    @Test
+    public void parallelWriteFailureRemovesScatterFiles() throws IOException {
+        File tmpDir = TempFile.createTempDirectory("parallelWriteFailure");
+        CountDownLatch scatterStarted = new CountDownLatch(1);
+        TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy(tmpDir) {
+            @Override
+            public File createTempFile(String prefix, String suffix) throws IOException {
+                File file = super.createTempFile(prefix, suffix);
+                if (prefix.startsWith("poi-sxssf-scatter")) {
+                    scatterStarted.countDown();
+                }
+                return file;
+            }
+        });
+        try (SXSSFWorkbook wb = new SXSSFWorkbook(10)) {
+            wb.setWriteThreads(2);
+            for (int s = 0; s < 4; s++) {
+                Sheet sheet = wb.createSheet("S" + s);
+                for (int r = 0; r < 200; r++) {
+                    sheet.createRow(r).createCell(0).setCellValue(r);
+                }
+            }
+
+            // fail when the package is finished, i.e. after the sheets have been handed to the worker threads
+            OutputStream failing = new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    boolean finishing = Arrays.stream(new Throwable().getStackTrace())
+                        .anyMatch(ste -> "finish".equals(ste.getMethodName()));
+                    if (finishing) {
+                        try {
+                            assertTrue(scatterStarted.await(10, TimeUnit.SECONDS));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new IOException("disk full");
+                    }
+                }
+            };
+            try {
+                wb.write(failing);
+                fail("the failing target stream should abort the write");
+            } catch (IOException | OpenXML4JRuntimeException e) {
+                // expected
+            }
+            assertEquals(0, scatterStarted.getCount());
+
+            String[] scatterFiles = tmpDir.list((dir, name) -> name.startsWith("poi-sxssf-scatter"));
+            assertNotNull(scatterFiles);
+            assertEquals(Arrays.toString(scatterFiles), 0, scatterFiles.length);
+            assertTrue(wb.dispose());
+        } finally {
+            TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy());
+            tmpDir.delete();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidWriteThreads() throws IOException {
+        try (SXSSFWorkbook wb = new SXSSFWorkbook()) {
+            wb.setWriteThreads(0);
+        }
+    }
+
+    @Test
+    public void binarySheetDataWriter() throws IOException {
+        for (boolean compress : new boolean[]{ false, true }) {
+            for (boolean useSST : new boolean[]{ false, true }) {
+                try (SXSSFWorkbook wb = new SXSSFWorkbook(null, 10, compress, useSST)) {
+                    wb.setBinaryTempFiles(true);
+                    assertTrue(wb.isBinaryTempFiles());
+                    SXSSFSheet sh = wb.createSheet();
+                    SheetDataWriter wr = sh.getSheetDataWriter();
+                    assertSame(BinarySheetDataWriter.class, wr.getClass());
+                    assertStartsWith(wr.getTempFile().getName(), "poi-sxssf-sheet-bin");
+                    assertEndsWith(wr.getTempFile().getName(), compress ? ".gz" : ".bin");
+
+                    CellStyle style = wb.createCellStyle();
+                    style.setWrapText(true);
+                    for (int r = 0; r < 100; r++) {
+                        Row row = sh.createRow(r);
+                        row.createCell(0).setCellValue(" text <&> " + r);
+                        row.createCell(2).setCellValue(r * 1.5);
+                        row.createCell(3).setCellValue(r % 2 == 0);
+                        row.createCell(4).setCellErrorValue(FormulaError.DIV0.getCode());
+                        row.createCell(5).setCellFormula("C" + (r + 1) + "*2");
+                        row.createCell(200).setCellStyle(style);
+                        if (r % 10 == 0) {
+                            row.setHeightInPoints(30);
+                            row.setRowStyle(style);
+                        }
+                    }
+                    assertEquals(90, wr.getNumberOfFlushedRows());
+
+                    try (XSSFWorkbook wbBack = SXSSFITestDataProvider.instance.writeOutAndReadBack(wb)) {
+                        Sheet shBack = wbBack.getSheetAt(0);
+                        assertEquals(100, shBack.getPhysicalNumberOfRows());
+                        Row row = shBack.getRow(50);
+                        assertEquals(" text <&> 50", row.getCell(0).getStringCellValue());
+                        assertNull(row.getCell(1));
+                        assertEquals(75.0, row.getCell(2).getNumericCellValue(), 0);
+                        assertTrue(row.getCell(3).getBooleanCellValue());
+                        assertEquals(FormulaError.DIV0.getCode(), row.getCell(4).getErrorCellValue());
+                        assertEquals("C51*2", row.getCell(5).getCellFormula());
+                        assertEquals(CellType.BLANK, row.getCell(200).getCellType());
+                        assertTrue(row.getCell(200).getCellStyle().getWrapText());
+                        assertEquals(30, row.getHeightInPoints(), 0);
+                        assertTrue(row.getRowStyle().getWrapText());
+                        assertEquals(" text <&> 99", shBack.getRow(99).getCell(0).getStringCellValue());
+                    }
+                    assertTrue(wb.dispose());
+                }
+            }
+        }
+    }
 }
@@ -19,14 +19,21 @@
 
 package org.apache.poi.xssf.streaming;
 
+import static org.apache.poi.POITestCase.assertContains;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 
+import org.apache.poi.ooxml.util.DocumentHelper;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FormulaError;
 import org.apache.poi.util.IOUtils;
 import org.junit.Test;
 
@@ -91,4 +98,60 @@ public final class TestSheetDataWriter {
             IOUtils.closeQuietly(writer);
         }
     }
+
+    @Test
+    public void testBinaryWriterWritesSameXml() throws Exception {
+        try (SXSSFWorkbook wb = new SXSSFWorkbook(-1)) {
+            CellStyle style = wb.createCellStyle();
+            style.setWrapText(true);
+            SXSSFRow row = wb.createSheet().createRow(0);
+            row.setHeightInPoints(30);
+            row.setRowStyle(style);
+            SXSSFCell cell = row.createCell(0);
+            cell.setCellFormula("A2*2");
+            cell.setCellValue(3.5);
+            cell = row.createCell(1);
+            cell.setCellFormula("\" a <&> b \"");
+            cell.setCellValue(" a <&> b ");
+            cell = row.createCell(2);
+            cell.setCellFormula("TRUE()");
+            cell.setCellValue(true);
+            cell = row.createCell(3);
+            cell.setCellFormula("1/0");
+            cell.setCellErrorValue(FormulaError.DIV0.getCode());
+            row.createCell(4).setCellValue(" text <&> ");
+            row.createCell(5).setCellValue(1.5);
+            row.createCell(6).setCellValue(false);
+            row.createCell(7).setCellErrorValue(FormulaError.NA.getCode());
+            row.createCell(9).setCellStyle(style);
+
+            SheetDataWriter text = new SheetDataWriter();
+            BinarySheetDataWriter binary = new BinarySheetDataWriter();
+            try {
+                text.writeRow(0, row);
+                text.close();
+                binary.writeRow(0, row);
+                binary.close();
+
+                String xml = readWorksheetXML(text);
+                assertEquals(xml, readWorksheetXML(binary));
+                assertContains(xml, "<c r=\"B1\" t=\"str\"><f>&quot; a &lt;&amp;&gt; b &quot;</f><v> a &lt;&amp;&gt; b </v></c>");
+                assertContains(xml, "<c r=\"C1\" t=\"b\"><f>TRUE()</f><v>1</v></c>");
+                assertContains(xml, "<c r=\"D1\" t=\"e\"><f>1/0</f><v>#DIV/0!</v></c>");
+
+                // the fragment is well-formed
+                DocumentHelper.readDocument(new ByteArrayInputStream(
+                    ("<sheetData>" + xml + "</sheetData>").getBytes(StandardCharsets.UTF_8)));
+            } finally {
+                text.dispose();
+                binary.dispose();
+            }
+        }
+    }
+
+    private static String readWorksheetXML(SheetDataWriter writer) throws IOException {
+        try (InputStream is = writer.getWorksheetXMLInputStream()) {
+            return new String(IOUtils.toByteArray(is), StandardCharsets.UTF_8);
+        }
+    }
 }
@@ -16,6 +16,7 @@
 ==================================================================== */
 package org.apache.poi.xssf.usermodel;
 
+import org.apache.poi.ss.formula.EvaluationCell;
 import org.apache.poi.ss.formula.EvaluationSheet;
 import org.apache.poi.ss.usermodel.BaseTestXEvaluationSheet;
 import org.apache.poi.ss.usermodel.Sheet;
@@ -61,6 +62,29 @@ public class TestXSSFEvaluationSheet extends BaseTestXEvaluationSheet {
         assertEquals(sheet, evalsheet.getXSSFSheet());
     }
 
+    @Test
+    public void cellCacheIsPopulatedOnDemand() throws Exception {
+        XSSFWorkbook wb = new XSSFWorkbook();
+        XSSFSheet sheet = wb.createSheet("test");
+        sheet.createRow(5).createCell(3);
+        XSSFEvaluationSheet evalsheet = new XSSFEvaluationSheet(sheet);
+
+        EvaluationCell cell = evalsheet.getCell(5, 3);
+        assertNotNull(cell);
+        assertSame("the wrapper is cached", cell, evalsheet.getCell(5, 3));
+        assertNull(evalsheet.getCell(5, 100));
+        assertNull(evalsheet.getCell(-1, 0));
+
+        // cells behind the cached row and new rows behind the former last row are found
+        sheet.getRow(5).createCell(200);
+        sheet.createRow(1000).createCell(0);
+        assertNotNull(evalsheet.getCell(5, 200));
+        assertNotNull(evalsheet.getCell(1000, 0));
+        assertSame(cell, evalsheet.getCell(5, 3));
+        assertNull(evalsheet.getCell(1001, 0));
+        wb.close();
+    }
+
     @Override
     protected Map.Entry<Sheet, EvaluationSheet> getInstance() {
         XSSFSheet sheet = new XSSFWorkbook().createSheet();
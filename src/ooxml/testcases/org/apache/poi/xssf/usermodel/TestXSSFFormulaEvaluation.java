@@ -20,6 +20,7 @@ package org.apache.poi.xssf.usermodel;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
@@ -27,8 +28,11 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.poi.hssf.HSSFTestDataSamples;
+import org.apache.poi.ss.formula.FormulaRenderer;
+import org.apache.poi.ss.formula.ptg.Ptg;
 import org.apache.poi.ss.usermodel.BaseTestFormulaEvaluator;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.CellValue;
 import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.apache.poi.ss.usermodel.Row;
@@ -477,4 +481,91 @@ public final class TestXSSFFormulaEvaluation extends BaseTestFormulaEvaluator {
             assertEquals("wrong value A5", "another value", value.getStringCellValue());
         }
     }
+
+    @Test
+    public void testFormulaTokenCache() throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            XSSFSheet sheet = wb.createSheet();
+            for (int r = 0; r < 3; r++) {
+                XSSFRow row = sheet.createRow(r);
+                row.createCell(0).setCellValue(r + 1);
+                row.createCell(1).setCellFormula("A1*2");
+            }
+            XSSFEvaluationWorkbook ewb = XSSFEvaluationWorkbook.create(wb);
+            XSSFCell b1 = sheet.getRow(0).getCell(1);
+            XSSFCell b2 = sheet.getRow(1).getCell(1);
+            // formulas with the same text are parsed only once
+            assertSame(ewb.getFormulaTokens(new XSSFEvaluationCell(b1)), ewb.getFormulaTokens(new XSSFEvaluationCell(b2)));
+
+            XSSFFormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+            assertEquals(2, evaluator.evaluate(b2).getNumberValue(), 0);
+
+            b2.setCellFormula("A2*2");
+            evaluator.notifyUpdateCell(b2);
+            assertEquals(4, evaluator.evaluate(b2).getNumberValue(), 0);
+
+            sheet.shiftRows(1, 2, 1);
+            evaluator.clearAllCachedResultValues();
+            XSSFCell b3 = sheet.getRow(2).getCell(1);
+            assertEquals("A3*2", b3.getCellFormula());
+            assertEquals(4, evaluator.evaluate(b3).getNumberValue(), 0);
+        }
+    }
+
+    @Test
+    public void testFormulaTokenCacheAfterNameChanges() throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            XSSFSheet sheet = wb.createSheet("S");
+            XSSFRow row = sheet.createRow(0);
+            row.createCell(0).setCellValue(10);
+            row.createCell(1).setCellValue(20);
+            row.createCell(2).setCellValue(99);
+
+            XSSFName na = wb.createName();
+            na.setNameName("NA");
+            na.setRefersToFormula("S!$A$1");
+            XSSFName nb = wb.createName();
+            nb.setNameName("NB");
+            nb.setRefersToFormula("S!$B$1");
+
+            XSSFCell cell = sheet.createRow(1).createCell(0);
+            cell.setCellFormula("NB");
+
+            XSSFFormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+            assertEquals(20, evaluator.evaluate(cell).getNumberValue(), 0);
+
+            // the number of names is unchanged, but the index of NB is different
+            wb.removeName(na);
+            XSSFName nc = wb.createName();
+            nc.setNameName("NC");
+            nc.setRefersToFormula("S!$C$1");
+            evaluator.notifyUpdateCell(cell);
+            assertEquals(20, evaluator.evaluate(cell).getNumberValue(), 0);
+
+            // renaming a name changes the resolution of the formula text
+            nb.setNameName("NX");
+            nc.setNameName("NB");
+            evaluator.notifyUpdateCell(cell);
+            assertEquals(99, evaluator.evaluate(cell).getNumberValue(), 0);
+        }
+    }
+
+    @Test
+    public void testSharedFormulaTokens() throws IOException {
+        try (XSSFWorkbook wb = XSSFTestDataSamples.openSampleWorkbook("shared_formulas.xlsx")) {
+            XSSFEvaluationWorkbook ewb = XSSFEvaluationWorkbook.create(wb);
+            int count = 0;
+            for (Row row : wb.getSheetAt(0)) {
+                for (Cell cell : row) {
+                    if (cell.getCellType() == CellType.FORMULA) {
+                        // the adjusted tokens of the shared formula must match the converted formula text
+                        Ptg[] ptgs = ewb.getFormulaTokens(new XSSFEvaluationCell((XSSFCell)cell));
+                        assertEquals(cell.getCellFormula(), FormulaRenderer.toFormulaString(ewb, ptgs));
+                        count++;
+                    }
+                }
+            }
+            assertTrue(count > 0);
+        }
+    }
 }
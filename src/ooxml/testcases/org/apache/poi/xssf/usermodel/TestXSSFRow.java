@@ -18,11 +18,16 @@
 package org.apache.poi.xssf.usermodel;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
 
+import org.apache.poi.hssf.HSSFTestDataSamples;
 import org.apache.poi.ss.usermodel.BaseTestXRow;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellCopyPolicy;
@@ -235,4 +240,91 @@ public final class TestXSSFRow extends BaseTestXRow {
         assertEquals("Cell should be blank", CellType.BLANK,
                 wb3.getSheet("Sheet1").getRow(0).getCell(1).getCellType());
     }
+
+    @Test
+    public void testCompactRowStorage() throws IOException {
+        final XSSFWorkbook wbTree = XSSFTestDataSamples.openSampleWorkbook("shared_formulas.xlsx");
+        final XSSFWorkbook wbCompact;
+        try (InputStream is = HSSFTestDataSamples.openSampleFileStream("shared_formulas.xlsx")) {
+            wbCompact = new XSSFWorkbook(is, new XSSFLoadOptions().setCompactRowStorage(true));
+        }
+        assertTrue(wbCompact.isCompactRowStorage());
+        assertFalse(wbTree.isCompactRowStorage());
+
+        final XSSFSheet shTree = wbTree.getSheetAt(0);
+        final XSSFSheet shCompact = wbCompact.getSheetAt(0);
+        assertTrue(shCompact.isCompactRowStorage());
+        assertFalse(shTree.isCompactRowStorage());
+        assertEquals(shTree.getFirstRowNum(), shCompact.getFirstRowNum());
+        assertEquals(shTree.getLastRowNum(), shCompact.getLastRowNum());
+        assertEquals(shTree.getPhysicalNumberOfRows(), shCompact.getPhysicalNumberOfRows());
+
+        final Iterator<Row> iter = shCompact.rowIterator();
+        for (Row rowTree : shTree) {
+            final Row rowCompact = iter.next();
+            assertEquals(rowTree.getRowNum(), rowCompact.getRowNum());
+            assertEquals(rowTree.getFirstCellNum(), rowCompact.getFirstCellNum());
+            assertEquals(rowTree.getLastCellNum(), rowCompact.getLastCellNum());
+            for (Cell cellTree : rowTree) {
+                final Cell cellCompact = rowCompact.getCell(cellTree.getColumnIndex());
+                // lazily created cells are cached
+                assertSame(cellCompact, rowCompact.getCell(cellTree.getColumnIndex()));
+                assertEquals(cellTree.toString(), cellCompact.toString());
+            }
+        }
+        assertFalse(iter.hasNext());
+
+        // modifications and shifting are reflected like in the default mode
+        shCompact.createRow(2).createCell(5).setCellValue("inserted");
+        shCompact.shiftRows(2, shCompact.getLastRowNum(), 1);
+        assertEquals("inserted", shCompact.getRow(3).getCell(5).getStringCellValue());
+
+        final XSSFWorkbook wbBack = XSSFTestDataSamples.writeOutAndReadBack(wbCompact);
+        assertEquals("inserted", wbBack.getSheetAt(0).getRow(3).getCell(5).getStringCellValue());
+
+        wbBack.close();
+        wbCompact.close();
+        wbTree.close();
+    }
+
+    @Test
+    public void testCompactRowStorageLazySheets() throws IOException {
+        for (boolean compact : new boolean[]{ false, true }) {
+            XSSFLoadOptions options = new XSSFLoadOptions().setCompactRowStorage(compact).setLazySheetLoading(true);
+            try (InputStream is = HSSFTestDataSamples.openSampleFileStream("shared_formulas.xlsx");
+                 XSSFWorkbook wb = new XSSFWorkbook(is, options)) {
+                // the storage of the sheets is chosen on opening, even if they are parsed later
+                wb.setCompactRowStorage(!compact);
+                assertEquals(compact, wb.getSheetAt(0).isCompactRowStorage());
+
+                // and kept, when they are parsed again
+                wb.unloadSheet(0);
+                assertEquals(compact, wb.getSheetAt(0).isCompactRowStorage());
+                assertEquals(!compact, wb.createSheet().isCompactRowStorage());
+            }
+        }
+    }
+
+    @Test
+    public void testCompactRowStorageNewSheets() throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            XSSFSheet shTree = wb.createSheet();
+            wb.setCompactRowStorage(true);
+            XSSFSheet shCompact = wb.createSheet();
+            assertFalse(shTree.isCompactRowStorage());
+            assertTrue(shCompact.isCompactRowStorage());
+
+            shCompact.createRow(5).createCell(3).setCellValue(42);
+            shCompact.createRow(1).createCell(7).setCellValue("first");
+            assertEquals(1, shCompact.getFirstRowNum());
+            assertEquals(5, shCompact.getLastRowNum());
+            assertEquals(42, shCompact.getRow(5).getCell(3).getNumericCellValue(), 0);
+
+            // the setting is per workbook
+            try (XSSFWorkbook wb2 = new XSSFWorkbook()) {
+                assertFalse(wb2.isCompactRowStorage());
+                assertFalse(wb2.createSheet().isCompactRowStorage());
+            }
+        }
+    }
 }
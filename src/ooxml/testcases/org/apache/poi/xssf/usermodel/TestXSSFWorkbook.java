@@ -1163,4 +1163,65 @@ public final class TestXSSFWorkbook extends BaseTestXWorkbook {
         workbook.close();
         wbBack.close();
     }
+
+    @Test
+    public void testLazySheetLoading() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            for (int i = 0; i < 3; i++) {
+                wb.createSheet("Sheet" + i).createRow(0).createCell(0).setCellValue("value" + i);
+            }
+            wb.write(bos);
+        }
+
+        XSSFLoadOptions options = new XSSFLoadOptions().setLazySheetLoading(true);
+        try (XSSFWorkbook wb = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()), options);
+             XSSFWorkbook wbEager = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()))) {
+            // the option only applies to the workbook it was passed to
+            assertTrue(wb.isLazySheetLoading());
+            assertFalse(wbEager.isLazySheetLoading());
+            assertTrue(wbEager.isSheetLoaded(0));
+
+            checkLazySheets(wb);
+        }
+    }
+
+    private static void checkLazySheets(XSSFWorkbook wb) throws IOException {
+        assertEquals(3, wb.getNumberOfSheets());
+        assertEquals("Sheet2", wb.getSheetName(2));
+        for (int i = 0; i < 3; i++) {
+            assertFalse(wb.isSheetLoaded(i));
+        }
+
+        XSSFSheet sh1 = wb.getSheet("Sheet1");
+        assertTrue(wb.isSheetLoaded(1));
+        assertFalse(wb.isSheetLoaded(0));
+        assertEquals("value1", sh1.getRow(0).getCell(0).getStringCellValue());
+
+        // modifications are kept, when the sheet is unloaded and loaded again
+        sh1.getRow(0).createCell(1).setCellValue("modified");
+        wb.unloadSheet(1);
+        assertFalse(wb.isSheetLoaded(1));
+        assertEquals("modified", wb.getSheetAt(1).getRow(0).getCell(1).getStringCellValue());
+        // loading twice doesn't harm
+        wb.unloadSheet(1);
+        assertEquals("value1", wb.getSheetAt(1).getRow(0).getCell(0).getStringCellValue());
+
+        // untouched sheets are written as-is
+        XSSFWorkbook wbBack = XSSFTestDataSamples.writeOutAndReadBack(wb);
+        assertFalse(wb.isSheetLoaded(0));
+        assertFalse(wb.isSheetLoaded(2));
+        for (int i = 0; i < 3; i++) {
+            assertEquals("value" + i, wbBack.getSheetAt(i).getRow(0).getCell(0).getStringCellValue());
+        }
+        assertEquals("modified", wbBack.getSheetAt(1).getRow(0).getCell(1).getStringCellValue());
+        wbBack.close();
+
+        // the iterator loads the sheets
+        for (Sheet sh : wb) {
+            assertEquals(1, sh.getPhysicalNumberOfRows());
+        }
+        assertTrue(wb.isSheetLoaded(0));
+        assertTrue(wb.isSheetLoaded(2));
+    }
 }
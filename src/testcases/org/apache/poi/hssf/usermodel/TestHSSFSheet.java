@@ -17,6 +17,7 @@
 
 package org.apache.poi.hssf.usermodel;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
@@ -26,6 +27,7 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.List;
 
@@ -1197,4 +1199,63 @@ public final class TestHSSFSheet extends BaseTestSheet {
         assertEquals((short)0xbecc, wb4.getSheetAt(0).getPassword());
         wb4.close();
     }
+
+    @Test
+    public void flushRows() throws IOException {
+        HSSFWorkbook wbFlushed = new HSSFWorkbook();
+        HSSFSheet flushed = wbFlushed.createSheet();
+        flushed.setRandomAccessWindowSize(100);
+        HSSFWorkbook wbInMemory = new HSSFWorkbook();
+        HSSFSheet inMemory = wbInMemory.createSheet();
+
+        for (HSSFSheet sh : new HSSFSheet[]{ flushed, inMemory }) {
+            for (int r = 0; r < 1000; r++) {
+                // leave some gaps to have blocks spanning more than 32 row numbers
+                if (r % 7 == 3) {
+                    continue;
+                }
+                HSSFRow row = sh.createRow(r);
+                row.createCell(0).setCellValue("row " + r);
+                if (r % 5 != 0) {
+                    row.createCell(1).setCellValue(r);
+                    row.createCell(2).setCellFormula("B" + (r+1) + "*2");
+                }
+            }
+        }
+
+        assertEquals(-1, inMemory.getLastFlushedRowNum());
+        int lastFlushed = flushed.getLastFlushedRowNum();
+        assertTrue(lastFlushed > 800);
+        assertNull(flushed.getRow(lastFlushed));
+        assertNotNull(flushed.getRow(lastFlushed+1));
+        assertEquals(0, flushed.getFirstRowNum());
+        assertEquals(999, flushed.getLastRowNum());
+        assertTrue(flushed.getPhysicalNumberOfRows() < 132);
+
+        try {
+            flushed.createRow(lastFlushed);
+            fail("rows in the flushed range can't be created");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+
+        // the flushed sheet has to be serialized exactly like the in-memory sheet, including INDEX and DBCELL records
+        ByteArrayOutputStream bosFlushed = new ByteArrayOutputStream();
+        wbFlushed.write(bosFlushed);
+        ByteArrayOutputStream bosInMemory = new ByteArrayOutputStream();
+        wbInMemory.write(bosInMemory);
+        assertArrayEquals(bosInMemory.toByteArray(), bosFlushed.toByteArray());
+        assertArrayEquals(wbInMemory.getBytes(), wbFlushed.getBytes());
+        wbInMemory.close();
+
+        HSSFWorkbook wbBack = HSSFTestDataSamples.writeOutAndReadBack(wbFlushed);
+        wbFlushed.close();
+        HSSFSheet shBack = wbBack.getSheetAt(0);
+        assertEquals(857, shBack.getPhysicalNumberOfRows());
+        assertEquals("row 1", shBack.getRow(1).getCell(0).getStringCellValue());
+        assertEquals(998, shBack.getRow(998).getCell(1).getNumericCellValue(), 0);
+        assertEquals("B999*2", shBack.getRow(998).getCell(2).getCellFormula());
+        assertNull(shBack.getRow(3));
+        wbBack.close();
+    }
 }
@@ -18,6 +18,7 @@
 package org.apache.poi.hssf.usermodel;
 
 import static org.apache.poi.POITestCase.assertContains;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -37,6 +38,7 @@ import java.util.Collection;
 import java.util.List;
 
 import junit.framework.AssertionFailedError;
+import org.apache.poi.EncryptedDocumentException;
 import org.apache.poi.POIDataSamples;
 import org.apache.poi.ddf.EscherBSERecord;
 import org.apache.poi.hpsf.ClassID;
@@ -50,9 +52,12 @@ import org.apache.poi.hssf.record.CFRuleRecord;
 import org.apache.poi.hssf.record.NameRecord;
 import org.apache.poi.hssf.record.Record;
 import org.apache.poi.hssf.record.RecordBase;
+import org.apache.poi.hssf.record.StandardRecord;
 import org.apache.poi.hssf.record.WindowOneRecord;
+import org.apache.poi.hssf.record.crypto.Biff8EncryptionKey;
 import org.apache.poi.poifs.filesystem.DirectoryEntry;
 import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.DocumentEntry;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.ss.formula.ptg.Area3DPtg;
 import org.apache.poi.ss.usermodel.BaseTestWorkbook;
@@ -67,6 +72,7 @@ import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.util.IOUtils;
 import org.apache.poi.util.LittleEndian;
+import org.apache.poi.util.LittleEndianOutput;
 import org.apache.poi.util.RecordFormatException;
 import org.apache.poi.util.TempFile;
 import org.junit.Ignore;
@@ -1239,6 +1245,60 @@ public final class TestHSSFWorkbook extends BaseTestWorkbook {
         wb.close();
     }
     
+    @Test
+    public void inPlaceWriteKeepsWorkbookOnFailure() throws Exception {
+        final File file = TempFile.createTempFile("TestHSSFWorkbook", ".xls");
+        try (InputStream inputStream = POIDataSamples.getSpreadSheetInstance().openResourceAsStream("SampleSS.xls");
+             FileOutputStream outputStream = new FileOutputStream(file)) {
+            IOUtils.copy(inputStream, outputStream);
+        }
+
+        try (HSSFWorkbook wb = new HSSFWorkbook(new POIFSFileSystem(file, false))) {
+            DirectoryNode dir = wb.getDirectory();
+            int size = ((DocumentEntry)dir.getEntry("Workbook")).getSize();
+            wb.getSheetAt(0).getRow(0).getCell(0).setCellValue("Changed!");
+
+            // a record, which fails after the workbook globals have been streamed
+            List<RecordBase> records = wb.getSheetAt(0).getSheet().getRecords();
+            StandardRecord broken = new StandardRecord() {
+                @Override
+                protected int getDataSize() {
+                    return 0;
+                }
+
+                @Override
+                protected void serialize(LittleEndianOutput out) {
+                    throw new IllegalStateException("broken record");
+                }
+
+                @Override
+                public short getSid() {
+                    return 0x7FFF;
+                }
+            };
+            records.add(records.size() - 1, broken);
+            try {
+                wb.write();
+                fail("the broken record should fail the write");
+            } catch (IllegalStateException e) {
+                assertEquals("broken record", e.getMessage());
+            }
+
+            // the old Workbook entry is kept and the partial one is removed
+            assertEquals(size, ((DocumentEntry)dir.getEntry("Workbook")).getSize());
+            assertFalse(dir.hasEntry("Workbook~"));
+
+            records.remove(broken);
+            wb.write();
+        }
+
+        try (HSSFWorkbook wb = new HSSFWorkbook(new POIFSFileSystem(file))) {
+            assertEquals(3, wb.getNumberOfSheets());
+            assertEquals("Changed!", wb.getSheetAt(0).getRow(0).getCell(0).toString());
+            assertFalse(wb.getDirectory().hasEntry("Workbook~"));
+        }
+    }
+    
     @Test
     public void testWriteToNewFile() throws Exception {
         // Open from a Stream
@@ -1256,6 +1316,48 @@ public final class TestHSSFWorkbook extends BaseTestWorkbook {
         wb.close();
     }
     
+    @Test
+    public void testWriteIsStreamed() throws Exception {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        for (int s = 0; s < 3; s++) {
+            HSSFSheet sheet = wb.createSheet();
+            for (int r = 0; r < 3000; r++) {
+                HSSFRow row = sheet.createRow(r);
+                row.createCell(0).setCellValue("string " + s + "/" + r);
+                row.createCell(1).setCellValue(r);
+            }
+        }
+
+        // the streamed Workbook entry is the same as the serialized byte array
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        wb.write(bos);
+        byte[] expected = wb.getBytes();
+        try (POIFSFileSystem fs = new POIFSFileSystem(new ByteArrayInputStream(bos.toByteArray()));
+             InputStream is = fs.createDocumentInputStream("Workbook")) {
+            assertArrayEquals(expected, IOUtils.toByteArray(is));
+        }
+
+        // encrypted streams are read back
+        bos.reset();
+        Biff8EncryptionKey.setCurrentUserPassword("streamed");
+        try {
+            wb.write(bos);
+            HSSFWorkbook wbBack = new HSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+            assertEquals(3, wbBack.getNumberOfSheets());
+            assertEquals("string 2/2999", wbBack.getSheetAt(2).getRow(2999).getCell(0).getStringCellValue());
+            wbBack.close();
+        } finally {
+            Biff8EncryptionKey.setCurrentUserPassword(null);
+        }
+        try {
+            new HSSFWorkbook(new ByteArrayInputStream(bos.toByteArray())).close();
+            fail("the workbook should be encrypted");
+        } catch (EncryptedDocumentException e) {
+            // expected
+        }
+        wb.close();
+    }
+
     @Ignore
     @Test
     @Override
@@ -77,6 +77,44 @@ public class TestDocument {
         }
     }
 
+    @Test
+    public void testOverwrite() throws IOException {
+        // big blocks and mini stream blocks
+        for (int size : new int[]{ LARGER_BIG_BLOCK_SIZE + 1, 199 }) {
+            try (POIFSFileSystem poifs = new POIFSFileSystem()) {
+                final byte[] input = new byte[size];
+                IntStream.range(0, size).forEach(i -> input[i] = (byte)i);
+                POIFSDocument document = ((DocumentNode)poifs.createDocument(
+                    new ByteArrayInputStream(input), "entry")).getDocument();
+
+                // spans a block boundary
+                final int offset = ((size >= 4096) ? 512 : 64) - 4;
+                byte[] data = { 1, 2, 3, 4, 5, 6, 7, 8 };
+                document.overwrite(offset, data);
+                System.arraycopy(data, 0, input, offset, data.length);
+
+                document.overwrite(size - 1, new byte[]{ 9 });
+                input[size - 1] = 9;
+
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                poifs.writeFilesystem(bos);
+                try (POIFSFileSystem poifs2 = new POIFSFileSystem(new ByteArrayInputStream(bos.toByteArray()));
+                     DocumentInputStream dis = poifs2.createDocumentInputStream("entry")) {
+                    assertArrayEquals(input, IOUtils.toByteArray(dis));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOverwritePastEnd() throws IOException {
+        try (POIFSFileSystem poifs = new POIFSFileSystem()) {
+            POIFSDocument document = ((DocumentNode)poifs.createDocument(
+                new ByteArrayInputStream(new byte[100]), "entry")).getDocument();
+            document.overwrite(96, new byte[8]);
+        }
+    }
+
     private static POIFSDocument checkDocument(final POIFSFileSystem poifs, final int size) throws IOException {
         final byte[] input = new byte[size];
         IntStream.range(0, size).forEach(i -> input[i] = (byte)i);
@@ -21,6 +21,7 @@ package org.apache.poi.poifs.nio;
 
 import junit.framework.TestCase;
 import org.apache.poi.POIDataSamples;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.util.IOUtils;
 import org.apache.poi.util.TempFile;
 
@@ -54,6 +55,38 @@ public class TestDataSource extends TestCase
       }
    }
 
+   public void testFileMapped() throws Exception {
+      File f = data.getFile("Notes.ole2");
+
+      FileBackedDataSource ds = new FileBackedDataSource(f, true, true);
+      try {
+          assertTrue(ds.isMapped());
+          checkDataSource(ds, false);
+
+          // blocks are slices of the read-only mapping
+          ByteBuffer bs = ds.read(512, 0x400);
+          assertTrue(bs.isDirect());
+          assertTrue(bs.isReadOnly());
+          assertEquals(512, bs.capacity());
+          assertEquals((byte) 'R', bs.get(0));
+      } finally {
+          ds.close();
+      }
+
+      // the mapping is a per data source option and only applies to read-only sources
+      ds = new FileBackedDataSource(f);
+      try {
+          assertFalse(ds.isMapped());
+          assertFalse(ds.read(512, 0x400).isReadOnly());
+      } finally {
+          ds.close();
+      }
+
+      try (POIFSFileSystem fs = new POIFSFileSystem(f, true, true)) {
+          assertTrue(fs.getRoot().getEntryCount() > 0);
+      }
+   }
+
    public void testFileWritable() throws Exception {
        File temp = TempFile.createTempFile("TestDataSource", ".test");
        try {
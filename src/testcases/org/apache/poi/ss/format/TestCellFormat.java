@@ -24,6 +24,7 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.swing.JLabel;
 
@@ -1006,4 +1007,35 @@ public class TestCellFormat {
         assertNotNull(instance);
         assertEquals("01/01/1970", instance.apply(new Date(12345)).text);
     }
+
+    @Test
+    public void testDateFormatConcurrently() throws Exception {
+        final CellDateFormatter fmt = new CellDateFormatter("yyyy-mm-dd hh:mm:ss.000");
+        final int days = 200;
+        final String[] expected = new String[days];
+        for (int i = 0; i < days; i++) {
+            expected[i] = fmt.format(new Date(i * 86400000L + i * 1001L));
+        }
+
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int r = 0; r < 20; r++) {
+                        for (int i = 0; i < days; i++) {
+                            assertEquals(expected[i], fmt.format(new Date(i * 86400000L + i * 1001L)));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertNull(failure.get());
+    }
 }
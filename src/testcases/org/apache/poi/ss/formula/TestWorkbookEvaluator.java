@@ -616,4 +616,177 @@ public class TestWorkbookEvaluator {
         
         testIFEqualsFormulaEvaluation_teardown(wb);
     }
+
+    @Test
+    public void testExactLookupIndexIsInvalidated() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            HSSFSheet sheet = wb.createSheet();
+            for (int r = 0; r < 200; r++) {
+                HSSFRow row = sheet.createRow(r);
+                row.createCell(0).setCellValue("key" + r);
+                row.createCell(1).setCellValue(r);
+            }
+            // a formula cell within the lookup range
+            sheet.getRow(3).getCell(0).setCellFormula("\"key\"&\"x\"");
+
+            HSSFRow fRow = sheet.createRow(300);
+            HSSFCell c1 = fRow.createCell(0);
+            c1.setCellFormula("VLOOKUP(\"KEY7\",A1:B201,2,FALSE)");
+            HSSFCell c2 = fRow.createCell(1);
+            c2.setCellFormula("MATCH(\"key150\",A1:A201,0)");
+            HSSFCell c3 = fRow.createCell(2);
+            c3.setCellFormula("VLOOKUP(\"Keyx\",A1:B201,2,FALSE)");
+            HSSFCell c4 = fRow.createCell(3);
+            c4.setCellFormula("MATCH(\"new\",A1:A201,0)");
+
+            HSSFFormulaEvaluator fe = new HSSFFormulaEvaluator(wb);
+            // evaluate twice, so the index gets built and used
+            for (int i = 0; i < 2; i++) {
+                assertEquals(7, fe.evaluate(c1).getNumberValue(), EPSILON);
+                assertEquals(151, fe.evaluate(c2).getNumberValue(), EPSILON);
+                assertEquals(3, fe.evaluate(c3).getNumberValue(), EPSILON);
+                assertEquals(ErrorEval.NA.getErrorCode(), fe.evaluate(c4).getErrorValue());
+            }
+
+            // a duplicate in front of the previous match
+            HSSFCell a5 = sheet.getRow(4).getCell(0);
+            a5.setCellValue("Key7");
+            fe.notifyUpdateCell(a5);
+            assertEquals(4, fe.evaluate(c1).getNumberValue(), EPSILON);
+
+            // a previously blank cell in the range
+            HSSFCell a201 = sheet.createRow(200).createCell(0);
+            a201.setCellValue("NEW");
+            fe.notifyUpdateCell(a201);
+            assertEquals(201, fe.evaluate(c4).getNumberValue(), EPSILON);
+
+            // an input of the formula cell in the range
+            HSSFCell a4 = sheet.getRow(3).getCell(0);
+            a4.setCellFormula("\"key\"&\"y\"");
+            fe.notifyUpdateCell(a4);
+            assertEquals(ErrorEval.NA.getErrorCode(), fe.evaluate(c3).getErrorValue());
+            assertEquals(151, fe.evaluate(c2).getNumberValue(), EPSILON);
+        }
+    }
+
+    @Test
+    public void testExactLookupIndexWithUnsupportedFunctions() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            HSSFSheet sheet = wb.createSheet();
+            for (int r = 0; r < 10; r++) {
+                HSSFRow row = sheet.createRow(r);
+                row.createCell(0).setCellValue("key" + r);
+                row.createCell(1).setCellValue(r);
+            }
+            // an unsupported function behind the matches
+            sheet.getRow(8).getCell(0).setCellFormula("GAMMALN(2)");
+
+            // the same range is looked up repeatedly, so the index would be built
+            HSSFRow fRow = sheet.createRow(20);
+            String[] formulas = {
+                "VLOOKUP(\"key2\",A1:B10,2,FALSE)",
+                "MATCH(\"key5\",A1:A10,0)",
+                "VLOOKUP(\"key3\",A1:B10,2,FALSE)",
+                "MATCH(\"key1\",A1:A10,0)",
+            };
+            double[] expected = { 2, 6, 3, 2 };
+
+            HSSFFormulaEvaluator fe = new HSSFFormulaEvaluator(wb);
+            for (int i = 0; i < formulas.length; i++) {
+                HSSFCell cell = fRow.createCell(i);
+                cell.setCellFormula(formulas[i]);
+                assertEquals(formulas[i], expected[i], fe.evaluate(cell).getNumberValue(), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void testAreaValuesAreInvalidated() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            HSSFSheet sheet = wb.createSheet();
+            for (int r = 0; r < 200; r++) {
+                HSSFRow row = sheet.createRow(r);
+                row.createCell(0).setCellValue("k" + (r % 5));
+                row.createCell(1).setCellValue(r);
+            }
+            // a formula cell within the criteria range
+            sheet.getRow(3).getCell(0).setCellFormula("\"k\"&\"3\"");
+
+            HSSFRow fRow = sheet.createRow(300);
+            HSSFCell c1 = fRow.createCell(0);
+            c1.setCellFormula("SUMIFS(B1:B201,A1:A201,\"k1\")");
+            HSSFCell c2 = fRow.createCell(1);
+            c2.setCellFormula("COUNTIFS(A1:A201,\"K1\",B1:B201,\">100\")");
+            HSSFCell c3 = fRow.createCell(2);
+            c3.setCellFormula("SUMIFS(B1:B201,A1:A201,\"k*\",B1:B201,\"<10\")");
+
+            HSSFFormulaEvaluator fe = new HSSFFormulaEvaluator(wb);
+            // evaluate twice, so the area values get encoded and used
+            for (int i = 0; i < 2; i++) {
+                assertEquals(3940, fe.evaluate(c1).getNumberValue(), EPSILON);
+                assertEquals(20, fe.evaluate(c2).getNumberValue(), EPSILON);
+                assertEquals(45, fe.evaluate(c3).getNumberValue(), EPSILON);
+            }
+
+            // a value in the sum range
+            HSSFCell b2 = sheet.getRow(1).getCell(1);
+            b2.setCellValue(1000);
+            fe.notifyUpdateCell(b2);
+            assertEquals(4939, fe.evaluate(c1).getNumberValue(), EPSILON);
+            assertEquals(44, fe.evaluate(c3).getNumberValue(), EPSILON);
+
+            // previously blank cells in the ranges
+            HSSFRow row201 = sheet.createRow(200);
+            HSSFCell a201 = row201.createCell(0);
+            a201.setCellValue("k1");
+            fe.notifyUpdateCell(a201);
+            HSSFCell b201 = row201.createCell(1);
+            b201.setCellValue(500);
+            fe.notifyUpdateCell(b201);
+            assertEquals(5439, fe.evaluate(c1).getNumberValue(), EPSILON);
+            assertEquals(22, fe.evaluate(c2).getNumberValue(), EPSILON);
+
+            // an input of the formula cell in the range
+            HSSFCell a4 = sheet.getRow(3).getCell(0);
+            a4.setCellFormula("\"k\"&\"1\"");
+            fe.notifyUpdateCell(a4);
+            assertEquals(5442, fe.evaluate(c1).getNumberValue(), EPSILON);
+            assertEquals(44, fe.evaluate(c3).getNumberValue(), EPSILON);
+        }
+    }
+
+    @Test
+    public void testAreaValuesOnlyEvaluateMatchingCells() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            HSSFSheet sheet = wb.createSheet();
+            for (int r = 0; r < 10; r++) {
+                HSSFRow row = sheet.createRow(r);
+                row.createCell(0).setCellValue("k" + (r % 2));
+                row.createCell(1).setCellValue(r);
+                row.createCell(2).setCellValue(r);
+            }
+            // unsupported functions in the sum and the second criteria range of rows, which don't match
+            sheet.getRow(3).getCell(1).setCellFormula("GAMMALN(2)");
+            sheet.getRow(5).getCell(2).setCellFormula("KURT(1,2,3,4)");
+
+            // the same ranges are used repeatedly, so their values get encoded
+            HSSFRow fRow = sheet.createRow(20);
+            String[] formulas = {
+                "SUMIFS(B1:B10,A1:A10,\"k0\")",
+                "SUMIFS(B1:B10,A1:A10,\"<>k1\")",
+                "SUMIFS(B1:B10,A1:A10,\"k*0\")",
+                "COUNTIFS(A1:A10,\"k0\",C1:C10,\">3\")",
+                "COUNTIFS(A1:A10,\"k0\",C1:C10,\">=4\")",
+                "COUNTIFS(A1:A10,\"k0\",C1:C10,\"<>2\")",
+            };
+            double[] expected = { 20, 20, 20, 3, 3, 4 };
+
+            HSSFFormulaEvaluator fe = new HSSFFormulaEvaluator(wb);
+            for (int i = 0; i < formulas.length; i++) {
+                HSSFCell cell = fRow.createCell(i);
+                cell.setCellFormula(formulas[i]);
+                assertEquals(formulas[i], expected[i], fe.evaluate(cell).getNumberValue(), EPSILON);
+            }
+        }
+    }
 }
@@ -22,6 +22,7 @@ import java.util.Locale;
 
 import org.apache.poi.ss.ITestDataProvider;
 import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.formula.BaseFormulaEvaluator;
 import org.apache.poi.ss.util.CellRangeAddressList;
 import org.junit.Test;
 
@@ -729,4 +730,84 @@ public abstract class BaseTestFormulaEvaluator {
 
         wb.close();
     }
+
+    @Test
+    public void testEvaluateDirtyFormulaCells() throws IOException {
+        try (Workbook wb = _testDataProvider.createWorkbook()) {
+            BaseFormulaEvaluator fe = (BaseFormulaEvaluator)wb.getCreationHelper().createFormulaEvaluator();
+            Row row = wb.createSheet().createRow(0);
+            Cell a1 = row.createCell(0);
+            a1.setCellValue(1);
+            row.createCell(1).setCellFormula("A1*2");
+            row.createCell(2).setCellFormula("B1+1");
+            Cell d1 = row.createCell(3);
+            d1.setCellFormula("A1+B1+C1");
+            row.createCell(4).setCellValue(5);
+            Cell f1 = row.createCell(5);
+            f1.setCellFormula("E1*3");
+
+            fe.evaluateAll();
+            assertEquals(6, d1.getNumericCellValue(), 0);
+            assertEquals(0, fe.evaluateDirtyFormulaCells());
+
+            // only the dependents of A1 are recalculated
+            a1.setCellValue(10);
+            fe.notifyUpdateCell(a1);
+            assertEquals(3, fe.evaluateDirtyFormulaCells());
+            assertEquals(20, row.getCell(1).getNumericCellValue(), 0);
+            assertEquals(21, row.getCell(2).getNumericCellValue(), 0);
+            assertEquals(51, d1.getNumericCellValue(), 0);
+            assertEquals(15, f1.getNumericCellValue(), 0);
+            assertEquals(0, fe.evaluateDirtyFormulaCells());
+
+            // a changed formula is recalculated together with its dependents
+            Cell g1 = row.createCell(6);
+            g1.setCellFormula("D1+F1");
+            fe.notifySetFormula(g1);
+            f1.setCellFormula("E1*4");
+            fe.notifySetFormula(f1);
+            assertEquals(2, fe.evaluateDirtyFormulaCells());
+            assertEquals(20, f1.getNumericCellValue(), 0);
+            assertEquals(71, g1.getNumericCellValue(), 0);
+        }
+    }
+
+    @Test
+    public void testEvaluateAllFormulaCellsInParallel() throws IOException {
+        try (Workbook wb = _testDataProvider.createWorkbook()) {
+            Sheet sh1 = wb.createSheet("Sheet1");
+            Sheet sh2 = wb.createSheet("Sheet2");
+            for (int r = 0; r < 50; r++) {
+                Row row = sh1.createRow(r);
+                row.createCell(0).setCellValue(r+1);
+                row.createCell(1).setCellFormula("A"+(r+1)+"*2");
+                row.createCell(2).setCellFormula("SUM(B$1:B"+(r+1)+")");
+                row.createCell(3).setCellFormula("Sheet2!A"+(r+1)+"+1");
+                sh2.createRow(r).createCell(0).setCellFormula("ROW()*10");
+            }
+            Name name = wb.createName();
+            name.setNameName("total");
+            name.setRefersToFormula("Sheet1!$C$50");
+            sh1.getRow(0).createCell(4).setCellFormula("total*2");
+
+            BaseFormulaEvaluator.evaluateAllFormulaCells(wb, 4);
+
+            for (int r = 0; r < 50; r++) {
+                Row row = sh1.getRow(r);
+                assertEquals(2*(r+1), row.getCell(1).getNumericCellValue(), 0);
+                assertEquals((r+1)*(r+2), row.getCell(2).getNumericCellValue(), 0);
+                assertEquals(10*(r+1)+1, row.getCell(3).getNumericCellValue(), 0);
+                assertEquals(10*(r+1), sh2.getRow(r).getCell(0).getNumericCellValue(), 0);
+                assertEquals(CellType.FORMULA, row.getCell(3).getCellType());
+            }
+            assertEquals(5100, sh1.getRow(0).getCell(4).getNumericCellValue(), 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEvaluateAllFormulaCellsInvalidThreads() throws IOException {
+        try (Workbook wb = _testDataProvider.createWorkbook()) {
+            BaseFormulaEvaluator.evaluateAllFormulaCells(wb, 0);
+        }
+    }
 }
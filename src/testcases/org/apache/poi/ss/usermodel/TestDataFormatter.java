@@ -997,6 +997,40 @@ public class TestDataFormatter {
         }
     }
 
+    @Test
+    public void testFormatsAreSharedBetweenInstancesAndThreads() throws Exception {
+        final String[] formats = { "#,##0.00", "0.0%", "yyyy-mm-dd hh:mm:ss", "[h]:mm:ss.00", "000-00-0000", "# ?/?" };
+        final double[] values = { 43551.50990171296, 123456789, 0.25, 1.5 };
+
+        final String[] expected = new String[formats.length * values.length];
+        DataFormatter reference = new DataFormatter(Locale.US);
+        for (int f = 0; f < formats.length; f++) {
+            for (int v = 0; v < values.length; v++) {
+                expected[f * values.length + v] = reference.formatRawCellContents(values[v], 200 + f, formats[f]);
+            }
+        }
+
+        // each thread uses its own formatters, which get their own copies of the shared formats
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                for (int i = 0; i < 200; i++) {
+                    DataFormatter formatter = new DataFormatter(Locale.US);
+                    for (int f = 0; f < formats.length; f++) {
+                        for (int v = 0; v < values.length; v++) {
+                            assertEquals(expected[f * values.length + v],
+                                    formatter.formatRawCellContents(values[v], 200 + f, formats[f]));
+                        }
+                    }
+                }
+                return true;
+            }));
+        }
+        for (CompletableFuture<Boolean> future : futures) {
+            assertTrue(future.get(1, TimeUnit.MINUTES));
+        }
+    }
+
     private static boolean doFormatTest(DataFormatter formatter, double n, String expected, int iteration) {
         int formatIndex = 105;
         String formatString = "[$-F400]m/d/yy h:mm:ss\\ AM/PM;[$-F400]m/d/yy h:mm:ss\\ AM/PM;_-* \"\"??_-;_-@_-";
@@ -21,6 +21,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
@@ -31,6 +32,7 @@ import org.apache.poi.ss.ITestDataProvider;
 import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellStyleModCountSupport;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
@@ -75,6 +77,32 @@ public abstract class BaseTestCellUtil {
         wb.close();
     }
     
+    @Test
+    public void setCellStylePropertyReusesStylesCreatedElsewhere() throws IOException {
+        try (Workbook wb = _testDataProvider.createWorkbook()) {
+            Row r = wb.createSheet().createRow(0);
+            CellUtil.setCellStyleProperty(r.createCell(0), CellUtil.ROTATION, (short)10);
+
+            // styles created or modified outside of CellUtil are found as well
+            CellStyle manual = wb.createCellStyle();
+            manual.cloneStyleFrom(r.createCell(1).getCellStyle());
+            manual.setRotation((short)20);
+            CellStyle modified = wb.createCellStyle();
+            modified.cloneStyleFrom(manual);
+            int styCnt = wb.getNumCellStyles();
+            CellUtil.setCellStyleProperty(r.getCell(1), CellUtil.ROTATION, (short)20);
+            assertEquals(manual.getIndex(), r.getCell(1).getCellStyle().getIndex());
+
+            // a modified style isn't returned for its former properties
+            manual.setRotation((short)30);
+            CellUtil.setCellStyleProperty(r.createCell(2), CellUtil.ROTATION, (short)20);
+            assertEquals(modified.getIndex(), r.getCell(2).getCellStyle().getIndex());
+            CellUtil.setCellStyleProperty(r.getCell(2), CellUtil.ROTATION, (short)10);
+            assertEquals(r.getCell(0).getCellStyle().getIndex(), r.getCell(2).getCellStyle().getIndex());
+            assertEquals(styCnt, wb.getNumCellStyles());
+        }
+    }
+
     @Test(expected=RuntimeException.class)
     public void setCellStylePropertyWithInvalidValue() throws IOException {
         try (Workbook wb = _testDataProvider.createWorkbook()) {
@@ -397,4 +425,44 @@ public abstract class BaseTestCellUtil {
         assertEquals(num1, num2);
         wb1.close();
     }
+
+    @Test
+    public void setCellStylePropertyFindsStylesModifiedAfterIndexing() throws IOException {
+        try (Workbook wb = _testDataProvider.createWorkbook()) {
+            Row r = wb.createSheet().createRow(0);
+            CellUtil.setCellStyleProperty(r.createCell(0), CellUtil.ROTATION, (short)10);
+            CellStyle indexed = r.getCell(0).getCellStyle();
+
+            // the style is indexed with its current properties on this call
+            CellUtil.setCellStyleProperty(r.createCell(1), CellUtil.ROTATION, (short)10);
+            assertEquals(indexed.getIndex(), r.getCell(1).getCellStyle().getIndex());
+
+            // modified in place, the style matches other properties than the indexed ones
+            indexed.setRotation((short)40);
+            int styCnt = wb.getNumCellStyles();
+            CellUtil.setCellStyleProperty(r.createCell(2), CellUtil.ROTATION, (short)40);
+            assertEquals(indexed.getIndex(), r.getCell(2).getCellStyle().getIndex());
+            assertEquals(styCnt, wb.getNumCellStyles());
+        }
+    }
+
+    @Test
+    public void setCellStylePropertyFindsCreatedStylesModifiedLater() throws IOException {
+        try (Workbook wb = _testDataProvider.createWorkbook()) {
+            assertTrue(wb instanceof CellStyleModCountSupport);
+            Row r = wb.createSheet().createRow(0);
+            CellUtil.setCellStyleProperty(r.createCell(0), CellUtil.ROTATION, (short)10);
+            CellStyle created = r.getCell(0).getCellStyle();
+
+            // modified before the created style has been indexed
+            int modCount = ((CellStyleModCountSupport)wb).getCellStyleModCount();
+            created.setRotation((short)40);
+            assertNotEquals(modCount, ((CellStyleModCountSupport)wb).getCellStyleModCount());
+
+            int styCnt = wb.getNumCellStyles();
+            CellUtil.setCellStyleProperty(r.createCell(1), CellUtil.ROTATION, (short)40);
+            assertEquals(created.getIndex(), r.getCell(1).getCellStyle().getIndex());
+            assertEquals(styCnt, wb.getNumCellStyles());
+        }
+    }
 }
@@ -0,0 +1,154 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public final class TestIntSortedArrayMap {
+    @Test
+    public void putGetRemove() {
+        IntSortedArrayMap<String> map = new IntSortedArrayMap<>(2);
+        assertTrue(map.isEmpty());
+        assertNull(map.put(5, "five"));
+        assertNull(map.put(1, "one"));
+        assertNull(map.put(3, "three"));
+        assertEquals("three", map.put(3, "THREE"));
+
+        assertEquals(3, map.size());
+        assertEquals("one", map.get(1));
+        assertEquals("THREE", map.get(Integer.valueOf(3)));
+        assertNull(map.get(2));
+        assertNull(map.get("3"));
+        assertEquals(1, map.firstIntKey());
+        assertEquals(5, map.lastKey().intValue());
+        assertArrayEquals(new Object[]{1, 3, 5}, map.keySet().toArray());
+
+        assertEquals(1, map.rank(2));
+        assertEquals(1, map.rank(3));
+        assertEquals(3, map.rank(10));
+
+        assertEquals("one", map.remove(1));
+        assertNull(map.remove(1));
+        assertEquals(2, map.size());
+        assertEquals(3, map.keyAt(0));
+        assertEquals("five", map.valueAt(1));
+    }
+
+    @Test
+    public void behavesLikeTreeMap() {
+        Random rnd = new Random(4711);
+        IntSortedArrayMap<Integer> map = new IntSortedArrayMap<>();
+        TreeMap<Integer,Integer> ref = new TreeMap<>();
+        for (int i=0; i<2000; i++) {
+            int key = rnd.nextInt(500);
+            if (rnd.nextInt(4) == 0) {
+                assertEquals(ref.remove(key), map.remove(key));
+            } else {
+                Integer val = i;
+                assertEquals(ref.put(key, val), map.put(key, val));
+            }
+        }
+        assertEquals(ref, map);
+        assertEquals(map, ref);
+        assertEquals(ref.hashCode(), map.hashCode());
+        assertEquals(ref.headMap(100), map.headMap(100));
+        assertEquals(ref.headMap(100).size(), map.headMap(100).size());
+        assertEquals(ref.tailMap(250), map.tailMap(250));
+        assertEquals(ref.subMap(100, 200), map.subMap(100, 200));
+        assertEquals(ref.subMap(100, 200).lastKey(), map.subMap(100, 200).lastKey());
+        assertEquals(ref.subMap(100, 200).headMap(150), map.subMap(100, 200).headMap(150));
+        assertArrayEquals(ref.values().toArray(), map.values().toArray());
+    }
+
+    @Test
+    public void views() {
+        IntSortedArrayMap<String> map = new IntSortedArrayMap<>();
+        for (int i=0; i<10; i++) {
+            map.put(i, Integer.toString(i));
+        }
+
+        SortedMap<Integer,String> sub = map.subMap(3, 7);
+        assertEquals(4, sub.size());
+        assertNull(sub.get(7));
+        sub.remove(3);
+        assertFalse(map.containsKey(3));
+
+        for (Iterator<String> iter = sub.values().iterator(); iter.hasNext(); ) {
+            if (iter.next().equals("5")) {
+                iter.remove();
+            }
+        }
+        assertArrayEquals(new Object[]{4, 6}, sub.keySet().toArray());
+
+        for (Map.Entry<Integer,String> me : map.tailMap(8).entrySet()) {
+            me.setValue("x" + me.getValue());
+        }
+        assertEquals("x9", map.get(9));
+
+        map.headMap(2).clear();
+        assertArrayEquals(new Object[]{2, 4, 6, 7, 8, 9}, map.keySet().toArray());
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void failFast() {
+        IntSortedArrayMap<String> map = new IntSortedArrayMap<>();
+        map.put(1, "1");
+        map.put(2, "2");
+        for (Integer key : map.keySet()) {
+            map.remove(key);
+        }
+    }
+
+    @Test
+    public void lazyResolve() {
+        final int[] resolved = { 0 };
+        IntSortedArrayMap<String> map = new IntSortedArrayMap<String>() {
+            @Override
+            protected boolean isResolved(Object stored) {
+                return stored instanceof String;
+            }
+
+            @Override
+            protected String resolve(int key, Object stored) {
+                resolved[0]++;
+                return "v" + stored;
+            }
+        };
+        map.putUnresolved(1, 10);
+        map.putUnresolved(2, 20);
+        assertEquals(0, resolved[0]);
+        assertEquals("v10", map.get(1));
+        assertEquals("v10", map.get(1));
+        assertEquals(1, resolved[0]);
+        assertArrayEquals(new Object[]{"v10", "v20"}, map.values().toArray());
+        assertEquals(2, resolved[0]);
+    }
+}